@@ -0,0 +1,74 @@
+package data;
+
+/**
+ * The dependencies of a single class as a compact list: the name of each dependency with the kinds and amount of
+ * references it was found with, kept in parallel arrays
+ * <p>
+ * Lists are filled by an {@code EdgeCollector} while a class file is parsed and added to a container with
+ * {@link DependencyMap#merge(ClassEdges)}, so parsing a class in a worker thread doesn't need a container of its own.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public final class ClassEdges {
+	
+	private final String className;
+	private final String[] dependencies;
+	private final int[] kinds;
+	private final int[] references;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param className		:	the fully qualified name of the class
+	 * @param dependencies	:	the fully qualified names of the dependencies of the class, without repetitions
+	 * @param kinds			:	the mask of {@code EdgeKind} bits of each dependency
+	 * @param references	:	the amount of references made through each dependency
+	 */
+	ClassEdges(String className, String[] dependencies, int[] kinds, int[] references) {
+		this.className = className;
+		this.dependencies = dependencies;
+		this.kinds = kinds;
+		this.references = references;
+	}
+	
+	/**
+	 * @return the fully qualified name of the class
+	 */
+	public String getClassName() {
+		return this.className;
+	}
+	
+	/**
+	 * @return the amount of dependencies of the class
+	 */
+	public int size() {
+		return this.dependencies.length;
+	}
+	
+	/**
+	 * @param i	:	the position of a dependency, between {@code 0} and {@link ClassEdges#size()} (exclusive)
+	 * @return the fully qualified name of the dependency
+	 */
+	public String getDependency(int i) {
+		return this.dependencies[i];
+	}
+	
+	/**
+	 * @param i	:	the position of a dependency, between {@code 0} and {@link ClassEdges#size()} (exclusive)
+	 * @return the mask of {@code EdgeKind} bits of the dependency
+	 */
+	public int getKinds(int i) {
+		return this.kinds[i];
+	}
+	
+	/**
+	 * @param i	:	the position of a dependency, between {@code 0} and {@link ClassEdges#size()} (exclusive)
+	 * @return the amount of references made through the dependency
+	 */
+	public int getReferences(int i) {
+		return this.references[i];
+	}
+	
+}
@@ -0,0 +1,340 @@
+package data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read only, compact version of a {@code DependencyMap}.
+ * <p>
+ * Each class is identified by a dense {@code int} id, ids follow the lexicographic order of the class names so
+ * a name can be translated to its id with a binary search and no additional map. Direct dependencies and direct
+ * dependents (classes that depend on a class) are stored in compressed sparse row form: the dependencies of class
+ * {@code id} are {@code dependencyTargets[dependencyOffsets[id]..dependencyOffsets[id+1]-1]}, sorted by id.
+ * Packages are also identified by an {@code int} id, and the package of each class is stored in an {@code int[]}
+ * column. The {@code EdgeKind} mask and the amount of references of each dependency are kept in two {@code int[]}
+ * columns parallel to {@code dependencyTargets}.
+ * <p>
+ * The graph is a copy of the dependency map at the moment it was constructed, changes to the map afterwards are
+ * not reflected. Since it is never modified, a graph can be queried by several threads at the same time.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class CompactDependencyGraph {
+
+	/**
+	 * Classes full names sorted lexicographically, the id of a class is its position
+	 */
+	private final String[] names;
+	/**
+	 * Packages names sorted lexicographically, the id of a package is its position
+	 */
+	private final String[] packages;
+	/**
+	 * The package id of each class
+	 */
+	private final int[] packageOf;
+	/**
+	 * Direct dependencies in compressed sparse row form
+	 */
+	private final int[] dependencyOffsets;
+	private final int[] dependencyTargets;
+	/**
+	 * The mask of {@code EdgeKind} bits and the amount of references of each dependency, parallel to
+	 * {@code dependencyTargets}
+	 */
+	private final int[] dependencyKinds;
+	private final int[] dependencyReferences;
+	/**
+	 * Direct dependents in compressed sparse row form
+	 */
+	private final int[] dependentOffsets;
+	private final int[] dependentTargets;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dependencyMap	:	the dependency map to copy
+	 */
+	public CompactDependencyGraph(DependencyMap dependencyMap) {
+		dependencyMap = dependencyMap.view();
+		Set<String> classes = dependencyMap.getClasses();
+		this.names = classes.toArray(new String[classes.size()]);
+		Arrays.sort(this.names);
+		int size = this.names.length;
+		DependencyElem[] elems = new DependencyElem[size];
+		int[] idOfIndex = new int[dependencyMap.getIndexCapacity()];
+		Map<String, Integer> packageIds = new HashMap<String, Integer>();
+		String[] packageOfClass = new String[size];
+		for (int id = 0; id < size; id++) {
+			elems[id] = dependencyMap.getClassAsDependencyElem(this.names[id]);
+			idOfIndex[elems[id].index] = id;
+			packageOfClass[id] = elems[id].getPackage();
+			packageIds.put(packageOfClass[id], -1);
+		}
+		this.packages = packageIds.keySet().toArray(new String[packageIds.size()]);
+		Arrays.sort(this.packages);
+		for (int p = 0; p < this.packages.length; p++) {
+			packageIds.put(this.packages[p], p);
+		}
+		this.packageOf = new int[size];
+		for (int id = 0; id < size; id++) {
+			this.packageOf[id] = packageIds.get(packageOfClass[id]);
+		}
+		this.dependencyOffsets = new int[size + 1];
+		int edges = 0;
+		for (int id = 0; id < size; id++) {
+			for (Set<DependencyElem> dependenciesPerPackage : elems[id].getDirectDependencies().values()) {
+				edges += dependenciesPerPackage.size();
+			}
+			this.dependencyOffsets[id + 1] = edges;
+		}
+		this.dependencyTargets = new int[edges];
+		int[] dependentCounts = new int[size + 1];
+		for (int id = 0; id < size; id++) {
+			int position = this.dependencyOffsets[id];
+			for (Set<DependencyElem> dependenciesPerPackage : elems[id].getDirectDependencies().values()) {
+				for (DependencyElem dependency : dependenciesPerPackage) {
+					int dependencyId = isRegistered(dependency, elems, idOfIndex) ? idOfIndex[dependency.index] : getId(dependency.getFullyQualifiedName());
+					this.dependencyTargets[position++] = dependencyId;
+					dependentCounts[dependencyId + 1]++;
+				}
+			}
+			Arrays.sort(this.dependencyTargets, this.dependencyOffsets[id], position);
+		}
+		this.dependencyKinds = new int[edges];
+		this.dependencyReferences = new int[edges];
+		for (int id = 0; id < size; id++) {
+			for (int e = this.dependencyOffsets[id]; e < this.dependencyOffsets[id + 1]; e++) {
+				this.dependencyKinds[e] = dependencyMap.getEdgeKinds(elems[id], elems[this.dependencyTargets[e]]);
+				this.dependencyReferences[e] = dependencyMap.getEdgeCount(elems[id], elems[this.dependencyTargets[e]]);
+			}
+		}
+		this.dependentOffsets = dependentCounts;
+		for (int id = 0; id < size; id++) {
+			this.dependentOffsets[id + 1] += this.dependentOffsets[id];
+		}
+		this.dependentTargets = new int[edges];
+		int[] next = Arrays.copyOf(this.dependentOffsets, size);
+		for (int id = 0; id < size; id++) {
+			for (int e = this.dependencyOffsets[id]; e < this.dependencyOffsets[id + 1]; e++) {
+				this.dependentTargets[next[this.dependencyTargets[e]]++] = id;
+			}
+		}
+	}
+
+	/**
+	 * @param elem			:	an element
+	 * @param elems			:	the canonical elements of a map, by id
+	 * @param idOfIndex		:	the id of each element, by index
+	 * @return {@code true} if {@code elem} is one of the canonical elements
+	 */
+	private static boolean isRegistered(DependencyElem elem, DependencyElem[] elems, int[] idOfIndex) {
+		return elem.index >= 0 && elem.index < idOfIndex.length && elems[idOfIndex[elem.index]] == elem;
+	}
+	
+	/**
+	 * Constructor used to build a graph from already calculated arrays, arrays are used as they are
+	 *
+	 * @param names					:	classes full names sorted lexicographically
+	 * @param packages				:	packages names sorted lexicographically
+	 * @param packageOf				:	the package id of each class
+	 * @param dependencyOffsets		:	offsets of the dependencies of each class
+	 * @param dependencyTargets		:	dependencies of all classes
+	 * @param dependencyKinds		:	the mask of {@code EdgeKind} bits of each dependency
+	 * @param dependencyReferences	:	the amount of references of each dependency
+	 * @param dependentOffsets		:	offsets of the dependents of each class
+	 * @param dependentTargets		:	dependents of all classes
+	 */
+	CompactDependencyGraph(String[] names, String[] packages, int[] packageOf, int[] dependencyOffsets, int[] dependencyTargets, int[] dependencyKinds, int[] dependencyReferences, int[] dependentOffsets, int[] dependentTargets) {
+		this.names = names;
+		this.packages = packages;
+		this.packageOf = packageOf;
+		this.dependencyOffsets = dependencyOffsets;
+		this.dependencyTargets = dependencyTargets;
+		this.dependencyKinds = dependencyKinds;
+		this.dependencyReferences = dependencyReferences;
+		this.dependentOffsets = dependentOffsets;
+		this.dependentTargets = dependentTargets;
+	}
+
+	/**
+	 * @return the amount of classes in this graph
+	 */
+	public int size() {
+		return this.names.length;
+	}
+
+	/**
+	 * @return the amount of direct dependencies in this graph
+	 */
+	public int getEdgeCount() {
+		return this.dependencyTargets.length;
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return the id of the class, or {@code -1} if the class is not part of this graph
+	 */
+	public int getId(String fullyQualifiedClassName) {
+		int id = Arrays.binarySearch(this.names, fullyQualifiedClassName);
+		return id < 0 ? -1 : id;
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return the full name of the class
+	 */
+	public String getName(int id) {
+		return this.names[id];
+	}
+
+	/**
+	 * @return the amount of packages in this graph
+	 */
+	public int getPackageCount() {
+		return this.packages.length;
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return the id of the package the class belongs to
+	 */
+	public int getPackage(int id) {
+		return this.packageOf[id];
+	}
+
+	/**
+	 * @param packageId	:	a package id
+	 * @return the name of the package
+	 */
+	public String getPackageName(int packageId) {
+		return this.packages[packageId];
+	}
+
+	/**
+	 * @param packageName	:	a package name
+	 * @return the id of the package, or {@code -1} if no class of this graph belongs to the package
+	 */
+	public int getPackageId(String packageName) {
+		int id = Arrays.binarySearch(this.packages, packageName);
+		return id < 0 ? -1 : id;
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return the amount of direct dependencies of the class
+	 */
+	public int getDependencyCount(int id) {
+		return this.dependencyOffsets[id + 1] - this.dependencyOffsets[id];
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependencyCount(id) - 1}
+	 * @return the id of the {@code index}-th direct dependency of the class
+	 */
+	public int getDependency(int id, int index) {
+		return this.dependencyTargets[this.dependencyOffsets[id] + index];
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependencyCount(id) - 1}
+	 * @return the mask of {@code EdgeKind} bits of the {@code index}-th direct dependency of the class
+	 */
+	public int getDependencyKinds(int id, int index) {
+		return this.dependencyKinds[this.dependencyOffsets[id] + index];
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependencyCount(id) - 1}
+	 * @return the amount of references of the {@code index}-th direct dependency of the class
+	 */
+	public int getDependencyReferences(int id, int index) {
+		return this.dependencyReferences[this.dependencyOffsets[id] + index];
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return a new array with the ids of the direct dependencies of the class, sorted by id
+	 */
+	public int[] getDependencies(int id) {
+		return Arrays.copyOfRange(this.dependencyTargets, this.dependencyOffsets[id], this.dependencyOffsets[id + 1]);
+	}
+
+	/**
+	 * @param id			:	a class id
+	 * @param dependencyId	:	another class id
+	 * @return {@code true} if the class {@code id} directly depends on the class {@code dependencyId}
+	 */
+	public boolean dependsOn(int id, int dependencyId) {
+		return Arrays.binarySearch(this.dependencyTargets, this.dependencyOffsets[id], this.dependencyOffsets[id + 1], dependencyId) >= 0;
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return the amount of classes that directly depend on the class
+	 */
+	public int getDependentCount(int id) {
+		return this.dependentOffsets[id + 1] - this.dependentOffsets[id];
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependentCount(id) - 1}
+	 * @return the id of the {@code index}-th class that directly depends on the class
+	 */
+	public int getDependent(int id, int index) {
+		return this.dependentTargets[this.dependentOffsets[id] + index];
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return a new array with the ids of the classes that directly depend on the class, sorted by id
+	 */
+	public int[] getDependents(int id) {
+		return Arrays.copyOfRange(this.dependentTargets, this.dependentOffsets[id], this.dependentOffsets[id + 1]);
+	}
+
+	int[] getDependencyOffsets() {
+		return this.dependencyOffsets;
+	}
+
+	int[] getDependencyTargets() {
+		return this.dependencyTargets;
+	}
+
+	int[] getDependencyKinds() {
+		return this.dependencyKinds;
+	}
+
+	int[] getDependencyReferences() {
+		return this.dependencyReferences;
+	}
+
+	int[] getDependentOffsets() {
+		return this.dependentOffsets;
+	}
+
+	int[] getDependentTargets() {
+		return this.dependentTargets;
+	}
+
+	String[] getNames() {
+		return this.names;
+	}
+
+	String[] getPackages() {
+		return this.packages;
+	}
+
+	int[] getPackageColumn() {
+		return this.packageOf;
+	}
+
+}
@@ -0,0 +1,761 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import utils.PersistentMap;
+
+/**
+ * A thread safe {@code DependencyMap}, classes and dependencies can be added and removed from several threads at once
+ * while other threads query the map
+ * <p>
+ * Writes go to a store of nodes kept in a {@code ConcurrentHashMap}, each node keeps the dependencies of its class in
+ * an open addressing table together with their kinds and references. Nodes are assigned to lock stripes by the hash of
+ * their class name, and every change to a node (creating it, adding dependencies, removing them, setting its defining
+ * root) is made while holding the lock of its stripe, so writers only contend when they write classes of the same
+ * stripe. The amount of classes depending on each node is kept in an {@code AtomicInteger} updated without locks, a
+ * node can only be removed when it drops to zero.
+ * <p>
+ * Queries are answered by an immutable {@code DependencyMapVersion} published incrementally. Each stripe records the
+ * nodes changed since the last publish, and publishing takes the stripes one at a time: while holding the lock of a
+ * stripe it takes the current table of each of its changed nodes, so writers of other stripes are never blocked.
+ * Writers copy a table the first time they change it after its stripe was published, so the tables taken are never
+ * modified. The changes are then applied to the latest version without holding any lock, which only copies the paths
+ * to the changed classes and shares everything else, so a publish costs as much as the changes it publishes and not as
+ * much as the whole map. A version includes, for each stripe, all writes to it completed before that stripe was taken.
+ * <p>
+ * {@link ConcurrentDependencyMap#getVersion()} returns the latest version, publishing a new one only if the map changed
+ * since the last one. Queries by class name about classes, direct dependencies, direct dependents and edges read that
+ * version, other queries of this class, including those inherited from {@code DependencyMap}, read
+ * {@link ConcurrentDependencyMap#snapshot()}, a {@code DependencyMap} copied from the latest version the first time it
+ * is needed, without holding any lock. Two queries may read different versions, so queries that must agree (like
+ * resolving an element and then iterating its dependencies) should be made on the same version or snapshot.
+ * <p>
+ * Elements returned by {@link ConcurrentDependencyMap#getOrCreateDependencyElem(String)} and
+ * {@link ConcurrentDependencyMap#removeDependencies(String)} only carry the name of a class, elements with
+ * dependencies belong to snapshots. Elements passed to this map are resolved by name, so elements of any snapshot can be
+ * used. Members are not tracked.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class ConcurrentDependencyMap extends DependencyMap {
+
+	/**
+	 * Distance between the modification counters of two stripes, so counters of different stripes don't share a cache
+	 * line
+	 */
+	private static final int COUNTER_PADDING = 8;
+
+	/**
+	 * The node of each class
+	 */
+	private final ConcurrentHashMap<String, Node> nodes;
+	private final Stripe[] stripes;
+	/**
+	 * The amount of changes made to the nodes of each stripe, only incremented while holding the lock of the stripe
+	 */
+	private final AtomicLongArray modifications;
+	private final Object publishLock;
+	private volatile Published published;
+
+	/**
+	 * Constructor, using four stripes for each available processor
+	 */
+	public ConcurrentDependencyMap() {
+		this(Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param stripes	:	the amount of lock stripes, rounded up to a power of two
+	 * @throws IllegalArgumentException if {@code stripes} is less than {@code 1}
+	 */
+	public ConcurrentDependencyMap(int stripes) {
+		if (stripes < 1) {
+			throw new IllegalArgumentException("ConcurrentDependencyMap needs at least one stripe (got " + stripes + ")");
+		}
+		int size = Integer.highestOneBit(stripes - 1) << 1;
+		this.nodes = new ConcurrentHashMap<String, Node>();
+		this.stripes = new Stripe[stripes == 1 ? 1 : size];
+		for (int stripe = 0; stripe < this.stripes.length; stripe++) {
+			this.stripes[stripe] = new Stripe();
+		}
+		this.modifications = new AtomicLongArray(this.stripes.length * COUNTER_PADDING);
+		this.publishLock = new Object();
+		this.published = new Published(new DependencyMapVersion(), PersistentMap.<String, String>empty(), 0);
+	}
+
+	/**
+	 * @return the amount of lock stripes
+	 */
+	public int getStripes() {
+		return this.stripes.length;
+	}
+
+	/**
+	 * Returns the latest version of this map, publishing a new one if the map changed since the last one was published
+	 *
+	 * @return the latest version of this map
+	 */
+	public DependencyMapVersion getVersion() {
+		return latest().version;
+	}
+
+	/**
+	 * Returns a snapshot of this map, a {@code DependencyMap} with the contents of {@link ConcurrentDependencyMap#getVersion()}
+	 * <p>
+	 * The snapshot is copied from the version the first time it is requested and then shared by every request for that
+	 * version, it is not modified by this map and must not be modified by its readers.
+	 * <p>
+	 *
+	 * @return the latest snapshot of this map
+	 */
+	public DependencyMap snapshot() {
+		return latest().map();
+	}
+
+	/**
+	 * Publishes a new version of this map with the changes made since the last one was published
+	 *
+	 * @return the version published, the last one if nothing changed
+	 */
+	public DependencyMapVersion publish() {
+		synchronized (this.publishLock) {
+			Published current = this.published;
+			List<Node> frozenNodes = new ArrayList<Node>();
+			List<EdgeTable> frozenTables = new ArrayList<EdgeTable>();
+			List<String> frozenRoots = new ArrayList<String>();
+			long modifications = 0;
+			for (int index = 0; index < this.stripes.length; index++) {
+				Stripe stripe = this.stripes[index];
+				stripe.lock.lock();
+				try {
+					modifications += this.modifications.get(index * COUNTER_PADDING);
+					if (stripe.changed.isEmpty()) {
+						continue;
+					}
+					stripe.version++;
+					for (Node node : stripe.changed.values()) {
+						frozenNodes.add(node);
+						frozenTables.add(node.dependents.get() < 0 ? null : node.edges);
+						frozenRoots.add(node.definingRoot);
+					}
+					stripe.changed.clear();
+				} finally {
+					stripe.lock.unlock();
+				}
+			}
+			if (modifications == current.modifications) {
+				return current.version;
+			}
+			Map<String, Map<String, int[]>> changes = new HashMap<String, Map<String, int[]>>();
+			PersistentMap<String, String> roots = current.roots;
+			for (int i = 0; i < frozenNodes.size(); i++) {
+				String name = frozenNodes.get(i).name;
+				EdgeTable table = frozenTables.get(i);
+				Map<String, int[]> dependencies = null;
+				if (table != null) {
+					dependencies = new HashMap<String, int[]>();
+					for (int slot = 0; slot < table.keys.length; slot++) {
+						if (table.keys[slot] != null) {
+							dependencies.put(table.keys[slot].name, new int[] {table.kinds[slot], table.counts[slot]});
+						}
+					}
+				}
+				changes.put(name, dependencies);
+				roots = table == null || frozenRoots.get(i) == null ? roots.remove(name) : roots.put(name, frozenRoots.get(i));
+			}
+			Published published = new Published(current.version.apply(changes), roots, modifications);
+			this.published = published;
+			return published.version;
+		}
+	}
+
+	/**
+	 * @return the latest published version, publishing a new one if the map changed since the last one
+	 */
+	private Published latest() {
+		Published current = this.published;
+		if (current.modifications == modifications()) {
+			return current;
+		}
+		publish();
+		return this.published;
+	}
+
+	@Override
+	DependencyMap view() {
+		return snapshot();
+	}
+
+	// writes
+
+	@Override
+	public DependencyElem getOrCreateDependencyElem(String fullyQualifiedClassName) {
+		return node(fullyQualifiedClassName).handle;
+	}
+
+	@Override
+	public void addNewDependencyElem(DependencyElem elem) {
+		String name = elem.getFullyQualifiedName();
+		node(name);
+		for (Set<DependencyElem> dependenciesPerPackage : elem.getDirectDependencies().values()) {
+			for (DependencyElem dependency : dependenciesPerPackage) {
+				add(name, dependency.getFullyQualifiedName(), EdgeKind.OTHER.bit(), 1);
+			}
+		}
+	}
+
+	@Override
+	public void addNewDependency(DependencyElem elem, DependencyElem dependency) {
+		add(elem.getFullyQualifiedName(), dependency.getFullyQualifiedName(), EdgeKind.OTHER.bit(), 1);
+	}
+
+	@Override
+	public void addNewDependency(DependencyElem elem, DependencyElem dependency, EdgeKind kind) {
+		add(elem.getFullyQualifiedName(), dependency.getFullyQualifiedName(), kind.bit(), 1);
+	}
+
+	@Override
+	public void addNewDependency(DependencyElem elem, String dependencyFullyQualifiedClassName, EdgeKind kind) {
+		add(elem.getFullyQualifiedName(), dependencyFullyQualifiedClassName, kind.bit(), 1);
+	}
+
+	@Override
+	public void addNewDependency(String elemFullyQualifiedClassName, DependencyElem dependency) {
+		add(elemFullyQualifiedClassName, dependency.getFullyQualifiedName(), EdgeKind.OTHER.bit(), 1);
+	}
+
+	@Override
+	public void addNewDependency(DependencyElem elem, String dependencyFullyQualifiedClassName) {
+		add(elem.getFullyQualifiedName(), dependencyFullyQualifiedClassName, EdgeKind.OTHER.bit(), 1);
+	}
+
+	@Override
+	public void addNewDependency(String elemFullyQualifiedClassName, String dependencyFullyQualifiedClassName) {
+		add(elemFullyQualifiedClassName, dependencyFullyQualifiedClassName, EdgeKind.OTHER.bit(), 1);
+	}
+
+	@Override
+	void addReferences(String elemFullyQualifiedClassName, String dependencyFullyQualifiedClassName, int kinds, int references) {
+		add(elemFullyQualifiedClassName, dependencyFullyQualifiedClassName, kinds, references);
+	}
+
+	@Override
+	public void setDefiningRoot(String fullyQualifiedClassName, String root) {
+		ReentrantLock lock = stripe(fullyQualifiedClassName).lock;
+		lock.lock();
+		try {
+			Node node = node(fullyQualifiedClassName);
+			node.definingRoot = root;
+			modified(node);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Set<DependencyElem> removeDependencies(String fullyQualifiedClassName) {
+		Set<DependencyElem> removed = new HashSet<DependencyElem>();
+		ReentrantLock lock = stripe(fullyQualifiedClassName).lock;
+		lock.lock();
+		try {
+			Node node = this.nodes.get(fullyQualifiedClassName);
+			if (node != null && node.edges.size > 0) {
+				clear(node, removed);
+				modified(node);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return removed;
+	}
+
+	@Override
+	public boolean removeDependencyElem(String fullyQualifiedClassName) {
+		ReentrantLock lock = stripe(fullyQualifiedClassName).lock;
+		lock.lock();
+		try {
+			Node node = this.nodes.get(fullyQualifiedClassName);
+			if (node == null || !node.dependents.compareAndSet(0, -1)) {
+				return false;
+			}
+			clear(node, null);
+			this.nodes.remove(fullyQualifiedClassName);
+			modified(node);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void merge(DependencyMap other) {
+		DependencyMap source = other.view();
+		for (String className : source.getClasses()) {
+			DependencyElem elem = source.getClassAsDependencyElem(className);
+			node(className);
+			for (Set<DependencyElem> dependenciesPerPackage : elem.getDirectDependencies().values()) {
+				for (DependencyElem dependency : dependenciesPerPackage) {
+					add(className, dependency.getFullyQualifiedName(), source.getEdgeKinds(elem, dependency), source.getEdgeCount(elem, dependency));
+				}
+			}
+		}
+	}
+
+	// queries
+
+	@Override
+	public DependencyElem getClassAsDependencyElem(String fullyQualifiedClassName) {
+		return snapshot().getClassAsDependencyElem(fullyQualifiedClassName);
+	}
+
+	@Override
+	public int getEdgeKinds(DependencyElem elem, DependencyElem dependency) {
+		return getVersion().getEdgeKinds(elem.getFullyQualifiedName(), dependency.getFullyQualifiedName());
+	}
+
+	@Override
+	public int getEdgeCount(DependencyElem elem, DependencyElem dependency) {
+		return getVersion().getEdgeCount(elem.getFullyQualifiedName(), dependency.getFullyQualifiedName());
+	}
+
+	/**
+	 * @return {@code null}, members are not tracked
+	 */
+	@Override
+	public MemberGraph getMemberGraph() {
+		return null;
+	}
+
+	@Override
+	public PackageGraph getPackageGraph() {
+		return snapshot().getPackageGraph();
+	}
+
+	@Override
+	int getIndexCapacity() {
+		return snapshot().getIndexCapacity();
+	}
+
+	@Override
+	public Set<String> getClasses() {
+		return getVersion().getClasses();
+	}
+
+	@Override
+	public Set<String> getDependencies(String fullyQualifiedClassName) {
+		return new HashSet<String>(getVersion().getDependencies(fullyQualifiedClassName));
+	}
+
+	@Override
+	public Set<String> getDependencies(DependencyElem elem) {
+		return getDependencies(elem.getFullyQualifiedName());
+	}
+
+	@Override
+	public Set<DependencyElem> getDependenciesAsDependencyElems(DependencyElem elem) {
+		DependencyMap snapshot = snapshot();
+		return snapshot.getDependenciesAsDependencyElems(resolve(snapshot, elem));
+	}
+
+	@Override
+	public Set<DependencyElem> getDependenciesAsDependencyElems(String fullyQualifiedClassName) {
+		return snapshot().getDependenciesAsDependencyElems(fullyQualifiedClassName);
+	}
+
+	@Override
+	public Set<String> getAllDependencies(String fullyQualifiedClassName) {
+		return snapshot().getAllDependencies(fullyQualifiedClassName);
+	}
+
+	@Override
+	public Set<DependencyElem> getAllDependenciesAsDependencyElems(String fullyQualifiedClassName) {
+		return snapshot().getAllDependenciesAsDependencyElems(fullyQualifiedClassName);
+	}
+
+	@Override
+	public TransitiveClosure getTransitiveClosure() {
+		return snapshot().getTransitiveClosure();
+	}
+
+	@Override
+	public Set<String> getDirectDependents(String fullyQualifiedClassName) {
+		return new HashSet<String>(getVersion().getDirectDependents(fullyQualifiedClassName));
+	}
+
+	@Override
+	public Set<String> getAllDependents(String fullyQualifiedClassName) {
+		return snapshot().getAllDependents(fullyQualifiedClassName);
+	}
+
+	@Override
+	public Set<String> getDependents(String fullyQualifiedClassName, int maxDepth) {
+		return snapshot().getDependents(fullyQualifiedClassName, maxDepth);
+	}
+
+	@Override
+	public Set<DependencyElem> getDependentsAsDependencyElems(String fullyQualifiedClassName, int maxDepth) {
+		return snapshot().getDependentsAsDependencyElems(fullyQualifiedClassName, maxDepth);
+	}
+
+	@Override
+	public Iterator<DependencyElem> dependencyIterator(DependencyElem elem, DependencyFilter filter) {
+		DependencyMap snapshot = snapshot();
+		return snapshot.dependencyIterator(resolve(snapshot, elem), filter);
+	}
+
+	@Override
+	public Iterator<DependencyElem> dependencyIterator(String fullyQualifiedClassName, DependencyFilter filter) {
+		return snapshot().dependencyIterator(fullyQualifiedClassName, filter);
+	}
+
+	@Override
+	public Iterator<DependencyElem> dependentIterator(DependencyElem elem, DependencyFilter filter) {
+		DependencyMap snapshot = snapshot();
+		return snapshot.dependentIterator(resolve(snapshot, elem), filter);
+	}
+
+	@Override
+	public Stream<DependencyElem> dependencyStream(DependencyElem elem, DependencyFilter filter) {
+		DependencyMap snapshot = snapshot();
+		return snapshot.dependencyStream(resolve(snapshot, elem), filter);
+	}
+
+	@Override
+	public Stream<DependencyElem> dependentStream(DependencyElem elem, DependencyFilter filter) {
+		DependencyMap snapshot = snapshot();
+		return snapshot.dependentStream(resolve(snapshot, elem), filter);
+	}
+
+	@Override
+	public Stream<DependencyElem> elementStream(DependencyFilter filter) {
+		return snapshot().elementStream(filter);
+	}
+
+	@Override
+	public boolean visitDependencies(DependencyFilter filter, EdgeVisitor visitor) {
+		return snapshot().visitDependencies(filter, visitor);
+	}
+
+	/**
+	 * @param snapshot	:	a snapshot
+	 * @param elem		:	an element of any map
+	 * @return the element of {@code snapshot} with the same name as {@code elem}, or a new element without
+	 * dependencies if {@code snapshot} has none
+	 */
+	private static DependencyElem resolve(DependencyMap snapshot, DependencyElem elem) {
+		DependencyElem resolved = snapshot.getClassAsDependencyElem(elem.getFullyQualifiedName());
+		return resolved != null ? resolved : new DependencyElem(elem.getFullyQualifiedName());
+	}
+
+	/**
+	 * Adds kinds and references to a dependency, creating both classes and the dependency if needed
+	 */
+	private void add(String from, String to, int kinds, int references) {
+		if (from.equals(to)) {
+			return;
+		}
+		Stripe stripe = stripe(from);
+		ReentrantLock lock = stripe.lock;
+		while (true) {
+			Node target = node(to);
+			lock.lock();
+			try {
+				Node source = node(from);
+				EdgeTable table = source.edges;
+				boolean contained = table.contains(target);
+				if (!contained && !retain(target)) {
+					continue;
+				}
+				if (table == EdgeTable.EMPTY || source.version != stripe.version || (!contained && table.full())) {
+					table = table.copy();
+					source.edges = table;
+					source.version = stripe.version;
+				}
+				table.add(target, kinds, references);
+				modified(source);
+				return;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Counts one more class depending on a node
+	 *
+	 * @param node	:	the node
+	 * @return {@code true} if the node was not removed, {@code false} if it was removed and must be created again
+	 */
+	private static boolean retain(Node node) {
+		while (true) {
+			int dependents = node.dependents.get();
+			if (dependents < 0) {
+				return false;
+			}
+			if (node.dependents.compareAndSet(dependents, dependents + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Removes all dependencies of a node, the lock of its stripe must be held
+	 *
+	 * @param node		:	the node
+	 * @param removed	:	where to add the handles of the dependencies removed, or {@code null}
+	 */
+	private static void clear(Node node, Set<DependencyElem> removed) {
+		EdgeTable table = node.edges;
+		for (int slot = 0; slot < table.keys.length; slot++) {
+			Node target = table.keys[slot];
+			if (target != null) {
+				target.dependents.decrementAndGet();
+				if (removed != null) {
+					removed.add(target.handle);
+				}
+			}
+		}
+		node.edges = EdgeTable.EMPTY;
+	}
+
+	/**
+	 * @param name	:	a class name
+	 * @return the node of the class, created if needed
+	 */
+	private Node node(String name) {
+		Node node = this.nodes.get(name);
+		if (node != null) {
+			return node;
+		}
+		ReentrantLock lock = stripe(name).lock;
+		lock.lock();
+		try {
+			node = this.nodes.get(name);
+			if (node == null) {
+				node = new Node(name);
+				this.nodes.put(name, node);
+				modified(node);
+			}
+			return node;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Stripe stripe(String name) {
+		return this.stripes[index(name)];
+	}
+
+	private int index(String name) {
+		int hash = name.hashCode();
+		return (hash ^ (hash >>> 16)) & (this.stripes.length - 1);
+	}
+
+	/**
+	 * Records a change to a node for the next publish, the lock of its stripe must be held
+	 */
+	private void modified(Node node) {
+		int index = index(node.name);
+		this.stripes[index].changed.put(node.name, node);
+		int counter = index * COUNTER_PADDING;
+		this.modifications.lazySet(counter, this.modifications.get(counter) + 1);
+	}
+
+	/**
+	 * @return the amount of changes made to all stripes
+	 */
+	private long modifications() {
+		long modifications = 0;
+		for (int stripe = 0; stripe < this.stripes.length; stripe++) {
+			modifications += this.modifications.get(stripe * COUNTER_PADDING);
+		}
+		return modifications;
+	}
+
+	/**
+	 * A lock stripe, with the nodes of the stripe changed since the last publish
+	 */
+	private static final class Stripe {
+
+		final ReentrantLock lock;
+		/**
+		 * The fields below are guarded by {@code lock}
+		 */
+		final Map<String, Node> changed;
+		/**
+		 * Incremented by each publish that takes the stripe, tables created in an older version may be shared with a
+		 * published version and are copied before being changed
+		 */
+		int version;
+
+		Stripe() {
+			this.lock = new ReentrantLock();
+			this.changed = new HashMap<String, Node>();
+		}
+
+	}
+
+	/**
+	 * A version with the defining roots of its classes, and the amount of changes made to the map when it was published
+	 */
+	private static final class Published {
+
+		final DependencyMapVersion version;
+		final PersistentMap<String, String> roots;
+		final long modifications;
+		/**
+		 * The snapshot copied from {@code version}, guarded by this object
+		 */
+		private DependencyMap map;
+
+		Published(DependencyMapVersion version, PersistentMap<String, String> roots, long modifications) {
+			this.version = version;
+			this.roots = roots;
+			this.modifications = modifications;
+		}
+
+		synchronized DependencyMap map() {
+			if (this.map == null) {
+				DependencyMap map = this.version.toDependencyMap();
+				for (Map.Entry<String, String> root : this.roots) {
+					if (this.version.contains(root.getKey())) {
+						map.setDefiningRoot(root.getKey(), root.getValue());
+					}
+				}
+				this.map = map;
+			}
+			return this.map;
+		}
+
+	}
+
+	/**
+	 * A class of the map
+	 */
+	private static final class Node {
+
+		final String name;
+		final int hash;
+		/**
+		 * An element without dependencies, only carrying the name of the class
+		 */
+		final DependencyElem handle;
+		/**
+		 * The amount of nodes with a dependency to this one, {@code -1} once the node is removed
+		 */
+		final AtomicInteger dependents;
+		/**
+		 * The fields below are guarded by the lock of the stripe of the node
+		 */
+		String definingRoot;
+		EdgeTable edges;
+		/**
+		 * The version of the stripe of the node when {@code edges} was created
+		 */
+		int version;
+
+		Node(String name) {
+			this.name = name;
+			int hash = name.hashCode() * 0x9E3779B9;
+			this.hash = hash ^ (hash >>> 16);
+			this.handle = new DependencyElem(name);
+			this.dependents = new AtomicInteger();
+			this.edges = EdgeTable.EMPTY;
+		}
+
+	}
+
+	/**
+	 * The dependencies of a node with their kinds and references, in an open addressing table with linear probing
+	 * keyed by the nodes depended upon. Dependencies are only added, a node drops its whole table to remove them.
+	 */
+	private static final class EdgeTable {
+
+		static final EdgeTable EMPTY = new EdgeTable(0);
+
+		final Node[] keys;
+		final int[] kinds;
+		final int[] counts;
+		int size;
+
+		EdgeTable(int capacity) {
+			this.keys = new Node[capacity];
+			this.kinds = new int[capacity];
+			this.counts = new int[capacity];
+		}
+
+		boolean contains(Node target) {
+			return this.size > 0 && this.keys[find(this.keys, target)] == target;
+		}
+
+		/**
+		 * @return a copy of this table with room for at least one more dependency
+		 */
+		EdgeTable copy() {
+			int capacity = Math.max(4, this.keys.length);
+			if ((this.size + 1) * 4 > capacity * 3) {
+				capacity <<= 1;
+			}
+			EdgeTable copy = new EdgeTable(capacity);
+			for (int slot = 0; slot < this.keys.length; slot++) {
+				if (this.keys[slot] != null) {
+					int target = find(copy.keys, this.keys[slot]);
+					copy.keys[target] = this.keys[slot];
+					copy.kinds[target] = this.kinds[slot];
+					copy.counts[target] = this.counts[slot];
+				}
+			}
+			copy.size = this.size;
+			return copy;
+		}
+
+		/**
+		 * Adds kinds and references to a dependency, the table must have room for one more dependency
+		 */
+		void add(Node target, int kinds, int references) {
+			int slot = find(this.keys, target);
+			if (this.keys[slot] == null) {
+				this.keys[slot] = target;
+				this.size++;
+			}
+			this.kinds[slot] |= kinds;
+			this.counts[slot] += references;
+		}
+
+		/**
+		 * @return {@code true} if one more dependency would exceed the load factor of this table
+		 */
+		boolean full() {
+			return (this.size + 1) * 4 > this.keys.length * 3;
+		}
+
+		/**
+		 * @return the slot holding {@code target}, or the empty slot where it would be added
+		 */
+		private static int find(Node[] keys, Node target) {
+			int mask = keys.length - 1;
+			int slot = target.hash & mask;
+			while (keys[slot] != null && keys[slot] != target) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+	}
+
+}
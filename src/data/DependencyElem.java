@@ -1,15 +1,26 @@
 package data;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 /**
  * This class represents a class defined by its name, package and dependencies.
+ * <p>
+ * Collections used to store dependencies are created when the first dependency is added, so elements
+ * that are only referenced by other classes don't allocate any of them.
+ * <p>
+ * Each element also keeps the classes that directly depend on it, this reverse index is updated every time
+ * a dependency is added or removed.
+ * <p>
  * 
  * @author Simon Emmanuel Gutierrez Brida
- * @version 0.2u
+ * @version 0.4u
  */
 public class DependencyElem implements Comparable<DependencyElem>{
 	/**
@@ -25,17 +36,28 @@ public class DependencyElem implements Comparable<DependencyElem>{
 	 */
 	private String pkg;
 	/**
-	 * Direct dependencies of this class divided by packages
+	 * Direct dependencies of this class divided by packages, {@code null} until the first dependency is added
 	 */
 	private Map<String, Set<DependencyElem>> dependencies;
 	/**
-	 * Recursive dependencies of this class divided by packages
+	 * Classes that directly depend on this class, {@code null} until the first dependent is added
 	 */
-	private Map<String, Set<DependencyElem>> flattenedDependencies;
+	private Set<DependencyElem> dependents;
 	/**
-	 * The las set of dependencies added
+	 * A dense number assigned by the {@code DependencyMap} this element is registered in, {@code -1} if the
+	 * element is not registered in any map
 	 */
-	private Set<DependencyElem> latestDependenciesAdded;
+	int index = -1;
+	/**
+	 * The id of the package of this class in the {@code PackageGraph} of the {@code DependencyMap} this element is
+	 * registered in, {@code -1} if the element is not registered in any map
+	 */
+	int packageId = -1;
+	/**
+	 * The root (folder or zip file) where this class was found, {@code null} if the class was not found while
+	 * scanning and it's only used by other classes
+	 */
+	private String definingRoot;
 	
 	/**
 	 * Constructor
@@ -52,9 +74,6 @@ public class DependencyElem implements Comparable<DependencyElem>{
 			this.pkg = "";
 			this.simpleClassName = fullyQualifiedName;
 		}
-		this.dependencies = new HashMap<String, Set<DependencyElem>>();
-		this.flattenedDependencies = new HashMap<String, Set<DependencyElem>>();
-		this.latestDependenciesAdded = new TreeSet<DependencyElem>();
 	}
 	
 	/**
@@ -65,21 +84,26 @@ public class DependencyElem implements Comparable<DependencyElem>{
 	 */
 	public DependencyElem(String fullyQualifiedName, Map<String, Set<DependencyElem>> dependencies) {
 		this(fullyQualifiedName);
-		this.dependencies.putAll(dependencies);
 		for (Set<DependencyElem> deps : dependencies.values()) {
-			this.latestDependenciesAdded.addAll(deps);
+			for (DependencyElem dep : deps) {
+				addDependency(dep);
+			}
 		}
 	}
 	
 	/**
-	 * Adds a new dependency for this class
+	 * Adds a new dependency for this class, and adds this class as a dependent of {@code elem}
 	 * 
 	 * @param elem	:	the dependency to add
+	 * @return {@code true} if {@code elem} was not already a dependency of this class
 	 */
-	public void addDependency(DependencyElem elem) {
+	public boolean addDependency(DependencyElem elem) {
 		Set<DependencyElem> dependenciesForPackage;
 		if (this.equals(elem)) {
-			return;
+			return false;
+		}
+		if (this.dependencies == null) {
+			this.dependencies = new HashMap<String, Set<DependencyElem>>();
 		}
 		if (this.dependencies.containsKey(elem.getPackage())) {
 			dependenciesForPackage = this.dependencies.get(elem.getPackage());
@@ -87,25 +111,118 @@ public class DependencyElem implements Comparable<DependencyElem>{
 			dependenciesForPackage = new TreeSet<DependencyElem>();
 			this.dependencies.put(elem.getPackage(), dependenciesForPackage);
 		}
-		if (!dependenciesForPackage.contains(elem)) {
-			dependenciesForPackage.add(elem);
-			this.latestDependenciesAdded.add(elem);
+		if (dependenciesForPackage.add(elem)) {
+			elem.addDependent(this);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Adds a class that directly depends on this class
+	 * 
+	 * @param elem	:	the dependent to add
+	 */
+	private void addDependent(DependencyElem elem) {
+		if (this.dependents == null) {
+			this.dependents = new TreeSet<DependencyElem>();
+		}
+		this.dependents.add(elem);
+	}
+	
+	/**
+	 * Removes a class from the classes that directly depend on this class
+	 * 
+	 * @param elem	:	the dependent to remove
+	 */
+	private void removeDependent(DependencyElem elem) {
+		if (this.dependents != null) {
+			this.dependents.remove(elem);
+			if (this.dependents.isEmpty()) {
+				this.dependents = null;
+			}
+		}
+	}
+	
+	/**
+	 * Removes all direct dependencies of this class, and removes this class as a dependent of each of them
+	 */
+	void clearDependencies() {
+		if (this.dependencies == null) {
+			return;
 		}
+		for (Set<DependencyElem> dependenciesPerPackage : this.dependencies.values()) {
+			for (DependencyElem dependency : dependenciesPerPackage) {
+				dependency.removeDependent(this);
+			}
+		}
+		this.dependencies = null;
 	}
 	
 	/**
 	 * @return direct dependencies of this class divided by packages
 	 */
 	public Map<String, Set<DependencyElem>> getDirectDependencies() {
+		if (this.dependencies == null) {
+			return Collections.emptyMap();
+		}
 		return this.dependencies;
 	}
 	
 	/**
+	 * @return classes that directly depend on this class
+	 */
+	public Set<DependencyElem> getDirectDependents() {
+		if (this.dependents == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(this.dependents);
+	}
+	
+	/**
+	 * @return {@code true} if this class has at least one direct dependency
+	 */
+	public boolean hasDependencies() {
+		return this.dependencies != null && !this.dependencies.isEmpty();
+	}
+	
+	/**
+	 * Calculates the recursive dependencies of this class, following the dependencies of each dependency.
+	 * <p>
+	 * Dependency cycles are supported, each class is visited once and this class is never part of the result.
+	 * The result is calculated on each call, to query recursive dependencies for many classes of the same
+	 * map use {@link DependencyMap#getAllDependencies(String)} instead.
+	 * <p>
+	 * 
 	 * @return recursive dependencies of this class divided by packages
 	 */
 	public Map<String, Set<DependencyElem>> getAllDependencies() {
-		flattenDependencies();
-		return this.flattenedDependencies;
+		if (this.dependencies == null) {
+			return Collections.emptyMap();
+		}
+		return flattenDependencies();
+	}
+	
+	/**
+	 * @return the root (folder or zip file) where this class was found, or {@code null} if the class was not found
+	 * while scanning and it's only used by other classes
+	 */
+	public String getDefiningRoot() {
+		return this.definingRoot;
+	}
+	
+	/**
+	 * @param definingRoot	:	the root where this class was found, or {@code null}
+	 */
+	void setDefiningRoot(String definingRoot) {
+		this.definingRoot = definingRoot;
+	}
+	
+	/**
+	 * @return {@code true} if this class was found while scanning
+	 */
+	public boolean isDefined() {
+		return this.definingRoot != null;
 	}
 	
 	/**
@@ -137,6 +254,7 @@ public class DependencyElem implements Comparable<DependencyElem>{
 	
 	@Override
 	public boolean equals(Object other) {
+		if (this == other) return true;
 		if (other == null) return false;
 		if (!(other instanceof DependencyElem)) return false;
 		if (this.pkg.compareTo(((DependencyElem)other).pkg) != 0) return false;
@@ -145,32 +263,52 @@ public class DependencyElem implements Comparable<DependencyElem>{
 		return true;
 	}
 	
+	@Override
+	public int hashCode() {
+		return this.fullyQualifiedClassName.hashCode();
+	}
+	
 	@Override
 	public String toString() {
 		return this.fullyQualifiedClassName;
 	}
 	
-	private void flattenDependencies() {
-		if (!this.latestDependenciesAdded.isEmpty()) {
-			for (DependencyElem dep : this.latestDependenciesAdded) {
-				if (addToFlattenDependencies(dep)) {
-					this.flattenedDependencies.putAll(dep.getAllDependencies());
+	/**
+	 * Visits all classes reachable from this one using an explicit stack, so deep dependency chains
+	 * don't overflow the call stack
+	 * 
+	 * @return recursive dependencies of this class divided by packages
+	 */
+	private Map<String, Set<DependencyElem>> flattenDependencies() {
+		Map<String, Set<DependencyElem>> flattenedDependencies = new HashMap<String, Set<DependencyElem>>();
+		Set<DependencyElem> visited = new HashSet<DependencyElem>();
+		Deque<DependencyElem> pending = new ArrayDeque<DependencyElem>();
+		visited.add(this);
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			DependencyElem current = pending.pop();
+			for (Set<DependencyElem> dependenciesPerPackage : current.getDirectDependencies().values()) {
+				for (DependencyElem dep : dependenciesPerPackage) {
+					if (visited.add(dep)) {
+						addToFlattenDependencies(flattenedDependencies, dep);
+						pending.push(dep);
+					}
 				}
 			}
-			this.latestDependenciesAdded.clear();
 		}
+		return flattenedDependencies;
 	}
 	
-	private boolean addToFlattenDependencies(DependencyElem elem) {
+	private static void addToFlattenDependencies(Map<String, Set<DependencyElem>> flattenedDependencies, DependencyElem elem) {
 		Set<DependencyElem> dependenciesPerPackage;
 		String pkg = elem.getPackage();
-		if (this.flattenedDependencies.containsKey(pkg)) {
-			dependenciesPerPackage = this.flattenedDependencies.get(pkg);
+		if (flattenedDependencies.containsKey(pkg)) {
+			dependenciesPerPackage = flattenedDependencies.get(pkg);
 		} else {
 			dependenciesPerPackage = new TreeSet<DependencyElem>();
-			this.flattenedDependencies.put(pkg, dependenciesPerPackage);
+			flattenedDependencies.put(pkg, dependenciesPerPackage);
 		}
-		return dependenciesPerPackage.add(elem);
+		dependenciesPerPackage.add(elem);
 	}
 	
 }
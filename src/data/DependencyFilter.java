@@ -0,0 +1,161 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Selects the classes returned by the streaming queries of a {@code DependencyMap}
+ * <p>
+ * A class is accepted when its package is one of the package prefixes (or a subpackage of one of them) and, if
+ * requested, when it was found while scanning. A filter with no package prefixes accepts classes of any package.
+ * Filters can also select dependencies by their {@code EdgeKind}: a dependency is accepted when it was found with at
+ * least one of the selected kinds, so excluding {@link EdgeKind#ANNOTATION} ignores the dependencies only used by
+ * annotations. Filters are immutable and can be shared between threads.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class DependencyFilter {
+
+	/**
+	 * A filter that accepts every class
+	 */
+	public static final DependencyFilter ALL = new DependencyFilter(Collections.<String>emptyList(), false);
+	/**
+	 * A filter that accepts only classes found while scanning
+	 */
+	public static final DependencyFilter DEFINED = new DependencyFilter(Collections.<String>emptyList(), true);
+
+	private final String[] packagePrefixes;
+	private final boolean definedOnly;
+	private final int edgeKinds;
+
+	/**
+	 * Constructor
+	 *
+	 * @param packagePrefixes	:	the packages whose classes, and the classes of their subpackages, are accepted, or
+	 * 								an empty list to accept classes of any package
+	 * @param definedOnly		:	{@code true} to accept only classes found while scanning
+	 */
+	public DependencyFilter(List<String> packagePrefixes, boolean definedOnly) {
+		this(packagePrefixes, definedOnly, EdgeKind.ALL);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param packagePrefixes	:	the packages whose classes, and the classes of their subpackages, are accepted, or
+	 * 								an empty list to accept classes of any package
+	 * @param definedOnly		:	{@code true} to accept only classes found while scanning
+	 * @param edgeKinds			:	a mask of the {@code EdgeKind} bits of the dependencies accepted
+	 */
+	public DependencyFilter(List<String> packagePrefixes, boolean definedOnly, int edgeKinds) {
+		this.packagePrefixes = packagePrefixes.toArray(new String[packagePrefixes.size()]);
+		this.definedOnly = definedOnly;
+		this.edgeKinds = edgeKinds & EdgeKind.ALL;
+	}
+
+	/**
+	 * @param packagePrefixes	:	the packages whose classes, and the classes of their subpackages, are accepted
+	 * @return a filter accepting classes of the given packages, whether they were found while scanning or not
+	 */
+	public static DependencyFilter packages(String... packagePrefixes) {
+		List<String> prefixes = new ArrayList<String>(packagePrefixes.length);
+		Collections.addAll(prefixes, packagePrefixes);
+		return new DependencyFilter(prefixes, false);
+	}
+
+	/**
+	 * @return a filter accepting the same packages as this one, but only classes found while scanning
+	 */
+	public DependencyFilter definedOnly() {
+		return new DependencyFilter(prefixes(), true, this.edgeKinds);
+	}
+
+	/**
+	 * @param kinds	:	the kinds of the dependencies to accept
+	 * @return a filter accepting the same classes as this one, but only dependencies found with at least one of
+	 * {@code kinds}
+	 */
+	public DependencyFilter withEdgeKinds(EdgeKind... kinds) {
+		return new DependencyFilter(prefixes(), this.definedOnly, EdgeKind.mask(kinds));
+	}
+
+	/**
+	 * @param kinds	:	the kinds of the dependencies to ignore
+	 * @return a filter accepting the same classes as this one, but ignoring dependencies found only with
+	 * {@code kinds}
+	 */
+	public DependencyFilter withoutEdgeKinds(EdgeKind... kinds) {
+		return new DependencyFilter(prefixes(), this.definedOnly, this.edgeKinds & ~EdgeKind.mask(kinds));
+	}
+
+	/**
+	 * @param elem	:	a class
+	 * @return {@code true} if {@code elem} is accepted by this filter
+	 */
+	public boolean accept(DependencyElem elem) {
+		return (!this.definedOnly || elem.isDefined()) && acceptPackage(elem.getPackage());
+	}
+
+	/**
+	 * @param pkg	:	a package
+	 * @return {@code true} if classes of {@code pkg} may be accepted by this filter
+	 */
+	public boolean acceptPackage(String pkg) {
+		if (this.packagePrefixes.length == 0) {
+			return true;
+		}
+		for (String prefix : this.packagePrefixes) {
+			if (pkg.startsWith(prefix) && (pkg.length() == prefix.length() || prefix.isEmpty() || pkg.charAt(prefix.length()) == '.')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param kinds	:	the mask of {@code EdgeKind} bits of a dependency
+	 * @return {@code true} if a dependency with {@code kinds} is accepted by this filter
+	 */
+	public boolean acceptEdgeKinds(int kinds) {
+		return (kinds & this.edgeKinds) != 0;
+	}
+
+	/**
+	 * @return the mask of the {@code EdgeKind} bits of the dependencies accepted
+	 */
+	public int getEdgeKinds() {
+		return this.edgeKinds;
+	}
+
+	/**
+	 * @return {@code true} if this filter ignores dependencies of some kinds
+	 */
+	public boolean restrictsEdgeKinds() {
+		return this.edgeKinds != EdgeKind.ALL;
+	}
+
+	/**
+	 * @return {@code true} if this filter accepts only classes found while scanning
+	 */
+	public boolean isDefinedOnly() {
+		return this.definedOnly;
+	}
+
+	/**
+	 * @return {@code true} if this filter accepts every class, whatever the kinds of dependencies it accepts
+	 */
+	boolean acceptsAll() {
+		return this.packagePrefixes.length == 0 && !this.definedOnly;
+	}
+
+	private List<String> prefixes() {
+		List<String> prefixes = new ArrayList<String>(this.packagePrefixes.length);
+		Collections.addAll(prefixes, this.packagePrefixes);
+		return prefixes;
+	}
+
+}
@@ -1,34 +1,129 @@
 package data;
 
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class is a container for all classes and dependencies found while scanning a folder
+ * <p>
+ * The container keeps a single canonical {@code DependencyElem} for each class name, every dependency added is
+ * resolved to the canonical element of the dependency so the graph formed by the elements is connected.
+ * <p>
+ * Dependencies are also aggregated by package in a {@code PackageGraph}, updated as classes and dependencies are
+ * added and removed, see {@link DependencyMap#getPackageGraph()}.
+ * <p>
+ * Besides the queries returning new sets, the container offers iterators, streams and an {@code EdgeVisitor} that
+ * read the dependencies kept by each element without copying them, selecting classes with a {@code DependencyFilter}.
+ * These views must not be used while the container is being modified, streams of elements can be made parallel.
+ * <p>
+ * Each dependency also keeps the kinds of use it was found with ({@code EdgeKind}) as a bitmask and the amount of
+ * references made through it, see {@link DependencyMap#getEdgeKinds(DependencyElem, DependencyElem)}. Filters can
+ * select dependencies by kind, to ignore weak dependencies like annotation only ones.
+ * <p>
+ * Containers created with {@link DependencyMap#DependencyMap(boolean)} also keep the dependencies between methods and
+ * fields in a {@code MemberGraph}, see {@link DependencyMap#getMemberGraph()}.
+ * <p>
+ * Containers are the {@code DependencySink} parsers add dependencies to when scanning class files.
+ * <p>
  * 
  * @author Simon Emmanuel Gutierrez Brida
- * @version 0.1u
+ * @version 0.9u
  */
-public class DependencyMap {
+public class DependencyMap implements DependencySink {
 
 	/**
-	 * A mapping of classes full names and {@code DependencyElem}
+	 * Receives the dependencies visited by {@link DependencyMap#visitDependencies(DependencyFilter, EdgeVisitor)}
+	 */
+	public interface EdgeVisitor {
+		
+		/**
+		 * Called for each dependency visited
+		 * 
+		 * @param elem			:	the dependent class
+		 * @param dependency	:	the class on which {@code elem} depends
+		 * @return {@code true} to continue visiting, {@code false} to stop
+		 */
+		boolean visit(DependencyElem elem, DependencyElem dependency);
+		
+	}
+	
+	/**
+	 * A mapping of classes full names and their canonical {@code DependencyElem}
 	 */
 	private Map<String, DependencyElem> elements;
 	/**
 	 * All classes found
 	 */
 	private Set<String> classes;
+	/**
+	 * A read only view of {@code classes}
+	 */
+	private Set<String> classesView;
+	/**
+	 * The amount of changes made to this container, used to know when {@code closure} is outdated
+	 */
+	private int modifications;
+	/**
+	 * The index that will be assigned to the next element added, indexes of removed elements are not reused
+	 */
+	private int nextIndex;
+	/**
+	 * Recursive dependencies calculated for this container, {@code null} until first needed
+	 */
+	private TransitiveClosure closure;
+	/**
+	 * The value of {@code modifications} when {@code closure} was calculated
+	 */
+	private int closureModifications;
+	/**
+	 * Dependencies of this container aggregated by package
+	 */
+	private PackageGraph packageGraph;
+	/**
+	 * The kinds and amount of references of each dependency
+	 */
+	private EdgeAttributes edges;
+	/**
+	 * Dependencies between methods and fields, {@code null} if this container doesn't track them
+	 */
+	private MemberGraph memberGraph;
 	
 	/**
 	 * Constructor
 	 */
 	public DependencyMap() {
+		this(false);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param trackMembers	:	{@code true} to also keep the dependencies between methods and fields of classes
+	 */
+	public DependencyMap(boolean trackMembers) {
 		this.elements = new HashMap<String, DependencyElem>();
 		this.classes = new HashSet<String>();
+		this.classesView = Collections.unmodifiableSet(this.classes);
+		this.packageGraph = new PackageGraph();
+		this.edges = new EdgeAttributes();
+		this.memberGraph = trackMembers ? new MemberGraph() : null;
 	}
 	
 	/**
@@ -41,18 +136,139 @@ public class DependencyMap {
 		return this.elements.get(fullyQualifiedClassName);
 	}
 	
+	/**
+	 * Returns the canonical {@code DependencyElem} associated with a class name, creating and adding a new one
+	 * if the container has none
+	 * 
+	 * @param fullyQualifiedClassName	:	a class fully qualified name
+	 * @return	the canonical {@code DependencyElem} for {@code fullyQualifiedClassName}
+	 */
+	public DependencyElem getOrCreateDependencyElem(String fullyQualifiedClassName) {
+		DependencyElem elem = this.elements.get(fullyQualifiedClassName);
+		if (elem == null) {
+			elem = new DependencyElem(fullyQualifiedClassName);
+			elem.index = this.nextIndex++;
+			this.elements.put(fullyQualifiedClassName, elem);
+			this.classes.add(fullyQualifiedClassName);
+			this.packageGraph.addClass(elem);
+			this.modifications++;
+		}
+		return elem;
+	}
+	
 	/**
 	 * Add a new {@code DependencyElem} to the container
+	 * <p>
+	 * If the container already has an element with the same name, the dependencies of {@code elem} will be added
+	 * to the existing element instead of replacing it. Dependencies of {@code elem} are always resolved to the
+	 * canonical elements of this container, dependencies not in the container are added with their own dependencies.
+	 * Elements are added depth first from an explicit stack instead of recursively, so long chains of dependencies
+	 * don't overflow the call stack.
+	 * <p>
 	 * 
 	 * @param elem	:	the element to add
 	 */
 	public void addNewDependencyElem(DependencyElem elem) {
-		this.elements.put(elem.getFullyQualifiedName(), elem);
-		this.classes.add(elem.getFullyQualifiedName());
+		if (this.elements.get(elem.getFullyQualifiedName()) == elem) {
+			return;
+		}
+		Deque<PendingElem> pending = new ArrayDeque<PendingElem>();
+		pending.push(adopt(elem, null));
+		while (!pending.isEmpty()) {
+			PendingElem top = pending.peek();
+			if (top.dependencies.hasNext()) {
+				DependencyElem dependency = top.dependencies.next();
+				DependencyElem canonical = this.elements.get(dependency.getFullyQualifiedName());
+				if (canonical == null) {
+					pending.push(adopt(dependency, top.canonical));
+				} else {
+					link(top.canonical, canonical, EdgeKind.OTHER.bit(), 1);
+				}
+			} else {
+				pending.pop();
+				if (top.dependent != null) {
+					link(top.dependent, top.canonical, EdgeKind.OTHER.bit(), 1);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Takes the dependencies of an element, which becomes the canonical element for its name if this container has
+	 * none, the dependencies must then be linked to the canonical element by the caller
+	 * 
+	 * @param elem		:	the element to add
+	 * @param dependent	:	the canonical element to link to {@code elem} once its dependencies are linked, or
+	 * 						{@code null}
+	 * @return the canonical element for {@code elem} and the dependencies {@code elem} had
+	 */
+	private PendingElem adopt(DependencyElem elem, DependencyElem dependent) {
+		List<DependencyElem> dependencies = new LinkedList<DependencyElem>();
+		for (Set<DependencyElem> dependenciesPerPackage : elem.getDirectDependencies().values()) {
+			dependencies.addAll(dependenciesPerPackage);
+		}
+		DependencyElem canonical = this.elements.get(elem.getFullyQualifiedName());
+		if (canonical == null) {
+			canonical = elem;
+			elem.clearDependencies();
+			elem.index = this.nextIndex++;
+			this.elements.put(elem.getFullyQualifiedName(), elem);
+			this.classes.add(elem.getFullyQualifiedName());
+			this.packageGraph.addClass(elem);
+		}
+		this.modifications++;
+		return new PendingElem(canonical, dependencies.iterator(), dependent);
+	}
+	
+	/**
+	 * Resolves an element to the canonical element with the same name, if this container has none then
+	 * {@code elem} is added and becomes the canonical one
+	 * 
+	 * @param elem	:	the element to resolve
+	 * @return the canonical element for {@code elem}
+	 */
+	private DependencyElem resolve(DependencyElem elem) {
+		DependencyElem canonical = this.elements.get(elem.getFullyQualifiedName());
+		if (canonical == null) {
+			addNewDependencyElem(elem);
+			canonical = elem;
+		}
+		return canonical;
+	}
+	
+	/**
+	 * Adds a dependency between two canonical elements and records its kinds and references
+	 * 
+	 * @param elem			:	the element to which the dependency will be added
+	 * @param dependency	:	the dependency to add
+	 * @param kinds			:	a mask of {@code EdgeKind} bits
+	 * @param references	:	the amount of references made by {@code elem} to {@code dependency}
+	 */
+	private void link(DependencyElem elem, DependencyElem dependency, int kinds, int references) {
+		if (elem == dependency) return;
+		boolean added = elem.addDependency(dependency);
+		this.edges.add(elem.index, dependency.index, kinds, references);
+		this.packageGraph.addDependency(elem, dependency, added, references);
+	}
+	
+	/**
+	 * Removes the attributes of all dependencies of a canonical element and their aggregation in the package graph,
+	 * the dependencies themselves must be removed by the caller
+	 * 
+	 * @param elem	:	the element whose dependencies will be removed
+	 */
+	private void unlink(DependencyElem elem) {
+		for (Set<DependencyElem> dependenciesPerPackage : elem.getDirectDependencies().values()) {
+			int references = 0;
+			for (DependencyElem dependency : dependenciesPerPackage) {
+				references += this.edges.remove(elem.index, dependency.index);
+			}
+			this.packageGraph.removeDependencies(elem, dependenciesPerPackage, references);
+		}
 	}
 	
 	/**
-	 * Add a dependency to another element.
+	 * Add a dependency to another element, with kind {@link EdgeKind#OTHER}
 	 * 
 	 * If any of the elements is not in the container then they will be added
 	 * 
@@ -60,10 +276,83 @@ public class DependencyMap {
 	 * @param dependency	:	the dependency to add
 	 */
 	public void addNewDependency(DependencyElem elem, DependencyElem dependency) {
+		addNewDependency(elem, dependency, EdgeKind.OTHER);
+	}
+	
+	/**
+	 * Add a reference of a given kind to another element
+	 * 
+	 * If any of the elements is not in the container then they will be added. Each call adds {@code kind} to the
+	 * kinds of the dependency and counts one more reference, even if the dependency already existed.
+	 * 
+	 * @param elem			:	the element to which the dependency will be added
+	 * @param dependency	:	the dependency to add
+	 * @param kind			:	how {@code elem} uses {@code dependency}
+	 */
+	public void addNewDependency(DependencyElem elem, DependencyElem dependency, EdgeKind kind) {
 		if (elem.equals(dependency)) return;
-		elem.addDependency(dependency);
-		if (!this.elements.containsKey(elem.getFullyQualifiedName())) addNewDependencyElem(elem);
-		if (!this.elements.containsKey(dependency.getFullyQualifiedName())) addNewDependencyElem(dependency);
+		link(resolve(elem), resolve(dependency), kind.bit(), 1);
+		this.modifications++;
+	}
+	
+	/**
+	 * Adds a dependency between two classes with the given kinds and references, both classes are added if needed
+	 * 
+	 * @param elemFullyQualifiedClassName		:	fully qualified class name of the dependent class
+	 * @param dependencyFullyQualifiedClassName	:	fully qualified class name of the dependency
+	 * @param kinds								:	a mask of {@code EdgeKind} bits
+	 * @param references						:	the amount of references made through the dependency
+	 */
+	void addReferences(String elemFullyQualifiedClassName, String dependencyFullyQualifiedClassName, int kinds, int references) {
+		link(getOrCreateDependencyElem(elemFullyQualifiedClassName), getOrCreateDependencyElem(dependencyFullyQualifiedClassName), kinds, references);
+		this.modifications++;
+	}
+	
+	/**
+	 * @return a container whose elements and indexes don't change while it is read, this container itself unless it
+	 * is being modified concurrently
+	 */
+	DependencyMap view() {
+		return this;
+	}
+	
+	/**
+	 * Variant of {@link DependencyMap#addNewDependency(DependencyElem, DependencyElem, EdgeKind)} that will take
+	 * a fully qualified class name instead of a {@code DependencyElem} for the second argument
+	 * 
+	 * @param elem								:	the element to which the dependency will be added
+	 * @param dependencyFullyQualifiedClassName	:	fully qualified class name of the dependency to add
+	 * @param kind								:	how {@code elem} uses the dependency
+	 */
+	public void addNewDependency(DependencyElem elem, String dependencyFullyQualifiedClassName, EdgeKind kind) {
+		if (elem.getFullyQualifiedName().equals(dependencyFullyQualifiedClassName)) return;
+		addNewDependency(elem, getOrCreateDependencyElem(dependencyFullyQualifiedClassName), kind);
+	}
+	
+	/**
+	 * @param elem			:	a class
+	 * @param dependency	:	a dependency of {@code elem}
+	 * @return the mask of {@code EdgeKind} bits of the dependency, {@code 0} if {@code dependency} is not a
+	 * dependency of {@code elem}
+	 */
+	public int getEdgeKinds(DependencyElem elem, DependencyElem dependency) {
+		if (elem.index < 0 || dependency.index < 0) {
+			return 0;
+		}
+		return this.edges.getKinds(elem.index, dependency.index);
+	}
+	
+	/**
+	 * @param elem			:	a class
+	 * @param dependency	:	a dependency of {@code elem}
+	 * @return the amount of references made by {@code elem} to {@code dependency}, {@code 0} if
+	 * {@code dependency} is not a dependency of {@code elem}
+	 */
+	public int getEdgeCount(DependencyElem elem, DependencyElem dependency) {
+		if (elem.index < 0 || dependency.index < 0) {
+			return 0;
+		}
+		return this.edges.getCount(elem.index, dependency.index);
 	}
 	
 	/**
@@ -74,13 +363,7 @@ public class DependencyMap {
 	 * @param dependency					:	the dependency to add
 	 */
 	public void addNewDependency(String elemFullyQualifiedClassName, DependencyElem dependency) {
-		DependencyElem elem;
-		if (this.elements.containsKey(elemFullyQualifiedClassName)) {
-			elem = this.elements.get(elemFullyQualifiedClassName);
-		} else {
-			elem = new DependencyElem(elemFullyQualifiedClassName);
-		}
-		addNewDependency(elem, dependency);
+		addNewDependency(getOrCreateDependencyElem(elemFullyQualifiedClassName), dependency);
 	}
 	
 	/**
@@ -91,13 +374,8 @@ public class DependencyMap {
 	 * @param dependencyFullyQualifiedClassName		:	fully qualified class name of the dependency to add
 	 */
 	public void addNewDependency(DependencyElem elem, String dependencyFullyQualifiedClassName) {
-		DependencyElem dependency;
-		if (this.elements.containsKey(dependencyFullyQualifiedClassName)) {
-			dependency = this.elements.get(dependencyFullyQualifiedClassName);
-		} else {
-			dependency = new DependencyElem(dependencyFullyQualifiedClassName);
-		}
-		addNewDependency(elem, dependency);
+		if (elem.getFullyQualifiedName().equals(dependencyFullyQualifiedClassName)) return;
+		addNewDependency(elem, getOrCreateDependencyElem(dependencyFullyQualifiedClassName));
 	}
 	
 	/**
@@ -108,26 +386,150 @@ public class DependencyMap {
 	 * @param dependencyFullyQualifiedClassName		:	fully qualified class name of the dependency to add
 	 */
 	public void addNewDependency(String elemFullyQualifiedClassName, String dependencyFullyQualifiedClassName) {
-		DependencyElem elem;
-		if (this.elements.containsKey(elemFullyQualifiedClassName)) {
-			elem = this.elements.get(elemFullyQualifiedClassName);
-		} else {
-			elem = new DependencyElem(elemFullyQualifiedClassName);
+		if (elemFullyQualifiedClassName.equals(dependencyFullyQualifiedClassName)) return;
+		addNewDependency(getOrCreateDependencyElem(elemFullyQualifiedClassName), getOrCreateDependencyElem(dependencyFullyQualifiedClassName));
+	}
+	
+	/**
+	 * Records the root (folder or zip file) where a class was found, the class is added to the container if needed
+	 * 
+	 * @param fullyQualifiedClassName	:	the full name of the class
+	 * @param root						:	the root where the class was found, or {@code null} if the class is no
+	 * 										longer defined by any scanned root
+	 */
+	public void setDefiningRoot(String fullyQualifiedClassName, String root) {
+		getOrCreateDependencyElem(fullyQualifiedClassName).setDefiningRoot(root);
+	}
+	
+	/**
+	 * Removes all direct dependencies of a class, classes that were dependencies of the class remain in the container
+	 * <p>
+	 * If this container tracks members, the members declared by the class and their dependencies are removed too.
+	 * <p>
+	 * 
+	 * @param fullyQualifiedClassName	:	the full name of the class whose dependencies will be removed
+	 * @return the dependencies removed, as {@code DependencyElem} objects
+	 */
+	public Set<DependencyElem> removeDependencies(String fullyQualifiedClassName) {
+		if (this.memberGraph != null) {
+			this.memberGraph.removeClass(fullyQualifiedClassName);
 		}
-		DependencyElem dependency;
-		if (this.elements.containsKey(dependencyFullyQualifiedClassName)) {
-			dependency = this.elements.get(dependencyFullyQualifiedClassName);
-		} else {
-			dependency = new DependencyElem(dependencyFullyQualifiedClassName);
+		DependencyElem elem = this.elements.get(fullyQualifiedClassName);
+		if (elem == null || !elem.hasDependencies()) {
+			return new HashSet<DependencyElem>();
 		}
-		addNewDependency(elem, dependency);
+		Set<DependencyElem> removed = getDependenciesAsDependencyElems(elem);
+		unlink(elem);
+		elem.clearDependencies();
+		this.modifications++;
+		return removed;
 	}
 	
 	/**
-	 * @return classes contained by this container
+	 * Removes a class from the container, a class can only be removed when no other class depends on it
+	 * <p>
+	 * Direct dependencies of the removed class are removed too, classes that were dependencies of the class remain
+	 * in the container.
+	 * <p>
+	 * 
+	 * @param fullyQualifiedClassName	:	the full name of the class to remove
+	 * @return {@code true} if the class was removed, {@code false} if it was not part of the container or if other
+	 * classes depend on it
+	 */
+	public boolean removeDependencyElem(String fullyQualifiedClassName) {
+		DependencyElem elem = this.elements.get(fullyQualifiedClassName);
+		if (elem == null || !elem.getDirectDependents().isEmpty()) {
+			return false;
+		}
+		unlink(elem);
+		elem.clearDependencies();
+		if (this.memberGraph != null) {
+			this.memberGraph.removeClass(fullyQualifiedClassName);
+		}
+		this.packageGraph.removeClass(elem);
+		this.elements.remove(fullyQualifiedClassName);
+		this.classes.remove(fullyQualifiedClassName);
+		this.modifications++;
+		return true;
+	}
+	
+	/**
+	 * Adds all elements and dependencies contained in another container to this one.
+	 * <p>
+	 * Elements are resolved by their fully qualified name, so merging the partial maps obtained by scanning
+	 * disjoint sets of classes results in the same map as scanning all those classes into a single container.
+	 * The kinds and references of each dependency of {@code other} are added to those of this container, and so are
+	 * its members when both containers track them.
+	 * <p>
+	 * 
+	 * @param other	:	the container to merge into this one
+	 */
+	public void merge(DependencyMap other) {
+		other = other.view();
+		for (DependencyElem otherElem : other.elements.values()) {
+			DependencyElem elem = getOrCreateDependencyElem(otherElem.getFullyQualifiedName());
+			for (Set<DependencyElem> dependenciesPerPackage : otherElem.getDirectDependencies().values()) {
+				for (DependencyElem dependency : dependenciesPerPackage) {
+					int kinds = other.edges.getKinds(otherElem.index, dependency.index);
+					int references = other.edges.getCount(otherElem.index, dependency.index);
+					link(elem, getOrCreateDependencyElem(dependency.getFullyQualifiedName()), kinds, references);
+				}
+			}
+		}
+		if (this.memberGraph != null && other.memberGraph != null) {
+			this.memberGraph.merge(other.memberGraph);
+		}
+		this.modifications++;
+	}
+	
+	/**
+	 * Adds a class and its dependencies, as collected by an {@code EdgeCollector}, to this container
+	 * <p>
+	 * The kinds and references of each dependency are added to those of this container, as with
+	 * {@link DependencyMap#merge(DependencyMap)}.
+	 * <p>
+	 * 
+	 * @param edges	:	the dependencies of a class
+	 */
+	public void merge(ClassEdges edges) {
+		String className = edges.getClassName();
+		getOrCreateDependencyElem(className);
+		for (int i = 0; i < edges.size(); i++) {
+			addReferences(className, edges.getDependency(i), edges.getKinds(i), edges.getReferences(i));
+		}
+	}
+	
+	/**
+	 * @return the dependencies between methods and fields of this container, or {@code null} if this container was
+	 * not created to track them
+	 */
+	public MemberGraph getMemberGraph() {
+		return this.memberGraph;
+	}
+	
+	/**
+	 * Returns the dependencies of this container aggregated by package, the graph is updated as classes and
+	 * dependencies are added and removed through this container. Dependencies added directly through
+	 * {@link DependencyElem#addDependency(DependencyElem)} are not tracked.
+	 * 
+	 * @return the package graph of this container
+	 */
+	public PackageGraph getPackageGraph() {
+		return this.packageGraph;
+	}
+	
+	/**
+	 * @return an upper bound (exclusive) for the index of all elements of this container
+	 */
+	int getIndexCapacity() {
+		return this.nextIndex;
+	}
+	
+	/**
+	 * @return a read only view of the classes contained by this container
 	 */
 	public Set<String> getClasses() {
-		return this.classes;
+		return this.classesView;
 	}
 	
 	/**
@@ -193,4 +595,339 @@ public class DependencyMap {
 		}
 	}
 	
+	/**
+	 * Given a class full name this method will return all classes on which it recursively depends
+	 * <p>
+	 * Recursive dependencies are calculated with a {@code TransitiveClosure} that is reused by subsequent calls
+	 * until a new element or dependency is added to this container. Dependencies added directly through
+	 * {@link DependencyElem#addDependency(DependencyElem)} are not tracked.
+	 * <p>
+	 * 
+	 * @param fullyQualifiedClassName	:	the class full name for which to search for recursive dependencies
+	 * @return all recursive dependencies for the class
+	 */
+	public Set<String> getAllDependencies(String fullyQualifiedClassName) {
+		return getTransitiveClosure().getAllDependencies(fullyQualifiedClassName);
+	}
+	
+	/**
+	 * Variant of {@link DependencyMap#getAllDependencies(String)} that returns dependencies as
+	 * {@code DependencyElem} objects instead of fully qualified class names.
+	 * 
+	 * @param fullyQualifiedClassName	:	the class full name for which to search for recursive dependencies
+	 * @return all recursive dependencies for the class as {@code DependencyElem} objects
+	 */
+	public Set<DependencyElem> getAllDependenciesAsDependencyElems(String fullyQualifiedClassName) {
+		Set<DependencyElem> dependencies = new HashSet<DependencyElem>();
+		for (String dependency : getAllDependencies(fullyQualifiedClassName)) {
+			dependencies.add(this.elements.get(dependency));
+		}
+		return dependencies;
+	}
+	
+	/**
+	 * @return a {@code TransitiveClosure} for the current state of this container
+	 */
+	public TransitiveClosure getTransitiveClosure() {
+		if (this.closure == null || this.closureModifications != this.modifications) {
+			this.closure = new TransitiveClosure(this);
+			this.closureModifications = this.modifications;
+		}
+		return this.closure;
+	}
+	
+	/**
+	 * Given a class full name this method will return all classes that directly depend on it
+	 * 
+	 * @param fullyQualifiedClassName	:	the class full name for which to search for dependents
+	 * @return all classes that directly depend on the class
+	 */
+	public Set<String> getDirectDependents(String fullyQualifiedClassName) {
+		return getDependents(fullyQualifiedClassName, 1);
+	}
+	
+	/**
+	 * Given a class full name this method will return all classes that recursively depend on it, that is, all classes
+	 * that would be affected by a change in the class. The class itself is not included even if it's part of a
+	 * dependency cycle
+	 * 
+	 * @param fullyQualifiedClassName	:	the class full name for which to search for dependents
+	 * @return all classes that recursively depend on the class
+	 */
+	public Set<String> getAllDependents(String fullyQualifiedClassName) {
+		return getDependents(fullyQualifiedClassName, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Given a class full name this method will return all classes that depend on it through at most {@code maxDepth}
+	 * dependencies. The class itself is not included even if it's part of a dependency cycle
+	 * 
+	 * @param fullyQualifiedClassName	:	the class full name for which to search for dependents
+	 * @param maxDepth					:	the maximum amount of dependencies between the class and a dependent,
+	 * 										{@code 1} will only return direct dependents
+	 * @return all classes that depend on the class through at most {@code maxDepth} dependencies
+	 */
+	public Set<String> getDependents(String fullyQualifiedClassName, int maxDepth) {
+		Set<String> dependentsAsClassNames = new HashSet<String>();
+		for (DependencyElem dependent : getDependentsAsDependencyElems(fullyQualifiedClassName, maxDepth)) {
+			dependentsAsClassNames.add(dependent.getFullyQualifiedName());
+		}
+		return dependentsAsClassNames;
+	}
+	
+	/**
+	 * Variant of {@link DependencyMap#getDependents(String, int)} that returns dependents as
+	 * {@code DependencyElem} objects instead of fully qualified class names.
+	 * <p>
+	 * Dependents are visited in breadth first order using the reverse index kept by each {@code DependencyElem}, so
+	 * only the classes returned and their direct dependents are visited.
+	 * <p>
+	 * 
+	 * @param fullyQualifiedClassName	:	the class full name for which to search for dependents
+	 * @param maxDepth					:	the maximum amount of dependencies between the class and a dependent
+	 * @return all classes that depend on the class through at most {@code maxDepth} dependencies, in breadth first order
+	 */
+	public Set<DependencyElem> getDependentsAsDependencyElems(String fullyQualifiedClassName, int maxDepth) {
+		Set<DependencyElem> dependents = new LinkedHashSet<DependencyElem>();
+		DependencyElem elem = this.elements.get(fullyQualifiedClassName);
+		if (elem == null || maxDepth < 1) {
+			return dependents;
+		}
+		List<DependencyElem> currentLevel = new LinkedList<DependencyElem>();
+		currentLevel.add(elem);
+		for (int depth = 1; depth <= maxDepth && !currentLevel.isEmpty(); depth++) {
+			List<DependencyElem> nextLevel = new LinkedList<DependencyElem>();
+			for (DependencyElem current : currentLevel) {
+				for (DependencyElem dependent : current.getDirectDependents()) {
+					if (dependent != elem && dependents.add(dependent)) {
+						nextLevel.add(dependent);
+					}
+				}
+			}
+			currentLevel = nextLevel;
+		}
+		return dependents;
+	}
+	
+	/**
+	 * Returns the direct dependencies of a class accepted by a filter, reading the dependencies kept by the class
+	 * without copying them
+	 * 
+	 * @param elem		:	the class for which to iterate dependencies
+	 * @param filter	:	selects the dependencies returned
+	 * @return an iterator over the dependencies of {@code elem} accepted by {@code filter}, grouped by package
+	 */
+	public Iterator<DependencyElem> dependencyIterator(DependencyElem elem, DependencyFilter filter) {
+		return new FilteringIterator(elem.getDirectDependencies().entrySet().iterator(), filter, filter.restrictsEdgeKinds() ? this.edges : null, elem, false);
+	}
+	
+	/**
+	 * Variant of {@link DependencyMap#dependencyIterator(DependencyElem, DependencyFilter)} that takes a class full
+	 * name, a class not contained by this container has no dependencies
+	 * 
+	 * @param fullyQualifiedClassName	:	the class full name for which to iterate dependencies
+	 * @param filter					:	selects the dependencies returned
+	 * @return an iterator over the dependencies of the class accepted by {@code filter}, grouped by package
+	 */
+	public Iterator<DependencyElem> dependencyIterator(String fullyQualifiedClassName, DependencyFilter filter) {
+		DependencyElem elem = this.elements.get(fullyQualifiedClassName);
+		if (elem == null) {
+			return Collections.<DependencyElem>emptyIterator();
+		}
+		return dependencyIterator(elem, filter);
+	}
+	
+	/**
+	 * Returns the classes that directly depend on a class accepted by a filter, reading the reverse index kept by the
+	 * class without copying it
+	 * 
+	 * @param elem		:	the class for which to iterate dependents
+	 * @param filter	:	selects the dependents returned
+	 * @return an iterator over the dependents of {@code elem} accepted by {@code filter}, sorted by name
+	 */
+	public Iterator<DependencyElem> dependentIterator(DependencyElem elem, DependencyFilter filter) {
+		Entry<String, Set<DependencyElem>> dependents = new AbstractMap.SimpleImmutableEntry<String, Set<DependencyElem>>(null, elem.getDirectDependents());
+		return new FilteringIterator(Collections.singleton(dependents).iterator(), filter, filter.restrictsEdgeKinds() ? this.edges : null, elem, true);
+	}
+	
+	/**
+	 * Stream variant of {@link DependencyMap#dependencyIterator(DependencyElem, DependencyFilter)}
+	 * 
+	 * @param elem		:	the class for which to stream dependencies
+	 * @param filter	:	selects the dependencies returned
+	 * @return a sequential stream of the dependencies of {@code elem} accepted by {@code filter}
+	 */
+	public Stream<DependencyElem> dependencyStream(DependencyElem elem, DependencyFilter filter) {
+		return stream(dependencyIterator(elem, filter));
+	}
+	
+	/**
+	 * Stream variant of {@link DependencyMap#dependentIterator(DependencyElem, DependencyFilter)}
+	 * 
+	 * @param elem		:	the class for which to stream dependents
+	 * @param filter	:	selects the dependents returned
+	 * @return a sequential stream of the dependents of {@code elem} accepted by {@code filter}
+	 */
+	public Stream<DependencyElem> dependentStream(DependencyElem elem, DependencyFilter filter) {
+		return stream(dependentIterator(elem, filter));
+	}
+	
+	/**
+	 * Returns the canonical elements of this container accepted by a filter, the stream splits the internal table of
+	 * elements so it can be made {@link Stream#parallel() parallel} to run queries over all classes in several threads
+	 * 
+	 * @param filter	:	selects the elements returned
+	 * @return a sequential stream of the elements accepted by {@code filter}, in no particular order
+	 */
+	public Stream<DependencyElem> elementStream(final DependencyFilter filter) {
+		Stream<DependencyElem> elems = this.elements.values().stream();
+		if (filter.acceptsAll()) {
+			return elems;
+		}
+		return elems.filter(new Predicate<DependencyElem>() {
+			@Override
+			public boolean test(DependencyElem elem) {
+				return filter.accept(elem);
+			}
+		});
+	}
+	
+	/**
+	 * Visits every dependency between two classes accepted by a filter, without copying any dependencies
+	 * 
+	 * @param filter	:	selects the dependent classes and the dependencies visited
+	 * @param visitor	:	the visitor receiving each dependency
+	 * @return {@code false} if the visitor stopped the visit, {@code true} otherwise
+	 */
+	public boolean visitDependencies(DependencyFilter filter, EdgeVisitor visitor) {
+		for (DependencyElem elem : this.elements.values()) {
+			if (!elem.hasDependencies() || !filter.accept(elem)) {
+				continue;
+			}
+			Iterator<DependencyElem> dependencies = dependencyIterator(elem, filter);
+			while (dependencies.hasNext()) {
+				if (!visitor.visit(elem, dependencies.next())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	private static Stream<DependencyElem> stream(Iterator<DependencyElem> iterator) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+	
+	/**
+	 * An element added by {@link DependencyMap#addNewDependencyElem(DependencyElem)} whose dependencies are not yet
+	 * all linked
+	 */
+	private static final class PendingElem {
+		
+		private final DependencyElem canonical;
+		private final Iterator<DependencyElem> dependencies;
+		/**
+		 * The element that depends on {@code canonical}, {@code null} for the element given to
+		 * {@code addNewDependencyElem}
+		 */
+		private final DependencyElem dependent;
+		
+		PendingElem(DependencyElem canonical, Iterator<DependencyElem> dependencies, DependencyElem dependent) {
+			this.canonical = canonical;
+			this.dependencies = dependencies;
+			this.dependent = dependent;
+		}
+		
+	}
+	
+	/**
+	 * Iterates the classes of several groups accepted by a filter, groups are skipped at once when their key is a
+	 * package not accepted by the filter. When the filter selects edge kinds, the dependency between each class and a
+	 * given element is checked too
+	 */
+	private static final class FilteringIterator implements Iterator<DependencyElem> {
+		
+		private final Iterator<Entry<String, Set<DependencyElem>>> groups;
+		private final DependencyFilter filter;
+		private final EdgeAttributes edges;
+		private final DependencyElem elem;
+		private final boolean dependents;
+		private Iterator<DependencyElem> current;
+		/**
+		 * {@code false} when the package of the current group was already accepted and the filter doesn't look at
+		 * anything else
+		 */
+		private boolean checkEach;
+		private DependencyElem next;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param groups		:	the groups of classes, keyed by their package or by {@code null} for groups of
+		 * 							classes of several packages
+		 * @param filter		:	selects the classes returned
+		 * @param edges			:	the attributes of the dependencies, or {@code null} if the filter doesn't select
+		 * 							edge kinds
+		 * @param elem			:	the element whose dependencies or dependents are iterated
+		 * @param dependents	:	{@code true} if the classes are dependents of {@code elem}, {@code false} if
+		 * 							they are dependencies
+		 */
+		FilteringIterator(Iterator<Entry<String, Set<DependencyElem>>> groups, DependencyFilter filter, EdgeAttributes edges, DependencyElem elem, boolean dependents) {
+			this.groups = groups;
+			this.filter = filter;
+			this.edges = edges;
+			this.elem = elem;
+			this.dependents = dependents;
+			this.current = Collections.<DependencyElem>emptyIterator();
+			advance();
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+		
+		@Override
+		public DependencyElem next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+			DependencyElem result = this.next;
+			advance();
+			return result;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Dependencies can't be removed through an iterator");
+		}
+		
+		private boolean acceptEdge(DependencyElem candidate) {
+			int kinds = this.dependents ? this.edges.getKinds(candidate.index, this.elem.index) : this.edges.getKinds(this.elem.index, candidate.index);
+			return this.filter.acceptEdgeKinds(kinds);
+		}
+		
+		private void advance() {
+			while (true) {
+				while (this.current.hasNext()) {
+					DependencyElem candidate = this.current.next();
+					if ((!this.checkEach || this.filter.accept(candidate)) && (this.edges == null || acceptEdge(candidate))) {
+						this.next = candidate;
+						return;
+					}
+				}
+				if (!this.groups.hasNext()) {
+					this.next = null;
+					return;
+				}
+				Entry<String, Set<DependencyElem>> group = this.groups.next();
+				if (group.getKey() == null || this.filter.acceptPackage(group.getKey())) {
+					this.current = group.getValue().iterator();
+					this.checkEach = group.getKey() == null || this.filter.isDefinedOnly();
+				}
+			}
+		}
+		
+	}
+	
 }
@@ -0,0 +1,683 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import utils.PersistentMap;
+import visitor.ExtractionEngine;
+
+/**
+ * An immutable version of the classes and dependencies of a {@code DependencyMap}
+ * <p>
+ * Versions keep their classes, and the dependencies and dependents of each class, in {@code PersistentMap}s. A new
+ * version is obtained by applying to an older one the classes changed in a dependency map, see
+ * {@link DependencyMapVersion#apply(DependencyMap, Collection)}, which only copies the nodes of the tries on the path to
+ * each changed class and edge: its cost depends on the amount of changes, not on the size of the map, and everything
+ * else is shared with the older version. Older versions stay valid and unchanged, so a version can be queried from any
+ * thread without locking while newer versions are being made.
+ * <p>
+ * {@link DependencyMapVersion#diff(DependencyMapVersion)} reports the classes and edges added, removed and changed
+ * between two versions, skipping the parts shared by both, and {@link DependencyMapVersion#toDependencyMap()} gives a
+ * mutable copy of a version when the full {@code DependencyMap} API is needed.
+ * <p>
+ * The kinds and references of a dependency depend on the {@code ExtractionEngine} that found it: the
+ * {@code ConstantPoolExtractor} counts constant pool entries and reports {@link EdgeKind#CONSTANT_POOL} for uses it
+ * can't tell apart, while the {@code DependencyVisitor} counts every use. A version records the engine its dependencies
+ * were found with, and dependencies of versions made with different engines are never taken as equal by
+ * {@link DependencyMapVersion#diff(DependencyMapVersion)}.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.3u
+ */
+public final class DependencyMapVersion {
+
+	/**
+	 * The classes of this version by full name
+	 */
+	private final PersistentMap<String, ClassNode> classes;
+	/**
+	 * The amount of dependencies of this version
+	 */
+	private final int edges;
+	private final long version;
+	/**
+	 * The engine the dependencies of this version were found with, {@code null} if unknown
+	 */
+	private final ExtractionEngine engine;
+
+	/**
+	 * Constructor, creates an empty version numbered {@code 0}
+	 */
+	public DependencyMapVersion() {
+		this(PersistentMap.<String, ClassNode>empty(), 0, 0, null);
+	}
+
+	/**
+	 * Constructor, creates a version numbered {@code 0} with the classes and dependencies of a dependency map, found
+	 * with an unknown engine
+	 *
+	 * @param dependencyMap	:	the dependency map to copy
+	 */
+	public DependencyMapVersion(DependencyMap dependencyMap) {
+		this(dependencyMap, null);
+	}
+
+	/**
+	 * Constructor, creates a version numbered {@code 0} with the classes and dependencies of a dependency map
+	 *
+	 * @param dependencyMap	:	the dependency map to copy
+	 * @param engine		:	the engine the dependencies of {@code dependencyMap} were found with, or {@code null} if
+	 * 						unknown
+	 */
+	public DependencyMapVersion(DependencyMap dependencyMap, ExtractionEngine engine) {
+		this(copy(dependencyMap.view()), 0, engine);
+	}
+
+	private DependencyMapVersion(DependencyMapVersion contents, long version, ExtractionEngine engine) {
+		this(contents.classes, contents.edges, version, engine);
+	}
+
+	private DependencyMapVersion(PersistentMap<String, ClassNode> classes, int edges, long version, ExtractionEngine engine) {
+		this.classes = classes;
+		this.edges = edges;
+		this.version = version;
+		this.engine = engine;
+	}
+
+	private static DependencyMapVersion copy(DependencyMap dependencyMap) {
+		return new DependencyMapVersion().apply(dependencyMap, dependencyMap.getClasses());
+	}
+
+	/**
+	 * Makes the next version from the classes changed in a dependency map
+	 * <p>
+	 * The dependencies of each changed class are replaced by those it has in {@code dependencyMap}, and each changed
+	 * class, and each class whose dependents changed, is kept only if {@code dependencyMap} still contains it. Classes
+	 * that didn't change are not read, so {@code changedClasses} must include every class added, removed or whose
+	 * dependencies changed since this version was made, like the classes reported by a rescan. Classes added only as
+	 * dependencies of a changed class don't need to be included while that dependency remains.
+	 * <p>
+	 *
+	 * @param dependencyMap		:	the dependency map this version was made from, after the changes
+	 * @param changedClasses	:	the full names of the classes added, changed or removed
+	 * @return the next version, or this version if no class nor dependency changed
+	 */
+	public DependencyMapVersion apply(DependencyMap dependencyMap, Collection<String> changedClasses) {
+		dependencyMap = dependencyMap.view();
+		Map<String, Map<String, int[]>> changes = new HashMap<String, Map<String, int[]>>();
+		for (String className : changedClasses) {
+			DependencyElem elem = dependencyMap.getClassAsDependencyElem(className);
+			Map<String, int[]> dependencies = null;
+			if (elem != null) {
+				dependencies = new HashMap<String, int[]>();
+				for (Set<DependencyElem> dependenciesPerPackage : elem.getDirectDependencies().values()) {
+					for (DependencyElem dependency : dependenciesPerPackage) {
+						dependencies.put(dependency.getFullyQualifiedName(), new int[] {dependencyMap.getEdgeKinds(elem, dependency), dependencyMap.getEdgeCount(elem, dependency)});
+					}
+				}
+			}
+			changes.put(className, dependencies);
+		}
+		List<String> removedTargets = new ArrayList<String>();
+		for (Map.Entry<String, Map<String, int[]>> change : changes.entrySet()) {
+			ClassNode node = this.classes.get(change.getKey());
+			if (node != null) {
+				for (String dependencyName : node.dependencies.keySet()) {
+					if ((change.getValue() == null || !change.getValue().containsKey(dependencyName)) && !changes.containsKey(dependencyName)
+							&& dependencyMap.getClassAsDependencyElem(dependencyName) == null) {
+						removedTargets.add(dependencyName);
+					}
+				}
+			}
+		}
+		for (String dependencyName : removedTargets) {
+			changes.put(dependencyName, null);
+		}
+		return apply(changes);
+	}
+
+	/**
+	 * Makes the next version replacing the dependencies of some classes
+	 * <p>
+	 * Classes depended upon are added if needed, and classes removed are kept, without dependencies, while other
+	 * classes still depend on them.
+	 * <p>
+	 *
+	 * @param changes	:	the kinds and references of the dependencies of each changed class, by class name and then by
+	 * 						dependency name, {@code null} for the classes removed
+	 * @return the next version, or this version if no class nor dependency changed
+	 */
+	DependencyMapVersion apply(Map<String, Map<String, int[]>> changes) {
+		PersistentMap<String, ClassNode> classes = this.classes;
+		int edges = this.edges;
+		for (Map.Entry<String, Map<String, int[]>> change : changes.entrySet()) {
+			String className = change.getKey();
+			Map<String, int[]> current = change.getValue() == null ? Collections.<String, int[]>emptyMap() : change.getValue();
+			ClassNode node = classes.get(className);
+			PersistentMap<String, Attributes> before = node == null ? PersistentMap.<String, Attributes>empty() : node.dependencies;
+			PersistentMap<String, Attributes> after = before;
+			for (Map.Entry<String, int[]> dependency : current.entrySet()) {
+				if (!dependency.getKey().equals(className)) {
+					after = after.put(dependency.getKey(), new Attributes(dependency.getValue()[0], dependency.getValue()[1]));
+				}
+			}
+			if (after.size() > current.size()) {
+				for (String dependencyName : before.keySet()) {
+					if (!current.containsKey(dependencyName)) {
+						after = after.remove(dependencyName);
+					}
+				}
+			}
+			if (after != before) {
+				for (String dependencyName : before.keySet()) {
+					if (!after.containsKey(dependencyName)) {
+						classes = dependent(classes, dependencyName, className, false);
+						edges--;
+					}
+				}
+				for (String dependencyName : after.keySet()) {
+					if (!before.containsKey(dependencyName)) {
+						classes = dependent(classes, dependencyName, className, true);
+						edges++;
+					}
+				}
+				node = classes.get(className);
+				classes = classes.put(className, node == null ? new ClassNode(after, PersistentMap.<String, String>empty()) : new ClassNode(after, node.dependents));
+			}
+		}
+		for (Map.Entry<String, Map<String, int[]>> change : changes.entrySet()) {
+			String className = change.getKey();
+			ClassNode node = classes.get(className);
+			if (change.getValue() != null) {
+				if (node == null) {
+					classes = classes.put(className, ClassNode.EMPTY);
+				}
+			} else if (node != null && node.dependencies.isEmpty() && node.dependents.isEmpty()) {
+				classes = classes.remove(className);
+			}
+		}
+		return classes == this.classes ? this : new DependencyMapVersion(classes, edges, this.version + 1, this.engine);
+	}
+
+	/**
+	 * @param classes		:	the classes of a version being made
+	 * @param className		:	the class whose dependents change
+	 * @param dependent		:	the dependent to add or remove
+	 * @param add			:	{@code true} to add {@code dependent}, {@code false} to remove it
+	 * @return the classes with the dependents of {@code className} updated
+	 */
+	private static PersistentMap<String, ClassNode> dependent(PersistentMap<String, ClassNode> classes, String className, String dependent, boolean add) {
+		ClassNode node = classes.get(className);
+		if (node == null) {
+			node = ClassNode.EMPTY;
+		}
+		PersistentMap<String, String> dependents = add ? node.dependents.put(dependent, dependent) : node.dependents.remove(dependent);
+		return dependents == node.dependents ? classes : classes.put(className, new ClassNode(node.dependencies, dependents));
+	}
+
+	/**
+	 * @return the number of this version, each version made by {@link DependencyMapVersion#apply(DependencyMap, Collection)}
+	 * has the number of the version it was made from plus one
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * @return the engine the dependencies of this version were found with, or {@code null} if unknown
+	 */
+	public ExtractionEngine getExtractionEngine() {
+		return this.engine;
+	}
+
+	/**
+	 * @return the amount of classes of this version
+	 */
+	public int size() {
+		return this.classes.size();
+	}
+
+	/**
+	 * @return the amount of dependencies of this version
+	 */
+	public int getEdgeCount() {
+		return this.edges;
+	}
+
+	/**
+	 * @return a read only view of the classes of this version
+	 */
+	public Set<String> getClasses() {
+		return this.classes.keySet();
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return {@code true} if this version has the class
+	 */
+	public boolean contains(String fullyQualifiedClassName) {
+		return this.classes.containsKey(fullyQualifiedClassName);
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return a read only view of the direct dependencies of the class, empty if this version doesn't have it
+	 */
+	public Set<String> getDependencies(String fullyQualifiedClassName) {
+		ClassNode node = this.classes.get(fullyQualifiedClassName);
+		return node == null ? Collections.<String>emptySet() : node.dependencies.keySet();
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return a read only view of the classes depending directly on the class, empty if this version doesn't have it
+	 */
+	public Set<String> getDirectDependents(String fullyQualifiedClassName) {
+		ClassNode node = this.classes.get(fullyQualifiedClassName);
+		return node == null ? Collections.<String>emptySet() : node.dependents.keySet();
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return all classes on which the class depends, directly or not
+	 */
+	public Set<String> getAllDependencies(String fullyQualifiedClassName) {
+		return reachable(fullyQualifiedClassName, true);
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return all classes depending on the class, directly or not
+	 */
+	public Set<String> getAllDependents(String fullyQualifiedClassName) {
+		return reachable(fullyQualifiedClassName, false);
+	}
+
+	/**
+	 * @param from	:	the full name of the dependent class
+	 * @param to	:	the full name of the dependency
+	 * @return the mask of {@code EdgeKind} bits of the dependency, {@code 0} if there is no such dependency
+	 */
+	public int getEdgeKinds(String from, String to) {
+		Attributes attributes = attributes(from, to);
+		return attributes == null ? 0 : attributes.kinds;
+	}
+
+	/**
+	 * @param from	:	the full name of the dependent class
+	 * @param to	:	the full name of the dependency
+	 * @return the amount of references of the dependency, {@code 0} if there is no such dependency
+	 */
+	public int getEdgeCount(String from, String to) {
+		Attributes attributes = attributes(from, to);
+		return attributes == null ? 0 : attributes.references;
+	}
+
+	/**
+	 * @return a new {@code DependencyMap} with the classes and dependencies of this version
+	 */
+	public DependencyMap toDependencyMap() {
+		DependencyMap dependencyMap = new DependencyMap();
+		for (Map.Entry<String, ClassNode> entry : this.classes) {
+			DependencyElem elem = dependencyMap.getOrCreateDependencyElem(entry.getKey());
+			for (Map.Entry<String, Attributes> dependency : entry.getValue().dependencies) {
+				dependencyMap.addReferences(elem.getFullyQualifiedName(), dependency.getKey(), dependency.getValue().kinds, dependency.getValue().references);
+			}
+		}
+		return dependencyMap;
+	}
+
+	/**
+	 * Compares an older version with this one, only the classes whose nodes are not shared by both versions are read
+	 * <p>
+	 * The engine is part of the comparison: if both versions weren't made with the same engine, every dependency in
+	 * both versions is reported as changed, even if its kinds and references are the same, and all classes are read.
+	 * <p>
+	 *
+	 * @param older	:	the version to compare with, usually one this version was made from
+	 * @return the classes and edges added, removed and changed from {@code older} to this version
+	 */
+	public Diff diff(DependencyMapVersion older) {
+		final Set<String> addedClasses = new TreeSet<String>();
+		final Set<String> removedClasses = new TreeSet<String>();
+		final List<Edge> added = new ArrayList<Edge>();
+		final List<Edge> removed = new ArrayList<Edge>();
+		final List<Edge> changed = new ArrayList<Edge>();
+		this.classes.diff(older.classes, new PersistentMap.DiffVisitor<String, ClassNode>() {
+			@Override
+			public void added(String className, ClassNode node) {
+				addedClasses.add(className);
+				changed(className, ClassNode.EMPTY, node);
+			}
+
+			@Override
+			public void removed(String className, ClassNode node) {
+				removedClasses.add(className);
+				changed(className, node, ClassNode.EMPTY);
+			}
+
+			@Override
+			public void changed(final String className, ClassNode previous, ClassNode node) {
+				node.dependencies.diff(previous.dependencies, new PersistentMap.DiffVisitor<String, Attributes>() {
+					@Override
+					public void added(String dependencyName, Attributes attributes) {
+						added.add(new Edge(className, dependencyName, 0, 0, attributes.kinds, attributes.references));
+					}
+
+					@Override
+					public void removed(String dependencyName, Attributes attributes) {
+						removed.add(new Edge(className, dependencyName, attributes.kinds, attributes.references, 0, 0));
+					}
+
+					@Override
+					public void changed(String dependencyName, Attributes previous, Attributes attributes) {
+						changed.add(new Edge(className, dependencyName, previous.kinds, previous.references, attributes.kinds, attributes.references));
+					}
+				});
+			}
+		});
+		if (this.engine != older.engine) {
+			changedAttributes(older, changed);
+		}
+		Collections.sort(added);
+		Collections.sort(removed);
+		Collections.sort(changed);
+		return new Diff(older.version, this.version, addedClasses, removedClasses, added, removed, changed);
+	}
+
+	/**
+	 * Adds to {@code changed} the dependencies of both versions with the same kinds and references, which
+	 * {@link DependencyMapVersion#diff(DependencyMapVersion)} skips but can't be taken as equal when the versions were
+	 * made with different engines
+	 *
+	 * @param older		:	the version compared with this one
+	 * @param changed	:	the edges changed between the versions
+	 */
+	private void changedAttributes(DependencyMapVersion older, List<Edge> changed) {
+		for (Map.Entry<String, ClassNode> entry : this.classes) {
+			ClassNode previous = older.classes.get(entry.getKey());
+			if (previous == null) {
+				continue;
+			}
+			for (Map.Entry<String, Attributes> dependency : entry.getValue().dependencies) {
+				Attributes previousAttributes = previous.dependencies.get(dependency.getKey());
+				if (dependency.getValue().equals(previousAttributes)) {
+					Attributes attributes = dependency.getValue();
+					changed.add(new Edge(entry.getKey(), dependency.getKey(), attributes.kinds, attributes.references, attributes.kinds, attributes.references));
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "version " + this.version + " (" + this.classes.size() + " classes, " + this.edges + " dependencies)";
+	}
+
+	private Attributes attributes(String from, String to) {
+		ClassNode node = this.classes.get(from);
+		return node == null ? null : node.dependencies.get(to);
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	the class to start from
+	 * @param dependencies				:	{@code true} to follow dependencies, {@code false} to follow dependents
+	 * @return all classes reachable from the class, without the class itself unless it's part of a cycle
+	 */
+	private Set<String> reachable(String fullyQualifiedClassName, boolean dependencies) {
+		Set<String> reached = new HashSet<String>();
+		LinkedList<String> pending = new LinkedList<String>();
+		pending.add(fullyQualifiedClassName);
+		while (!pending.isEmpty()) {
+			ClassNode node = this.classes.get(pending.removeFirst());
+			if (node == null) {
+				continue;
+			}
+			for (String next : dependencies ? node.dependencies.keySet() : node.dependents.keySet()) {
+				if (reached.add(next)) {
+					pending.add(next);
+				}
+			}
+		}
+		return reached;
+	}
+
+	/**
+	 * A class of a version, with its dependencies and dependents
+	 */
+	private static final class ClassNode {
+
+		static final ClassNode EMPTY = new ClassNode(PersistentMap.<String, Attributes>empty(), PersistentMap.<String, String>empty());
+
+		/**
+		 * The kinds and references of each dependency, by dependency name
+		 */
+		final PersistentMap<String, Attributes> dependencies;
+		/**
+		 * The names of the classes depending on this one, mapped to themselves
+		 */
+		final PersistentMap<String, String> dependents;
+
+		ClassNode(PersistentMap<String, Attributes> dependencies, PersistentMap<String, String> dependents) {
+			this.dependencies = dependencies;
+			this.dependents = dependents;
+		}
+
+	}
+
+	/**
+	 * The kinds and amount of references of a dependency
+	 */
+	private static final class Attributes {
+
+		final int kinds;
+		final int references;
+
+		Attributes(int kinds, int references) {
+			this.kinds = kinds;
+			this.references = references;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Attributes)) return false;
+			Attributes attributes = (Attributes) other;
+			return this.kinds == attributes.kinds && this.references == attributes.references;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.kinds * 31 + this.references;
+		}
+
+	}
+
+	/**
+	 * A dependency compared between two versions, a dependency missing from a version has no kinds and no references
+	 * in it
+	 */
+	public static final class Edge implements Comparable<Edge> {
+
+		private final String from;
+		private final String to;
+		private final int previousKinds;
+		private final int previousReferences;
+		private final int kinds;
+		private final int references;
+
+		Edge(String from, String to, int previousKinds, int previousReferences, int kinds, int references) {
+			this.from = from;
+			this.to = to;
+			this.previousKinds = previousKinds;
+			this.previousReferences = previousReferences;
+			this.kinds = kinds;
+			this.references = references;
+		}
+
+		/**
+		 * @return the full name of the dependent class
+		 */
+		public String getFrom() {
+			return this.from;
+		}
+
+		/**
+		 * @return the full name of the class depended upon
+		 */
+		public String getTo() {
+			return this.to;
+		}
+
+		/**
+		 * @return the mask of {@code EdgeKind} bits of the dependency in the older version
+		 */
+		public int getPreviousKinds() {
+			return this.previousKinds;
+		}
+
+		/**
+		 * @return the amount of references of the dependency in the older version
+		 */
+		public int getPreviousReferences() {
+			return this.previousReferences;
+		}
+
+		/**
+		 * @return the mask of {@code EdgeKind} bits of the dependency in the newer version
+		 */
+		public int getKinds() {
+			return this.kinds;
+		}
+
+		/**
+		 * @return the amount of references of the dependency in the newer version
+		 */
+		public int getReferences() {
+			return this.references;
+		}
+
+		@Override
+		public int compareTo(Edge other) {
+			int result = this.from.compareTo(other.from);
+			return result != 0 ? result : this.to.compareTo(other.to);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) return true;
+			if (!(other instanceof Edge)) return false;
+			Edge edge = (Edge) other;
+			return this.from.equals(edge.from) && this.to.equals(edge.to) && this.previousKinds == edge.previousKinds
+					&& this.previousReferences == edge.previousReferences && this.kinds == edge.kinds
+					&& this.references == edge.references;
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.from.hashCode() * 31 + this.to.hashCode()) * 31 + this.kinds;
+		}
+
+		@Override
+		public String toString() {
+			return this.from + " -> " + this.to + " (" + this.previousReferences + " -> " + this.references + " references)";
+		}
+
+	}
+
+	/**
+	 * The differences between two versions, see {@link DependencyMapVersion#diff(DependencyMapVersion)}
+	 */
+	public static final class Diff {
+
+		private final long olderVersion;
+		private final long newerVersion;
+		private final Set<String> addedClasses;
+		private final Set<String> removedClasses;
+		private final List<Edge> addedEdges;
+		private final List<Edge> removedEdges;
+		private final List<Edge> changedEdges;
+
+		Diff(long olderVersion, long newerVersion, Set<String> addedClasses, Set<String> removedClasses, List<Edge> addedEdges, List<Edge> removedEdges, List<Edge> changedEdges) {
+			this.olderVersion = olderVersion;
+			this.newerVersion = newerVersion;
+			this.addedClasses = Collections.unmodifiableSet(addedClasses);
+			this.removedClasses = Collections.unmodifiableSet(removedClasses);
+			this.addedEdges = Collections.unmodifiableList(addedEdges);
+			this.removedEdges = Collections.unmodifiableList(removedEdges);
+			this.changedEdges = Collections.unmodifiableList(changedEdges);
+		}
+
+		/**
+		 * @return the number of the older version compared
+		 */
+		public long getOlderVersion() {
+			return this.olderVersion;
+		}
+
+		/**
+		 * @return the number of the newer version compared
+		 */
+		public long getNewerVersion() {
+			return this.newerVersion;
+		}
+
+		/**
+		 * @return the full names of the classes only in the newer version, sorted
+		 */
+		public Set<String> getAddedClasses() {
+			return this.addedClasses;
+		}
+
+		/**
+		 * @return the full names of the classes only in the older version, sorted
+		 */
+		public Set<String> getRemovedClasses() {
+			return this.removedClasses;
+		}
+
+		/**
+		 * @return the edges only in the newer version, sorted by dependent class and then by dependency
+		 */
+		public List<Edge> getAddedEdges() {
+			return this.addedEdges;
+		}
+
+		/**
+		 * @return the edges only in the older version, sorted by dependent class and then by dependency
+		 */
+		public List<Edge> getRemovedEdges() {
+			return this.removedEdges;
+		}
+
+		/**
+		 * @return the edges in both versions whose kinds or amount of references changed, sorted by dependent class and
+		 * then by dependency
+		 */
+		public List<Edge> getChangedEdges() {
+			return this.changedEdges;
+		}
+
+		/**
+		 * @return {@code true} if both versions have the same classes and edges
+		 */
+		public boolean isEmpty() {
+			return this.addedClasses.isEmpty() && this.removedClasses.isEmpty() && this.addedEdges.isEmpty() && this.removedEdges.isEmpty() && this.changedEdges.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			return "version " + this.olderVersion + " -> " + this.newerVersion + ": " + this.addedClasses.size() + " classes added, " + this.removedClasses.size() + " classes removed, " + this.addedEdges.size() + " edges added, " + this.removedEdges.size() + " edges removed, " + this.changedEdges.size() + " edges changed";
+		}
+
+	}
+
+}
@@ -0,0 +1,50 @@
+package data;
+
+/**
+ * Receives the classes and dependencies found by the parsers of class files, {@code DependencyVisitor} and
+ * {@code ConstantPoolExtractor}
+ * <p>
+ * A {@code DependencyMap} adds them to its graph, an {@code EdgeCollector} keeps the dependencies of a single class in
+ * a compact list. Parsers only use the operations of this interface, so the sink they are given decides where the
+ * dependencies end up.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public interface DependencySink {
+	
+	/**
+	 * Returns the element used to add dependencies to a class
+	 * 
+	 * @param fullyQualifiedClassName	:	a class fully qualified name
+	 * @return	the {@code DependencyElem} for {@code fullyQualifiedClassName}
+	 */
+	DependencyElem getOrCreateDependencyElem(String fullyQualifiedClassName);
+	
+	/**
+	 * Add a reference of a given kind to another element, references of an element to itself are ignored
+	 * 
+	 * @param elem			:	the element to which the dependency will be added
+	 * @param dependency	:	the dependency to add
+	 * @param kind			:	how {@code elem} uses {@code dependency}
+	 */
+	void addNewDependency(DependencyElem elem, DependencyElem dependency, EdgeKind kind);
+	
+	/**
+	 * Variant of {@link DependencySink#addNewDependency(DependencyElem, DependencyElem, EdgeKind)} that will take
+	 * a fully qualified class name instead of a {@code DependencyElem} for the second argument
+	 * 
+	 * @param elem								:	the element to which the dependency will be added
+	 * @param dependencyFullyQualifiedClassName	:	fully qualified class name of the dependency to add
+	 * @param kind								:	how {@code elem} uses the dependency
+	 */
+	void addNewDependency(DependencyElem elem, String dependencyFullyQualifiedClassName, EdgeKind kind);
+	
+	/**
+	 * @return the graph where dependencies between methods and fields are added, or {@code null} if members are not
+	 * tracked
+	 */
+	MemberGraph getMemberGraph();
+	
+}
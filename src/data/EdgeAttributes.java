@@ -0,0 +1,102 @@
+package data;
+
+import java.util.Arrays;
+
+import utils.IntList;
+import utils.LongIntMap;
+
+/**
+ * The kinds and amount of references of each dependency of a {@code DependencyMap}, kept in {@code int} arrays
+ * indexed by a slot assigned to each dependency
+ * <p>
+ * Dependencies are identified by the indexes of both classes in the map, slots of removed dependencies are reused.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+final class EdgeAttributes {
+
+	/**
+	 * Slots by {@code class index << 32 | dependency index}
+	 */
+	private final LongIntMap slots;
+	private int[] kinds;
+	private int[] counts;
+	private int used;
+	private final IntList free;
+
+	/**
+	 * Constructor
+	 */
+	EdgeAttributes() {
+		this.slots = new LongIntMap();
+		this.kinds = new int[16];
+		this.counts = new int[16];
+		this.free = new IntList();
+	}
+
+	/**
+	 * Adds kinds and references to a dependency, creating its attributes if needed
+	 *
+	 * @param from	:	the index of the dependent class
+	 * @param to	:	the index of the dependency
+	 * @param kinds	:	a mask of {@code EdgeKind} bits
+	 * @param count	:	the amount of references
+	 */
+	void add(int from, int to, int kinds, int count) {
+		long key = key(from, to);
+		int slot = this.slots.get(key, -1);
+		if (slot < 0) {
+			if (!this.free.isEmpty()) {
+				slot = this.free.removeLast();
+			} else {
+				slot = this.used++;
+				if (slot == this.kinds.length) {
+					this.kinds = Arrays.copyOf(this.kinds, slot << 1);
+					this.counts = Arrays.copyOf(this.counts, slot << 1);
+				}
+			}
+			this.slots.put(key, slot);
+			this.kinds[slot] = 0;
+			this.counts[slot] = 0;
+		}
+		this.kinds[slot] |= kinds;
+		this.counts[slot] += count;
+	}
+
+	/**
+	 * @return the mask of {@code EdgeKind} bits of a dependency, {@code 0} if there is no such dependency
+	 */
+	int getKinds(int from, int to) {
+		int slot = this.slots.get(key(from, to), -1);
+		return slot < 0 ? 0 : this.kinds[slot];
+	}
+
+	/**
+	 * @return the amount of references of a dependency, {@code 0} if there is no such dependency
+	 */
+	int getCount(int from, int to) {
+		int slot = this.slots.get(key(from, to), -1);
+		return slot < 0 ? 0 : this.counts[slot];
+	}
+
+	/**
+	 * Removes the attributes of a dependency
+	 *
+	 * @return the amount of references the dependency had
+	 */
+	int remove(int from, int to) {
+		int slot = this.slots.remove(key(from, to), -1);
+		if (slot < 0) {
+			return 0;
+		}
+		this.free.add(slot);
+		return this.counts[slot];
+	}
+
+	private static long key(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+}
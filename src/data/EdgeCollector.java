@@ -0,0 +1,128 @@
+package data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@code DependencySink} that only collects the dependencies of one class at a time, used to parse class files in
+ * worker threads without building a container for each class
+ * <p>
+ * Parsers add dependencies to the collector as they would to a container, instead of being added to a graph they are
+ * accumulated in a compact list, returned by {@link EdgeCollector#take(String)}, which also clears the collector so
+ * it can be reused for the next class. All dependencies collected must be dependencies of the same class. Elements
+ * returned by {@link EdgeCollector#getOrCreateDependencyElem(String)} only carry the name of a class. Members are not
+ * tracked.
+ * <p>
+ * A collector must only be used by one thread at a time.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class EdgeCollector implements DependencySink {
+	
+	/**
+	 * The position of each dependency collected by name
+	 */
+	private final Map<String, Integer> positions;
+	private String className;
+	private String[] dependencies;
+	private int[] kinds;
+	private int[] references;
+	private int size;
+	
+	/**
+	 * Constructor
+	 */
+	public EdgeCollector() {
+		this.positions = new HashMap<String, Integer>();
+		this.dependencies = new String[16];
+		this.kinds = new int[16];
+		this.references = new int[16];
+	}
+	
+	@Override
+	public DependencyElem getOrCreateDependencyElem(String fullyQualifiedClassName) {
+		return new DependencyElem(fullyQualifiedClassName);
+	}
+	
+	@Override
+	public void addNewDependency(DependencyElem elem, DependencyElem dependency, EdgeKind kind) {
+		add(elem.getFullyQualifiedName(), dependency.getFullyQualifiedName(), kind.bit());
+	}
+	
+	@Override
+	public void addNewDependency(DependencyElem elem, String dependencyFullyQualifiedClassName, EdgeKind kind) {
+		add(elem.getFullyQualifiedName(), dependencyFullyQualifiedClassName, kind.bit());
+	}
+	
+	/**
+	 * @return {@code null}, collectors don't track members
+	 */
+	@Override
+	public MemberGraph getMemberGraph() {
+		return null;
+	}
+	
+	/**
+	 * Adds a reference to a dependency of the class being collected
+	 * 
+	 * @param from	:	the fully qualified name of the dependent class
+	 * @param to	:	the fully qualified name of the dependency
+	 * @param kinds	:	a mask of {@code EdgeKind} bits
+	 * @throws IllegalStateException if {@code from} is not the class whose dependencies are being collected
+	 */
+	private void add(String from, String to, int kinds) {
+		if (from.equals(to)) return;
+		if (this.className == null) {
+			this.className = from;
+		} else if (!this.className.equals(from)) {
+			throw new IllegalStateException("Dependencies of " + from + " added while collecting those of " + this.className);
+		}
+		Integer position = this.positions.get(to);
+		if (position == null) {
+			if (this.size == this.dependencies.length) {
+				int capacity = this.size * 2;
+				this.dependencies = Arrays.copyOf(this.dependencies, capacity);
+				this.kinds = Arrays.copyOf(this.kinds, capacity);
+				this.references = Arrays.copyOf(this.references, capacity);
+			}
+			position = this.size++;
+			this.positions.put(to, position);
+			this.dependencies[position] = to;
+			this.kinds[position] = 0;
+			this.references[position] = 0;
+		}
+		this.kinds[position] |= kinds;
+		this.references[position]++;
+	}
+	
+	/**
+	 * Clears the collector, discarding the dependencies collected
+	 */
+	public void clear() {
+		this.positions.clear();
+		Arrays.fill(this.dependencies, 0, this.size, null);
+		this.className = null;
+		this.size = 0;
+	}
+	
+	/**
+	 * Returns the dependencies collected and clears the collector
+	 * 
+	 * @param className	:	the fully qualified name of the class parsed, used if no dependency was collected
+	 * @return the dependencies of {@code className}
+	 * @throws IllegalStateException if the dependencies collected are not those of {@code className}
+	 */
+	public ClassEdges take(String className) {
+		if (this.className != null && !this.className.equals(className)) {
+			throw new IllegalStateException("Dependencies of " + this.className + " collected while parsing " + className);
+		}
+		ClassEdges edges = new ClassEdges(className, Arrays.copyOf(this.dependencies, this.size),
+				Arrays.copyOf(this.kinds, this.size), Arrays.copyOf(this.references, this.size));
+		clear();
+		return edges;
+	}
+	
+}
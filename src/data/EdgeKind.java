@@ -0,0 +1,121 @@
+package data;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The ways a class can use another one, each dependency of a {@code DependencyMap} keeps the kinds it was found
+ * with as a bitmask of {@link EdgeKind#bit()} values
+ * <p>
+ * The {@code DependencyVisitor} reports the kind of every use. The {@code ConstantPoolExtractor} doesn't decode
+ * instructions, so it reports owners and descriptors of referenced fields and methods as {@link EdgeKind#FIELD_ACCESS}
+ * and {@link EdgeKind#CALL}, and the rest of the classes named in the constant pool as
+ * {@link EdgeKind#CONSTANT_POOL}.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public enum EdgeKind {
+
+	/**
+	 * The superclass
+	 */
+	EXTENDS,
+	/**
+	 * An implemented interface, or an extended interface for interfaces
+	 */
+	IMPLEMENTS,
+	/**
+	 * A type used in the declaration of a field
+	 */
+	FIELD,
+	/**
+	 * A parameter or return type used in the declaration of a method
+	 */
+	METHOD,
+	/**
+	 * An exception declared by a method
+	 */
+	THROWS,
+	/**
+	 * A type argument or a type parameter bound in a generic signature
+	 */
+	SIGNATURE,
+	/**
+	 * An annotation, or a type used by the values of an annotation
+	 */
+	ANNOTATION,
+	/**
+	 * The owner, parameter or return type of a called method, including the methods and handles of
+	 * {@code invokedynamic} instructions
+	 */
+	CALL,
+	/**
+	 * The owner or type of an accessed field
+	 */
+	FIELD_ACCESS,
+	/**
+	 * The type of a {@code new}, {@code checkcast}, {@code instanceof} or array creation instruction
+	 */
+	TYPE_INSTRUCTION,
+	/**
+	 * A class literal or method type loaded as a constant
+	 */
+	LDC,
+	/**
+	 * A caught exception
+	 */
+	CATCH,
+	/**
+	 * The type of a local variable, as recorded in the debug information
+	 */
+	LOCAL_VARIABLE,
+	/**
+	 * A class named by the constant pool without a known use, only reported by the {@code ConstantPoolExtractor}
+	 */
+	CONSTANT_POOL,
+	/**
+	 * A dependency added without a kind, like the dependencies restored from a {@code GraphSnapshot}
+	 */
+	OTHER;
+
+	/**
+	 * A mask with the bits of all kinds
+	 */
+	public static final int ALL = (1 << values().length) - 1;
+
+	/**
+	 * @return the bit of this kind in a mask of kinds
+	 */
+	public int bit() {
+		return 1 << ordinal();
+	}
+
+	/**
+	 * @param kinds	:	some kinds
+	 * @return a mask with the bits of {@code kinds}
+	 */
+	public static int mask(EdgeKind... kinds) {
+		int mask = 0;
+		for (EdgeKind kind : kinds) {
+			mask |= kind.bit();
+		}
+		return mask;
+	}
+
+	/**
+	 * @param mask	:	a mask of kinds
+	 * @return the kinds whose bits are set in {@code mask}
+	 */
+	public static Set<EdgeKind> fromMask(int mask) {
+		Set<EdgeKind> kinds = EnumSet.noneOf(EdgeKind.class);
+		for (EdgeKind kind : values()) {
+			if ((mask & kind.bit()) != 0) {
+				kinds.add(kind);
+			}
+		}
+		return kinds;
+	}
+
+}
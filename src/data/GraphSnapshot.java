@@ -0,0 +1,605 @@
+package data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import utils.Fingerprint;
+import visitor.ExtractionEngine;
+import visitor.ScanDepth;
+
+/**
+ * A dependency graph stored in a file, with the fingerprint of each class file used to build it and the
+ * {@code ScanDepth} and {@code ExtractionEngine} it was scanned with.
+ * <p>
+ * Snapshots are written with
+ * {@link GraphSnapshot#write(Path, CompactDependencyGraph, Map, Map, ScanDepth, ExtractionEngine)} and read by
+ * mapping the file into memory, nothing is deserialized when opening a snapshot: class names are decoded when
+ * queried and dependencies are read directly from the mapped file. Opening a snapshot validates it once, a checksum
+ * of the whole file after the header detects corrupted files and the offsets and ids of every section are checked to
+ * be in bounds, so queries and copies of an opened snapshot never read outside of it. The file layout (all numbers
+ * big endian) is
+ * <p>
+ * <ul>
+ * <li>header : magic, version, classes, packages, dependencies, sources, strings, the ordinal of the scan depth (all
+ * {@code int}), the position and length of the strings data (both {@code long}), the ordinal of the extraction engine
+ * and the CRC-32 of the rest of the file (both {@code int}), padded to 64 bytes</li>
+ * <li>string offsets : {@code int[strings + 1]}, the position of each string inside the strings data. Strings are
+ * classes names (sorted, string {@code i} is the name of class {@code i}), then packages names (sorted), then class
+ * files names</li>
+ * <li>package column : {@code int[classes]}, the package id of each class</li>
+ * <li>dependencies : {@code int[classes + 1]} offsets and {@code int[dependencies]} targets</li>
+ * <li>dependency attributes : {@code int[dependencies]} masks of {@code EdgeKind} bits and {@code int[dependencies]}
+ * amounts of references, parallel to the dependency targets</li>
+ * <li>dependents : {@code int[classes + 1]} offsets and {@code int[dependencies]} targets</li>
+ * <li>sources : padded to 8 bytes, for each class file the name string id and defined class id ({@code int}), and
+ * the size, modification time and contents hash ({@code long})</li>
+ * <li>strings data : UTF-8 encoded strings</li>
+ * </ul>
+ * <p>
+ * Snapshots written by earlier versions, which didn't keep the kinds and references of dependencies, the depth and
+ * engine of the scan or a checksum, are rejected.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.5u
+ */
+public class GraphSnapshot {
+	
+	private static final int MAGIC = 0x44534E50;
+	private static final int VERSION = 4;
+	private static final int HEADER_SIZE = 64;
+	private static final int SOURCE_RECORD_SIZE = 32;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private final ByteBuffer buffer;
+	private final int classes;
+	private final int packages;
+	private final int dependencies;
+	private final int sources;
+	private final int strings;
+	private final ScanDepth depth;
+	private final ExtractionEngine engine;
+	private final IntBuffer stringOffsets;
+	private final IntBuffer packageColumn;
+	private final IntBuffer dependencyOffsets;
+	private final IntBuffer dependencyTargets;
+	private final IntBuffer dependencyKinds;
+	private final IntBuffer dependencyReferences;
+	private final IntBuffer dependentOffsets;
+	private final IntBuffer dependentTargets;
+	private final int sourcesPosition;
+	private final int stringDataPosition;
+	
+	/**
+	 * Constructor, maps a snapshot file into memory
+	 * <p>
+	 * The counts of the header are checked against the size of the file and the checksum of the header against the
+	 * rest of the file. Then every offset is checked to be within its section and to not decrease, every dependency,
+	 * dependent and package id to be below the amount of classes or packages, the dependents to mirror the
+	 * dependencies and the ids of each class file to be in bounds. Classes names and the attributes of each dependency
+	 * and class file are not decoded.
+	 * <p>
+	 * 
+	 * @param snapshotFile	:	the snapshot file
+	 * @throws IOException if the file can't be read or it's not a valid snapshot
+	 */
+	public GraphSnapshot(Path snapshotFile) throws IOException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot " + snapshotFile + " is too big (" + channel.size() + " bytes)");
+			}
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		this.buffer = mapped;
+		if (this.buffer.capacity() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC) {
+			throw new IOException(snapshotFile + " is not a dependency graph snapshot");
+		}
+		if (this.buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported snapshot version " + this.buffer.getInt(4) + " in " + snapshotFile);
+		}
+		this.classes = this.buffer.getInt(8);
+		this.packages = this.buffer.getInt(12);
+		this.dependencies = this.buffer.getInt(16);
+		this.sources = this.buffer.getInt(20);
+		this.strings = this.buffer.getInt(24);
+		int depth = this.buffer.getInt(28);
+		long stringDataPosition = this.buffer.getLong(32);
+		long stringDataLength = this.buffer.getLong(40);
+		int engine = this.buffer.getInt(48);
+		int checksum = this.buffer.getInt(52);
+		if (this.classes < 0 || this.packages < 0 || this.dependencies < 0 || this.sources < 0
+				|| this.strings != (long) this.classes + this.packages + this.sources) {
+			throw new IOException("Snapshot " + snapshotFile + " has invalid counts");
+		}
+		if (depth < 0 || depth >= ScanDepth.values().length || engine < 0 || engine >= ExtractionEngine.values().length) {
+			throw new IOException("Snapshot " + snapshotFile + " has an unknown scan depth or extraction engine");
+		}
+		this.depth = ScanDepth.values()[depth];
+		this.engine = ExtractionEngine.values()[engine];
+		long sections = HEADER_SIZE + ((long) this.strings + 1) * 4 + (long) this.classes * 4 + 2 * ((long) this.classes + 1) * 4 + 4 * (long) this.dependencies * 4;
+		if (stringDataPosition < HEADER_SIZE || stringDataLength < 0 || stringDataPosition + stringDataLength != this.buffer.capacity()
+				|| ((sections + 7) & ~7L) + (long) this.sources * SOURCE_RECORD_SIZE != stringDataPosition) {
+			throw new IOException("Snapshot " + snapshotFile + " is truncated or corrupted");
+		}
+		if (checksum(this.buffer) != checksum) {
+			throw new IOException("Snapshot " + snapshotFile + " is corrupted (checksum mismatch)");
+		}
+		this.stringDataPosition = (int) stringDataPosition;
+		int position = HEADER_SIZE;
+		this.stringOffsets = intSection(position, this.strings + 1);
+		position += (this.strings + 1) * 4;
+		this.packageColumn = intSection(position, this.classes);
+		position += this.classes * 4;
+		this.dependencyOffsets = intSection(position, this.classes + 1);
+		position += (this.classes + 1) * 4;
+		this.dependencyTargets = intSection(position, this.dependencies);
+		position += this.dependencies * 4;
+		this.dependencyKinds = intSection(position, this.dependencies);
+		position += this.dependencies * 4;
+		this.dependencyReferences = intSection(position, this.dependencies);
+		position += this.dependencies * 4;
+		this.dependentOffsets = intSection(position, this.classes + 1);
+		position += (this.classes + 1) * 4;
+		this.dependentTargets = intSection(position, this.dependencies);
+		position += this.dependencies * 4;
+		this.sourcesPosition = align(position);
+		String invalid = validate(stringDataLength);
+		if (invalid != null) {
+			throw new IOException("Snapshot " + snapshotFile + " is corrupted (" + invalid + ")");
+		}
+	}
+	
+	/**
+	 * Checks the offsets and ids of all sections, so that reading any of them stays inside the snapshot
+	 * 
+	 * @param stringDataLength	:	the length of the strings data
+	 * @return a description of the first invalid section found, or {@code null} if all sections are valid
+	 */
+	private String validate(long stringDataLength) {
+		if (!offsets(this.stringOffsets, stringDataLength)) {
+			return "string offsets";
+		}
+		if (!ids(this.packageColumn, this.packages)) {
+			return "package ids";
+		}
+		if (!offsets(this.dependencyOffsets, this.dependencies) || !ids(this.dependencyTargets, this.classes)) {
+			return "dependencies";
+		}
+		if (!offsets(this.dependentOffsets, this.dependencies) || !ids(this.dependentTargets, this.classes)) {
+			return "dependents";
+		}
+		int[] dependents = new int[this.classes];
+		for (int e = 0; e < this.dependencies; e++) {
+			dependents[this.dependencyTargets.get(e)]++;
+		}
+		for (int id = 0; id < this.classes; id++) {
+			if (dependents[id] != this.dependentOffsets.get(id + 1) - this.dependentOffsets.get(id)) {
+				return "dependents don't match dependencies";
+			}
+		}
+		for (int source = 0; source < this.sources; source++) {
+			int name = this.buffer.getInt(sourcePosition(source));
+			int definedClass = this.buffer.getInt(sourcePosition(source) + 4);
+			if (name < this.classes + this.packages || name >= this.strings || definedClass < 0 || definedClass >= this.classes) {
+				return "class file " + source;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param offsets	:	a section of offsets
+	 * @param last		:	the value the last offset must have
+	 * @return {@code true} if the offsets start at {@code 0}, never decrease and end at {@code last}
+	 */
+	private static boolean offsets(IntBuffer offsets, long last) {
+		int previous = 0;
+		for (int i = 0; i < offsets.capacity(); i++) {
+			int offset = offsets.get(i);
+			if (offset < previous || (i == 0 && offset != 0)) {
+				return false;
+			}
+			previous = offset;
+		}
+		return previous == last;
+	}
+	
+	/**
+	 * @param ids	:	a section of ids
+	 * @param bound	:	the amount of valid ids
+	 * @return {@code true} if all ids are between {@code 0} and {@code bound} (exclusive)
+	 */
+	private static boolean ids(IntBuffer ids, int bound) {
+		for (int i = 0; i < ids.capacity(); i++) {
+			int id = ids.get(i);
+			if (id < 0 || id >= bound) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @param file	:	the contents of a snapshot file
+	 * @return the CRC-32 of the file after the header
+	 */
+	private static int checksum(ByteBuffer file) {
+		ByteBuffer body = file.duplicate();
+		body.position(HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * Writes a snapshot file
+	 * 
+	 * @param snapshotFile		:	the file to write, will be replaced if it already exists
+	 * @param graph				:	the dependency graph to write
+	 * @param fingerprints		:	the fingerprint of each class file, by class file name
+	 * @param sourceClasses		:	the full name of the class defined by each class file, by class file name, every
+	 * 								class must be part of {@code graph}
+	 * @param depth				:	the depth the class files were scanned with
+	 * @param engine			:	the engine the class files were scanned with
+	 * @throws IOException
+	 * @throws IllegalArgumentException if a class file has no defined class or its class is not part of the graph
+	 */
+	public static void write(Path snapshotFile, CompactDependencyGraph graph, Map<String, Fingerprint> fingerprints, Map<String, String> sourceClasses, ScanDepth depth, ExtractionEngine engine) throws IOException {
+		int classes = graph.size();
+		int packages = graph.getPackageCount();
+		int dependencies = graph.getEdgeCount();
+		int sources = fingerprints.size();
+		List<byte[]> encoded = new ArrayList<byte[]>(classes + packages + sources);
+		for (String name : graph.getNames()) {
+			encoded.add(name.getBytes(UTF8));
+		}
+		for (String packageName : graph.getPackages()) {
+			encoded.add(packageName.getBytes(UTF8));
+		}
+		int[] sourceClassIds = new int[sources];
+		Fingerprint[] sourceFingerprints = new Fingerprint[sources];
+		int source = 0;
+		for (Entry<String, Fingerprint> fingerprint : fingerprints.entrySet()) {
+			String className = sourceClasses.get(fingerprint.getKey());
+			int classId = className == null ? -1 : graph.getId(className);
+			if (classId == -1) {
+				throw new IllegalArgumentException("Class file " + fingerprint.getKey() + " defines no class of the graph");
+			}
+			encoded.add(fingerprint.getKey().getBytes(UTF8));
+			sourceClassIds[source] = classId;
+			sourceFingerprints[source] = fingerprint.getValue();
+			source++;
+		}
+		int strings = encoded.size();
+		long stringDataLength = 0;
+		for (byte[] string : encoded) {
+			stringDataLength += string.length;
+		}
+		int position = HEADER_SIZE + (strings + 1) * 4 + classes * 4 + 2 * (classes + 1) * 4 + 4 * dependencies * 4;
+		int sourcesPosition = align(position);
+		long stringDataPosition = sourcesPosition + (long) sources * SOURCE_RECORD_SIZE;
+		if (stringDataPosition + stringDataLength > Integer.MAX_VALUE) {
+			throw new IOException("Dependency graph is too big for a snapshot");
+		}
+		try (OutputStream os = Files.newOutputStream(snapshotFile)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(classes);
+			out.writeInt(packages);
+			out.writeInt(dependencies);
+			out.writeInt(sources);
+			out.writeInt(strings);
+			out.writeInt(depth.ordinal());
+			out.writeLong(stringDataPosition);
+			out.writeLong(stringDataLength);
+			out.writeInt(engine.ordinal());
+			out.writeInt(0);
+			padding(out, HEADER_SIZE - 56);
+			int offset = 0;
+			out.writeInt(offset);
+			for (byte[] string : encoded) {
+				offset += string.length;
+				out.writeInt(offset);
+			}
+			writeInts(out, graph.getPackageColumn());
+			writeInts(out, graph.getDependencyOffsets());
+			writeInts(out, graph.getDependencyTargets());
+			writeInts(out, graph.getDependencyKinds());
+			writeInts(out, graph.getDependencyReferences());
+			writeInts(out, graph.getDependentOffsets());
+			writeInts(out, graph.getDependentTargets());
+			padding(out, sourcesPosition - position);
+			for (source = 0; source < sources; source++) {
+				out.writeInt(classes + packages + source);
+				out.writeInt(sourceClassIds[source]);
+				out.writeLong(sourceFingerprints[source].getSize());
+				out.writeLong(sourceFingerprints[source].getLastModified());
+				out.writeLong(sourceFingerprints[source].getHash());
+			}
+			for (byte[] string : encoded) {
+				out.write(string);
+			}
+			out.flush();
+		}
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer checksum = ByteBuffer.allocate(4);
+			checksum.putInt(0, checksum(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+			channel.write(checksum, 52);
+		}
+	}
+	
+	/**
+	 * @return the amount of classes in this snapshot
+	 */
+	public int size() {
+		return this.classes;
+	}
+	
+	/**
+	 * @return the amount of direct dependencies in this snapshot
+	 */
+	public int getEdgeCount() {
+		return this.dependencies;
+	}
+	
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return the id of the class, or {@code -1} if the class is not part of this snapshot
+	 */
+	public int getId(String fullyQualifiedClassName) {
+		int low = 0;
+		int high = this.classes - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = getName(middle).compareTo(fullyQualifiedClassName);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @return the full name of the class
+	 */
+	public String getName(int id) {
+		return string(id);
+	}
+	
+	/**
+	 * @return the amount of packages in this snapshot
+	 */
+	public int getPackageCount() {
+		return this.packages;
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @return the id of the package the class belongs to
+	 */
+	public int getPackage(int id) {
+		return this.packageColumn.get(id);
+	}
+	
+	/**
+	 * @param packageId	:	a package id
+	 * @return the name of the package
+	 */
+	public String getPackageName(int packageId) {
+		return string(this.classes + packageId);
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @return the amount of direct dependencies of the class
+	 */
+	public int getDependencyCount(int id) {
+		return this.dependencyOffsets.get(id + 1) - this.dependencyOffsets.get(id);
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependencyCount(id) - 1}
+	 * @return the id of the {@code index}-th direct dependency of the class
+	 */
+	public int getDependency(int id, int index) {
+		return this.dependencyTargets.get(this.dependencyOffsets.get(id) + index);
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependencyCount(id) - 1}
+	 * @return the mask of {@code EdgeKind} bits of the {@code index}-th direct dependency of the class
+	 */
+	public int getDependencyKinds(int id, int index) {
+		return this.dependencyKinds.get(this.dependencyOffsets.get(id) + index);
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependencyCount(id) - 1}
+	 * @return the amount of references of the {@code index}-th direct dependency of the class
+	 */
+	public int getDependencyReferences(int id, int index) {
+		return this.dependencyReferences.get(this.dependencyOffsets.get(id) + index);
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @return the amount of classes that directly depend on the class
+	 */
+	public int getDependentCount(int id) {
+		return this.dependentOffsets.get(id + 1) - this.dependentOffsets.get(id);
+	}
+	
+	/**
+	 * @param id	:	a class id
+	 * @param index	:	a number between {@code 0} and {@code getDependentCount(id) - 1}
+	 * @return the id of the {@code index}-th class that directly depends on the class
+	 */
+	public int getDependent(int id, int index) {
+		return this.dependentTargets.get(this.dependentOffsets.get(id) + index);
+	}
+	
+	/**
+	 * @return the depth the class files of this snapshot were scanned with
+	 */
+	public ScanDepth getScanDepth() {
+		return this.depth;
+	}
+	
+	/**
+	 * @return the engine the class files of this snapshot were scanned with
+	 */
+	public ExtractionEngine getExtractionEngine() {
+		return this.engine;
+	}
+	
+	/**
+	 * @return the amount of class files recorded in this snapshot
+	 */
+	public int getSourceCount() {
+		return this.sources;
+	}
+	
+	/**
+	 * @param source	:	a number between {@code 0} and {@code getSourceCount() - 1}
+	 * @return the name of the class file
+	 */
+	public String getSourceName(int source) {
+		return string(this.buffer.getInt(sourcePosition(source)));
+	}
+	
+	/**
+	 * @param source	:	a number between {@code 0} and {@code getSourceCount() - 1}
+	 * @return the id of the class defined by the class file
+	 */
+	public int getSourceClass(int source) {
+		return this.buffer.getInt(sourcePosition(source) + 4);
+	}
+	
+	/**
+	 * @param source	:	a number between {@code 0} and {@code getSourceCount() - 1}
+	 * @return the fingerprint of the class file
+	 */
+	public Fingerprint getSourceFingerprint(int source) {
+		int position = sourcePosition(source);
+		return new Fingerprint(this.buffer.getLong(position + 8), this.buffer.getLong(position + 16), this.buffer.getLong(position + 24));
+	}
+	
+	/**
+	 * Copies this snapshot into a {@code CompactDependencyGraph}, from the sections validated when the snapshot was
+	 * opened
+	 * 
+	 * @return a graph with the same classes, packages and dependencies as this snapshot
+	 */
+	public CompactDependencyGraph toCompactDependencyGraph() {
+		String[] names = new String[this.classes];
+		for (int id = 0; id < this.classes; id++) {
+			names[id] = getName(id);
+		}
+		String[] packageNames = new String[this.packages];
+		for (int p = 0; p < this.packages; p++) {
+			packageNames[p] = getPackageName(p);
+		}
+		return new CompactDependencyGraph(names, packageNames, copy(this.packageColumn), copy(this.dependencyOffsets),
+				copy(this.dependencyTargets), copy(this.dependencyKinds), copy(this.dependencyReferences), copy(this.dependentOffsets),
+				copy(this.dependentTargets));
+	}
+	
+	/**
+	 * Copies this snapshot into a new {@code DependencyMap}, from the sections validated when the snapshot was opened
+	 * 
+	 * @return a dependency map with the same classes and dependencies, with their kinds and references, as this
+	 * snapshot
+	 */
+	public DependencyMap toDependencyMap() {
+		DependencyMap dependencyMap = new DependencyMap();
+		String[] names = new String[this.classes];
+		for (int id = 0; id < this.classes; id++) {
+			names[id] = getName(id);
+			dependencyMap.getOrCreateDependencyElem(names[id]);
+		}
+		for (int id = 0; id < this.classes; id++) {
+			int end = this.dependencyOffsets.get(id + 1);
+			for (int e = this.dependencyOffsets.get(id); e < end; e++) {
+				dependencyMap.addReferences(names[id], names[this.dependencyTargets.get(e)], this.dependencyKinds.get(e), this.dependencyReferences.get(e));
+			}
+		}
+		return dependencyMap;
+	}
+	
+	private String string(int string) {
+		int start = this.stringOffsets.get(string);
+		int end = this.stringOffsets.get(string + 1);
+		byte[] bytes = new byte[end - start];
+		ByteBuffer data = this.buffer.duplicate();
+		data.position(this.stringDataPosition + start);
+		data.get(bytes);
+		return new String(bytes, UTF8);
+	}
+	
+	private int sourcePosition(int source) {
+		if (source < 0 || source >= this.sources) {
+			throw new IndexOutOfBoundsException("Source " + source + " is out of bounds (sources " + this.sources + ")");
+		}
+		return this.sourcesPosition + source * SOURCE_RECORD_SIZE;
+	}
+	
+	private IntBuffer intSection(int position, int length) {
+		ByteBuffer section = this.buffer.duplicate();
+		section.position(position);
+		section.limit(position + length * 4);
+		return section.slice().asIntBuffer();
+	}
+	
+	private static int[] copy(IntBuffer section) {
+		int[] values = new int[section.capacity()];
+		section.duplicate().get(values);
+		return values;
+	}
+	
+	private static int align(int position) {
+		return (position + 7) & ~7;
+	}
+	
+	private static void padding(DataOutputStream out, int bytes) throws IOException {
+		for (int b = 0; b < bytes; b++) {
+			out.writeByte(0);
+		}
+	}
+	
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		ByteBuffer chunk = ByteBuffer.allocate(1 << 14);
+		IntBuffer ints = chunk.asIntBuffer();
+		for (int start = 0; start < values.length; start += ints.capacity()) {
+			int length = Math.min(ints.capacity(), values.length - start);
+			ints.clear();
+			ints.put(values, start, length);
+			out.write(chunk.array(), 0, length * 4);
+		}
+	}
+	
+}
@@ -0,0 +1,537 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import utils.IntList;
+import utils.LongIntMap;
+
+/**
+ * The member level dependencies of a {@code DependencyMap}, only kept when the map is created with
+ * {@link DependencyMap#DependencyMap(boolean)}
+ * <p>
+ * Nodes are the methods and fields of classes, edges go from a method to each method it calls and each field it
+ * accesses, counting the call and access sites. Only the bytecode visitor reports member dependencies, and only when
+ * method bodies are visited ({@code ScanDepth.FULL}). Calls through {@code invokedynamic} are recorded as edges to
+ * the method handles of the instruction, so a method depends on the bodies of its lambdas.
+ * <p>
+ * Member graphs are much larger than class graphs, so members are interned: class names, member names and
+ * descriptors are numbered once, each (name, descriptor) pair is numbered once, and each member is identified by a
+ * dense {@code int} id assigned from its class and its (name, descriptor) pair. A member of a removed class keeps its
+ * id while edges from other classes use it, and is no longer declared. Each id counts its uses (a member is used by
+ * its declaration and its edges, a (name, descriptor) pair by its members, a name or descriptor by its pairs, and a
+ * class by its members) and is freed when it's no longer used, freed ids are reused by the next ids assigned, so
+ * rescanning classes for a long time doesn't grow the graph. Edges are kept in {@code LongIntMap}s keyed by the ids of both
+ * members and grouped by the class declaring the calling method, so the edges of a class can be removed when it is
+ * scanned again. Queries read a compact adjacency (offsets and targets arrays, in both directions) built when first
+ * needed after a modification. Like {@code DependencyMap}, this class is not thread safe.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class MemberGraph {
+
+	private static final int[] NO_MEMBERS = new int[0];
+
+	/**
+	 * Class ids by class name, and class names by class id
+	 */
+	private final Map<String, Integer> classIds;
+	private final List<String> classNames;
+	/**
+	 * Member names and descriptors share ids
+	 */
+	private final Map<String, Integer> stringIds;
+	private final List<String> strings;
+	/**
+	 * Ids of (name, descriptor) pairs by {@code name id << 32 | descriptor id}
+	 */
+	private final LongIntMap signatureIds;
+	private int[] signatureName;
+	private int[] signatureDesc;
+	private int[] signatureUses;
+	private int signatures;
+	/**
+	 * Member ids by {@code class id << 32 | signature id}
+	 */
+	private final LongIntMap memberIds;
+	private int[] memberClass;
+	private int[] memberSignature;
+	private boolean[] declared;
+	private int[] memberUses;
+	private int members;
+	/**
+	 * The uses of each class and string, and the ids freed of each kind
+	 */
+	private int[] classUses;
+	private int[] stringUses;
+	private final IntList freeClasses;
+	private final IntList freeStrings;
+	private final IntList freeSignatures;
+	private final IntList freeMembers;
+	/**
+	 * The members declared by each class and the edges leaving the methods of each class, as pairs of member ids,
+	 * both indexed by class id
+	 */
+	private final List<IntList> declaredMembers;
+	private final List<IntList> classEdges;
+	/**
+	 * Call and access sites by {@code from << 32 | to} member ids
+	 */
+	private final LongIntMap edgeCounts;
+	/**
+	 * The amount of changes made to this graph, used to know when the adjacency is outdated
+	 */
+	private int modifications;
+	private int adjacencyModifications = -1;
+	private int[] targetOffsets;
+	private int[] targets;
+	private int[] sourceOffsets;
+	private int[] sources;
+
+	/**
+	 * Constructor
+	 */
+	MemberGraph() {
+		this.classIds = new HashMap<String, Integer>();
+		this.classNames = new ArrayList<String>();
+		this.stringIds = new HashMap<String, Integer>();
+		this.strings = new ArrayList<String>();
+		this.signatureIds = new LongIntMap();
+		this.signatureName = new int[64];
+		this.signatureDesc = new int[64];
+		this.signatureUses = new int[64];
+		this.memberIds = new LongIntMap();
+		this.memberClass = new int[64];
+		this.memberSignature = new int[64];
+		this.declared = new boolean[64];
+		this.memberUses = new int[64];
+		this.classUses = new int[64];
+		this.stringUses = new int[64];
+		this.freeClasses = new IntList();
+		this.freeStrings = new IntList();
+		this.freeSignatures = new IntList();
+		this.freeMembers = new IntList();
+		this.declaredMembers = new ArrayList<IntList>();
+		this.classEdges = new ArrayList<IntList>();
+		this.edgeCounts = new LongIntMap();
+	}
+
+	/**
+	 * Records a member declared by a scanned class
+	 *
+	 * @param className		:	the fully qualified name of the declaring class
+	 * @param name			:	the name of the method or field
+	 * @param descriptor	:	the descriptor of the method or field
+	 * @return the id of the member
+	 */
+	public int declare(String className, String name, String descriptor) {
+		int member = intern(className, name, descriptor);
+		if (!this.declared[member]) {
+			this.declared[member] = true;
+			this.memberUses[member]++;
+			this.declaredMembers.get(this.memberClass[member]).add(member);
+			this.modifications++;
+		}
+		return member;
+	}
+
+	/**
+	 * Records a call or field access site in the body of a method
+	 *
+	 * @param from			:	the id of the calling method
+	 * @param className		:	the fully qualified name of the owner of the member used
+	 * @param name			:	the name of the member used
+	 * @param descriptor	:	the descriptor of the member used
+	 */
+	public void addEdge(int from, String className, String name, String descriptor) {
+		addEdge(from, intern(className, name, descriptor), 1);
+	}
+
+	/**
+	 * Removes the members declared by a class and the edges leaving its methods, edges from other classes to its
+	 * members are kept. The ids no longer used are freed and may be assigned again to other members
+	 *
+	 * @param className	:	the fully qualified name of the class
+	 */
+	public void removeClass(String className) {
+		Integer id = this.classIds.get(className);
+		if (id == null) {
+			return;
+		}
+		IntList edges = this.classEdges.get(id);
+		IntList members = this.declaredMembers.get(id);
+		if (edges.isEmpty() && members.isEmpty()) {
+			return;
+		}
+		for (int i = 0; i < edges.size(); i += 2) {
+			this.edgeCounts.remove(key(edges.get(i), edges.get(i + 1)), 0);
+			release(edges.get(i));
+			release(edges.get(i + 1));
+		}
+		for (int i = 0; i < members.size(); i++) {
+			this.declared[members.get(i)] = false;
+			release(members.get(i));
+		}
+		edges.clear();
+		members.clear();
+		this.modifications++;
+	}
+
+	/**
+	 * Adds all declared members and edges of another graph to this one
+	 *
+	 * @param other	:	the graph to merge into this one
+	 */
+	void merge(MemberGraph other) {
+		int[] ids = new int[other.members];
+		for (int member = 0; member < other.members; member++) {
+			if (other.memberUses[member] == 0) {
+				continue;
+			}
+			ids[member] = intern(other.getOwner(member), other.getName(member), other.getDescriptor(member));
+			if (other.declared[member]) {
+				declare(other.getOwner(member), other.getName(member), other.getDescriptor(member));
+			}
+		}
+		for (IntList edges : other.classEdges) {
+			for (int i = 0; i < edges.size(); i += 2) {
+				int from = edges.get(i);
+				int to = edges.get(i + 1);
+				addEdge(ids[from], ids[to], other.edgeCounts.get(key(from, to), 0));
+			}
+		}
+	}
+
+	/**
+	 * @param className		:	the fully qualified name of the class declaring the member
+	 * @param name			:	the name of the method or field
+	 * @param descriptor	:	the descriptor of the method or field
+	 * @return the id of the member, or {@code -1} if the member was neither declared nor used
+	 */
+	public int getMemberId(String className, String name, String descriptor) {
+		Integer classId = this.classIds.get(className);
+		Integer nameId = this.stringIds.get(name);
+		Integer descId = this.stringIds.get(descriptor);
+		if (classId == null || nameId == null || descId == null) {
+			return -1;
+		}
+		int signature = this.signatureIds.get(key(nameId, descId), -1);
+		return signature < 0 ? -1 : this.memberIds.get(key(classId, signature), -1);
+	}
+
+	/**
+	 * @return an upper bound (exclusive) for the ids of all members, ids of freed members below it are not used until
+	 * they are assigned again
+	 */
+	public int getMemberCount() {
+		return this.members;
+	}
+
+	/**
+	 * @return the amount of edges between members
+	 */
+	public int getEdgeCount() {
+		return this.edgeCounts.size();
+	}
+
+	/**
+	 * @param member	:	a member id
+	 * @return the fully qualified name of the class of the member
+	 */
+	public String getOwner(int member) {
+		return this.classNames.get(this.memberClass[member]);
+	}
+
+	/**
+	 * @param member	:	a member id
+	 * @return the name of the member
+	 */
+	public String getName(int member) {
+		return this.strings.get(this.signatureName[this.memberSignature[member]]);
+	}
+
+	/**
+	 * @param member	:	a member id
+	 * @return the descriptor of the member
+	 */
+	public String getDescriptor(int member) {
+		return this.strings.get(this.signatureDesc[this.memberSignature[member]]);
+	}
+
+	/**
+	 * @param member	:	a member id
+	 * @return {@code true} if the member is a field, {@code false} if it is a method
+	 */
+	public boolean isField(int member) {
+		return getDescriptor(member).charAt(0) != '(';
+	}
+
+	/**
+	 * @param member	:	a member id
+	 * @return {@code true} if the member is declared by a scanned class, {@code false} if it is only used
+	 */
+	public boolean isDeclared(int member) {
+		return this.declared[member];
+	}
+
+	/**
+	 * @param className	:	the fully qualified name of a class
+	 * @return the ids of the members declared by the class, in declaration order
+	 */
+	public int[] getMembers(String className) {
+		Integer id = this.classIds.get(className);
+		return id == null ? NO_MEMBERS : this.declaredMembers.get(id).toArray();
+	}
+
+	/**
+	 * @param from	:	the id of a method
+	 * @param to	:	the id of a member
+	 * @return the amount of sites in {@code from} calling or accessing {@code to}
+	 */
+	public int getCount(int from, int to) {
+		return this.edgeCounts.get(key(from, to), 0);
+	}
+
+	/**
+	 * @param member	:	the id of a method
+	 * @return the ids of the methods called and the fields accessed by {@code member}, sorted
+	 */
+	public int[] getTargets(int member) {
+		updateAdjacency();
+		return member >= this.members ? NO_MEMBERS : Arrays.copyOfRange(this.targets, this.targetOffsets[member], this.targetOffsets[member + 1]);
+	}
+
+	/**
+	 * @param member	:	the id of a member
+	 * @return the ids of the methods calling or accessing {@code member}, sorted
+	 */
+	public int[] getSources(int member) {
+		updateAdjacency();
+		return member >= this.members ? NO_MEMBERS : Arrays.copyOfRange(this.sources, this.sourceOffsets[member], this.sourceOffsets[member + 1]);
+	}
+
+	/**
+	 * Calculates the methods affected by a change to some members, following calls and accesses backwards
+	 *
+	 * @param changed	:	the ids of the changed members
+	 * @return the ids of the methods that call or access any of {@code changed}, directly or through other methods,
+	 * sorted and not including {@code changed} unless they are reached through other methods
+	 */
+	public int[] getAllSources(int... changed) {
+		updateAdjacency();
+		boolean[] reached = new boolean[this.members];
+		IntList pending = new IntList();
+		for (int member : changed) {
+			if (member < this.members) {
+				pending.add(member);
+			}
+		}
+		IntList result = new IntList();
+		while (!pending.isEmpty()) {
+			int member = pending.removeLast();
+			for (int i = this.sourceOffsets[member]; i < this.sourceOffsets[member + 1]; i++) {
+				int source = this.sources[i];
+				if (!reached[source]) {
+					reached[source] = true;
+					result.add(source);
+					pending.add(source);
+				}
+			}
+		}
+		int[] sources = result.toArray();
+		Arrays.sort(sources);
+		return sources;
+	}
+
+	/**
+	 * @param member	:	a member id
+	 * @return the member as {@code owner.name descriptor}
+	 */
+	public String toString(int member) {
+		return getOwner(member) + "." + getName(member) + " " + getDescriptor(member);
+	}
+
+	private void addEdge(int from, int to, int count) {
+		long key = key(from, to);
+		if (this.edgeCounts.add(key, count) == count) {
+			this.classEdges.get(this.memberClass[from]).add(from);
+			this.classEdges.get(this.memberClass[from]).add(to);
+			this.memberUses[from]++;
+			this.memberUses[to]++;
+			this.modifications++;
+		}
+	}
+
+	/**
+	 * @return the id of a member, assigned if needed
+	 */
+	private int intern(String className, String name, String descriptor) {
+		int classId = classId(className);
+		int nameId = stringId(name);
+		int descId = stringId(descriptor);
+		long signatureKey = key(nameId, descId);
+		int signature = this.signatureIds.get(signatureKey, -1);
+		if (signature < 0) {
+			if (this.freeSignatures.isEmpty()) {
+				signature = this.signatures++;
+				if (signature == this.signatureName.length) {
+					this.signatureName = Arrays.copyOf(this.signatureName, signature << 1);
+					this.signatureDesc = Arrays.copyOf(this.signatureDesc, signature << 1);
+					this.signatureUses = Arrays.copyOf(this.signatureUses, signature << 1);
+				}
+			} else {
+				signature = this.freeSignatures.removeLast();
+			}
+			this.signatureName[signature] = nameId;
+			this.signatureDesc[signature] = descId;
+			this.signatureIds.put(signatureKey, signature);
+			this.stringUses[nameId]++;
+			this.stringUses[descId]++;
+		}
+		long memberKey = key(classId, signature);
+		int member = this.memberIds.get(memberKey, -1);
+		if (member < 0) {
+			if (this.freeMembers.isEmpty()) {
+				member = this.members++;
+				if (member == this.memberClass.length) {
+					this.memberClass = Arrays.copyOf(this.memberClass, member << 1);
+					this.memberSignature = Arrays.copyOf(this.memberSignature, member << 1);
+					this.declared = Arrays.copyOf(this.declared, member << 1);
+					this.memberUses = Arrays.copyOf(this.memberUses, member << 1);
+				}
+			} else {
+				member = this.freeMembers.removeLast();
+			}
+			this.memberClass[member] = classId;
+			this.memberSignature[member] = signature;
+			this.memberIds.put(memberKey, member);
+			this.signatureUses[signature]++;
+			this.classUses[classId]++;
+			this.modifications++;
+		}
+		return member;
+	}
+
+	/**
+	 * Removes a use of a member, freeing its id when it's no longer used together with the ids of its class, its
+	 * (name, descriptor) pair and its strings that are no longer used either
+	 *
+	 * @param member	:	the id of the member
+	 */
+	private void release(int member) {
+		if (--this.memberUses[member] > 0) {
+			return;
+		}
+		int classId = this.memberClass[member];
+		int signature = this.memberSignature[member];
+		this.memberIds.remove(key(classId, signature), -1);
+		this.freeMembers.add(member);
+		if (--this.signatureUses[signature] == 0) {
+			this.signatureIds.remove(key(this.signatureName[signature], this.signatureDesc[signature]), -1);
+			this.freeSignatures.add(signature);
+			releaseString(this.signatureName[signature]);
+			releaseString(this.signatureDesc[signature]);
+		}
+		if (--this.classUses[classId] == 0) {
+			this.classIds.remove(this.classNames.get(classId));
+			this.classNames.set(classId, null);
+			this.freeClasses.add(classId);
+		}
+	}
+
+	private void releaseString(int string) {
+		if (--this.stringUses[string] == 0) {
+			this.stringIds.remove(this.strings.get(string));
+			this.strings.set(string, null);
+			this.freeStrings.add(string);
+		}
+	}
+
+	private int classId(String className) {
+		Integer id = this.classIds.get(className);
+		if (id == null) {
+			if (this.freeClasses.isEmpty()) {
+				id = this.classNames.size();
+				this.classNames.add(className);
+				this.declaredMembers.add(new IntList(4));
+				this.classEdges.add(new IntList(4));
+				if (id == this.classUses.length) {
+					this.classUses = Arrays.copyOf(this.classUses, id << 1);
+				}
+			} else {
+				id = this.freeClasses.removeLast();
+				this.classNames.set(id, className);
+			}
+			this.classIds.put(className, id);
+		}
+		return id;
+	}
+
+	private int stringId(String string) {
+		Integer id = this.stringIds.get(string);
+		if (id == null) {
+			if (this.freeStrings.isEmpty()) {
+				id = this.strings.size();
+				this.strings.add(string);
+				if (id == this.stringUses.length) {
+					this.stringUses = Arrays.copyOf(this.stringUses, id << 1);
+				}
+			} else {
+				id = this.freeStrings.removeLast();
+				this.strings.set(id, string);
+			}
+			this.stringIds.put(string, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Builds the offsets and targets arrays of both directions from the edges of each class, if the graph changed
+	 * since they were last built
+	 */
+	private void updateAdjacency() {
+		if (this.adjacencyModifications == this.modifications) {
+			return;
+		}
+		int edges = this.edgeCounts.size();
+		this.targetOffsets = new int[this.members + 1];
+		this.sourceOffsets = new int[this.members + 1];
+		for (IntList pairs : this.classEdges) {
+			for (int i = 0; i < pairs.size(); i += 2) {
+				this.targetOffsets[pairs.get(i) + 1]++;
+				this.sourceOffsets[pairs.get(i + 1) + 1]++;
+			}
+		}
+		for (int member = 0; member < this.members; member++) {
+			this.targetOffsets[member + 1] += this.targetOffsets[member];
+			this.sourceOffsets[member + 1] += this.sourceOffsets[member];
+		}
+		this.targets = new int[edges];
+		this.sources = new int[edges];
+		int[] nextTarget = Arrays.copyOf(this.targetOffsets, this.members);
+		int[] nextSource = Arrays.copyOf(this.sourceOffsets, this.members);
+		for (IntList pairs : this.classEdges) {
+			for (int i = 0; i < pairs.size(); i += 2) {
+				int from = pairs.get(i);
+				int to = pairs.get(i + 1);
+				this.targets[nextTarget[from]++] = to;
+				this.sources[nextSource[to]++] = from;
+			}
+		}
+		for (int member = 0; member < this.members; member++) {
+			Arrays.sort(this.targets, this.targetOffsets[member], this.targetOffsets[member + 1]);
+			Arrays.sort(this.sources, this.sourceOffsets[member], this.sourceOffsets[member + 1]);
+		}
+		this.adjacencyModifications = this.modifications;
+	}
+
+	private static long key(int high, int low) {
+		return ((long) high << 32) | (low & 0xFFFFFFFFL);
+	}
+
+}
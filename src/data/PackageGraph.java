@@ -0,0 +1,371 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import utils.IntList;
+import utils.LongIntMap;
+
+/**
+ * The dependencies of a {@code DependencyMap} aggregated by package, kept up to date by the map as classes and
+ * dependencies are added and removed
+ * <p>
+ * Nodes are the packages of the classes in the map, an edge from a package to another one exists while at least one
+ * class of the first package depends on a class of the second one. Each edge carries the amount of references made
+ * by the classes of the first package to classes of the second one, the amount of classes contributing to it and the
+ * amount of class level dependencies it aggregates. References are counted as reported to the map: the bytecode
+ * visitor reports every use of a class, the constant pool extractor reports each constant pool entry once for each
+ * kind of use, and dependencies added without a kind (like those restored from a snapshot) count as a single
+ * reference.
+ * <p>
+ * Packages are numbered as they appear and all counters are kept in {@code int} arrays and {@code LongIntMap}s, so
+ * updating the graph while scanning doesn't box. Dependencies between classes of the same package are kept as an
+ * edge from the package to itself, only returned by {@link PackageGraph#getEdge(String, String)}. Like
+ * {@code DependencyMap}, this class is not thread safe.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class PackageGraph {
+
+	/**
+	 * Package ids by package name
+	 */
+	private final Map<String, Integer> packageIds;
+	/**
+	 * Package names by package id
+	 */
+	private final List<String> packageNames;
+	/**
+	 * The amount of classes in each package
+	 */
+	private int[] classCounts;
+	/**
+	 * Edges leaving and entering each package, as edge ids
+	 */
+	private final List<IntList> outgoing;
+	private final List<IntList> incoming;
+	/**
+	 * Edge ids by {@code from << 32 | to} package ids, ids of edges that drop to zero dependencies are reused if the
+	 * edge appears again
+	 */
+	private final LongIntMap edgeIds;
+	private int[] edgeFrom;
+	private int[] edgeTo;
+	private int[] edgeReferences;
+	private int[] edgeClasses;
+	private int[] edgeDependencies;
+	private int edges;
+
+	/**
+	 * Constructor
+	 */
+	PackageGraph() {
+		this.packageIds = new HashMap<String, Integer>();
+		this.packageNames = new ArrayList<String>();
+		this.classCounts = new int[16];
+		this.outgoing = new ArrayList<IntList>();
+		this.incoming = new ArrayList<IntList>();
+		this.edgeIds = new LongIntMap();
+		this.edgeFrom = new int[16];
+		this.edgeTo = new int[16];
+		this.edgeReferences = new int[16];
+		this.edgeClasses = new int[16];
+		this.edgeDependencies = new int[16];
+	}
+
+	/**
+	 * Adds a class registered in the map, assigning the id of its package to it
+	 *
+	 * @param elem	:	the class added
+	 */
+	void addClass(DependencyElem elem) {
+		Integer id = this.packageIds.get(elem.getPackage());
+		if (id == null) {
+			id = this.packageNames.size();
+			this.packageIds.put(elem.getPackage(), id);
+			this.packageNames.add(elem.getPackage());
+			this.outgoing.add(new IntList(4));
+			this.incoming.add(new IntList(4));
+			if (id == this.classCounts.length) {
+				this.classCounts = Arrays.copyOf(this.classCounts, id << 1);
+			}
+		}
+		elem.packageId = id;
+		this.classCounts[id]++;
+	}
+
+	/**
+	 * Removes a class no longer registered in the map, its dependencies must have been removed first
+	 *
+	 * @param elem	:	the class removed
+	 */
+	void removeClass(DependencyElem elem) {
+		this.classCounts[elem.packageId]--;
+	}
+
+	/**
+	 * Records a dependency added to a class, or references to an existing dependency
+	 *
+	 * @param elem			:	the class
+	 * @param dependency	:	the dependency
+	 * @param added			:	{@code true} if {@code dependency} was not a dependency of {@code elem} before
+	 * @param references	:	the amount of references made by {@code elem} to {@code dependency}
+	 */
+	void addDependency(DependencyElem elem, DependencyElem dependency, boolean added, int references) {
+		int edge = edge(elem.packageId, dependency.packageId);
+		if (added) {
+			this.edgeDependencies[edge]++;
+			if (elem.getDirectDependencies().get(dependency.getPackage()).size() == 1) {
+				this.edgeClasses[edge]++;
+			}
+		}
+		this.edgeReferences[edge] += references;
+	}
+
+	/**
+	 * Records the removal of the dependencies of a class to the classes of a package
+	 *
+	 * @param elem						:	the class
+	 * @param dependenciesPerPackage	:	the dependencies of {@code elem} to classes of a single package
+	 * @param references				:	the references made by {@code elem} to those dependencies
+	 */
+	void removeDependencies(DependencyElem elem, Set<DependencyElem> dependenciesPerPackage, int references) {
+		int to = dependenciesPerPackage.iterator().next().packageId;
+		int edge = this.edgeIds.get(key(elem.packageId, to), -1);
+		this.edgeDependencies[edge] -= dependenciesPerPackage.size();
+		this.edgeClasses[edge]--;
+		this.edgeReferences[edge] -= references;
+	}
+
+	/**
+	 * @return the packages with at least one class, sorted by name
+	 */
+	public Set<String> getPackages() {
+		Set<String> packages = new TreeSet<String>();
+		for (int id = 0; id < this.packageNames.size(); id++) {
+			if (this.classCounts[id] > 0) {
+				packages.add(this.packageNames.get(id));
+			}
+		}
+		return packages;
+	}
+
+	/**
+	 * @param pkg	:	a package
+	 * @return the amount of classes of the package in the map, including classes only used by other classes
+	 */
+	public int getClassCount(String pkg) {
+		Integer id = this.packageIds.get(pkg);
+		return id == null ? 0 : this.classCounts[id];
+	}
+
+	/**
+	 * @param pkg	:	a package
+	 * @return the packages on which {@code pkg} depends, sorted by name
+	 */
+	public Set<String> getDependencies(String pkg) {
+		return adjacent(pkg, this.outgoing, this.edgeTo);
+	}
+
+	/**
+	 * @param pkg	:	a package
+	 * @return the packages that depend on {@code pkg}, sorted by name
+	 */
+	public Set<String> getDependents(String pkg) {
+		return adjacent(pkg, this.incoming, this.edgeFrom);
+	}
+
+	/**
+	 * @param from	:	the dependent package
+	 * @param to	:	the package depended upon
+	 * @return the edge from {@code from} to {@code to}, or {@code null} if no class of {@code from} depends on a
+	 * class of {@code to}
+	 */
+	public Edge getEdge(String from, String to) {
+		Integer fromId = this.packageIds.get(from);
+		Integer toId = this.packageIds.get(to);
+		if (fromId == null || toId == null) {
+			return null;
+		}
+		int edge = this.edgeIds.get(key(fromId, toId), -1);
+		return edge < 0 || this.edgeDependencies[edge] == 0 ? null : toEdge(edge);
+	}
+
+	/**
+	 * @param pkg	:	a package
+	 * @return the edges leaving {@code pkg}, sorted by the package they lead to
+	 */
+	public List<Edge> getEdges(String pkg) {
+		Integer id = this.packageIds.get(pkg);
+		if (id == null) {
+			return Collections.emptyList();
+		}
+		List<Edge> edges = new ArrayList<Edge>();
+		IntList edgeIds = this.outgoing.get(id);
+		for (int i = 0; i < edgeIds.size(); i++) {
+			int edge = edgeIds.get(i);
+			if (this.edgeDependencies[edge] > 0 && this.edgeTo[edge] != id) {
+				edges.add(toEdge(edge));
+			}
+		}
+		Collections.sort(edges);
+		return edges;
+	}
+
+	/**
+	 * @return all edges between different packages, sorted by the package they leave and then by the package they
+	 * lead to
+	 */
+	public List<Edge> getEdges() {
+		List<Edge> edges = new ArrayList<Edge>();
+		for (int edge = 0; edge < this.edges; edge++) {
+			if (this.edgeDependencies[edge] > 0 && this.edgeFrom[edge] != this.edgeTo[edge]) {
+				edges.add(toEdge(edge));
+			}
+		}
+		Collections.sort(edges);
+		return edges;
+	}
+
+	private Set<String> adjacent(String pkg, List<IntList> adjacency, int[] ends) {
+		Set<String> packages = new TreeSet<String>();
+		Integer id = this.packageIds.get(pkg);
+		if (id == null) {
+			return packages;
+		}
+		IntList edgeIds = adjacency.get(id);
+		for (int i = 0; i < edgeIds.size(); i++) {
+			int edge = edgeIds.get(i);
+			if (this.edgeDependencies[edge] > 0 && ends[edge] != id) {
+				packages.add(this.packageNames.get(ends[edge]));
+			}
+		}
+		return packages;
+	}
+
+	/**
+	 * @param from	:	the id of the dependent package
+	 * @param to	:	the id of the package depended upon
+	 * @return the id of the edge from {@code from} to {@code to}, created if needed
+	 */
+	private int edge(int from, int to) {
+		long key = key(from, to);
+		int edge = this.edgeIds.get(key, -1);
+		if (edge < 0) {
+			edge = this.edges++;
+			if (edge == this.edgeFrom.length) {
+				int capacity = edge << 1;
+				this.edgeFrom = Arrays.copyOf(this.edgeFrom, capacity);
+				this.edgeTo = Arrays.copyOf(this.edgeTo, capacity);
+				this.edgeReferences = Arrays.copyOf(this.edgeReferences, capacity);
+				this.edgeClasses = Arrays.copyOf(this.edgeClasses, capacity);
+				this.edgeDependencies = Arrays.copyOf(this.edgeDependencies, capacity);
+			}
+			this.edgeFrom[edge] = from;
+			this.edgeTo[edge] = to;
+			this.edgeIds.put(key, edge);
+			this.outgoing.get(from).add(edge);
+			this.incoming.get(to).add(edge);
+		}
+		return edge;
+	}
+
+	private Edge toEdge(int edge) {
+		return new Edge(this.packageNames.get(this.edgeFrom[edge]), this.packageNames.get(this.edgeTo[edge]), this.edgeReferences[edge], this.edgeClasses[edge], this.edgeDependencies[edge]);
+	}
+
+	private static long key(int high, int low) {
+		return ((long) high << 32) | (low & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * A dependency from a package to another one, holding the values of the edge when it was obtained
+	 */
+	public static class Edge implements Comparable<Edge> {
+
+		private final String from;
+		private final String to;
+		private final int references;
+		private final int classes;
+		private final int dependencies;
+
+		Edge(String from, String to, int references, int classes, int dependencies) {
+			this.from = from;
+			this.to = to;
+			this.references = references;
+			this.classes = classes;
+			this.dependencies = dependencies;
+		}
+
+		/**
+		 * @return the dependent package
+		 */
+		public String getFrom() {
+			return this.from;
+		}
+
+		/**
+		 * @return the package depended upon
+		 */
+		public String getTo() {
+			return this.to;
+		}
+
+		/**
+		 * @return the references made by classes of {@link Edge#getFrom()} to classes of {@link Edge#getTo()}
+		 */
+		public int getReferences() {
+			return this.references;
+		}
+
+		/**
+		 * @return the amount of classes of {@link Edge#getFrom()} that depend on at least one class of
+		 * {@link Edge#getTo()}
+		 */
+		public int getContributingClasses() {
+			return this.classes;
+		}
+
+		/**
+		 * @return the amount of class level dependencies from {@link Edge#getFrom()} to {@link Edge#getTo()}
+		 */
+		public int getClassDependencies() {
+			return this.dependencies;
+		}
+
+		@Override
+		public int compareTo(Edge other) {
+			int result = this.from.compareTo(other.from);
+			return result != 0 ? result : this.to.compareTo(other.to);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) return true;
+			if (!(other instanceof Edge)) return false;
+			Edge edge = (Edge) other;
+			return this.from.equals(edge.from) && this.to.equals(edge.to) && this.references == edge.references
+					&& this.classes == edge.classes && this.dependencies == edge.dependencies;
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.from.hashCode() * 31 + this.to.hashCode()) * 31 + this.dependencies;
+		}
+
+		@Override
+		public String toString() {
+			return this.from + " -> " + this.to + " (" + this.references + " references, " + this.classes + " classes, " + this.dependencies + " dependencies)";
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A group of classes that must be reloaded together, as part of a reload plan.
+ * <p>
+ * A batch contains either a single class or all classes of a dependency cycle, which can't be reloaded one
+ * after the other. Every batch has a level: a batch only depends on batches with a lower level, so all batches
+ * with the same level are independent from each other and can be loaded in parallel.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class ReloadBatch {
+	
+	/**
+	 * The classes to reload, sorted by name
+	 */
+	private final List<ReloadCommand> commands;
+	/**
+	 * The level of this batch inside the reload plan
+	 */
+	private final int level;
+	/**
+	 * {@code true} if there are other batches with the same level in the reload plan
+	 */
+	private final boolean parallel;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param commands	:	the classes to reload
+	 * @param level		:	the level of this batch inside the reload plan
+	 * @param parallel	:	{@code true} if there are other batches with the same level in the reload plan
+	 */
+	public ReloadBatch(List<ReloadCommand> commands, int level, boolean parallel) {
+		this.commands = Collections.unmodifiableList(commands);
+		this.level = level;
+		this.parallel = parallel;
+	}
+	
+	/**
+	 * @return the classes to reload in this batch
+	 */
+	public List<ReloadCommand> getCommands() {
+		return this.commands;
+	}
+	
+	/**
+	 * @return the level of this batch, a batch only depends on batches with a lower level
+	 */
+	public int getLevel() {
+		return this.level;
+	}
+	
+	/**
+	 * @return {@code true} if the batch is part of a dependency cycle and all its classes must be reloaded together
+	 */
+	public boolean isCyclic() {
+		return this.commands.size() > 1;
+	}
+	
+	/**
+	 * @return {@code true} if other batches of the plan have the same level, and this batch can be loaded in
+	 * parallel with them
+	 */
+	public boolean isParallel() {
+		return this.parallel;
+	}
+	
+	@Override
+	public String toString() {
+		return "level " + this.level + (this.parallel ? " (parallel) " : " ") + this.commands;
+	}
+	
+}
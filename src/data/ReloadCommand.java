@@ -1,11 +1,37 @@
 package data;
 
-public class ReloadCommand {
+/**
+ * This class represents the reload of a single class.
+ * <p>
+ * A command either reloads a class that changed, in which case every class that depends on it must also be
+ * reloaded, or just reloads a class because one of its dependencies changed.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class ReloadCommand implements Comparable<ReloadCommand> {
 	
+	/**
+	 * The class to reload
+	 */
 	private DependencyElem elemToReload;
+	/**
+	 * The dependency map the class belongs to
+	 */
 	private DependencyMap dependencyMap;
+	/**
+	 * {@code true} if only the class must be reloaded, {@code false} if classes depending on it must be reloaded too
+	 */
 	private boolean justReload;
 	
+	/**
+	 * Constructor
+	 * 
+	 * @param fullyQualifiedClassName	:	the full name of the class to reload
+	 * @param dependencyMap				:	the dependency map the class belongs to
+	 * @throws IllegalArgumentException if the class is not part of the dependency map
+	 */
 	public ReloadCommand(String fullyQualifiedClassName, DependencyMap dependencyMap) throws IllegalArgumentException {
 		DependencyElem elemToReload = dependencyMap.getClassAsDependencyElem(fullyQualifiedClassName);
 		if (elemToReload == null) {
@@ -16,16 +42,66 @@ public class ReloadCommand {
 		this.justReload = false;
 	}
 
+	/**
+	 * Constructor
+	 * 
+	 * @param elemToReload		:	the class to reload
+	 * @param dependencyMap		:	the dependency map the class belongs to
+	 */
 	public ReloadCommand(DependencyElem elemToReload, DependencyMap dependencyMap) {
 		this(elemToReload, dependencyMap, false);
 	}
 	
-	private ReloadCommand(DependencyElem elemToReload, DependencyMap dependencyMap, boolean justReload) {
+	/**
+	 * Constructor
+	 * 
+	 * @param elemToReload		:	the class to reload
+	 * @param dependencyMap		:	the dependency map the class belongs to
+	 * @param justReload		:	{@code true} if the class is reloaded only because one of its dependencies changed
+	 */
+	public ReloadCommand(DependencyElem elemToReload, DependencyMap dependencyMap, boolean justReload) {
 		this.elemToReload = elemToReload;
 		this.dependencyMap = dependencyMap;
 		this.justReload = justReload;
 	}
 	
+	/**
+	 * @return the class to reload
+	 */
+	public DependencyElem getElemToReload() {
+		return this.elemToReload;
+	}
+	
+	/**
+	 * @return the full name of the class to reload
+	 */
+	public String getFullyQualifiedClassName() {
+		return this.elemToReload.getFullyQualifiedName();
+	}
+	
+	/**
+	 * @return the dependency map the class belongs to
+	 */
+	public DependencyMap getDependencyMap() {
+		return this.dependencyMap;
+	}
 	
+	/**
+	 * @return {@code true} if the class is reloaded only because one of its dependencies changed, {@code false}
+	 * if the class itself changed and classes depending on it must be reloaded too
+	 */
+	public boolean isJustReload() {
+		return this.justReload;
+	}
+	
+	@Override
+	public int compareTo(ReloadCommand other) {
+		return this.elemToReload.compareTo(other.elemToReload);
+	}
+	
+	@Override
+	public String toString() {
+		return (this.justReload ? "reload " : "changed ") + this.elemToReload.getFullyQualifiedName();
+	}
 	
 }
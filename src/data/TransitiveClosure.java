@@ -0,0 +1,348 @@
+package data;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import utils.IntList;
+
+/**
+ * This class calculates recursive dependencies for the classes of a {@code DependencyMap}, using its
+ * {@code CompactDependencyGraph}.
+ * <p>
+ * When constructed, the strongly connected components of the dependency graph (groups of classes that depend on
+ * each other) are calculated with an iterative version of Tarjan's algorithm, so cycles of any length and depth
+ * are supported. Recursive dependencies are then calculated once per component, the first time a class of the
+ * component is queried, and shared by all classes in the same component. Calculating the dependencies of a
+ * component reuses the dependencies already calculated for the components it depends on.
+ * <p>
+ * A {@code TransitiveClosure} is a snapshot of the dependency map at the moment it was constructed, dependencies
+ * added afterwards are not taken into account. This class is not thread safe.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class TransitiveClosure {
+
+	/**
+	 * The graph on which recursive dependencies are calculated
+	 */
+	private final CompactDependencyGraph graph;
+	/**
+	 * The component each class belongs to, components are numbered in reverse topological order
+	 * (a component only depends on components with a lower number)
+	 */
+	private final int[] componentOf;
+	/**
+	 * Classes of each component, the classes of component {@code c} are stored in
+	 * {@code componentMembers[componentOffsets[c]..componentOffsets[c+1]-1]}
+	 */
+	private final int[] componentOffsets;
+	private final int[] componentMembers;
+	/**
+	 * Components on which each component directly depends
+	 */
+	private final int[][] componentDependencies;
+	/**
+	 * Components on which each component recursively depends, {@code null} until first calculated
+	 */
+	private final int[][] componentClosures;
+	/**
+	 * Marks used to avoid visiting a component twice while calculating a closure
+	 */
+	private final int[] marks;
+	private int currentMark;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dependencyMap	:	the dependency map for which to calculate recursive dependencies
+	 */
+	public TransitiveClosure(DependencyMap dependencyMap) {
+		this(new CompactDependencyGraph(dependencyMap));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param graph	:	the graph for which to calculate recursive dependencies
+	 */
+	public TransitiveClosure(CompactDependencyGraph graph) {
+		this.graph = graph;
+		int size = graph.size();
+		int[] offsets = graph.getDependencyOffsets();
+		int[] targets = graph.getDependencyTargets();
+		this.componentOf = new int[size];
+		int components = findComponents(offsets, targets, this.componentOf);
+		this.componentOffsets = new int[components + 1];
+		this.componentMembers = new int[size];
+		for (int n = 0; n < size; n++) {
+			this.componentOffsets[this.componentOf[n] + 1]++;
+		}
+		for (int c = 0; c < components; c++) {
+			this.componentOffsets[c + 1] += this.componentOffsets[c];
+		}
+		int[] next = Arrays.copyOf(this.componentOffsets, components);
+		for (int n = 0; n < size; n++) {
+			this.componentMembers[next[this.componentOf[n]]++] = n;
+		}
+		this.marks = new int[components];
+		this.currentMark = 0;
+		this.componentDependencies = new int[components][];
+		IntList dependencies = new IntList();
+		for (int c = 0; c < components; c++) {
+			this.currentMark++;
+			dependencies.clear();
+			for (int m = this.componentOffsets[c]; m < this.componentOffsets[c + 1]; m++) {
+				int member = this.componentMembers[m];
+				for (int e = offsets[member]; e < offsets[member + 1]; e++) {
+					int dependencyComponent = this.componentOf[targets[e]];
+					if (dependencyComponent != c && this.marks[dependencyComponent] != this.currentMark) {
+						this.marks[dependencyComponent] = this.currentMark;
+						dependencies.add(dependencyComponent);
+					}
+				}
+			}
+			this.componentDependencies[c] = dependencies.toArray();
+		}
+		this.componentClosures = new int[components][];
+	}
+
+	/**
+	 * @return the graph on which recursive dependencies are calculated
+	 */
+	public CompactDependencyGraph getGraph() {
+		return this.graph;
+	}
+
+	/**
+	 * @return the amount of strongly connected components in the dependency graph
+	 */
+	public int getComponentCount() {
+		return this.componentDependencies.length;
+	}
+
+	/**
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return {@code true} if the class is part of a dependency cycle
+	 */
+	public boolean isCyclic(String fullyQualifiedClassName) {
+		int id = this.graph.getId(fullyQualifiedClassName);
+		return id != -1 && isCyclic(id);
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return {@code true} if the class is part of a dependency cycle
+	 */
+	public boolean isCyclic(int id) {
+		return componentSize(this.componentOf[id]) > 1;
+	}
+
+	/**
+	 * @param id	:	a class id
+	 * @return the strongly connected component the class belongs to, components are numbered in reverse
+	 * topological order, so a component only depends on components with a lower number
+	 */
+	public int getComponentOf(int id) {
+		return this.componentOf[id];
+	}
+
+	/**
+	 * @param component	:	a component number
+	 * @return a new array with the ids of the classes in the component
+	 */
+	public int[] getComponentMembers(int component) {
+		return Arrays.copyOfRange(this.componentMembers, this.componentOffsets[component], this.componentOffsets[component + 1]);
+	}
+
+	/**
+	 * Returns all classes that belong to the same dependency cycle of a class, the class itself is included
+	 *
+	 * @param fullyQualifiedClassName	:	a class full name
+	 * @return the full names of all classes in the same strongly connected component as {@code fullyQualifiedClassName}
+	 */
+	public Set<String> getComponent(String fullyQualifiedClassName) {
+		Set<String> members = new HashSet<String>();
+		int id = this.graph.getId(fullyQualifiedClassName);
+		if (id == -1) {
+			return members;
+		}
+		for (int member : getComponentMembers(this.componentOf[id])) {
+			members.add(this.graph.getName(member));
+		}
+		return members;
+	}
+
+	/**
+	 * Given a class full name this method will return all classes on which it recursively depends, the class
+	 * itself is not included even if it's part of a dependency cycle
+	 *
+	 * @param fullyQualifiedClassName	:	the class full name for which to search for dependencies
+	 * @return all recursive dependencies for the class
+	 */
+	public Set<String> getAllDependencies(String fullyQualifiedClassName) {
+		Set<String> dependencies = new HashSet<String>();
+		int id = this.graph.getId(fullyQualifiedClassName);
+		if (id == -1) {
+			return dependencies;
+		}
+		for (int dependency : getAllDependencies(id)) {
+			dependencies.add(this.graph.getName(dependency));
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Variant of {@link TransitiveClosure#getAllDependencies(String)} that works with class ids
+	 *
+	 * @param id	:	the id of the class for which to search for dependencies
+	 * @return a new array with the ids of all recursive dependencies for the class
+	 */
+	public int[] getAllDependencies(int id) {
+		int component = this.componentOf[id];
+		int[] closure = closure(component);
+		IntList dependencies = new IntList(componentSize(component) + closure.length);
+		addMembers(component, id, dependencies);
+		for (int dependencyComponent : closure) {
+			addMembers(dependencyComponent, -1, dependencies);
+		}
+		return dependencies.toArray();
+	}
+
+	/**
+	 * Adds all members of a component to a list
+	 *
+	 * @param component		:	the component
+	 * @param exclude		:	the id of a class not to add, or {@code -1}
+	 * @param dependencies	:	the list where to add the component members
+	 */
+	private void addMembers(int component, int exclude, IntList dependencies) {
+		for (int m = this.componentOffsets[component]; m < this.componentOffsets[component + 1]; m++) {
+			int member = this.componentMembers[m];
+			if (member != exclude) {
+				dependencies.add(member);
+			}
+		}
+	}
+
+	private int componentSize(int component) {
+		return this.componentOffsets[component + 1] - this.componentOffsets[component];
+	}
+
+	/**
+	 * Calculates (or returns the previously calculated) components on which a component recursively depends
+	 * <p>
+	 * The dependency graph between components is traversed from {@code component}, when a component with an
+	 * already calculated closure is reached, its closure is added without traversing it again.
+	 * <p>
+	 *
+	 * @param component	:	the component
+	 * @return the components on which {@code component} recursively depends, not including {@code component}
+	 */
+	private int[] closure(int component) {
+		int[] closure = this.componentClosures[component];
+		if (closure != null) {
+			return closure;
+		}
+		this.currentMark++;
+		IntList result = new IntList();
+		IntList pending = new IntList();
+		for (int dependency : this.componentDependencies[component]) {
+			this.marks[dependency] = this.currentMark;
+			pending.add(dependency);
+		}
+		while (!pending.isEmpty()) {
+			int current = pending.removeLast();
+			result.add(current);
+			int[] known = this.componentClosures[current];
+			int[] next = known != null ? known : this.componentDependencies[current];
+			for (int dependency : next) {
+				if (this.marks[dependency] != this.currentMark) {
+					this.marks[dependency] = this.currentMark;
+					if (known != null) {
+						result.add(dependency);
+					} else {
+						pending.add(dependency);
+					}
+				}
+			}
+		}
+		closure = result.toArray();
+		this.componentClosures[component] = closure;
+		return closure;
+	}
+
+	/**
+	 * Calculates the strongly connected components of a graph using an iterative version of Tarjan's algorithm
+	 * <p>
+	 * The graph is given in compressed sparse row form: the direct dependencies of node {@code n} are
+	 * {@code targets[offsets[n]..offsets[n+1]-1]}.
+	 * <p>
+	 *
+	 * @param offsets		:	offsets of the direct dependencies of each node
+	 * @param targets		:	direct dependencies of all nodes
+	 * @param componentOf	:	where to store the component of each node
+	 * @return the amount of components found, components are numbered in the order in which they are completed,
+	 * which is a reverse topological order
+	 */
+	public static int findComponents(int[] offsets, int[] targets, int[] componentOf) {
+		int size = offsets.length - 1;
+		int[] index = new int[size];
+		int[] lowLink = new int[size];
+		boolean[] onStack = new boolean[size];
+		int[] stack = new int[size];
+		int stackTop = 0;
+		int[] callStack = new int[size];
+		int[] edgePosition = new int[size];
+		int callTop = 0;
+		int nextIndex = 0;
+		int components = 0;
+		Arrays.fill(index, -1);
+		for (int root = 0; root < size; root++) {
+			if (index[root] != -1) {
+				continue;
+			}
+			index[root] = lowLink[root] = nextIndex++;
+			stack[stackTop++] = root;
+			onStack[root] = true;
+			callStack[callTop] = root;
+			edgePosition[callTop] = 0;
+			callTop++;
+			while (callTop > 0) {
+				int node = callStack[callTop - 1];
+				if (offsets[node] + edgePosition[callTop - 1] < offsets[node + 1]) {
+					int dependency = targets[offsets[node] + edgePosition[callTop - 1]++];
+					if (index[dependency] == -1) {
+						index[dependency] = lowLink[dependency] = nextIndex++;
+						stack[stackTop++] = dependency;
+						onStack[dependency] = true;
+						callStack[callTop] = dependency;
+						edgePosition[callTop] = 0;
+						callTop++;
+					} else if (onStack[dependency]) {
+						lowLink[node] = Math.min(lowLink[node], index[dependency]);
+					}
+				} else {
+					callTop--;
+					if (lowLink[node] == index[node]) {
+						int member;
+						do {
+							member = stack[--stackTop];
+							onStack[member] = false;
+							componentOf[member] = components;
+						} while (member != node);
+						components++;
+					}
+					if (callTop > 0) {
+						int caller = callStack[callTop - 1];
+						lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+					}
+				}
+			}
+		}
+		return components;
+	}
+
+}
@@ -0,0 +1,397 @@
+package main.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the dependency map of a {@code DependencyScanner} up to date by watching its folder roots with a
+ * {@code WatchService}
+ * <p>
+ * Every folder of every folder root is registered, and folders created later are registered as they appear. Events
+ * are debounced: after the first event, events keep being collected until no event arrives for the debounce time (or
+ * until ten times that time has passed, so a compiler writing without pause still gets its changes applied), and
+ * all the class files touched are then rescanned at once with {@link DependencyScanner#rescan(Collection)}. Folders
+ * removed, events lost by the {@code WatchService} and failed updates make the next update a full
+ * {@link DependencyScanner#rescanChanges()}. Archive roots are not watched.
+ * <p>
+ * Each update that changes the dependency map is sent as a {@code DependencyChange} to the listeners, in the watcher
+ * thread. The dependency map is updated while holding the monitor of the scanner, so other threads must read it while
+ * holding that monitor too, or read the immutable versions given by {@link DependencyScanner#getVersion()}. Watch
+ * keys of removed folders are released as soon as the folder is gone, and nothing is kept between updates, so a
+ * watcher can run for as long as needed. Closing the watcher stops its thread and releases all watch keys.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class ClassWatcher implements Closeable {
+
+	/**
+	 * Receives the changes made by each update of a {@code ClassWatcher}
+	 */
+	public interface Listener {
+
+		/**
+		 * Called in the watcher thread after an update changed the dependency map
+		 *
+		 * @param watcher	:	the watcher that made the update
+		 * @param change	:	the changes made to the dependency map
+		 */
+		void dependenciesChanged(ClassWatcher watcher, DependencyChange change);
+
+	}
+
+	/**
+	 * The time without events waited before updating the dependency map by default, in milliseconds
+	 */
+	public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+	/**
+	 * How many times the debounce time events can keep coming before the dependency map is updated anyway
+	 */
+	private static final int MAX_DELAY_FACTOR = 10;
+	private static final String CLASS_FILE_EXTENSION = ".class";
+
+	private final DependencyScanner scanner;
+	private final long debounceMillis;
+	private final WatchService watchService;
+	/**
+	 * The watched folders by watch key
+	 */
+	private final Map<WatchKey, Path> folders;
+	private final List<Listener> listeners;
+	private final Thread thread;
+	private volatile boolean closed;
+	private volatile Exception lastFailure;
+	/**
+	 * {@code true} if the next update must rescan all roots, only used by the watcher thread
+	 */
+	private boolean fullRescan;
+	private volatile long updates;
+
+	/**
+	 * Constructor, the watcher doesn't start watching until {@link ClassWatcher#start()} is called
+	 *
+	 * @param scanner	:	the scanner whose folder roots are watched
+	 * @throws IOException
+	 */
+	public ClassWatcher(DependencyScanner scanner) throws IOException {
+		this(scanner, DEFAULT_DEBOUNCE_MILLIS);
+	}
+
+	/**
+	 * Constructor, the watcher doesn't start watching until {@link ClassWatcher#start()} is called
+	 *
+	 * @param scanner			:	the scanner whose folder roots are watched
+	 * @param debounceMillis	:	the time without events waited before updating the dependency map, in milliseconds
+	 * @throws IllegalArgumentException if {@code debounceMillis} is negative
+	 * @throws IOException
+	 */
+	public ClassWatcher(DependencyScanner scanner, long debounceMillis) throws IOException {
+		if (debounceMillis < 0) {
+			throw new IllegalArgumentException("ClassWatcher needs a debounce time of at least 0 milliseconds (got " + debounceMillis + ")");
+		}
+		this.scanner = scanner;
+		this.debounceMillis = debounceMillis;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.folders = new HashMap<WatchKey, Path>();
+		this.listeners = new CopyOnWriteArrayList<Listener>();
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "ClassWatcher");
+		this.thread.setDaemon(true);
+		try {
+			registerRoots();
+		} catch (IOException e) {
+			this.watchService.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts watching the folder roots in a daemon thread, changes made before this call are not reported until a
+	 * later event triggers an update
+	 *
+	 * @throws IllegalStateException if the watcher was already started or closed
+	 */
+	public void start() {
+		if (this.closed) {
+			throw new IllegalStateException("ClassWatcher is closed");
+		}
+		this.thread.start();
+	}
+
+	/**
+	 * @param listener	:	the listener to add
+	 */
+	public void addListener(Listener listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * @param listener	:	the listener to remove
+	 */
+	public void removeListener(Listener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * @return the scanner whose dependency map is kept up to date
+	 */
+	public DependencyScanner getScanner() {
+		return this.scanner;
+	}
+
+	/**
+	 * @return the amount of folders being watched
+	 */
+	public int getWatchedFolders() {
+		synchronized (this.folders) {
+			return this.folders.size();
+		}
+	}
+
+	/**
+	 * @return the amount of updates made, whether they changed the dependency map or not
+	 */
+	public long getUpdates() {
+		return this.updates;
+	}
+
+	/**
+	 * @return the exception thrown by the last update that failed, or {@code null} if no update failed
+	 */
+	public Exception getLastFailure() {
+		return this.lastFailure;
+	}
+
+	/**
+	 * Stops watching, waiting for an update in progress to finish, and releases all watch keys
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		this.closed = true;
+		this.watchService.close();
+		if (this.thread.isAlive() && this.thread != Thread.currentThread()) {
+			try {
+				this.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this.folders) {
+			this.folders.clear();
+		}
+	}
+
+	/**
+	 * The loop of the watcher thread, each iteration waits for an event, collects the events that follow it and
+	 * updates the dependency map
+	 */
+	private void watch() {
+		long maxDelay = TimeUnit.MILLISECONDS.toNanos(this.debounceMillis * MAX_DELAY_FACTOR);
+		try {
+			while (!this.closed) {
+				WatchKey key = this.watchService.take();
+				Set<Path> touched = new LinkedHashSet<Path>();
+				long first = System.nanoTime();
+				while (key != null) {
+					process(key, touched);
+					long remaining = maxDelay - (System.nanoTime() - first);
+					if (remaining <= 0) {
+						break;
+					}
+					key = this.watchService.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(this.debounceMillis), remaining), TimeUnit.NANOSECONDS);
+				}
+				update(touched);
+			}
+		} catch (ClosedWatchServiceException e) {
+			// closed while waiting for events
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Collects the class files touched according to the events of a watch key, and registers new folders
+	 *
+	 * @param key		:	a signalled watch key
+	 * @param touched	:	where to add the class files touched
+	 */
+	private void process(WatchKey key, Set<Path> touched) {
+		Path folder;
+		synchronized (this.folders) {
+			folder = this.folders.get(key);
+		}
+		if (folder == null) {
+			key.cancel();
+			return;
+		}
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				this.fullRescan = true;
+				continue;
+			}
+			Path child = folder.resolve((Path) event.context());
+			if (child.getFileName().toString().endsWith(CLASS_FILE_EXTENSION)) {
+				touched.add(child);
+			} else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+				try {
+					register(child, touched);
+				} catch (IOException e) {
+					this.lastFailure = e;
+					this.fullRescan = true;
+				}
+			} else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && isWatched(child)) {
+				this.fullRescan = true;
+			}
+		}
+		if (!key.reset()) {
+			synchronized (this.folders) {
+				this.folders.remove(key);
+			}
+			this.fullRescan = true;
+		}
+	}
+
+	/**
+	 * Updates the dependency map and notifies the listeners
+	 *
+	 * @param touched	:	the class files touched since the last update
+	 */
+	private void update(Set<Path> touched) {
+		if (touched.isEmpty() && !this.fullRescan) {
+			return;
+		}
+		DependencyChange change;
+		try {
+			if (this.fullRescan) {
+				this.fullRescan = false;
+				releaseMissingFolders();
+				registerRoots();
+				change = this.scanner.rescanChanges();
+			} else {
+				change = this.scanner.rescan(touched);
+			}
+			this.updates++;
+		} catch (IOException | RuntimeException e) {
+			this.lastFailure = e;
+			this.fullRescan = true;
+			return;
+		}
+		if (change.isEmpty()) {
+			return;
+		}
+		for (Listener listener : this.listeners) {
+			try {
+				listener.dependenciesChanged(this, change);
+			} catch (RuntimeException e) {
+				this.lastFailure = e;
+			}
+		}
+	}
+
+	/**
+	 * Cancels the watch keys of folders that no longer exist, like folders moved away whose keys remain valid
+	 */
+	private void releaseMissingFolders() {
+		synchronized (this.folders) {
+			Iterator<Map.Entry<WatchKey, Path>> entries = this.folders.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<WatchKey, Path> entry = entries.next();
+				if (!Files.isDirectory(entry.getValue(), LinkOption.NOFOLLOW_LINKS)) {
+					entry.getKey().cancel();
+					entries.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registers every folder of every folder root, folders already registered keep their watch key
+	 *
+	 * @throws IOException
+	 */
+	private void registerRoots() throws IOException {
+		for (Path root : this.scanner.getRoots()) {
+			Path folder = root.toAbsolutePath();
+			if (Files.isDirectory(folder)) {
+				register(folder, null);
+			}
+		}
+	}
+
+	/**
+	 * Registers a folder and all its subfolders
+	 *
+	 * @param folder	:	the folder to register
+	 * @param touched	:	where to add the class files found in the folders, or {@code null}
+	 * @throws IOException
+	 */
+	private void register(Path folder, final Set<Path> touched) throws IOException {
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+				synchronized (folders) {
+					folders.put(key, dir);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (touched != null && file.getFileName().toString().endsWith(CLASS_FILE_EXTENSION)) {
+					touched.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * @param path	:	a path that was deleted
+	 * @return {@code true} if {@code path} was a watched folder, or contained one
+	 */
+	private boolean isWatched(Path path) {
+		synchronized (this.folders) {
+			for (Path folder : this.folders.values()) {
+				if (folder.startsWith(path)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
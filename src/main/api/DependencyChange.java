@@ -0,0 +1,173 @@
+package main.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The changes made to a dependency map by a rescan, see {@link DependencyScanner#rescanChanges()} and
+ * {@link DependencyScanner#rescan(java.util.Collection)}
+ * <p>
+ * Changes list the classes added, changed or removed, and the class level dependencies (edges) added, removed and
+ * changed, an edge changes when its {@code EdgeKind}s or its amount of references change. Edges of a class whose
+ * class file was parsed again without changes are not reported. Changes are immutable.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class DependencyChange {
+
+	private final Set<String> changedClasses;
+	private final List<Edge> addedEdges;
+	private final List<Edge> removedEdges;
+	private final List<Edge> changedEdges;
+
+	/**
+	 * Constructor
+	 *
+	 * @param changedClasses	:	the full names of the classes added, changed or removed
+	 * @param addedEdges		:	the edges added, sorted
+	 * @param removedEdges		:	the edges removed, sorted
+	 * @param changedEdges		:	the edges whose kinds or references changed, sorted
+	 */
+	DependencyChange(Set<String> changedClasses, List<Edge> addedEdges, List<Edge> removedEdges, List<Edge> changedEdges) {
+		this.changedClasses = Collections.unmodifiableSet(changedClasses);
+		this.addedEdges = Collections.unmodifiableList(addedEdges);
+		this.removedEdges = Collections.unmodifiableList(removedEdges);
+		this.changedEdges = Collections.unmodifiableList(changedEdges);
+	}
+
+	/**
+	 * @return the full names of the classes added, changed or removed
+	 */
+	public Set<String> getChangedClasses() {
+		return this.changedClasses;
+	}
+
+	/**
+	 * @return the edges added, sorted by dependent class and then by dependency
+	 */
+	public List<Edge> getAddedEdges() {
+		return this.addedEdges;
+	}
+
+	/**
+	 * @return the edges removed, sorted by dependent class and then by dependency
+	 */
+	public List<Edge> getRemovedEdges() {
+		return this.removedEdges;
+	}
+
+	/**
+	 * @return the edges whose kinds or amount of references changed, sorted by dependent class and then by dependency
+	 */
+	public List<Edge> getChangedEdges() {
+		return this.changedEdges;
+	}
+
+	/**
+	 * @return {@code true} if no class was added, changed or removed
+	 */
+	public boolean isEmpty() {
+		return this.changedClasses.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return this.changedClasses.size() + " classes changed, " + this.addedEdges.size() + " edges added, " + this.removedEdges.size() + " edges removed, " + this.changedEdges.size() + " edges changed";
+	}
+
+	/**
+	 * A class level dependency before and after a rescan, a dependency that didn't exist before or after the rescan
+	 * has no kinds and no references at that time
+	 */
+	public static class Edge implements Comparable<Edge> {
+
+		private final String from;
+		private final String to;
+		private final int previousKinds;
+		private final int previousReferences;
+		private final int kinds;
+		private final int references;
+
+		Edge(String from, String to, int previousKinds, int previousReferences, int kinds, int references) {
+			this.from = from;
+			this.to = to;
+			this.previousKinds = previousKinds;
+			this.previousReferences = previousReferences;
+			this.kinds = kinds;
+			this.references = references;
+		}
+
+		/**
+		 * @return the full name of the dependent class
+		 */
+		public String getFrom() {
+			return this.from;
+		}
+
+		/**
+		 * @return the full name of the class depended upon
+		 */
+		public String getTo() {
+			return this.to;
+		}
+
+		/**
+		 * @return the mask of {@code EdgeKind} bits of the dependency before the rescan
+		 */
+		public int getPreviousKinds() {
+			return this.previousKinds;
+		}
+
+		/**
+		 * @return the amount of references of the dependency before the rescan
+		 */
+		public int getPreviousReferences() {
+			return this.previousReferences;
+		}
+
+		/**
+		 * @return the mask of {@code EdgeKind} bits of the dependency after the rescan
+		 */
+		public int getKinds() {
+			return this.kinds;
+		}
+
+		/**
+		 * @return the amount of references of the dependency after the rescan
+		 */
+		public int getReferences() {
+			return this.references;
+		}
+
+		@Override
+		public int compareTo(Edge other) {
+			int result = this.from.compareTo(other.from);
+			return result != 0 ? result : this.to.compareTo(other.to);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) return true;
+			if (!(other instanceof Edge)) return false;
+			Edge edge = (Edge) other;
+			return this.from.equals(edge.from) && this.to.equals(edge.to) && this.previousKinds == edge.previousKinds
+					&& this.previousReferences == edge.previousReferences && this.kinds == edge.kinds
+					&& this.references == edge.references;
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.from.hashCode() * 31 + this.to.hashCode()) * 31 + this.kinds;
+		}
+
+		@Override
+		public String toString() {
+			return this.from + " -> " + this.to + " (" + this.previousReferences + " -> " + this.references + " references)";
+		}
+
+	}
+
+}
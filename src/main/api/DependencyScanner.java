@@ -1,30 +1,114 @@
 package main.api;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
 import org.objectweb.asm.ClassReader;
 
 import utils.ClassScanner;
+import utils.ClassSource;
+import utils.Fingerprint;
+import visitor.ConstantPoolExtractor;
 import visitor.DependencyVisitor;
+import visitor.ExtractionEngine;
+import visitor.ScanDepth;
+import data.ClassEdges;
+import data.CompactDependencyGraph;
+import data.DependencyElem;
 import data.DependencyMap;
+import data.DependencyMapVersion;
+import data.DependencySink;
+import data.EdgeCollector;
+import data.GraphSnapshot;
+import data.MemberGraph;
+import data.PackageGraph;
 
 /**
  * This class encapsulates the file scanning and dependency map creation.
  * 
  * <p>
- * It allows to scan a folder or zip file in search for classes, and to create a dependency map with all classes
- * found.
+ * It allows to scan a folder or zip file, or a classpath made of several folders and zip files (roots), in search
+ * for classes, and to create a single dependency map with all classes found, including dependencies between classes
+ * found in different roots. Each class in the dependency map records the root where it was found (see
+ * {@link DependencyElem#getDefiningRoot()}). As with a class loader, roots are taken in classpath order and when a
+ * class is found in more than one root only the first definition is used, later ones are shadowed.
+ * <p>
+ * When using several workers the scan runs as a pipeline: class files are found by a discovery thread (walking
+ * folders with a {@code ForkJoinPool}, one task per subfolder), read by a pool of loaders, parsed by a pool of
+ * parsers, each with its own {@code DependencyVisitor}, and merged by the calling thread as they arrive. All stages
+ * run at the same time, with a bounded amount of class files read but not yet merged, and the result is equal to the
+ * one obtained with a single thread.
+ * <p>
+ * A fingerprint (size, modification time and optionally a hash of the contents) is kept for each class file, so
+ * the roots can be scanned again with {@link DependencyScanner#rescan()}, which only parses new and changed class
+ * files and removes from the dependency map the dependencies of changed and removed ones. Class files under a
+ * subfolder that could not be listed are not taken as removed, the classes they defined are kept as they were until
+ * a rescan can list the subfolder again.
+ * <p>
+ * The {@code ScanDepth} used controls how much of each class file is parsed, shallow scans only find the
+ * dependencies declared in class headers or member signatures but are several times faster. The
+ * {@code ExtractionEngine} used controls how class files are parsed, with an ASM {@code DependencyVisitor} or with a
+ * {@code ConstantPoolExtractor}. Scanners created to track members also keep the calls and field accesses between
+ * methods and fields in the {@code MemberGraph} of the dependency map, which needs the {@code DependencyVisitor} and
+ * {@link ScanDepth#FULL} to find call sites. The amount of workers, the depth, the engine and the rest of the options
+ * of a scanner are given as {@code ScanOptions}.
+ * <p>
+ * Rescans can also report the edges they added, removed and changed as a {@code DependencyChange}, see
+ * {@link DependencyScanner#rescanChanges()}, and can be limited to some class files of folder roots with
+ * {@link DependencyScanner#rescan(Collection)}, which is what a {@code ClassWatcher} uses to keep the dependency map up
+ * to date. Rescans are synchronized on the scanner, so the dependency map can be read safely from other threads while
+ * holding the monitor of the scanner. Threads that must not wait for rescans can read immutable versions of the map
+ * instead, see {@link DependencyScanner#getVersion()}.
+ * <p>
+ * Scans can be instrumented by setting a {@code ScanListener}, which receives the {@code ScanMetrics} of each scan:
+ * the time spent in each {@code ScanPhase}, per root and for the slowest classes, the amount of class files,
+ * bytes, classes and dependencies processed, and the amount of subfolders and files that could not be listed. Scans
+ * made without a listener are not instrumented.
  * <p>
  * 
  * @author Simon Emmanuel Gutierrez Brida
- * @version 0.1.1u
+ * @version 0.10u
  */
 public class DependencyScanner {
 	
+	/**
+	 * The amount of slowest classes reported by default in the metrics of each scan
+	 */
+	public static final int DEFAULT_SLOWEST_CLASSES = 10;
+	/**
+	 * The amount of class files per worker that can be loaded or parsed, but not yet merged, at the same time
+	 */
+	private static final int IN_FLIGHT_PER_WORKER = 64;
+	/**
+	 * Sent by the discovery thread of a {@code Pipeline} after all roots are listed
+	 */
+	private static final Object DISCOVERED = new Object();
+	
 	/**
 	 * The dependency map associated with this scanner
 	 */
@@ -35,6 +119,63 @@ public class DependencyScanner {
 	private Set<String> scannedPackages;
 	
 	private final String pathToScan;
+	/**
+	 * The roots to scan, in classpath order
+	 */
+	private final List<Path> roots;
+	/**
+	 * The absolute path of each root
+	 */
+	private final String[] rootNames;
+	/**
+	 * The index of each root by absolute path, the first one if a root is repeated
+	 */
+	private final Map<String, Integer> rootIndexes;
+	/**
+	 * The amount of threads used to parse classes
+	 */
+	private final int workers;
+	/**
+	 * {@code true} if fingerprints include a hash of the class files contents
+	 */
+	private final boolean hashContents;
+	/**
+	 * How much of each class file is parsed
+	 */
+	private final ScanDepth depth;
+	/**
+	 * How class files are parsed
+	 */
+	private final ExtractionEngine engine;
+	/**
+	 * The fingerprint and class defined by each class file scanned, by class file name
+	 */
+	private Map<String, ScannedSource> scannedSources;
+	/**
+	 * The class file used for each class found, class files defining the same class in later roots are shadowed
+	 */
+	private Map<String, ScannedSource> definingSources;
+	/**
+	 * The amount of classes found for each package inside the path to scan
+	 */
+	private Map<String, Integer> classesPerPackage;
+	/**
+	 * The listener receiving the metrics of each scan, or {@code null} to not instrument scans
+	 */
+	private ScanListener listener;
+	/**
+	 * The amount of slowest classes reported in the metrics of each scan
+	 */
+	private int slowestClasses;
+	/**
+	 * The kinds and references of the dependencies of each class removed during a rescan reporting its changes, by
+	 * class name and then by dependency name, {@code null} when changes are not being collected
+	 */
+	private Map<String, Map<String, int[]>> formerEdges;
+	/**
+	 * The latest immutable version of the dependency map, {@code null} until requested
+	 */
+	private volatile DependencyMapVersion version;
 	
 	/**
 	 * Constructor
@@ -47,9 +188,144 @@ public class DependencyScanner {
 	 * @throws IOException
 	 */
 	public DependencyScanner(Path pathToScan) throws IllegalStateException, IOException {
+		this(pathToScan, 1);
+	}
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * This constructor will construct a dependency map that can be obtained through {@link DependencyScanner#getDependencyMap()}
+	 * using {@code workers} threads to parse the classes found
+	 * <p>
+	 * 
+	 * @param pathToScan	:	the path to scan, pointing to a folder or a zip file
+	 * @param workers		:	the amount of threads used to parse classes, {@code 1} will parse all classes in the calling thread
+	 * @throws IllegalArgumentException if {@code workers} is less than {@code 1}
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	public DependencyScanner(Path pathToScan, int workers) throws IllegalStateException, IOException {
+		this(Collections.singletonList(pathToScan), ScanOptions.DEFAULT.withWorkers(workers));
+	}
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * This constructor will construct a single dependency map for all the roots of a classpath, that can be obtained
+	 * through {@link DependencyScanner#getDependencyMap()}, scanning the roots as set by {@code options}
+	 * <p>
+	 * 
+	 * @param classpath	:	the roots to scan in classpath order, each one pointing to a folder or a zip file
+	 * @param options	:	the amount of threads, depth, engine, listener and the rest of the options of the scanner
+	 * @throws IllegalArgumentException if {@code classpath} is empty or members are tracked with
+	 * {@link ExtractionEngine#CONSTANT_POOL}
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	public DependencyScanner(List<Path> classpath, ScanOptions options) throws IllegalStateException, IOException {
+		this(classpath, options, new DependencyMap(options.tracksMembers()));
+		rescan();
+	}
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * This constructor will restore the dependency map and fingerprints saved with
+	 * {@link DependencyScanner#saveSnapshot(Path)} and then update them with {@link DependencyScanner#rescan()}, so
+	 * only class files that changed since the snapshot was saved are parsed, the metrics of the update are sent to the
+	 * listener of {@code options}. A snapshot saved by a scanner with another depth or engine is ignored and all class
+	 * files are parsed. Members are never restored, {@link ScanOptions#tracksMembers()} is ignored
+	 * <p>
+	 * 
+	 * @param classpath	:	the roots to scan in classpath order, each one pointing to a folder or a zip file
+	 * @param snapshot	:	a snapshot saved by a scanner for the same roots and with the same depth and engine
+	 * @param options	:	the amount of threads, depth, engine, listener and the rest of the options of the scanner
+	 * @throws IllegalArgumentException if {@code classpath} is empty
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	public DependencyScanner(List<Path> classpath, GraphSnapshot snapshot, ScanOptions options) throws IllegalStateException, IOException {
+		this(classpath, options, restorable(snapshot, options) ? snapshot.toDependencyMap() : new DependencyMap());
+		if (restorable(snapshot, options)) {
+			restore(snapshot);
+		}
+		rescan();
+	}
+	
+	/**
+	 * @param snapshot	:	a snapshot
+	 * @param options	:	the options of a scanner
+	 * @return {@code true} if {@code snapshot} was saved by a scanner with the same depth and engine
+	 */
+	private static boolean restorable(GraphSnapshot snapshot, ScanOptions options) {
+		return snapshot.getScanDepth() == options.getDepth() && snapshot.getExtractionEngine() == options.getEngine();
+	}
+	
+	/**
+	 * Restores the fingerprint and defined class of each class file of a snapshot, grouped by root in classpath order
+	 * 
+	 * @param snapshot	:	the snapshot whose dependency map this scanner was created with
+	 */
+	private void restore(GraphSnapshot snapshot) {
+		int sources = snapshot.getSourceCount();
+		String[] sourceNames = new String[sources];
+		int[] rootOfSource = new int[sources];
+		int[] rootStart = new int[this.rootNames.length + 2];
+		for (int source = 0; source < sources; source++) {
+			sourceNames[source] = snapshot.getSourceName(source);
+			rootOfSource[source] = rootOf(sourceNames[source]);
+			rootStart[rootOfSource[source] + 1]++;
+		}
+		for (int root = 1; root < rootStart.length; root++) {
+			rootStart[root] += rootStart[root - 1];
+		}
+		int[] sourcesByRoot = new int[sources];
+		for (int source = 0; source < sources; source++) {
+			sourcesByRoot[rootStart[rootOfSource[source]]++] = source;
+		}
+		for (int source : sourcesByRoot) {
+			String className = snapshot.getName(snapshot.getSourceClass(source));
+			PendingSource restored = new PendingSource(sourceNames[source], null, rootOfSource[source]);
+			record(restored, snapshot.getSourceFingerprint(source), className, !this.definingSources.containsKey(className));
+		}
+	}
+	
+	/**
+	 * Initializes the state shared by all constructors, nothing is scanned
+	 */
+	private DependencyScanner(List<Path> classpath, ScanOptions options, DependencyMap dependencyMap) {
+		if (classpath.isEmpty()) {
+			throw new IllegalArgumentException("DependencyScanner needs at least one path to scan");
+		}
+		if (dependencyMap.getMemberGraph() != null && options.getEngine() == ExtractionEngine.CONSTANT_POOL) {
+			throw new IllegalArgumentException("DependencyScanner can't track members with the " + options.getEngine() + " engine");
+		}
+		this.roots = Collections.unmodifiableList(new ArrayList<Path>(classpath));
+		this.rootNames = new String[this.roots.size()];
+		this.rootIndexes = new HashMap<String, Integer>();
+		StringBuilder pathToScan = new StringBuilder();
+		for (int root = 0; root < this.rootNames.length; root++) {
+			this.rootNames[root] = this.roots.get(root).toAbsolutePath().toString();
+			if (!this.rootIndexes.containsKey(this.rootNames[root])) {
+				this.rootIndexes.put(this.rootNames[root], root);
+			}
+			if (root > 0) {
+				pathToScan.append(File.pathSeparatorChar);
+			}
+			pathToScan.append(this.roots.get(root).toString());
+		}
 		this.pathToScan = pathToScan.toString();
-		ClassScanner classScanner = new ClassScanner(pathToScan);
-		scan(classScanner);
+		this.workers = options.getWorkers();
+		this.hashContents = options.hashesContents();
+		this.depth = options.getDepth();
+		this.engine = options.getEngine();
+		this.dependencyMap = dependencyMap;
+		this.scannedSources = new HashMap<String, ScannedSource>();
+		this.definingSources = new HashMap<String, ScannedSource>();
+		this.classesPerPackage = new HashMap<String, Integer>();
+		this.scannedPackages = this.classesPerPackage.keySet();
+		this.listener = options.getListener();
+		this.slowestClasses = DEFAULT_SLOWEST_CLASSES;
 	}
 	
 	/**
@@ -59,6 +335,21 @@ public class DependencyScanner {
 		return this.dependencyMap;
 	}
 	
+	/**
+	 * @return the dependencies of the dependency map aggregated by package, kept up to date by each scan
+	 */
+	public PackageGraph getPackageGraph() {
+		return this.dependencyMap.getPackageGraph();
+	}
+	
+	/**
+	 * @return the dependencies between methods and fields, kept up to date by each scan, or {@code null} if this
+	 * scanner doesn't track members
+	 */
+	public MemberGraph getMemberGraph() {
+		return this.dependencyMap.getMemberGraph();
+	}
+	
 	/**
 	 * @return a set of packages found inside the path to scan
 	 */
@@ -67,28 +358,1335 @@ public class DependencyScanner {
 	}
 	
 	/**
-	 * @return the scanned path
+	 * @return the scanned path, when scanning several roots their paths separated by {@link File#pathSeparatorChar}
 	 */
 	public String getScannedPath() {
 		return this.pathToScan;
 	}
 	
 	/**
-	 * Populates the dependency map
+	 * @return how much of each class file is parsed
+	 */
+	public ScanDepth getDepth() {
+		return this.depth;
+	}
+	
+	/**
+	 * @return how class files are parsed
+	 */
+	public ExtractionEngine getEngine() {
+		return this.engine;
+	}
+	
+	/**
+	 * @return the scanned roots, in classpath order
+	 */
+	public List<Path> getRoots() {
+		return this.roots;
+	}
+	
+	/**
+	 * @return the listener receiving the metrics of each scan, or {@code null} if scans are not instrumented
+	 */
+	public ScanListener getScanListener() {
+		return this.listener;
+	}
+	
+	/**
+	 * Sets the listener receiving the metrics of each following scan, reporting the
+	 * {@link DependencyScanner#DEFAULT_SLOWEST_CLASSES} slowest classes
+	 * 
+	 * @param listener	:	the listener, or {@code null} to stop instrumenting scans
+	 */
+	public void setScanListener(ScanListener listener) {
+		setScanListener(listener, DEFAULT_SLOWEST_CLASSES);
+	}
+	
+	/**
+	 * Sets the listener receiving the metrics of each following scan
+	 * 
+	 * @param listener			:	the listener, or {@code null} to stop instrumenting scans
+	 * @param slowestClasses	:	the amount of slowest classes to report
+	 * @throws IllegalArgumentException if {@code slowestClasses} is negative
+	 */
+	public void setScanListener(ScanListener listener, int slowestClasses) {
+		if (slowestClasses < 0) {
+			throw new IllegalArgumentException("The amount of slowest classes can't be negative (got " + slowestClasses + ")");
+		}
+		this.listener = listener;
+		this.slowestClasses = slowestClasses;
+	}
+	
+	/**
+	 * Saves the dependency map and the fingerprint of each scanned class file, together with the depth and engine of
+	 * this scanner, the snapshot can be used to construct a new scanner for the same path and with the same depth and
+	 * engine without parsing all classes again
+	 * 
+	 * @param snapshotFile	:	the file where to save the snapshot, will be replaced if it already exists
+	 * @throws IOException
+	 */
+	public void saveSnapshot(Path snapshotFile) throws IOException {
+		Map<String, Fingerprint> fingerprints = new HashMap<String, Fingerprint>();
+		Map<String, String> sourceClasses = new HashMap<String, String>();
+		for (ScannedSource scannedSource : this.scannedSources.values()) {
+			fingerprints.put(scannedSource.name, scannedSource.fingerprint);
+			sourceClasses.put(scannedSource.name, scannedSource.className);
+		}
+		GraphSnapshot.write(snapshotFile, new CompactDependencyGraph(this.dependencyMap), fingerprints, sourceClasses, this.depth, this.engine);
+	}
+	
+	/**
+	 * Scans the path again, updating the dependency map with the changes made since the last scan
+	 * <p>
+	 * Only class files that are new, or whose fingerprint changed, are parsed. Dependencies of changed and removed
+	 * class files are removed from the dependency map (updating the classes that depend on them), as well as classes
+	 * that are no longer defined nor used by any scanned class. When the class file used for a class is removed, a
+	 * class file defining the same class in a later root, if any, is used instead.
+	 * <p>
+	 * 
+	 * @return the full names of the classes added, changed or removed
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	public synchronized Set<String> rescan() throws IllegalStateException, IOException {
+		ScanListener listener = this.listener;
+		ScanRecorder recorder = listener == null ? null : new ScanRecorder(this.roots, this.slowestClasses);
+		Set<String> changedClasses = new HashSet<String>();
+		Set<DependencyElem> formerDependencies = new HashSet<DependencyElem>();
+		int found = scanRoots(changedClasses, formerDependencies, recorder);
+		long start = 0;
+		long startCpu = 0;
+		if (recorder != null) {
+			recorder.nodes(this.dependencyMap.getClasses().size());
+			start = System.nanoTime();
+			startCpu = recorder.cpu();
+		}
+		prune(changedClasses, formerDependencies);
+		publish(changedClasses);
+		if (recorder != null) {
+			recorder.phase(ScanPhase.REMOVE, start, startCpu);
+			listener.scanFinished(this, recorder.toMetrics(found));
+		}
+		return changedClasses;
+	}
+	
+	/**
+	 * Scans all roots, parsing new and changed class files and removing the dependencies of changed and removed ones,
+	 * without pruning classes nor making a new version of the dependency map
+	 * 
+	 * @param changedClasses		:	where to add the full names of the classes added, changed or removed
+	 * @param formerDependencies	:	where to add the dependencies removed from classes
+	 * @param recorder				:	the recorder of the metrics of the scan, or {@code null}
+	 * @return the amount of class files found
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	private int scanRoots(Set<String> changedClasses, Set<DependencyElem> formerDependencies, ScanRecorder recorder) throws IllegalStateException, IOException {
+		List<ClassScanner> classScanners = new ArrayList<ClassScanner>(this.roots.size());
+		try {
+			if (recorder != null) {
+				recorder.nodes(this.dependencyMap.getClasses().size());
+			}
+			if (this.workers == 1) {
+				return scan(classScanners, changedClasses, formerDependencies, recorder);
+			}
+			Pipeline pipeline = new Pipeline(classScanners, changedClasses, formerDependencies, recorder);
+			try {
+				return pipeline.run();
+			} finally {
+				pipeline.shutdown();
+			}
+		} finally {
+			close(classScanners);
+		}
+	}
+	
+	/**
+	 * Scans the path again like {@link DependencyScanner#rescan()}, reporting the edges added, removed and changed
+	 * 
+	 * @return the changes made to the dependency map
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	public synchronized DependencyChange rescanChanges() throws IllegalStateException, IOException {
+		this.formerEdges = new HashMap<String, Map<String, int[]>>();
+		try {
+			return changes(rescan());
+		} finally {
+			this.formerEdges = null;
+		}
+	}
+	
+	/**
+	 * Updates the dependency map with the changes made to some class files of folder roots, without listing the roots
+	 * <p>
+	 * Each class file is parsed again if it is new or its fingerprint changed, and its dependencies are removed if it
+	 * no longer exists. Paths that are not inside a folder root, or that are not class files, are ignored. If a removed
+	 * or changed class file was shadowing a class file of a later root, all roots are scanned again like
+	 * {@link DependencyScanner#rescan()} so the shadowed class file is used, as part of the same update. Rescans of
+	 * some class files are not instrumented.
+	 * <p>
+	 * 
+	 * @param classFiles	:	the class files that were created, modified or deleted
+	 * @return the changes made to the dependency map
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	public synchronized DependencyChange rescan(Collection<Path> classFiles) throws IllegalStateException, IOException {
+		this.formerEdges = new HashMap<String, Map<String, int[]>>();
+		try {
+			Map<String, PendingSource> found = new LinkedHashMap<String, PendingSource>();
+			List<String> removedSources = new ArrayList<String>();
+			for (Path classFile : classFiles) {
+				String name = classFile.toAbsolutePath().toString();
+				int root = rootOf(name);
+				if (root == this.rootNames.length || !name.endsWith(".class") || !Files.isDirectory(this.roots.get(root)) || found.containsKey(name)) {
+					continue;
+				}
+				ClassSource source = null;
+				try {
+					source = ClassScanner.fileSource(classFile.toAbsolutePath());
+				} catch (NoSuchFileException e) {
+					// deleted since the change was reported
+				} catch (IOException e) {
+					// kept as it was, it may still exist
+					continue;
+				}
+				if (source == null) {
+					if (this.scannedSources.containsKey(name)) {
+						removedSources.add(name);
+					}
+				} else {
+					PendingSource pending = new PendingSource(name, source, root);
+					if (changed(pending, null)) {
+						found.put(name, pending);
+					}
+				}
+			}
+			Set<String> changedClasses = new HashSet<String>();
+			Set<DependencyElem> formerDependencies = new HashSet<DependencyElem>();
+			Set<String> undefinedClasses = new HashSet<String>();
+			for (String sourceName : found.keySet()) {
+				retract(sourceName, changedClasses, formerDependencies, undefinedClasses);
+			}
+			for (String sourceName : removedSources) {
+				retract(sourceName, changedClasses, formerDependencies, undefinedClasses);
+			}
+			List<PendingSource> toParse = new ArrayList<PendingSource>(found.values());
+			Collections.sort(toParse, PendingSource.BY_ROOT);
+			changedClasses.addAll(parse(toParse, formerDependencies, null));
+			List<String> shadowedSources = shadowedSources(undefinedClasses, null);
+			if (!shadowedSources.isEmpty()) {
+				for (String sourceName : shadowedSources) {
+					this.scannedSources.remove(sourceName);
+				}
+				scanRoots(changedClasses, formerDependencies, null);
+			}
+			prune(changedClasses, formerDependencies);
+			publish(changedClasses);
+			return changes(changedClasses);
+		} finally {
+			this.formerEdges = null;
+		}
+	}
+	
+	/**
+	 * Returns the latest immutable version of the dependency map
+	 * <p>
+	 * The first call copies the dependency map, after that each rescan that changes it makes a new version from the
+	 * previous one and the classes it changed, sharing everything else. Versions can be read from any thread without
+	 * holding the monitor of the scanner, a version obtained before a rescan stays unchanged and can be compared with a
+	 * later one using {@link DependencyMapVersion#diff(DependencyMapVersion)}. Changes made to the dependency map
+	 * outside of the scanner are not tracked.
+	 * <p>
+	 * 
+	 * @return the version of the dependency map after the last rescan
+	 */
+	public DependencyMapVersion getVersion() {
+		DependencyMapVersion version = this.version;
+		if (version == null) {
+			synchronized (this) {
+				if (this.version == null) {
+					this.version = new DependencyMapVersion(this.dependencyMap, this.engine);
+				}
+				version = this.version;
+			}
+		}
+		return version;
+	}
+	
+	/**
+	 * Makes the next version of the dependency map, if versions were requested
+	 * 
+	 * @param changedClasses	:	the full names of the classes added, changed or removed
+	 */
+	private void publish(Set<String> changedClasses) {
+		if (this.version != null) {
+			this.version = this.version.apply(this.dependencyMap, changedClasses);
+		}
+	}
+	
+	/**
+	 * Compares the dependencies of the changed classes with those collected in {@code formerEdges}
+	 * 
+	 * @param changedClasses	:	the full names of the classes added, changed or removed
+	 * @return the changes made to the dependency map
+	 */
+	private DependencyChange changes(Set<String> changedClasses) {
+		Set<String> classes = new TreeSet<String>(changedClasses);
+		classes.addAll(this.formerEdges.keySet());
+		List<DependencyChange.Edge> added = new ArrayList<DependencyChange.Edge>();
+		List<DependencyChange.Edge> removed = new ArrayList<DependencyChange.Edge>();
+		List<DependencyChange.Edge> changed = new ArrayList<DependencyChange.Edge>();
+		for (String className : classes) {
+			Map<String, int[]> before = this.formerEdges.get(className);
+			DependencyElem elem = this.dependencyMap.getClassAsDependencyElem(className);
+			Map<String, int[]> after = elem == null ? null : edges(elem);
+			if (after != null) {
+				for (Map.Entry<String, int[]> edge : after.entrySet()) {
+					int[] previous = before == null ? null : before.get(edge.getKey());
+					int[] current = edge.getValue();
+					if (previous == null) {
+						added.add(new DependencyChange.Edge(className, edge.getKey(), 0, 0, current[0], current[1]));
+					} else if (previous[0] != current[0] || previous[1] != current[1]) {
+						changed.add(new DependencyChange.Edge(className, edge.getKey(), previous[0], previous[1], current[0], current[1]));
+					}
+				}
+			}
+			if (before != null) {
+				for (Map.Entry<String, int[]> edge : before.entrySet()) {
+					if (after == null || !after.containsKey(edge.getKey())) {
+						int[] previous = edge.getValue();
+						removed.add(new DependencyChange.Edge(className, edge.getKey(), previous[0], previous[1], 0, 0));
+					}
+				}
+			}
+		}
+		Collections.sort(added);
+		Collections.sort(removed);
+		Collections.sort(changed);
+		return new DependencyChange(changedClasses, added, removed, changed);
+	}
+	
+	/**
+	 * @param elem	:	a class
+	 * @return the kinds and references of each direct dependency of {@code elem}, by dependency name
+	 */
+	private Map<String, int[]> edges(DependencyElem elem) {
+		Map<String, int[]> edges = new HashMap<String, int[]>();
+		for (Set<DependencyElem> dependenciesPerPackage : elem.getDirectDependencies().values()) {
+			for (DependencyElem dependency : dependenciesPerPackage) {
+				edges.put(dependency.getFullyQualifiedName(), new int[] {this.dependencyMap.getEdgeKinds(elem, dependency), this.dependencyMap.getEdgeCount(elem, dependency)});
+			}
+		}
+		return edges;
+	}
+	
+	/**
+	 * Scans all roots in the calling thread, first listing all class files and then parsing the new and changed ones
+	 * 
+	 * @param classScanners			:	where to add the {@code ClassScanner} used for each root
+	 * @param changedClasses		:	where to add the full names of the classes added, changed or removed
+	 * @param formerDependencies	:	where to add the dependencies removed from classes
+	 * @param recorder				:	the recorder of the metrics of the scan, or {@code null}
+	 * @return the amount of class files found
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	private int scan(List<ClassScanner> classScanners, Set<String> changedClasses, Set<DependencyElem> formerDependencies, ScanRecorder recorder) throws IllegalStateException, IOException {
+		Map<String, PendingSource> found = list(classScanners, recorder);
+		List<PendingSource> toParse = new ArrayList<PendingSource>();
+		for (PendingSource pending : found.values()) {
+			if (changed(pending, recorder)) {
+				toParse.add(pending);
+			}
+		}
+		long start = recorder == null ? 0 : System.nanoTime();
+		long startCpu = recorder == null ? 0 : recorder.cpu();
+		Set<String> undefinedClasses = new HashSet<String>();
+		for (PendingSource source : toParse) {
+			retract(source.name, changedClasses, formerDependencies, undefinedClasses);
+		}
+		for (String sourceName : removedSources(found, classScanners)) {
+			retract(sourceName, changedClasses, formerDependencies, undefinedClasses);
+		}
+		if (recorder != null) {
+			recorder.removed(changedClasses.size());
+			recorder.phase(ScanPhase.REMOVE, start, startCpu);
+		}
+		for (String sourceName : shadowedSources(undefinedClasses, found)) {
+			this.scannedSources.remove(sourceName);
+			toParse.add(found.get(sourceName));
+		}
+		Collections.sort(toParse, PendingSource.BY_ROOT);
+		changedClasses.addAll(parse(toParse, formerDependencies, recorder));
+		return found.size();
+	}
+	
+	/**
+	 * @param pending	:	a class file found in a root
+	 * @param recorder	:	the recorder of the metrics of the scan, or {@code null}
+	 * @return {@code true} if the class file is new or its fingerprint changed since it was scanned, or if it was
+	 * shadowed and its class is no longer defined by any class file
+	 * @throws IOException
+	 */
+	private boolean changed(PendingSource pending, ScanRecorder recorder) throws IOException {
+		ClassSource source = pending.source;
+		ScannedSource previous = this.scannedSources.get(pending.name);
+		if (previous == null || previous.root != pending.root || !this.definingSources.containsKey(previous.className)) {
+			return true;
+		} else if (previous.fingerprint.sameAttributes(new Fingerprint(source.getSize(), source.getLastModified()))) {
+			return false;
+		}
+		Fingerprint current = null;
+		if (this.hashContents) {
+			long start = recorder == null ? 0 : System.nanoTime();
+			long startCpu = recorder == null ? 0 : recorder.cpu();
+			byte[] bytes = read(source);
+			current = fingerprint(source, bytes);
+			if (recorder != null) {
+				recorder.read(pending.root, bytes.length, System.nanoTime() - start, recorder.cpu() - startCpu);
+			}
+		}
+		if (current != null && previous.fingerprint.sameContents(current)) {
+			previous.fingerprint = current;
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes from the dependency map the classes that are no longer defined nor used after a rescan, the former
+	 * dependencies removed are added to {@code changedClasses}
 	 * 
-	 * @param classScanner				:	a {@code ClassScanner} instance to scan for class files
+	 * @param changedClasses		:	the full names of the classes added, changed or removed
+	 * @param formerDependencies	:	the dependencies removed from classes
+	 */
+	private void prune(Set<String> changedClasses, Set<DependencyElem> formerDependencies) {
+		for (String changedClass : changedClasses) {
+			prune(changedClass);
+		}
+		for (DependencyElem formerDependency : formerDependencies) {
+			if (prune(formerDependency.getFullyQualifiedName())) {
+				changedClasses.add(formerDependency.getFullyQualifiedName());
+			}
+		}
+	}
+	
+	/**
+	 * @param found			:	the class files found, by name
+	 * @param classScanners	:	the {@code ClassScanner} used for each root
+	 * @return the names of the class files scanned before that were not found, without those under a subfolder that
+	 * could not be listed or that are a file whose attributes could not be read, they may still exist
+	 */
+	private List<String> removedSources(Map<String, PendingSource> found, List<ClassScanner> classScanners) {
+		List<String> unreadablePaths = new ArrayList<String>();
+		for (ClassScanner classScanner : classScanners) {
+			for (Path unreadablePath : classScanner.getUnreadablePaths()) {
+				unreadablePaths.add(unreadablePath.toString());
+			}
+		}
+		List<String> removedSources = new ArrayList<String>();
+		for (String sourceName : this.scannedSources.keySet()) {
+			if (!found.containsKey(sourceName) && !isUnder(sourceName, unreadablePaths)) {
+				removedSources.add(sourceName);
+			}
+		}
+		return removedSources;
+	}
+	
+	/**
+	 * @param sourceName	:	the name of a class file
+	 * @param paths			:	absolute paths of folders or files
+	 * @return {@code true} if the class file is one of {@code paths} or is inside one of them
+	 */
+	private static boolean isUnder(String sourceName, List<String> paths) {
+		for (String path : paths) {
+			if (sourceName.startsWith(path) && (sourceName.length() == path.length() || sourceName.charAt(path.length()) == File.separatorChar)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Shadowed class files that were not found are under a subfolder that could not be listed (the others were
+	 * removed by {@link DependencyScanner#removedSources(Map, List)}), they are kept as they were and parsed again once
+	 * they are found, see {@link DependencyScanner#changed(PendingSource, ScanRecorder)}.
+	 * 
+	 * @param undefinedClasses	:	the full names of classes whose class file was changed or removed
+	 * @param found				:	the class files found, by name, or {@code null} to not require class files to have
+	 * 								been found
+	 * @return the names of the shadowed class files that could now be used for those classes
+	 */
+	private List<String> shadowedSources(Set<String> undefinedClasses, Map<String, PendingSource> found) {
+		List<String> shadowedSources = new ArrayList<String>();
+		if (undefinedClasses.isEmpty()) {
+			return shadowedSources;
+		}
+		for (ScannedSource scannedSource : this.scannedSources.values()) {
+			if (undefinedClasses.contains(scannedSource.className) && (found == null || found.containsKey(scannedSource.name))) {
+				ScannedSource definingSource = this.definingSources.get(scannedSource.className);
+				if (definingSource == null || precedes(scannedSource.root, scannedSource.name, definingSource)) {
+					shadowedSources.add(scannedSource.name);
+				}
+			}
+		}
+		return shadowedSources;
+	}
+	
+	/**
+	 * Lists the class files of all roots in the calling thread
+	 * 
+	 * @param classScanners	:	where to add the {@code ClassScanner} used for each root, they must be closed after
+	 * 							the class files are parsed
+	 * @param recorder		:	the recorder of the metrics of the scan, or {@code null}
+	 * @return the class files found, by name, in classpath order
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	private Map<String, PendingSource> list(List<ClassScanner> classScanners, ScanRecorder recorder) throws IllegalStateException, IOException {
+		Map<String, PendingSource> found = new LinkedHashMap<String, PendingSource>();
+		for (int root = 0; root < this.roots.size(); root++) {
+			ClassScanner classScanner = new ClassScanner(this.roots.get(root));
+			classScanners.add(classScanner);
+			scan(classScanner, root, null, recorder);
+			for (ClassSource source : classScanner) {
+				if (!found.containsKey(source.getName())) {
+					found.put(source.getName(), new PendingSource(source.getName(), source, root));
+				}
+			}
+		}
+		return found;
+	}
+	
+	/**
+	 * Lists the class files of a root, recording the time taken
+	 * 
+	 * @param classScanner	:	the {@code ClassScanner} for the root
+	 * @param root			:	the index of the root
+	 * @param listener		:	the listener receiving the class files found, or {@code null}
+	 * @param recorder		:	the recorder of the metrics of the scan, or {@code null}
 	 * @throws IllegalStateException
 	 * @throws IOException
 	 */
-	private void scan(ClassScanner classScanner) throws IllegalStateException, IOException {
-		classScanner.scan();
-		List<InputStream> istreams = classScanner.getInputStreams();
-		this.dependencyMap = new DependencyMap();
-		DependencyVisitor visitor = new DependencyVisitor(this.dependencyMap);
-		for (InputStream is : istreams) {
-			new ClassReader(is).accept(visitor, 0);
+	private static void scan(ClassScanner classScanner, int root, ClassScanner.Listener listener, ScanRecorder recorder) throws IllegalStateException, IOException {
+		if (recorder == null) {
+			classScanner.scan(listener);
+			return;
+		}
+		long start = System.nanoTime();
+		long startCpu = recorder.cpu();
+		classScanner.scan(listener);
+		recorder.listed(root, System.nanoTime() - start, recorder.cpu() - startCpu);
+		recorder.found(root, classScanner.getClassSources().size(), classScanner.getFailures().size());
+	}
+	
+	/**
+	 * Parses class files into the dependency map in the calling thread, recording the fingerprint and class of each one
+	 * <p>
+	 * Class files must be sorted by root, a class file is only added to the dependency map if the class it defines
+	 * is not already defined by a class file of the same or a previous root.
+	 * <p>
+	 * 
+	 * @param sources				:	the class files to parse, sorted by root
+	 * @param formerDependencies	:	where to add the dependencies removed from classes defined by a later root
+	 * @param recorder				:	the recorder of the metrics of the scan, or {@code null}
+	 * @return the full names of the classes added to the dependency map
+	 * @throws IOException
+	 */
+	private Set<String> parse(List<PendingSource> sources, Set<DependencyElem> formerDependencies, ScanRecorder recorder) throws IOException {
+		Set<String> parsedClasses = new HashSet<String>();
+		ClassParser parser = new ClassParser(this.dependencyMap);
+		for (PendingSource source : sources) {
+			if (recorder != null) {
+				parse(parser, source, formerDependencies, parsedClasses, recorder);
+				continue;
+			}
+			byte[] bytes = read(source.source);
+			String className = ConstantPoolExtractor.getClassName(bytes);
+			boolean defines = claim(className, source, formerDependencies);
+			if (defines) {
+				parser.parse(bytes);
+				parsedClasses.add(className);
+			}
+			record(source, fingerprint(source.source, bytes), className, defines);
+		}
+		return parsedClasses;
+	}
+	
+	/**
+	 * Instrumented variant of the loop body of {@link DependencyScanner#parse(List, Set, ScanRecorder)}
+	 */
+	private void parse(ClassParser parser, PendingSource source, Set<DependencyElem> formerDependencies, Set<String> parsedClasses, ScanRecorder recorder) throws IOException {
+		long start = System.nanoTime();
+		long startCpu = recorder.cpu();
+		byte[] bytes = read(source.source);
+		long read = System.nanoTime();
+		long readCpu = recorder.cpu();
+		String className = ConstantPoolExtractor.getClassName(bytes);
+		boolean defines = claim(className, source, formerDependencies);
+		if (defines) {
+			parser.parse(bytes);
+			parsedClasses.add(className);
+		}
+		long parsed = System.nanoTime();
+		long parsedCpu = recorder.cpu();
+		record(source, fingerprint(source.source, bytes), className, defines);
+		if (defines) {
+			recorder.defined(this.dependencyMap.getClassAsDependencyElem(className));
+		}
+		recorder.addPhase(ScanPhase.READ, read - start, readCpu - startCpu);
+		recorder.addPhase(ScanPhase.PARSE, parsed - read, parsedCpu - readCpu);
+		recorder.phase(ScanPhase.MERGE, parsed, parsedCpu);
+		recorder.parsed(source.root, className, source.name, bytes.length, read - start, parsed - read);
+	}
+	
+	/**
+	 * Parses a class file, used by the parse stage of a {@code Pipeline}
+	 * <p>
+	 * The class file is validated as in a sequential scan before being parsed. When members are not tracked the
+	 * dependencies of the class are collected by {@code parser} into a compact list, otherwise the class is parsed
+	 * into its own dependency map, to keep its members.
+	 * 
+	 * @param loaded	:	the class file and its contents
+	 * @param parser	:	a parser collecting dependencies into an {@code EdgeCollector}, or {@code null} if members
+	 * 						are tracked
+	 * @param recorder	:	the recorder of the metrics of the scan, or {@code null}
+	 * @return the parsed class
+	 * @throws IllegalArgumentException if the contents are not a valid class file
+	 */
+	private ParsedClass parse(LoadedSource loaded, ClassParser parser, ScanRecorder recorder) {
+		long start = recorder == null ? 0 : System.nanoTime();
+		long startCpu = recorder == null ? 0 : recorder.cpu();
+		String className = ConstantPoolExtractor.getClassName(loaded.bytes);
+		Fingerprint fingerprint = loaded.fingerprint != null ? loaded.fingerprint : fingerprint(loaded.source.source, loaded.bytes);
+		ParsedClass parsedClass;
+		if (parser != null) {
+			parsedClass = new ParsedClass(loaded.source, fingerprint, className, parser.collect(loaded.bytes, className));
+		} else {
+			DependencyMap dependencies = new DependencyMap(true);
+			new ClassParser(dependencies).parse(loaded.bytes);
+			parsedClass = new ParsedClass(loaded.source, fingerprint, className, dependencies);
+		}
+		if (recorder != null) {
+			parsedClass.bytes = loaded.bytes.length;
+			parsedClass.readNanos = loaded.readNanos;
+			parsedClass.readCpuNanos = loaded.readCpuNanos;
+			parsedClass.parseNanos = System.nanoTime() - start;
+			parsedClass.parseCpuNanos = recorder.cpu() - startCpu;
+		}
+		return parsedClass;
+	}
+	
+	/**
+	 * Reads the contents of a class file, the class file is closed before returning
+	 * 
+	 * @param source	:	the class file to read
+	 * @return the contents of the class file
+	 * @throws IOException
+	 */
+	private static byte[] read(ClassSource source) throws IOException {
+		try (InputStream is = source.open()) {
+			long size = source.getSize();
+			ByteArrayOutputStream contents = new ByteArrayOutputStream(size > 0 && size < Integer.MAX_VALUE ? (int) size : 4096);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = is.read(buffer)) != -1) {
+				contents.write(buffer, 0, read);
+			}
+			return contents.toByteArray();
+		}
+	}
+	
+	/**
+	 * @param source	:	a class file
+	 * @param bytes		:	the contents of the class file
+	 * @return the fingerprint of the class file, including a hash of the contents if enabled
+	 */
+	private Fingerprint fingerprint(ClassSource source, byte[] bytes) {
+		if (!this.hashContents) {
+			return new Fingerprint(source.getSize(), source.getLastModified());
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		return new Fingerprint(source.getSize(), source.getLastModified(), crc.getValue());
+	}
+	
+	/**
+	 * Decides if a class file found in a root will be used for the class it defines, following classpath order
+	 * <p>
+	 * If the class is already defined by a class file of a later root, that class file becomes shadowed and the
+	 * dependencies it added are removed from the dependency map. Between class files of the same root defining the
+	 * same class, the one with the lowest name is used, so the result doesn't depend on the order in which class files
+	 * are parsed.
+	 * <p>
+	 * 
+	 * @param className				:	the full name of the class defined by the class file
+	 * @param source				:	the class file
+	 * @param formerDependencies	:	where to add the dependencies removed
+	 * @return {@code true} if the class file will be used, {@code false} if it's shadowed
+	 */
+	private boolean claim(String className, PendingSource source, Set<DependencyElem> formerDependencies) {
+		ScannedSource definingSource = this.definingSources.get(className);
+		if (definingSource == null) {
+			return true;
+		} else if (!precedes(source.root, source.name, definingSource)) {
+			return false;
+		}
+		undefine(definingSource, formerDependencies);
+		return true;
+	}
+	
+	/**
+	 * @param root				:	the root of a class file
+	 * @param sourceName		:	the name of the class file
+	 * @param definingSource	:	the class file used for the class defined by the first one
+	 * @return {@code true} if the first class file must be used instead of {@code definingSource}
+	 */
+	private static boolean precedes(int root, String sourceName, ScannedSource definingSource) {
+		return root < definingSource.root || (root == definingSource.root && sourceName.compareTo(definingSource.name) < 0);
+	}
+	
+	/**
+	 * Records the fingerprint and class defined by a class file
+	 * 
+	 * @param source		:	the class file
+	 * @param fingerprint	:	the fingerprint of the class file
+	 * @param className		:	the full name of the class defined by the class file
+	 * @param defines		:	{@code true} if the class file is used for the class, {@code false} if it's shadowed
+	 */
+	private void record(PendingSource source, Fingerprint fingerprint, String className, boolean defines) {
+		ScannedSource scannedSource = new ScannedSource(source.name, source.root, fingerprint, className);
+		this.scannedSources.put(source.name, scannedSource);
+		if (defines) {
+			this.definingSources.put(className, scannedSource);
+			this.dependencyMap.setDefiningRoot(className, source.root < this.rootNames.length ? this.rootNames[source.root] : null);
+			increment(this.classesPerPackage, this.dependencyMap.getClassAsDependencyElem(className).getPackage());
+		}
+	}
+	
+	/**
+	 * Removes a previously scanned class file, if it was used for the class it defines the dependencies of the class
+	 * are removed
+	 * 
+	 * @param sourceName			:	the name of the class file
+	 * @param changedClasses		:	where to add the full name of the class defined by the class file
+	 * @param formerDependencies	:	where to add the dependencies removed
+	 * @param undefinedClasses		:	where to add the full name of the class if it's no longer defined
+	 */
+	private void retract(String sourceName, Set<String> changedClasses, Set<DependencyElem> formerDependencies, Set<String> undefinedClasses) {
+		ScannedSource scannedSource = this.scannedSources.remove(sourceName);
+		if (scannedSource == null || this.definingSources.get(scannedSource.className) != scannedSource) {
+			return;
+		}
+		changedClasses.add(scannedSource.className);
+		undefinedClasses.add(scannedSource.className);
+		undefine(scannedSource, formerDependencies);
+	}
+	
+	/**
+	 * Stops using a class file for the class it defines, removing the dependencies of the class
+	 * 
+	 * @param definingSource		:	the class file used for the class
+	 * @param formerDependencies	:	where to add the dependencies removed
+	 */
+	private void undefine(ScannedSource definingSource, Set<DependencyElem> formerDependencies) {
+		String className = definingSource.className;
+		this.definingSources.remove(className);
+		DependencyElem elem = this.dependencyMap.getClassAsDependencyElem(className);
+		if (elem != null) {
+			if (this.formerEdges != null && !this.formerEdges.containsKey(className)) {
+				this.formerEdges.put(className, edges(elem));
+			}
+			decrement(this.classesPerPackage, elem.getPackage());
+			formerDependencies.addAll(this.dependencyMap.removeDependencies(className));
+			this.dependencyMap.setDefiningRoot(className, null);
+		}
+	}
+	
+	/**
+	 * Removes a class from the dependency map if it is not defined by any scanned class file and no other class
+	 * depends on it
+	 * 
+	 * @param className	:	the full name of the class
+	 * @return {@code true} if the class was removed
+	 */
+	private boolean prune(String className) {
+		return !this.definingSources.containsKey(className) && this.dependencyMap.removeDependencyElem(className);
+	}
+	
+	/**
+	 * @param sourceName	:	the name of a class file
+	 * @return the first root containing the class file, or the amount of roots if no root contains it
+	 */
+	private int rootOf(String sourceName) {
+		int first = this.rootNames.length;
+		for (int end = 1; end < sourceName.length(); end++) {
+			char next = sourceName.charAt(end);
+			if (next == File.separatorChar || next == '!') {
+				Integer root = this.rootIndexes.get(sourceName.substring(0, end));
+				if (root != null && root < first) {
+					first = root;
+				}
+			}
+		}
+		return first;
+	}
+	
+	private static void increment(Map<String, Integer> counters, String key) {
+		Integer count = counters.get(key);
+		counters.put(key, count == null ? 1 : count + 1);
+	}
+	
+	private static void decrement(Map<String, Integer> counters, String key) {
+		Integer count = counters.get(key);
+		if (count == null || count <= 1) {
+			counters.remove(key);
+		} else {
+			counters.put(key, count - 1);
+		}
+	}
+	
+	/**
+	 * Closes all class scanners
+	 * 
+	 * @param classScanners	:	the class scanners to close
+	 * @throws IOException the first exception thrown while closing a class scanner
+	 */
+	private static void close(List<ClassScanner> classScanners) throws IOException {
+		IOException failure = null;
+		for (ClassScanner classScanner : classScanners) {
+			try {
+				classScanner.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Throws the failure of a task run by another thread
+	 * 
+	 * @param cause	:	the exception thrown by the task
+	 * @throws IOException if the task could not read a class file
+	 */
+	private static void rethrow(Throwable cause) throws IOException {
+		if (cause instanceof IOException) {
+			throw (IOException) cause;
+		} else if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		throw new IllegalStateException(cause);
+	}
+	
+	/**
+	 * Scans all roots with several threads, as a pipeline of stages connected by queues
+	 * <p>
+	 * Class files are found by a discovery thread, which lists roots in classpath order (walking folders with a
+	 * {@code ForkJoinPool}), and are sent to the merge stage as soon as they are found. The merge stage, run by the
+	 * calling thread, decides which class files must be parsed and sends them to the load stage, which reads them
+	 * (inflating zip entries), and from there to the parse stage, which parses each class into a compact list of its
+	 * dependencies (or into its own dependency map when members are tracked). Parsed classes are merged into the
+	 * dependency map of the scanner as they arrive. Loading and parsing have their own pools, so reading class files
+	 * overlaps with parsing them.
+	 * <p>
+	 * At most {@link DependencyScanner#IN_FLIGHT_PER_WORKER} class files per worker are loaded or parsed but not yet
+	 * merged, so the memory used by the contents of class files doesn't grow with the amount of class files. The
+	 * memory used by the pipeline itself does: every class file found is kept (by name, with its root and attributes)
+	 * until the scan ends, and those waiting to be loaded are queued in the order they were found, as discovery is
+	 * usually faster than parsing. This is in the order of what the scanner keeps for each scanned class file anyway.
+	 * <p>
+	 * The state of the scanner is only accessed by the merge stage, other stages only communicate through the queue
+	 * of events of the merge stage.
+	 * <p>
+	 */
+	private final class Pipeline {
+		
+		private final List<ClassScanner> classScanners;
+		private final Set<String> changedClasses;
+		private final Set<DependencyElem> formerDependencies;
+		private final Set<String> undefinedClasses;
+		private final Set<String> parsedClasses;
+		private final ScanRecorder recorder;
+		private final ExecutorService discovery;
+		private final ForkJoinPool walkers;
+		private final ExecutorService loaders;
+		private final ExecutorService parsers;
+		/**
+		 * The parser of each thread of the parse stage, {@code null} if members are tracked
+		 */
+		private final ThreadLocal<ClassParser> classParsers;
+		private final BlockingQueue<Object> events;
+		private final Deque<LoadRequest> backlog;
+		private final Map<String, PendingSource> found;
+		private final int capacity;
+		private int inFlight;
+		
+		Pipeline(List<ClassScanner> classScanners, Set<String> changedClasses, Set<DependencyElem> formerDependencies, ScanRecorder recorder) {
+			this.classScanners = classScanners;
+			this.changedClasses = changedClasses;
+			this.formerDependencies = formerDependencies;
+			this.undefinedClasses = new HashSet<String>();
+			this.parsedClasses = new HashSet<String>();
+			this.recorder = recorder;
+			this.events = new LinkedBlockingQueue<Object>();
+			this.backlog = new ArrayDeque<LoadRequest>();
+			this.found = new LinkedHashMap<String, PendingSource>();
+			this.capacity = workers * IN_FLIGHT_PER_WORKER;
+			this.walkers = new ForkJoinPool(workers);
+			this.discovery = Executors.newSingleThreadExecutor();
+			this.loaders = Executors.newFixedThreadPool(workers);
+			this.parsers = Executors.newFixedThreadPool(workers);
+			this.classParsers = dependencyMap.getMemberGraph() != null ? null : new ThreadLocal<ClassParser>() {
+				@Override
+				protected ClassParser initialValue() {
+					return new ClassParser(new EdgeCollector());
+				}
+			};
+			for (Path root : roots) {
+				classScanners.add(new ClassScanner(root, this.walkers, Collections.<String>emptyList()));
+			}
+		}
+		
+		/**
+		 * Runs the pipeline until all class files have been found, and all new and changed ones merged
+		 * 
+		 * @return the amount of class files found
+		 * @throws IllegalStateException
+		 * @throws IOException
+		 */
+		int run() throws IllegalStateException, IOException {
+			this.discovery.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						discover();
+						events.add(DISCOVERED);
+					} catch (Throwable e) {
+						events.add(new Failure(e));
+					}
+				}
+			});
+			drain(true);
+			long start = this.recorder == null ? 0 : System.nanoTime();
+			long startCpu = this.recorder == null ? 0 : this.recorder.cpu();
+			for (String sourceName : removedSources(this.found, this.classScanners)) {
+				retract(sourceName, this.changedClasses, this.formerDependencies, this.undefinedClasses);
+			}
+			if (this.recorder != null) {
+				this.recorder.removed(this.changedClasses.size());
+				this.recorder.phase(ScanPhase.REMOVE, start, startCpu);
+			}
+			for (String sourceName : shadowedSources(this.undefinedClasses, this.found)) {
+				scannedSources.remove(sourceName);
+				this.backlog.add(new LoadRequest(this.found.get(sourceName), false));
+			}
+			drain(false);
+			this.changedClasses.addAll(this.parsedClasses);
+			return this.found.size();
+		}
+		
+		/**
+		 * Stops all stages, waiting for the discovery thread so class scanners can be closed
+		 */
+		void shutdown() {
+			this.discovery.shutdownNow();
+			this.loaders.shutdownNow();
+			this.parsers.shutdownNow();
+			this.walkers.shutdownNow();
+			boolean interrupted = false;
+			while (!this.discovery.isTerminated()) {
+				try {
+					this.discovery.awaitTermination(1, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		/**
+		 * Handles events until no class file is pending and, if {@code discovering}, until all roots are listed
+		 */
+		private void drain(boolean discovering) throws IOException {
+			while (true) {
+				dispatch();
+				if (!discovering && this.inFlight == 0) {
+					return;
+				}
+				Object event;
+				try {
+					event = this.events.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for classes to be parsed", e);
+				}
+				if (event == DISCOVERED) {
+					discovering = false;
+				} else if (event instanceof PendingSource) {
+					found((PendingSource) event);
+				} else if (event instanceof LoadedSource) {
+					check((LoadedSource) event);
+				} else if (event instanceof ParsedClass) {
+					merge((ParsedClass) event);
+				} else {
+					rethrow(((Failure) event).cause);
+				}
+			}
+		}
+		
+		/**
+		 * Lists all roots in classpath order, run by the discovery thread
+		 */
+		private void discover() throws IllegalStateException, IOException {
+			for (int root = 0; root < this.classScanners.size(); root++) {
+				final int index = root;
+				scan(this.classScanners.get(root), root, new ClassScanner.Listener() {
+					@Override
+					public void found(ClassSource source) {
+						events.add(new PendingSource(source.getName(), source, index));
+					}
+				}, this.recorder);
+			}
+		}
+		
+		/**
+		 * Decides if a class file found must be loaded, only the first class file found with a given name is used, as in
+		 * {@link DependencyScanner#changed(PendingSource, ScanRecorder)}
+		 */
+		private void found(PendingSource pending) {
+			if (this.found.containsKey(pending.name)) {
+				return;
+			}
+			this.found.put(pending.name, pending);
+			ClassSource source = pending.source;
+			ScannedSource previous = scannedSources.get(pending.name);
+			if (previous == null || previous.root != pending.root || !definingSources.containsKey(previous.className)) {
+				this.backlog.add(new LoadRequest(pending, false));
+			} else if (!previous.fingerprint.sameAttributes(new Fingerprint(source.getSize(), source.getLastModified()))) {
+				this.backlog.add(new LoadRequest(pending, hashContents));
+			}
+		}
+		
+		/**
+		 * Sends class files to the load stage while the amount of class files in flight is below the capacity
+		 */
+		private void dispatch() {
+			while (this.inFlight < this.capacity && !this.backlog.isEmpty()) {
+				final LoadRequest request = this.backlog.poll();
+				this.inFlight++;
+				this.loaders.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							load(request);
+						} catch (Throwable e) {
+							events.add(new Failure(e));
+						}
+					}
+				});
+			}
+		}
+		
+		/**
+		 * Reads a class file, run by the load stage, class files that are only checked for changes are sent back to
+		 * the merge stage, the rest to the parse stage
+		 */
+		private void load(LoadRequest request) throws IOException {
+			long start = this.recorder == null ? 0 : System.nanoTime();
+			long startCpu = this.recorder == null ? 0 : this.recorder.cpu();
+			ClassSource source = request.source.source;
+			byte[] bytes = read(source);
+			LoadedSource loaded = new LoadedSource(request.source, bytes, request.check ? fingerprint(source, bytes) : null);
+			if (this.recorder != null) {
+				loaded.readNanos = System.nanoTime() - start;
+				loaded.readCpuNanos = this.recorder.cpu() - startCpu;
+			}
+			if (request.check) {
+				this.events.add(loaded);
+			} else {
+				submit(loaded);
+			}
+		}
+		
+		/**
+		 * Sends a loaded class file to the parse stage
+		 */
+		private void submit(final LoadedSource loaded) {
+			this.parsers.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						events.add(parse(loaded, classParsers == null ? null : classParsers.get(), recorder));
+					} catch (Throwable e) {
+						events.add(new Failure(e));
+					}
+				}
+			});
+		}
+		
+		/**
+		 * Compares the contents of a class file whose attributes changed, only parsing it if the contents changed too
+		 */
+		private void check(LoadedSource loaded) {
+			ScannedSource previous = scannedSources.get(loaded.source.name);
+			if (previous != null && previous.fingerprint.sameContents(loaded.fingerprint)) {
+				previous.fingerprint = loaded.fingerprint;
+				this.inFlight--;
+				if (this.recorder != null) {
+					this.recorder.read(loaded.source.root, loaded.bytes.length, loaded.readNanos, loaded.readCpuNanos);
+				}
+			} else {
+				submit(loaded);
+			}
+		}
+		
+		/**
+		 * Merges a parsed class into the dependency map of the scanner, replacing the previous version of its class file
+		 */
+		private void merge(ParsedClass parsedClass) {
+			this.inFlight--;
+			long start = 0;
+			long startCpu = 0;
+			if (this.recorder != null) {
+				this.recorder.addPhase(ScanPhase.READ, parsedClass.readNanos, parsedClass.readCpuNanos);
+				this.recorder.addPhase(ScanPhase.PARSE, parsedClass.parseNanos, parsedClass.parseCpuNanos);
+				this.recorder.parsed(parsedClass.source.root, parsedClass.className, parsedClass.source.name, parsedClass.bytes, parsedClass.readNanos, parsedClass.parseNanos);
+				start = System.nanoTime();
+				startCpu = this.recorder.cpu();
+			}
+			retract(parsedClass.source.name, this.changedClasses, this.formerDependencies, this.undefinedClasses);
+			boolean defines = claim(parsedClass.className, parsedClass.source, this.formerDependencies);
+			if (defines) {
+				if (parsedClass.edges != null) {
+					dependencyMap.merge(parsedClass.edges);
+				} else {
+					dependencyMap.merge(parsedClass.dependencies);
+				}
+				this.parsedClasses.add(parsedClass.className);
+			}
+			record(parsedClass.source, parsedClass.fingerprint, parsedClass.className, defines);
+			if (this.recorder != null) {
+				if (defines && parsedClass.edges != null) {
+					this.recorder.defined(parsedClass.edges);
+				} else if (defines) {
+					this.recorder.defined(parsedClass.dependencies.getClassAsDependencyElem(parsedClass.className));
+				}
+				this.recorder.phase(ScanPhase.MERGE, start, startCpu);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Collects the dependencies of class files into a dependency map, using the depth and engine of this scanner
+	 */
+	private final class ClassParser {
+		
+		private final DependencyVisitor visitor;
+		private final ConstantPoolExtractor extractor;
+		private final EdgeCollector collector;
+		
+		/**
+		 * Creates a parser adding dependencies to a dependency map
+		 * 
+		 * @param dependencyMap	:	the dependency map where dependencies are added
+		 */
+		ClassParser(DependencyMap dependencyMap) {
+			this(dependencyMap, null);
+		}
+		
+		/**
+		 * Creates a parser collecting the dependencies of each class, see {@link ClassParser#collect(byte[], String)}
+		 * 
+		 * @param collector	:	the collector where dependencies are added
+		 */
+		ClassParser(EdgeCollector collector) {
+			this(collector, collector);
+		}
+		
+		private ClassParser(DependencySink sink, EdgeCollector collector) {
+			this.collector = collector;
+			if (engine == ExtractionEngine.CONSTANT_POOL) {
+				this.visitor = null;
+				this.extractor = new ConstantPoolExtractor(sink, depth);
+			} else {
+				this.visitor = new DependencyVisitor(sink, depth);
+				this.extractor = null;
+			}
+		}
+		
+		void parse(byte[] bytes) {
+			if (this.extractor != null) {
+				this.extractor.extract(bytes);
+			} else {
+				new ClassReader(bytes).accept(this.visitor, depth.getParsingOptions());
+			}
+		}
+		
+		/**
+		 * Parses a class file with a parser created for an {@code EdgeCollector}
+		 * 
+		 * @param bytes		:	the contents of the class file
+		 * @param className	:	the name of the class defined by the class file
+		 * @return the dependencies of the class
+		 */
+		ClassEdges collect(byte[] bytes, String className) {
+			this.collector.clear();
+			parse(bytes);
+			return this.collector.take(className);
+		}
+		
+	}
+	
+	/**
+	 * A class file found in a root and not yet parsed
+	 */
+	private static class PendingSource {
+		
+		/**
+		 * Sorts class files by root, keeping the order of class files of the same root
+		 */
+		static final Comparator<PendingSource> BY_ROOT = new Comparator<PendingSource>() {
+			@Override
+			public int compare(PendingSource a, PendingSource b) {
+				return Integer.compare(a.root, b.root);
+			}
+		};
+		
+		private final String name;
+		private final ClassSource source;
+		private final int root;
+		
+		PendingSource(String name, ClassSource source, int root) {
+			this.name = name;
+			this.source = source;
+			this.root = root;
+		}
+		
+	}
+	
+	/**
+	 * The fingerprint of a scanned class file, the root where it was found and the class it defines
+	 */
+	private static class ScannedSource {
+		
+		private final String name;
+		private final int root;
+		private Fingerprint fingerprint;
+		private final String className;
+		
+		ScannedSource(String name, int root, Fingerprint fingerprint, String className) {
+			this.name = name;
+			this.root = root;
+			this.fingerprint = fingerprint;
+			this.className = className;
+		}
+		
+	}
+	
+	/**
+	 * A class file to be read by the load stage of a {@code Pipeline}
+	 */
+	private static class LoadRequest {
+		
+		private final PendingSource source;
+		/**
+		 * {@code true} if the class file is only read to compare its contents with the previous scan
+		 */
+		private final boolean check;
+		
+		LoadRequest(PendingSource source, boolean check) {
+			this.source = source;
+			this.check = check;
+		}
+		
+	}
+	
+	/**
+	 * A class file read by the load stage of a {@code Pipeline}
+	 */
+	private static class LoadedSource {
+		
+		private final PendingSource source;
+		private final byte[] bytes;
+		/**
+		 * The fingerprint of the class file, only set when the contents are compared with the previous scan
+		 */
+		private final Fingerprint fingerprint;
+		private long readNanos;
+		private long readCpuNanos;
+		
+		LoadedSource(PendingSource source, byte[] bytes, Fingerprint fingerprint) {
+			this.source = source;
+			this.bytes = bytes;
+			this.fingerprint = fingerprint;
+		}
+		
+	}
+	
+	/**
+	 * An exception thrown by a stage of a {@code Pipeline}, rethrown by the merge stage
+	 */
+	private static class Failure {
+		
+		private final Throwable cause;
+		
+		Failure(Throwable cause) {
+			this.cause = cause;
+		}
+		
+	}
+	
+	/**
+	 * The result of parsing a class file in a worker thread
+	 */
+	private static class ParsedClass {
+		
+		private final PendingSource source;
+		private final Fingerprint fingerprint;
+		private final String className;
+		/**
+		 * The dependencies of the class as a compact list, or in their own dependency map when members are tracked,
+		 * only one of them is set
+		 */
+		private final ClassEdges edges;
+		private final DependencyMap dependencies;
+		/**
+		 * The size of the class file and the time taken to read and parse it, only set when scans are instrumented
+		 */
+		private long bytes;
+		private long readNanos;
+		private long readCpuNanos;
+		private long parseNanos;
+		private long parseCpuNanos;
+		
+		ParsedClass(PendingSource source, Fingerprint fingerprint, String className, ClassEdges edges) {
+			this.source = source;
+			this.fingerprint = fingerprint;
+			this.className = className;
+			this.edges = edges;
+			this.dependencies = null;
+		}
+		
+		ParsedClass(PendingSource source, Fingerprint fingerprint, String className, DependencyMap dependencies) {
+			this.source = source;
+			this.fingerprint = fingerprint;
+			this.className = className;
+			this.edges = null;
+			this.dependencies = dependencies;
 		}
-		this.scannedPackages = visitor.getPackagesInSourceFolder();
+		
 	}
 	
 }
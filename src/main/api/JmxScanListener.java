@@ -0,0 +1,175 @@
+package main.api;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@code ScanListener} that keeps the metrics of the last scan, and totals over all scans, and exposes them as an
+ * MXBean
+ * <p>
+ * A listener can be registered in the platform MBean server with {@link JmxScanListener#register(String)}, for
+ * example with the name {@code "dependencies:type=DependencyScanner,name=app"}, and then set on one or more
+ * scanners with {@link DependencyScanner#setScanListener(ScanListener)}.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class JmxScanListener implements ScanListener, ScanStatisticsMXBean {
+
+	private ScanMetrics last;
+	private long scans;
+	private long totalElapsedNanos;
+	private long totalClassFilesRead;
+	private long totalBytesRead;
+	private long totalClassesParsed;
+	private ObjectName name;
+
+	@Override
+	public synchronized void scanFinished(DependencyScanner scanner, ScanMetrics metrics) {
+		this.last = metrics;
+		this.scans++;
+		this.totalElapsedNanos += metrics.getElapsedNanos();
+		this.totalClassFilesRead += metrics.getClassFilesRead();
+		this.totalBytesRead += metrics.getBytesRead();
+		this.totalClassesParsed += metrics.getClassesParsed();
+	}
+
+	/**
+	 * @return the metrics of the last scan, or {@code null} if no scan finished yet
+	 */
+	public synchronized ScanMetrics getLastMetrics() {
+		return this.last;
+	}
+
+	/**
+	 * Registers this listener in the platform MBean server
+	 *
+	 * @param objectName	:	the name used to register this listener
+	 * @throws JMException if the name is not valid or already registered
+	 * @throws IllegalStateException if this listener is already registered
+	 */
+	public synchronized void register(String objectName) throws JMException {
+		if (this.name != null) {
+			throw new IllegalStateException("Listener already registered as " + this.name);
+		}
+		ObjectName name = new ObjectName(objectName);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+		this.name = name;
+	}
+
+	/**
+	 * Unregisters this listener from the platform MBean server, does nothing if it's not registered
+	 *
+	 * @throws JMException
+	 */
+	public synchronized void unregister() throws JMException {
+		if (this.name == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(this.name)) {
+			server.unregisterMBean(this.name);
+		}
+		this.name = null;
+	}
+
+	@Override
+	public synchronized long getScanCount() {
+		return this.scans;
+	}
+
+	@Override
+	public synchronized double getLastElapsedMillis() {
+		return this.last == null ? 0 : millis(this.last.getElapsedNanos());
+	}
+
+	@Override
+	public synchronized Map<String, Double> getLastPhaseMillis() {
+		Map<String, Double> phases = new LinkedHashMap<String, Double>();
+		for (ScanPhase phase : ScanPhase.values()) {
+			phases.put(phase.name(), this.last == null ? 0 : millis(this.last.getPhaseNanos(phase)));
+		}
+		return phases;
+	}
+
+	@Override
+	public synchronized Map<String, Double> getLastPhaseCpuMillis() {
+		Map<String, Double> phases = new LinkedHashMap<String, Double>();
+		for (ScanPhase phase : ScanPhase.values()) {
+			phases.put(phase.name(), this.last == null ? 0 : millis(this.last.getPhaseCpuNanos(phase)));
+		}
+		return phases;
+	}
+
+	@Override
+	public synchronized int getLastClassFilesListed() {
+		return this.last == null ? 0 : this.last.getClassFilesListed();
+	}
+
+	@Override
+	public synchronized int getLastClassFilesRead() {
+		return this.last == null ? 0 : this.last.getClassFilesRead();
+	}
+
+	@Override
+	public synchronized long getLastBytesRead() {
+		return this.last == null ? 0 : this.last.getBytesRead();
+	}
+
+	@Override
+	public synchronized int getLastClassesParsed() {
+		return this.last == null ? 0 : this.last.getClassesParsed();
+	}
+
+	@Override
+	public synchronized long getLastEdgesCreated() {
+		return this.last == null ? 0 : this.last.getEdgesCreated();
+	}
+
+	@Override
+	public synchronized int getLastPeakNodes() {
+		return this.last == null ? 0 : this.last.getPeakNodes();
+	}
+
+	@Override
+	public synchronized Map<String, Double> getLastSlowestClassesMillis() {
+		Map<String, Double> slowest = new LinkedHashMap<String, Double>();
+		if (this.last != null) {
+			for (ScanMetrics.ClassTiming timing : this.last.getSlowestClasses()) {
+				slowest.put(timing.getClassName(), millis(timing.getNanos()));
+			}
+		}
+		return slowest;
+	}
+
+	@Override
+	public synchronized double getTotalElapsedMillis() {
+		return millis(this.totalElapsedNanos);
+	}
+
+	@Override
+	public synchronized long getTotalClassFilesRead() {
+		return this.totalClassFilesRead;
+	}
+
+	@Override
+	public synchronized long getTotalBytesRead() {
+		return this.totalBytesRead;
+	}
+
+	@Override
+	public synchronized long getTotalClassesParsed() {
+		return this.totalClassesParsed;
+	}
+
+	private static double millis(long nanos) {
+		return nanos < 0 ? -1 : nanos / 1000000.0;
+	}
+
+}
@@ -1,27 +1,205 @@
 package main.api;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import utils.IntList;
+import data.DependencyElem;
+import data.DependencyFilter;
+import data.DependencyMap;
+import data.ReloadBatch;
+import data.ReloadCommand;
+import data.TransitiveClosure;
+
 /**
  * This class is used to help a class reloader to know which classes (and in which order) to load when loading a specific class
  * <p>
- * For example if class A uses B and B uses A. The dependency map should be
+ * For example if class A uses B and B uses C. The dependency map should be
  * <p>
  * <ul>
  * <li>Direct dependencies for class A : [B]</li>
- * <li>Direct dependencies for class B : [A]</li>
+ * <li>Direct dependencies for class B : [C]</li>
  * </ul>
  * <p>
- * To reload class A the classes that use A should be reloaded first.
- * In this case B, 
+ * To reload class C the classes that use C (directly or not) must be reloaded too, and each one after the
+ * classes it uses, so they are linked to the new versions. In this case
  * 
- * A -> B
- * B -> A
- * B* -> A
+ * C*
+ * B* -> C*
  * A* -> B*
  * <p>
+ * If A uses B and B uses A, neither can be reloaded before the other, so both are reloaded in a single batch
+ * <p>
+ * A reload plan is a list of {@code ReloadBatch}, each batch has a level and only uses classes from batches with a
+ * lower level (or classes that don't need to be reloaded), so batches of the same level can be loaded in parallel.
+ * Calculating a plan only visits the changed classes and the classes that depend on them.
+ * <p>
  * 
  * @author Simon Emmanuel Gutierrez Brida
- * @version 0.1u
+ * @version 0.3u
  */
 public class LoaderHelper {
 
+	/**
+	 * The dependency map used to calculate reload plans
+	 */
+	private final DependencyMap dependencyMap;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param dependencyMap	:	the dependency map used to calculate reload plans
+	 */
+	public LoaderHelper(DependencyMap dependencyMap) {
+		this.dependencyMap = dependencyMap;
+	}
+
+	/**
+	 * Calculates the reload plan for a single changed class
+	 * 
+	 * @param fullyQualifiedClassName	:	the full name of the changed class
+	 * @return the batches to reload, in order
+	 * @throws IllegalArgumentException if the class is not part of the dependency map
+	 */
+	public List<ReloadBatch> planReload(String fullyQualifiedClassName) throws IllegalArgumentException {
+		return planReload(Collections.singleton(fullyQualifiedClassName));
+	}
+
+	/**
+	 * Calculates the reload plan for a set of changed classes
+	 * <p>
+	 * The plan includes the changed classes and every class that directly or recursively depends on them. Classes in
+	 * a dependency cycle are reloaded in the same batch, and batches are sorted by level so every batch comes after
+	 * the batches with classes it uses.
+	 * <p>
+	 * 
+	 * @param changedClasses	:	the full names of the changed classes
+	 * @return the batches to reload, in order
+	 * @throws IllegalArgumentException if any of the classes is not part of the dependency map
+	 */
+	public List<ReloadBatch> planReload(Collection<String> changedClasses) throws IllegalArgumentException {
+		return planReload(changedClasses, DependencyFilter.ALL);
+	}
+
+	/**
+	 * Calculates the reload plan for a set of changed classes following only the dependencies accepted by a filter
+	 * <p>
+	 * Dependents and dependencies not accepted by the filter are ignored, for example a filter built with
+	 * {@code DependencyFilter.ALL.withoutEdgeKinds(EdgeKind.ANNOTATION)} doesn't reload classes that only use a
+	 * changed class as an annotation.
+	 * <p>
+	 * 
+	 * @param changedClasses	:	the full names of the changed classes
+	 * @param filter			:	selects the dependencies followed
+	 * @return the batches to reload, in order
+	 * @throws IllegalArgumentException if any of the classes is not part of the dependency map
+	 */
+	public List<ReloadBatch> planReload(Collection<String> changedClasses, DependencyFilter filter) throws IllegalArgumentException {
+		List<DependencyElem> affected = new ArrayList<DependencyElem>();
+		Map<DependencyElem, Integer> ids = new HashMap<DependencyElem, Integer>();
+		for (String changedClass : changedClasses) {
+			DependencyElem elem = this.dependencyMap.getClassAsDependencyElem(changedClass);
+			if (elem == null) {
+				throw new IllegalArgumentException("Class " + changedClass + " is not found in the dependency map");
+			}
+			if (!ids.containsKey(elem)) {
+				ids.put(elem, affected.size());
+				affected.add(elem);
+			}
+		}
+		int changed = affected.size();
+		for (int current = 0; current < affected.size(); current++) {
+			Iterator<DependencyElem> dependents = this.dependencyMap.dependentIterator(affected.get(current), filter);
+			while (dependents.hasNext()) {
+				DependencyElem dependent = dependents.next();
+				if (!ids.containsKey(dependent)) {
+					ids.put(dependent, affected.size());
+					affected.add(dependent);
+				}
+			}
+		}
+		int size = affected.size();
+		int[] offsets = new int[size + 1];
+		IntList targets = new IntList(size);
+		for (int id = 0; id < size; id++) {
+			Iterator<DependencyElem> dependencies = this.dependencyMap.dependencyIterator(affected.get(id), filter);
+			while (dependencies.hasNext()) {
+				Integer dependencyId = ids.get(dependencies.next());
+				if (dependencyId != null) {
+					targets.add(dependencyId);
+				}
+			}
+			offsets[id + 1] = targets.size();
+		}
+		int[] dependencyTargets = targets.toArray();
+		int[] componentOf = new int[size];
+		int components = TransitiveClosure.findComponents(offsets, dependencyTargets, componentOf);
+		int[] levels = new int[components];
+		List<List<ReloadCommand>> commands = new ArrayList<List<ReloadCommand>>(components);
+		for (int c = 0; c < components; c++) {
+			commands.add(new ArrayList<ReloadCommand>(1));
+		}
+		int[] membersByComponent = sortedByComponent(componentOf, components);
+		int levelCount = 0;
+		for (int id : membersByComponent) {
+			int component = componentOf[id];
+			for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+				int dependencyComponent = componentOf[dependencyTargets[e]];
+				if (dependencyComponent != component) {
+					levels[component] = Math.max(levels[component], levels[dependencyComponent] + 1);
+				}
+			}
+			levelCount = Math.max(levelCount, levels[component] + 1);
+			commands.get(component).add(new ReloadCommand(affected.get(id), this.dependencyMap, id >= changed));
+		}
+		int[] batchesPerLevel = new int[levelCount];
+		for (int c = 0; c < components; c++) {
+			batchesPerLevel[levels[c]]++;
+		}
+		List<List<ReloadBatch>> batchesByLevel = new ArrayList<List<ReloadBatch>>(levelCount);
+		for (int level = 0; level < levelCount; level++) {
+			batchesByLevel.add(new ArrayList<ReloadBatch>(batchesPerLevel[level]));
+		}
+		for (int c = 0; c < components; c++) {
+			List<ReloadCommand> batchCommands = commands.get(c);
+			Collections.sort(batchCommands);
+			batchesByLevel.get(levels[c]).add(new ReloadBatch(batchCommands, levels[c], batchesPerLevel[levels[c]] > 1));
+		}
+		List<ReloadBatch> plan = new ArrayList<ReloadBatch>(components);
+		for (List<ReloadBatch> batches : batchesByLevel) {
+			plan.addAll(batches);
+		}
+		return plan;
+	}
+
+	/**
+	 * Sorts node ids by component, components are numbered in reverse topological order so the result lists the
+	 * members of each component after the members of all the components it depends on
+	 * 
+	 * @param componentOf	:	the component of each node
+	 * @param components	:	the amount of components
+	 * @return node ids sorted by component
+	 */
+	private static int[] sortedByComponent(int[] componentOf, int components) {
+		int[] offsets = new int[components + 1];
+		for (int component : componentOf) {
+			offsets[component + 1]++;
+		}
+		for (int c = 0; c < components; c++) {
+			offsets[c + 1] += offsets[c];
+		}
+		int[] next = Arrays.copyOf(offsets, components);
+		int[] sorted = new int[componentOf.length];
+		for (int id = 0; id < componentOf.length; id++) {
+			sorted[next[componentOf[id]]++] = id;
+		}
+		return sorted;
+	}
+
 }
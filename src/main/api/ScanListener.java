@@ -0,0 +1,23 @@
+package main.api;
+
+/**
+ * Receives the metrics of each scan made by a {@code DependencyScanner}
+ * <p>
+ * Metrics are only collected while a listener is set, scans made without a listener are not instrumented. The
+ * listener is called in the thread that started the scan, after the dependency map has been updated.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public interface ScanListener {
+
+	/**
+	 * Called when a scan, or a rescan, finishes successfully
+	 *
+	 * @param scanner	:	the scanner that made the scan
+	 * @param metrics	:	the metrics of the scan
+	 */
+	void scanFinished(DependencyScanner scanner, ScanMetrics metrics);
+
+}
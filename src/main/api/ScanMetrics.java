@@ -0,0 +1,299 @@
+package main.api;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The metrics of a single scan made by a {@code DependencyScanner}
+ * <p>
+ * Times are measured in nanoseconds, both as wall time and as CPU time of the threads doing the work. CPU times are
+ * {@code -1} when the JVM can't measure the CPU time of the current thread. A class file is read when it's new or
+ * changed since the last scan (or its contents are hashed to find out), and parsed when it is used for the class it
+ * defines, class files shadowed by a previous root are read but not parsed.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class ScanMetrics {
+
+	private final long elapsedNanos;
+	private final long[] phaseNanos;
+	private final long[] phaseCpuNanos;
+	private final int classFilesListed;
+	private final int listFailures;
+	private final int classFilesRead;
+	private final long bytesRead;
+	private final int classesParsed;
+	private final int classesRemoved;
+	private final long edgesCreated;
+	private final int peakNodes;
+	private final List<RootMetrics> roots;
+	private final List<ClassTiming> slowestClasses;
+
+	ScanMetrics(long elapsedNanos, long[] phaseNanos, long[] phaseCpuNanos, int classFilesListed, int listFailures, int classFilesRead, long bytesRead, int classesParsed, int classesRemoved, long edgesCreated, int peakNodes, List<RootMetrics> roots, List<ClassTiming> slowestClasses) {
+		this.elapsedNanos = elapsedNanos;
+		this.phaseNanos = phaseNanos;
+		this.phaseCpuNanos = phaseCpuNanos;
+		this.classFilesListed = classFilesListed;
+		this.listFailures = listFailures;
+		this.classFilesRead = classFilesRead;
+		this.bytesRead = bytesRead;
+		this.classesParsed = classesParsed;
+		this.classesRemoved = classesRemoved;
+		this.edgesCreated = edgesCreated;
+		this.peakNodes = peakNodes;
+		this.roots = Collections.unmodifiableList(roots);
+		this.slowestClasses = Collections.unmodifiableList(slowestClasses);
+	}
+
+	/**
+	 * @return the wall time of the whole scan
+	 */
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * @param phase	:	a phase of the scan
+	 * @return the wall time spent in the phase, added over all threads
+	 */
+	public long getPhaseNanos(ScanPhase phase) {
+		return this.phaseNanos[phase.ordinal()];
+	}
+
+	/**
+	 * @param phase	:	a phase of the scan
+	 * @return the CPU time spent in the phase, added over all threads, or {@code -1} if not supported
+	 */
+	public long getPhaseCpuNanos(ScanPhase phase) {
+		return this.phaseCpuNanos[phase.ordinal()];
+	}
+
+	/**
+	 * @return the amount of class files found in all roots
+	 */
+	public int getClassFilesListed() {
+		return this.classFilesListed;
+	}
+
+	/**
+	 * @return the amount of subfolders and files of all roots that could not be read while listing them, the classes
+	 * 			defined by class files under them are kept as they were
+	 */
+	public int getListFailures() {
+		return this.listFailures;
+	}
+
+	/**
+	 * @return the amount of class files read
+	 */
+	public int getClassFilesRead() {
+		return this.classFilesRead;
+	}
+
+	/**
+	 * @return the amount of bytes read from class files
+	 */
+	public long getBytesRead() {
+		return this.bytesRead;
+	}
+
+	/**
+	 * @return the amount of classes parsed into the dependency map
+	 */
+	public int getClassesParsed() {
+		return this.classesParsed;
+	}
+
+	/**
+	 * @return the amount of classes whose dependencies were removed because their class file changed, was removed or became shadowed
+	 */
+	public int getClassesRemoved() {
+		return this.classesRemoved;
+	}
+
+	/**
+	 * @return the amount of dependencies found in the classes parsed
+	 */
+	public long getEdgesCreated() {
+		return this.edgesCreated;
+	}
+
+	/**
+	 * @return the greatest amount of classes held by the dependency map during the scan
+	 */
+	public int getPeakNodes() {
+		return this.peakNodes;
+	}
+
+	/**
+	 * @return the metrics of each root, in classpath order
+	 */
+	public List<RootMetrics> getRoots() {
+		return this.roots;
+	}
+
+	/**
+	 * @return the classes that took the longest to read and parse, slowest first
+	 */
+	public List<ClassTiming> getSlowestClasses() {
+		return this.slowestClasses;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(Locale.ROOT, "scan: %.3f ms, %d class files listed (%d failures), %d read (%d bytes), %d classes parsed, %d removed, %d edges, %d peak nodes%n",
+				millis(this.elapsedNanos), this.classFilesListed, this.listFailures, this.classFilesRead, this.bytesRead, this.classesParsed, this.classesRemoved, this.edgesCreated, this.peakNodes));
+		for (ScanPhase phase : ScanPhase.values()) {
+			sb.append(String.format(Locale.ROOT, "  %-7s %10.3f ms wall %10.3f ms cpu%n", phase, millis(getPhaseNanos(phase)), millis(getPhaseCpuNanos(phase))));
+		}
+		for (RootMetrics root : this.roots) {
+			sb.append("  ").append(root).append(String.format("%n"));
+		}
+		for (ClassTiming timing : this.slowestClasses) {
+			sb.append("  ").append(timing).append(String.format("%n"));
+		}
+		return sb.toString();
+	}
+
+	private static double millis(long nanos) {
+		return nanos < 0 ? -1 : nanos / 1000000.0;
+	}
+
+	/**
+	 * The metrics of a single root
+	 */
+	public static class RootMetrics {
+
+		private final Path root;
+		private final long listNanos;
+		private final int classFilesListed;
+		private final int listFailures;
+		private final int classFilesRead;
+		private final long bytesRead;
+		private final long parseNanos;
+
+		RootMetrics(Path root, long listNanos, int classFilesListed, int listFailures, int classFilesRead, long bytesRead, long parseNanos) {
+			this.root = root;
+			this.listNanos = listNanos;
+			this.classFilesListed = classFilesListed;
+			this.listFailures = listFailures;
+			this.classFilesRead = classFilesRead;
+			this.bytesRead = bytesRead;
+			this.parseNanos = parseNanos;
+		}
+
+		/**
+		 * @return the root
+		 */
+		public Path getRoot() {
+			return this.root;
+		}
+
+		/**
+		 * @return the wall time spent finding the class files of the root
+		 */
+		public long getListNanos() {
+			return this.listNanos;
+		}
+
+		/**
+		 * @return the amount of class files found in the root, including shadowed ones
+		 */
+		public int getClassFilesListed() {
+			return this.classFilesListed;
+		}
+
+		/**
+		 * @return the amount of subfolders and files of the root that could not be read while listing it
+		 */
+		public int getListFailures() {
+			return this.listFailures;
+		}
+
+		/**
+		 * @return the amount of class files of the root read
+		 */
+		public int getClassFilesRead() {
+			return this.classFilesRead;
+		}
+
+		/**
+		 * @return the amount of bytes read from class files of the root
+		 */
+		public long getBytesRead() {
+			return this.bytesRead;
+		}
+
+		/**
+		 * @return the wall time spent reading and parsing class files of the root, added over all threads
+		 */
+		public long getParseNanos() {
+			return this.parseNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "root %s: list %.3f ms, %d class files listed (%d failures), %d read (%d bytes), read and parse %.3f ms",
+					this.root, millis(this.listNanos), this.classFilesListed, this.listFailures, this.classFilesRead, this.bytesRead, millis(this.parseNanos));
+		}
+
+	}
+
+	/**
+	 * The time taken to read and parse a single class file
+	 */
+	public static class ClassTiming {
+
+		private final String className;
+		private final String source;
+		private final long bytes;
+		private final long nanos;
+
+		ClassTiming(String className, String source, long bytes, long nanos) {
+			this.className = className;
+			this.source = source;
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * @return the full name of the class
+		 */
+		public String getClassName() {
+			return this.className;
+		}
+
+		/**
+		 * @return the name of the class file
+		 */
+		public String getSource() {
+			return this.source;
+		}
+
+		/**
+		 * @return the size of the class file in bytes
+		 */
+		public long getBytes() {
+			return this.bytes;
+		}
+
+		/**
+		 * @return the wall time spent reading and parsing the class file
+		 */
+		public long getNanos() {
+			return this.nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "class %s: %.3f ms (%d bytes)", this.className, millis(this.nanos), this.bytes);
+		}
+
+	}
+
+}
@@ -0,0 +1,149 @@
+package main.api;
+
+import visitor.ExtractionEngine;
+import visitor.ScanDepth;
+
+/**
+ * The options of a {@code DependencyScanner}: how many threads it uses, how class files are fingerprinted and parsed,
+ * who receives the metrics of its scans and whether members are tracked
+ * <p>
+ * Options are immutable, each {@code with} method returns a copy with one option changed, so a scanner is created
+ * with {@code new DependencyScanner(classpath, ScanOptions.DEFAULT.withWorkers(4).withDepth(ScanDepth.SIGNATURES))}.
+ * Options can be shared between scanners and threads.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public final class ScanOptions {
+	
+	/**
+	 * The default options: a single thread, fingerprints without hashes, {@link ScanDepth#FULL} with
+	 * {@link ExtractionEngine#ASM_VISITOR}, no listener and no members
+	 */
+	public static final ScanOptions DEFAULT = new ScanOptions(1, false, ScanDepth.FULL, ExtractionEngine.ASM_VISITOR, null, false);
+	
+	private final int workers;
+	private final boolean hashContents;
+	private final ScanDepth depth;
+	private final ExtractionEngine engine;
+	private final ScanListener listener;
+	private final boolean trackMembers;
+	
+	private ScanOptions(int workers, boolean hashContents, ScanDepth depth, ExtractionEngine engine, ScanListener listener, boolean trackMembers) {
+		this.workers = workers;
+		this.hashContents = hashContents;
+		this.depth = depth;
+		this.engine = engine;
+		this.listener = listener;
+		this.trackMembers = trackMembers;
+	}
+	
+	/**
+	 * @param workers	:	the amount of threads used to list the roots and parse classes, {@code 1} will parse all
+	 * 						classes in the calling thread
+	 * @return options equal to these but using {@code workers} threads
+	 * @throws IllegalArgumentException if {@code workers} is less than {@code 1}
+	 */
+	public ScanOptions withWorkers(int workers) throws IllegalArgumentException {
+		if (workers < 1) {
+			throw new IllegalArgumentException("DependencyScanner needs at least one worker (got " + workers + ")");
+		}
+		return new ScanOptions(workers, this.hashContents, this.depth, this.engine, this.listener, this.trackMembers);
+	}
+	
+	/**
+	 * @param hashContents	:	if {@code true} the fingerprint of each class file will include a hash of its contents,
+	 * 							so {@link DependencyScanner#rescan()} will not parse again class files that were
+	 * 							modified without changing their contents
+	 * @return options equal to these but hashing the contents of class files or not
+	 */
+	public ScanOptions withHashContents(boolean hashContents) {
+		return new ScanOptions(this.workers, hashContents, this.depth, this.engine, this.listener, this.trackMembers);
+	}
+	
+	/**
+	 * @param depth	:	how much of each class file is parsed, only {@link ScanDepth#FULL} finds call and field access
+	 * 					sites
+	 * @return options equal to these but parsing class files with {@code depth}
+	 * @throws IllegalArgumentException if {@code depth} is {@code null}
+	 */
+	public ScanOptions withDepth(ScanDepth depth) throws IllegalArgumentException {
+		if (depth == null) {
+			throw new IllegalArgumentException("null depth");
+		}
+		return new ScanOptions(this.workers, this.hashContents, depth, this.engine, this.listener, this.trackMembers);
+	}
+	
+	/**
+	 * @param engine	:	how class files are parsed
+	 * @return options equal to these but parsing class files with {@code engine}
+	 * @throws IllegalArgumentException if {@code engine} is {@code null}
+	 */
+	public ScanOptions withEngine(ExtractionEngine engine) throws IllegalArgumentException {
+		if (engine == null) {
+			throw new IllegalArgumentException("null engine");
+		}
+		return new ScanOptions(this.workers, this.hashContents, this.depth, engine, this.listener, this.trackMembers);
+	}
+	
+	/**
+	 * @param listener	:	the listener receiving the metrics of each scan, or {@code null} to not instrument scans
+	 * @return options equal to these but sending the metrics of each scan to {@code listener}
+	 */
+	public ScanOptions withListener(ScanListener listener) {
+		return new ScanOptions(this.workers, this.hashContents, this.depth, this.engine, listener, this.trackMembers);
+	}
+	
+	/**
+	 * @param trackMembers	:	{@code true} to also keep the dependencies between methods and fields, which needs
+	 * 							{@link ExtractionEngine#ASM_VISITOR}
+	 * @return options equal to these but keeping the dependencies between members or not
+	 */
+	public ScanOptions withTrackMembers(boolean trackMembers) {
+		return new ScanOptions(this.workers, this.hashContents, this.depth, this.engine, this.listener, trackMembers);
+	}
+	
+	/**
+	 * @return the amount of threads used to list the roots and parse classes
+	 */
+	public int getWorkers() {
+		return this.workers;
+	}
+	
+	/**
+	 * @return {@code true} if the fingerprint of each class file includes a hash of its contents
+	 */
+	public boolean hashesContents() {
+		return this.hashContents;
+	}
+	
+	/**
+	 * @return how much of each class file is parsed
+	 */
+	public ScanDepth getDepth() {
+		return this.depth;
+	}
+	
+	/**
+	 * @return how class files are parsed
+	 */
+	public ExtractionEngine getEngine() {
+		return this.engine;
+	}
+	
+	/**
+	 * @return the listener receiving the metrics of each scan, or {@code null} if scans are not instrumented
+	 */
+	public ScanListener getListener() {
+		return this.listener;
+	}
+	
+	/**
+	 * @return {@code true} if the dependencies between methods and fields are kept
+	 */
+	public boolean tracksMembers() {
+		return this.trackMembers;
+	}
+	
+}
@@ -0,0 +1,38 @@
+package main.api;
+
+/**
+ * The phases of a scan measured by {@code ScanMetrics}
+ * <p>
+ * When classes are parsed by several threads the time of the {@link ScanPhase#LIST}, {@link ScanPhase#READ} and
+ * {@link ScanPhase#PARSE} phases is added over all threads, so it can be greater than the elapsed time of the scan.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public enum ScanPhase {
+
+	/**
+	 * Walking folders and reading the central directory of zip files to find class files
+	 */
+	LIST,
+	/**
+	 * Reading class files, including inflating compressed zip entries and hashing contents
+	 */
+	READ,
+	/**
+	 * Parsing class files, when using a single thread this includes adding the dependencies found to the dependency
+	 * map
+	 */
+	PARSE,
+	/**
+	 * Deciding which class file is used for each class and recording fingerprints, when using several threads this
+	 * includes merging the partial dependency map of each class
+	 */
+	MERGE,
+	/**
+	 * Removing the dependencies of changed and removed class files, and the classes no longer used
+	 */
+	REMOVE;
+
+}
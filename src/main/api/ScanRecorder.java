@@ -0,0 +1,222 @@
+package main.api;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import data.ClassEdges;
+import data.DependencyElem;
+
+/**
+ * Collects the metrics of a scan while it runs, only created when a {@code ScanListener} is set
+ * <p>
+ * Methods taking a root index may be called from several threads at once for different roots, every other method
+ * must be called from the thread that started the scan.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.3u
+ */
+class ScanRecorder {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final Comparator<ScanMetrics.ClassTiming> FASTEST_FIRST = new Comparator<ScanMetrics.ClassTiming>() {
+		@Override
+		public int compare(ScanMetrics.ClassTiming a, ScanMetrics.ClassTiming b) {
+			return Long.compare(a.getNanos(), b.getNanos());
+		}
+	};
+
+	private final List<Path> roots;
+	private final long start;
+	private final boolean cpuSupported;
+	private final long[] phaseNanos;
+	private final long[] phaseCpuNanos;
+	private final long[] listNanos;
+	private final long[] listCpuNanos;
+	private final int[] classFilesListed;
+	private final int[] listFailures;
+	private final int[] classFilesRead;
+	private final long[] bytesRead;
+	private final long[] parseNanos;
+	private final int slowestClasses;
+	private final PriorityQueue<ScanMetrics.ClassTiming> slowest;
+	private int classesParsed;
+	private int classesRemoved;
+	private long edgesCreated;
+	private int peakNodes;
+
+	/**
+	 * Constructor
+	 *
+	 * @param roots				:	the roots scanned, in classpath order
+	 * @param slowestClasses	:	the amount of slowest classes to keep
+	 */
+	ScanRecorder(List<Path> roots, int slowestClasses) {
+		this.roots = roots;
+		this.start = System.nanoTime();
+		this.cpuSupported = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+		this.phaseNanos = new long[ScanPhase.values().length];
+		this.phaseCpuNanos = new long[ScanPhase.values().length];
+		this.listNanos = new long[roots.size()];
+		this.listCpuNanos = new long[roots.size()];
+		this.classFilesListed = new int[roots.size()];
+		this.listFailures = new int[roots.size()];
+		this.classFilesRead = new int[roots.size() + 1];
+		this.bytesRead = new long[roots.size() + 1];
+		this.parseNanos = new long[roots.size() + 1];
+		this.slowestClasses = slowestClasses;
+		this.slowest = new PriorityQueue<ScanMetrics.ClassTiming>(Math.max(1, slowestClasses), FASTEST_FIRST);
+	}
+
+	/**
+	 * @return the CPU time of the current thread, or {@code 0} if not supported
+	 */
+	long cpu() {
+		return this.cpuSupported ? THREADS.getCurrentThreadCpuTime() : 0;
+	}
+
+	/**
+	 * Adds the time elapsed since a start time to a phase
+	 *
+	 * @param phase		:	the phase
+	 * @param nanos		:	the value of {@link System#nanoTime()} when the phase started
+	 * @param cpuNanos	:	the value of {@link ScanRecorder#cpu()} when the phase started
+	 */
+	void phase(ScanPhase phase, long nanos, long cpuNanos) {
+		this.phaseNanos[phase.ordinal()] += System.nanoTime() - nanos;
+		this.phaseCpuNanos[phase.ordinal()] += cpu() - cpuNanos;
+	}
+
+	/**
+	 * Adds an already measured time to a phase
+	 */
+	void addPhase(ScanPhase phase, long nanos, long cpuNanos) {
+		this.phaseNanos[phase.ordinal()] += nanos;
+		this.phaseCpuNanos[phase.ordinal()] += cpuNanos;
+	}
+
+	/**
+	 * Records the time spent listing a root, can be called from the thread listing the root
+	 */
+	void listed(int root, long nanos, long cpuNanos) {
+		this.listNanos[root] = nanos;
+		this.listCpuNanos[root] = cpuNanos;
+	}
+
+	/**
+	 * Records the amount of class files found in a root, and of subfolders and files of the root that could not be read
+	 */
+	void found(int root, int classFiles, int failures) {
+		this.classFilesListed[root] = classFiles;
+		this.listFailures[root] = failures;
+	}
+
+	/**
+	 * Records a class file read only to hash its contents
+	 */
+	void read(int root, long bytes, long nanos, long cpuNanos) {
+		this.classFilesRead[root]++;
+		this.bytesRead[root] += bytes;
+		addPhase(ScanPhase.READ, nanos, cpuNanos);
+	}
+
+	/**
+	 * Records a class file read and parsed
+	 *
+	 * @param root			:	the root where the class file was found
+	 * @param className		:	the full name of the class defined by the class file
+	 * @param source		:	the name of the class file
+	 * @param bytes			:	the size of the class file
+	 * @param readNanos		:	the wall time spent reading the class file
+	 * @param parseNanos	:	the wall time spent parsing the class file
+	 */
+	void parsed(int root, String className, String source, long bytes, long readNanos, long parseNanos) {
+		this.classFilesRead[root]++;
+		this.bytesRead[root] += bytes;
+		this.parseNanos[root] += readNanos + parseNanos;
+		if (this.slowestClasses > 0 && (this.slowest.size() < this.slowestClasses || this.slowest.peek().getNanos() < readNanos + parseNanos)) {
+			if (this.slowest.size() == this.slowestClasses) {
+				this.slowest.poll();
+			}
+			this.slowest.add(new ScanMetrics.ClassTiming(className, source, bytes, readNanos + parseNanos));
+		}
+	}
+
+	/**
+	 * Records a class added to the dependency map
+	 *
+	 * @param elem	:	the class added, or {@code null}
+	 */
+	void defined(DependencyElem elem) {
+		this.classesParsed++;
+		if (elem != null) {
+			for (Set<DependencyElem> dependenciesPerPackage : elem.getDirectDependencies().values()) {
+				this.edgesCreated += dependenciesPerPackage.size();
+			}
+		}
+	}
+
+	/**
+	 * Records a class added to the dependency map from its compact list of dependencies
+	 *
+	 * @param edges	:	the dependencies of the class added
+	 */
+	void defined(ClassEdges edges) {
+		this.classesParsed++;
+		this.edgesCreated += edges.size();
+	}
+
+	/**
+	 * Records the amount of classes whose dependencies were removed
+	 */
+	void removed(int classes) {
+		this.classesRemoved += classes;
+	}
+
+	/**
+	 * Records the current amount of classes in the dependency map
+	 */
+	void nodes(int nodes) {
+		this.peakNodes = Math.max(this.peakNodes, nodes);
+	}
+
+	/**
+	 * @param classFilesListed	:	the amount of class files found in all roots, without repeated names
+	 * @return the metrics collected
+	 */
+	ScanMetrics toMetrics(int classFilesListed) {
+		long elapsed = System.nanoTime() - this.start;
+		for (int root = 0; root < this.listNanos.length; root++) {
+			addPhase(ScanPhase.LIST, this.listNanos[root], this.listCpuNanos[root]);
+		}
+		long[] cpu = this.phaseCpuNanos.clone();
+		if (!this.cpuSupported) {
+			for (int phase = 0; phase < cpu.length; phase++) {
+				cpu[phase] = -1;
+			}
+		}
+		int classFilesRead = 0;
+		long bytesRead = 0;
+		int listFailures = 0;
+		List<ScanMetrics.RootMetrics> rootMetrics = new ArrayList<ScanMetrics.RootMetrics>(this.roots.size());
+		for (int root = 0; root <= this.roots.size(); root++) {
+			classFilesRead += this.classFilesRead[root];
+			bytesRead += this.bytesRead[root];
+			if (root < this.roots.size()) {
+				listFailures += this.listFailures[root];
+				rootMetrics.add(new ScanMetrics.RootMetrics(this.roots.get(root), this.listNanos[root], this.classFilesListed[root], this.listFailures[root], this.classFilesRead[root], this.bytesRead[root], this.parseNanos[root]));
+			}
+		}
+		List<ScanMetrics.ClassTiming> slowest = new ArrayList<ScanMetrics.ClassTiming>(this.slowest);
+		Collections.sort(slowest, Collections.reverseOrder(FASTEST_FIRST));
+		return new ScanMetrics(elapsed, this.phaseNanos.clone(), cpu, classFilesListed, listFailures, classFilesRead, bytesRead, this.classesParsed, this.classesRemoved, this.edgesCreated, this.peakNodes, rootMetrics, slowest);
+	}
+
+}
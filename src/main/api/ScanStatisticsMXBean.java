@@ -0,0 +1,92 @@
+package main.api;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the metrics of the scans made by a {@code DependencyScanner} through JMX
+ * <p>
+ * Values named {@code last} are those of the last scan, values named {@code total} are added over all scans since
+ * the listener was created. Times are in milliseconds.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public interface ScanStatisticsMXBean {
+
+	/**
+	 * @return the amount of scans finished
+	 */
+	long getScanCount();
+
+	/**
+	 * @return the wall time of the last scan
+	 */
+	double getLastElapsedMillis();
+
+	/**
+	 * @return the wall time of each phase of the last scan, by phase name
+	 */
+	Map<String, Double> getLastPhaseMillis();
+
+	/**
+	 * @return the CPU time of each phase of the last scan, by phase name, {@code -1} if not supported
+	 */
+	Map<String, Double> getLastPhaseCpuMillis();
+
+	/**
+	 * @return the amount of class files found in all roots by the last scan
+	 */
+	int getLastClassFilesListed();
+
+	/**
+	 * @return the amount of class files read by the last scan
+	 */
+	int getLastClassFilesRead();
+
+	/**
+	 * @return the amount of bytes read by the last scan
+	 */
+	long getLastBytesRead();
+
+	/**
+	 * @return the amount of classes parsed by the last scan
+	 */
+	int getLastClassesParsed();
+
+	/**
+	 * @return the amount of dependencies found by the last scan
+	 */
+	long getLastEdgesCreated();
+
+	/**
+	 * @return the greatest amount of classes held by the dependency map during the last scan
+	 */
+	int getLastPeakNodes();
+
+	/**
+	 * @return the slowest classes of the last scan, each one with the time taken to read and parse it
+	 */
+	Map<String, Double> getLastSlowestClassesMillis();
+
+	/**
+	 * @return the wall time of all scans
+	 */
+	double getTotalElapsedMillis();
+
+	/**
+	 * @return the amount of class files read by all scans
+	 */
+	long getTotalClassFilesRead();
+
+	/**
+	 * @return the amount of bytes read by all scans
+	 */
+	long getTotalBytesRead();
+
+	/**
+	 * @return the amount of classes parsed by all scans
+	 */
+	long getTotalClassesParsed();
+
+}
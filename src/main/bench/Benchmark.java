@@ -0,0 +1,66 @@
+package main.bench;
+
+/**
+ * A workload measured by {@code BenchmarkRunner}
+ * <p>
+ * {@link Benchmark#setUp()} is called once before the warmup, {@link Benchmark#invoke()} is called repeatedly and
+ * each call performs {@link Benchmark#getOperationsPerInvocation()} operations, so results are reported per
+ * operation (per class, per edge, per query). The value returned by {@code invoke} is consumed by the runner so the
+ * work can't be removed as dead code.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public abstract class Benchmark {
+
+	private final String name;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name	:	the name used to report the results of this benchmark
+	 */
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the name used to report the results of this benchmark
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the amount of operations performed by each call to {@link Benchmark#invoke()}
+	 */
+	public int getOperationsPerInvocation() {
+		return 1;
+	}
+
+	/**
+	 * Prepares the data used by the benchmark, it's not measured
+	 *
+	 * @throws Exception
+	 */
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Performs the measured work
+	 *
+	 * @return a value depending on the work done
+	 * @throws Exception
+	 */
+	public abstract long invoke() throws Exception;
+
+	/**
+	 * Releases the data used by the benchmark, it's not measured
+	 *
+	 * @throws Exception
+	 */
+	public void tearDown() throws Exception {
+	}
+
+}
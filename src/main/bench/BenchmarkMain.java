@@ -0,0 +1,756 @@
+package main.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.objectweb.asm.ClassReader;
+
+import data.ConcurrentDependencyMap;
+import data.DependencyElem;
+import data.DependencyFilter;
+import data.DependencyMap;
+import data.DependencyMapVersion;
+import data.TransitiveClosure;
+import utils.ClassScanner;
+import utils.ClassSource;
+import visitor.ConstantPoolExtractor;
+import visitor.DependencyVisitor;
+import visitor.ScanDepth;
+
+/**
+ * Benchmarks for the scan, parse, merge and query paths
+ * <p>
+ * Workloads run against synthetic class trees generated by {@code SyntheticClasses} and against real jars, either
+ * given as arguments or, when running on Java 8, the jars of the running JRE ({@code rt.jar}, {@code jce.jar} and
+ * {@code jsse.jar}). Usage:
+ * <p>
+ * {@code BenchmarkMain [--quick] [--filter text] [jar...]}
+ * <p>
+ * {@code --quick} uses fewer and shorter iterations and only the smaller synthetic trees, {@code --filter} only runs
+ * the benchmarks whose name contains the given text. Scores are reported in nanoseconds per class for scan and parse
+ * benchmarks, per edge for inserts and per query for queries. Concurrent inserts report the wall time per edge with 1
+ * to 32 writer threads, so lower scores with more writers mean the concurrent map scales; they allocate in the writer
+ * threads, so their allocation figures only cover the calling thread. Version updates report the time per changed
+ * class to make a new {@code DependencyMapVersion} after a small change, applying the change to the previous version
+ * or copying the whole map.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.3u
+ */
+public class BenchmarkMain {
+
+	private static final long SEED = 42;
+	/**
+	 * The latest class file version readable by the {@code ClassReader} in use
+	 */
+	private static final int MAX_ASM_VERSION = 52;
+
+	public static void main(String[] args) throws Exception {
+		boolean quick = false;
+		String filter = null;
+		List<Path> jars = new ArrayList<Path>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--quick")) {
+				quick = true;
+			} else if (args[i].equals("--filter") && i + 1 < args.length) {
+				filter = args[++i];
+			} else {
+				jars.add(Paths.get(args[i]));
+			}
+		}
+		if (jars.isEmpty()) {
+			Path lib = Paths.get(System.getProperty("java.home"), "lib");
+			for (String jar : new String[] {"rt.jar", "jce.jar", "jsse.jar"}) {
+				if (Files.isRegularFile(lib.resolve(jar))) {
+					jars.add(lib.resolve(jar));
+				}
+			}
+		}
+		int[] treeSizes = quick ? new int[] {1000} : new int[] {1000, 10000};
+		int[] graphSizes = quick ? new int[] {1000, 10000} : new int[] {1000, 10000, 100000};
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (int size : treeSizes) {
+			benchmarks.add(new ScanFolder(size));
+			benchmarks.add(new ScanZip(size, true));
+			benchmarks.add(new ScanZip(size, false));
+		}
+		int parseSize = treeSizes[treeSizes.length - 1];
+		for (ScanDepth depth : ScanDepth.values()) {
+			benchmarks.add(new ParseSynthetic(parseSize, depth, false));
+		}
+		benchmarks.add(new ParseSynthetic(parseSize, ScanDepth.FULL, true));
+		benchmarks.add(new Merge(parseSize));
+		for (int size : graphSizes) {
+			benchmarks.add(new Insert(size));
+		}
+		for (int writers : new int[] {1, 2, 4, 8, 16, 32}) {
+			benchmarks.add(new ConcurrentInsert(graphSizes[graphSizes.length - 1], writers));
+		}
+		for (int size : graphSizes) {
+			benchmarks.add(new UpdateVersion(size, false));
+			benchmarks.add(new UpdateVersion(size, true));
+		}
+		for (int size : graphSizes) {
+			benchmarks.add(new GetDependencies(size));
+			benchmarks.add(new DependencyIterator(size));
+			benchmarks.add(new GetAllDependencies(size));
+			benchmarks.add(new BuildClosure(size));
+		}
+		for (Path jar : jars) {
+			benchmarks.add(new ScanJar(jar));
+			benchmarks.add(new ParseJar(jar, false));
+			benchmarks.add(new ParseJar(jar, true));
+		}
+		BenchmarkRunner runner = quick ? new BenchmarkRunner(2, 3, 200, System.out) : new BenchmarkRunner(5, 10, 1000, System.out);
+		System.out.println(BenchmarkRunner.header());
+		for (Benchmark benchmark : benchmarks) {
+			if (filter == null || benchmark.getName().contains(filter)) {
+				runner.run(benchmark);
+			}
+		}
+		if (runner.getSink() == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Reads all class files reachable from a folder or zip file
+	 *
+	 * @param path	:	the folder or zip file to read
+	 * @return the bytes of each class file
+	 * @throws IOException
+	 */
+	private static List<byte[]> readClasses(Path path) throws IOException {
+		List<byte[]> classes = new ArrayList<byte[]>();
+		try (ClassScanner scanner = new ClassScanner(path)) {
+			scanner.scan();
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			byte[] chunk = new byte[8192];
+			for (ClassSource source : scanner) {
+				buffer.reset();
+				try (InputStream in = source.open()) {
+					int read;
+					while ((read = in.read(chunk)) != -1) {
+						buffer.write(chunk, 0, read);
+					}
+				}
+				classes.add(buffer.toByteArray());
+			}
+		}
+		return classes;
+	}
+
+	private static long parse(List<byte[]> classes, ScanDepth depth, boolean constantPool) {
+		DependencyMap map = new DependencyMap();
+		if (constantPool) {
+			ConstantPoolExtractor extractor = new ConstantPoolExtractor(map, depth);
+			for (byte[] bytes : classes) {
+				extractor.extract(bytes);
+			}
+		} else {
+			DependencyVisitor visitor = new DependencyVisitor(map, depth);
+			for (byte[] bytes : classes) {
+				new ClassReader(bytes).accept(visitor, depth.getParsingOptions());
+			}
+		}
+		return map.getClasses().size();
+	}
+
+	private static String fileName(Path path) {
+		return path.getFileName() == null ? path.toString() : path.getFileName().toString();
+	}
+
+	/**
+	 * Lists and opens every class file of a synthetic folder
+	 */
+	private static class ScanFolder extends Benchmark {
+
+		private final int size;
+		private Path folder;
+
+		ScanFolder(int size) {
+			super("scan.folder[" + size + "]");
+			this.size = size;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return this.size;
+		}
+
+		@Override
+		public void setUp() throws IOException {
+			this.folder = Files.createTempDirectory("dependency-bench");
+			new SyntheticClasses(this.size, SEED).writeFolder(this.folder);
+		}
+
+		@Override
+		public long invoke() throws IOException {
+			return scan(this.folder);
+		}
+
+		@Override
+		public void tearDown() throws IOException {
+			SyntheticClasses.delete(this.folder);
+		}
+
+	}
+
+	/**
+	 * Lists and opens every class file of a synthetic zip file
+	 */
+	private static class ScanZip extends Benchmark {
+
+		private final int size;
+		private final boolean compress;
+		private Path zip;
+
+		ScanZip(int size, boolean compress) {
+			super("scan.zip." + (compress ? "deflated" : "stored") + "[" + size + "]");
+			this.size = size;
+			this.compress = compress;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return this.size;
+		}
+
+		@Override
+		public void setUp() throws IOException {
+			this.zip = Files.createTempFile("dependency-bench", ".zip");
+			new SyntheticClasses(this.size, SEED).writeZip(this.zip, this.compress);
+		}
+
+		@Override
+		public long invoke() throws IOException {
+			return scan(this.zip);
+		}
+
+		@Override
+		public void tearDown() throws IOException {
+			Files.deleteIfExists(this.zip);
+		}
+
+	}
+
+	/**
+	 * Lists and opens every class file of a real jar
+	 */
+	private static class ScanJar extends Benchmark {
+
+		private final Path jar;
+		private int size;
+
+		ScanJar(Path jar) {
+			super("scan.jar[" + fileName(jar) + "]");
+			this.jar = jar;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return this.size;
+		}
+
+		@Override
+		public void setUp() throws IOException {
+			this.size = Math.max(1, readClasses(this.jar).size());
+		}
+
+		@Override
+		public long invoke() throws IOException {
+			return scan(this.jar);
+		}
+
+	}
+
+	/**
+	 * Scans a folder or zip file and reads the first byte of each class file, as done before parsing it
+	 */
+	private static long scan(Path path) throws IOException {
+		long result = 0;
+		try (ClassScanner scanner = new ClassScanner(path)) {
+			scanner.scan();
+			for (ClassSource source : scanner) {
+				try (InputStream in = source.open()) {
+					result += in.read();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the class files of a synthetic tree into a new dependency map
+	 */
+	private static class ParseSynthetic extends Benchmark {
+
+		private final int size;
+		private final ScanDepth depth;
+		private final boolean constantPool;
+		private List<byte[]> classes;
+
+		ParseSynthetic(int size, ScanDepth depth, boolean constantPool) {
+			super("parse." + (constantPool ? "constantPool" : "visitor") + "." + depth + "[" + size + "]");
+			this.size = size;
+			this.depth = depth;
+			this.constantPool = constantPool;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return this.size;
+		}
+
+		@Override
+		public void setUp() {
+			SyntheticClasses synthetic = new SyntheticClasses(this.size, SEED);
+			this.classes = new ArrayList<byte[]>(this.size);
+			for (int c = 0; c < this.size; c++) {
+				this.classes.add(synthetic.toClassFile(c));
+			}
+		}
+
+		@Override
+		public long invoke() {
+			return parse(this.classes, this.depth, this.constantPool);
+		}
+
+		@Override
+		public void tearDown() {
+			this.classes = null;
+		}
+
+	}
+
+	/**
+	 * Parses the class files of a real jar into a new dependency map
+	 * <p>
+	 * Class files newer than the {@code ClassReader} supports are left out of the visitor benchmark, the constant pool
+	 * extractor parses all of them.
+	 */
+	private static class ParseJar extends Benchmark {
+
+		private final Path jar;
+		private final boolean constantPool;
+		private List<byte[]> classes;
+
+		ParseJar(Path jar, boolean constantPool) {
+			super("parse." + (constantPool ? "constantPool" : "visitor") + ".FULL[" + fileName(jar) + "]");
+			this.jar = jar;
+			this.constantPool = constantPool;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return Math.max(1, this.classes.size());
+		}
+
+		@Override
+		public void setUp() throws IOException {
+			this.classes = new ArrayList<byte[]>();
+			for (byte[] bytes : readClasses(this.jar)) {
+				int major = bytes.length < 8 ? 0 : ((bytes[6] & 0xFF) << 8) | (bytes[7] & 0xFF);
+				if (this.constantPool || major <= MAX_ASM_VERSION) {
+					this.classes.add(bytes);
+				}
+			}
+		}
+
+		@Override
+		public long invoke() {
+			return parse(this.classes, ScanDepth.FULL, this.constantPool);
+		}
+
+		@Override
+		public void tearDown() {
+			this.classes = null;
+		}
+
+	}
+
+	/**
+	 * Merges one dependency map per class into a new one, as done when parsing in parallel
+	 */
+	private static class Merge extends Benchmark {
+
+		private final int size;
+		private List<DependencyMap> partials;
+
+		Merge(int size) {
+			super("map.merge[" + size + "]");
+			this.size = size;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return this.size;
+		}
+
+		@Override
+		public void setUp() {
+			SyntheticClasses synthetic = new SyntheticClasses(this.size, SEED);
+			this.partials = new ArrayList<DependencyMap>(this.size);
+			for (int c = 0; c < this.size; c++) {
+				DependencyMap partial = new DependencyMap();
+				new ClassReader(synthetic.toClassFile(c)).accept(new DependencyVisitor(partial), 0);
+				this.partials.add(partial);
+			}
+		}
+
+		@Override
+		public long invoke() {
+			DependencyMap map = new DependencyMap();
+			for (DependencyMap partial : this.partials) {
+				map.merge(partial);
+			}
+			return map.getClasses().size();
+		}
+
+		@Override
+		public void tearDown() {
+			this.partials = null;
+		}
+
+	}
+
+	/**
+	 * Inserts every edge of a synthetic graph into a new dependency map
+	 */
+	private static class Insert extends Benchmark {
+
+		private final int size;
+		private String[] from;
+		private String[] to;
+
+		Insert(int size) {
+			super("map.addNewDependency[" + size + "]");
+			this.size = size;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return this.from.length;
+		}
+
+		@Override
+		public void setUp() {
+			SyntheticClasses synthetic = new SyntheticClasses(this.size, SEED);
+			String[] names = new String[this.size];
+			for (int c = 0; c < this.size; c++) {
+				names[c] = synthetic.getClassName(c);
+			}
+			this.from = new String[synthetic.getDependencyCount()];
+			this.to = new String[this.from.length];
+			int edge = 0;
+			for (int c = 0; c < this.size; c++) {
+				for (int dep : synthetic.getDependencies(c)) {
+					this.from[edge] = names[c];
+					this.to[edge++] = names[dep];
+				}
+			}
+		}
+
+		@Override
+		public long invoke() {
+			DependencyMap map = new DependencyMap();
+			for (int i = 0; i < this.from.length; i++) {
+				map.addNewDependency(this.from[i], this.to[i]);
+			}
+			return map.getClasses().size();
+		}
+
+		@Override
+		public void tearDown() {
+			this.from = null;
+			this.to = null;
+		}
+
+	}
+
+	/**
+	 * Inserts every edge of a synthetic graph into a new concurrent dependency map from several writer threads, each
+	 * one inserting the edges of the classes it owns, and publishes a snapshot of the result
+	 */
+	private static class ConcurrentInsert extends Benchmark {
+
+		private final int size;
+		private final int writers;
+		private String[][] from;
+		private String[][] to;
+		private ExecutorService pool;
+
+		ConcurrentInsert(int size, int writers) {
+			super("concurrent.addNewDependency[" + size + ", " + writers + " writers]");
+			this.size = size;
+			this.writers = writers;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			int edges = 0;
+			for (String[] partition : this.from) {
+				edges += partition.length;
+			}
+			return edges;
+		}
+
+		@Override
+		public void setUp() {
+			SyntheticClasses synthetic = new SyntheticClasses(this.size, SEED);
+			this.from = new String[this.writers][];
+			this.to = new String[this.writers][];
+			for (int w = 0; w < this.writers; w++) {
+				List<String> from = new ArrayList<String>();
+				List<String> to = new ArrayList<String>();
+				for (int c = w; c < this.size; c += this.writers) {
+					for (int dep : synthetic.getDependencies(c)) {
+						from.add(synthetic.getClassName(c));
+						to.add(synthetic.getClassName(dep));
+					}
+				}
+				this.from[w] = from.toArray(new String[from.size()]);
+				this.to[w] = to.toArray(new String[to.size()]);
+			}
+			this.pool = Executors.newFixedThreadPool(this.writers);
+		}
+
+		@Override
+		public long invoke() throws Exception {
+			final ConcurrentDependencyMap map = new ConcurrentDependencyMap();
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int w = 0; w < this.writers; w++) {
+				final String[] from = this.from[w];
+				final String[] to = this.to[w];
+				results.add(this.pool.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						for (int i = 0; i < from.length; i++) {
+							map.addNewDependency(from[i], to[i]);
+						}
+						return from.length;
+					}
+				}));
+			}
+			for (Future<Integer> result : results) {
+				result.get();
+			}
+			return map.publish().getClasses().size();
+		}
+
+		@Override
+		public void tearDown() {
+			this.pool.shutdown();
+			this.from = null;
+			this.to = null;
+		}
+
+	}
+
+	/**
+	 * Changes the dependencies of a few classes of a synthetic graph and makes a new version of it, either applying the
+	 * changed classes to the previous version or copying the whole map
+	 */
+	private static class UpdateVersion extends Benchmark {
+
+		private static final int CHANGED = 16;
+
+		private final int size;
+		private final boolean copy;
+		private SyntheticClasses synthetic;
+		private DependencyMap map;
+		private DependencyMapVersion version;
+		private Random random;
+
+		UpdateVersion(int size, boolean copy) {
+			super((copy ? "version.copy[" : "version.apply[") + size + "]");
+			this.size = size;
+			this.copy = copy;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return CHANGED;
+		}
+
+		@Override
+		public void setUp() {
+			this.synthetic = new SyntheticClasses(this.size, SEED);
+			this.map = this.synthetic.toDependencyMap();
+			this.version = new DependencyMapVersion(this.map);
+			this.random = new Random(SEED);
+		}
+
+		@Override
+		public long invoke() {
+			List<String> changed = new ArrayList<String>(CHANGED);
+			for (int i = 0; i < CHANGED; i++) {
+				int c = this.random.nextInt(this.size);
+				String name = this.synthetic.getClassName(c);
+				int[] dependencies = this.synthetic.getDependencies(c);
+				this.map.removeDependencies(name);
+				for (int d = 0; d < dependencies.length; d++) {
+					if (this.random.nextInt(4) != 0) {
+						this.map.addNewDependency(name, this.synthetic.getClassName(dependencies[d]));
+					}
+				}
+				changed.add(name);
+			}
+			this.version = this.copy ? new DependencyMapVersion(this.map) : this.version.apply(this.map, changed);
+			return this.version.getEdgeCount();
+		}
+
+		@Override
+		public void tearDown() {
+			this.synthetic = null;
+			this.map = null;
+			this.version = null;
+		}
+
+	}
+
+	/**
+	 * Base for benchmarks querying a synthetic graph with classes chosen at random
+	 */
+	private abstract static class Query extends Benchmark {
+
+		private static final int QUERIES = 256;
+
+		private final int size;
+		protected DependencyMap map;
+		protected String[] queries;
+
+		Query(String name, int size) {
+			super(name + "[" + size + "]");
+			this.size = size;
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return QUERIES;
+		}
+
+		@Override
+		public void setUp() {
+			SyntheticClasses synthetic = new SyntheticClasses(this.size, SEED);
+			this.map = synthetic.toDependencyMap();
+			this.queries = new String[QUERIES];
+			Random random = new Random(SEED);
+			for (int i = 0; i < QUERIES; i++) {
+				this.queries[i] = synthetic.getClassName(random.nextInt(this.size));
+			}
+		}
+
+		@Override
+		public void tearDown() {
+			this.map = null;
+			this.queries = null;
+		}
+
+	}
+
+	/**
+	 * Direct dependencies of a class
+	 */
+	private static class GetDependencies extends Query {
+
+		GetDependencies(int size) {
+			super("query.getDependencies", size);
+		}
+
+		@Override
+		public long invoke() {
+			long result = 0;
+			for (String query : this.queries) {
+				result += this.map.getDependencies(query).size();
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Direct dependencies of a class, iterated without copying them
+	 */
+	private static class DependencyIterator extends Query {
+
+		DependencyIterator(int size) {
+			super("query.dependencyIterator", size);
+		}
+
+		@Override
+		public long invoke() {
+			long result = 0;
+			for (String query : this.queries) {
+				Iterator<DependencyElem> dependencies = this.map.dependencyIterator(query, DependencyFilter.ALL);
+				while (dependencies.hasNext()) {
+					dependencies.next();
+					result++;
+				}
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Recursive dependencies of a class, with the transitive closure already built
+	 */
+	private static class GetAllDependencies extends Query {
+
+		GetAllDependencies(int size) {
+			super("query.getAllDependencies", size);
+		}
+
+		@Override
+		public void setUp() {
+			super.setUp();
+			this.map.getTransitiveClosure();
+		}
+
+		@Override
+		public long invoke() {
+			long result = 0;
+			for (String query : this.queries) {
+				result += this.map.getAllDependencies(query).size();
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Builds the transitive closure of a graph, the cost paid by the first recursive query after a change
+	 */
+	private static class BuildClosure extends Query {
+
+		BuildClosure(int size) {
+			super("query.buildClosure", size);
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return 1;
+		}
+
+		@Override
+		public long invoke() {
+			return new TransitiveClosure(this.map).getComponentCount();
+		}
+
+	}
+
+}
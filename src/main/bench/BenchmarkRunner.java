@@ -0,0 +1,212 @@
+package main.bench;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs benchmarks in the calling thread and reports the average time and allocated memory per operation
+ * <p>
+ * Each benchmark is run for a number of warmup iterations, whose results are discarded, and then for a number of
+ * measurement iterations. An iteration calls {@link Benchmark#invoke()} until the iteration time is reached. The
+ * score is the mean time per operation over all measurement iterations, and the error is the half width of its 99.9%
+ * confidence interval, as reported by JMH. Allocated memory is measured with
+ * {@code com.sun.management.ThreadMXBean} when the JVM supports it.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class BenchmarkRunner {
+
+	private final int warmupIterations;
+	private final int measurementIterations;
+	private final long iterationNanos;
+	private final PrintStream out;
+	private final List<BenchmarkResult> results;
+	/**
+	 * Consumes the values returned by the benchmarks
+	 */
+	private long sink;
+
+	/**
+	 * Constructor
+	 *
+	 * @param warmupIterations		:	the amount of iterations run before measuring
+	 * @param measurementIterations	:	the amount of iterations measured
+	 * @param iterationMillis		:	the minimum duration of each iteration in milliseconds
+	 * @param out					:	where to print the result of each benchmark, or {@code null}
+	 */
+	public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis, PrintStream out) {
+		if (measurementIterations < 1) {
+			throw new IllegalArgumentException("At least one measurement iteration is needed (got " + measurementIterations + ")");
+		}
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationNanos = iterationMillis * 1000000L;
+		this.out = out;
+		this.results = new ArrayList<BenchmarkResult>();
+	}
+
+	/**
+	 * Runs a benchmark
+	 *
+	 * @param benchmark	:	the benchmark to run
+	 * @return the result of the benchmark
+	 * @throws Exception if the benchmark fails
+	 */
+	public BenchmarkResult run(Benchmark benchmark) throws Exception {
+		benchmark.setUp();
+		try {
+			for (int i = 0; i < this.warmupIterations; i++) {
+				iteration(benchmark);
+			}
+			double[] scores = new double[this.measurementIterations];
+			long allocated = 0;
+			long operations = 0;
+			for (int i = 0; i < this.measurementIterations; i++) {
+				long allocatedBefore = allocatedBytes();
+				long[] iteration = iteration(benchmark);
+				allocated += allocatedBytes() - allocatedBefore;
+				operations += iteration[1];
+				scores[i] = (double) iteration[0] / iteration[1];
+			}
+			BenchmarkResult result = new BenchmarkResult(benchmark.getName(), scores, allocatedBytes() < 0 ? -1 : (double) allocated / operations);
+			this.results.add(result);
+			if (this.out != null) {
+				this.out.println(result);
+			}
+			return result;
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * @return the results of all benchmarks run, in order
+	 */
+	public List<BenchmarkResult> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * @return a value depending on the values returned by all benchmarks run
+	 */
+	public long getSink() {
+		return this.sink;
+	}
+
+	/**
+	 * @return a header for the lines printed for each result
+	 */
+	public static String header() {
+		return String.format(Locale.ROOT, "%-48s %14s %12s %14s", "Benchmark", "Score (ns/op)", "Error", "Alloc (B/op)");
+	}
+
+	/**
+	 * Calls a benchmark until the iteration time is reached
+	 *
+	 * @param benchmark	:	the benchmark to call
+	 * @return the elapsed time in nanoseconds and the amount of operations performed
+	 * @throws Exception if the benchmark fails
+	 */
+	private long[] iteration(Benchmark benchmark) throws Exception {
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			this.sink += benchmark.invoke();
+			operations += benchmark.getOperationsPerInvocation();
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < this.iterationNanos);
+		return new long[] {elapsed, operations};
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread so far, or {@code -1} if not supported by the JVM
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * The result of running a benchmark
+	 */
+	public static class BenchmarkResult {
+
+		/**
+		 * Student's t quantiles for a 99.9% confidence interval, by degrees of freedom (1 to 30)
+		 */
+		private static final double[] T_999 = {636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+			4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850, 3.819, 3.792, 3.768, 3.745, 3.725, 3.707,
+			3.690, 3.674, 3.659, 3.646};
+
+		private final String name;
+		private final double score;
+		private final double error;
+		private final double allocatedPerOperation;
+
+		BenchmarkResult(String name, double[] scores, double allocatedPerOperation) {
+			this.name = name;
+			double sum = 0;
+			for (double score : scores) {
+				sum += score;
+			}
+			this.score = sum / scores.length;
+			if (scores.length > 1) {
+				double squares = 0;
+				for (double score : scores) {
+					squares += (score - this.score) * (score - this.score);
+				}
+				double deviation = Math.sqrt(squares / (scores.length - 1));
+				double t = scores.length - 1 <= T_999.length ? T_999[scores.length - 2] : 3.291;
+				this.error = t * deviation / Math.sqrt(scores.length);
+			} else {
+				this.error = Double.NaN;
+			}
+			this.allocatedPerOperation = allocatedPerOperation;
+		}
+
+		/**
+		 * @return the name of the benchmark
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * @return the mean time per operation in nanoseconds
+		 */
+		public double getScore() {
+			return this.score;
+		}
+
+		/**
+		 * @return the half width of the 99.9% confidence interval of the score, {@code NaN} with a single measurement iteration
+		 */
+		public double getError() {
+			return this.error;
+		}
+
+		/**
+		 * @return the mean bytes allocated per operation, or {@code -1} if not supported by the JVM
+		 */
+		public double getAllocatedPerOperation() {
+			return this.allocatedPerOperation;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%-48s %14.1f %12s %14s", this.name, this.score, Double.isNaN(this.error) ? "" : String.format(Locale.ROOT, "+- %.1f", this.error), this.allocatedPerOperation < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", this.allocatedPerOperation));
+		}
+
+	}
+
+}
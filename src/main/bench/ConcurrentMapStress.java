@@ -0,0 +1,224 @@
+package main.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import data.ConcurrentDependencyMap;
+import data.DependencyMap;
+import data.DependencyMapVersion;
+import data.EdgeKind;
+
+/**
+ * Stress test for {@code ConcurrentDependencyMap}, feeding one map from 1 to 32 writer threads while reader threads
+ * check every version they get
+ * <p>
+ * Each writer owns the classes of a synthetic graph whose index modulo the amount of writers is its own, it adds the
+ * dependencies of its classes, removes those of every third class and then adds all of them again. The final map is
+ * therefore known, and compared with the same operations applied to a {@code DependencyMap} in a single thread.
+ * Readers run while writers work and check that each version only has dependencies of the synthetic graph, with
+ * kinds and references that the writers could have produced, and that the classes of consecutive versions never
+ * decrease. Once writers finish, both the latest version and the snapshot copied from it must equal the expected map.
+ * Usage:
+ * <p>
+ * {@code ConcurrentMapStress [--quick] [classes]}
+ * <p>
+ * The process exits with status {@code 1} if any check fails.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class ConcurrentMapStress {
+
+	private static final long SEED = 42;
+	private static final int READERS = 2;
+	private static final int[] WRITERS = {1, 2, 4, 8, 16, 32};
+
+	public static void main(String[] args) throws Exception {
+		boolean quick = false;
+		int size = 20000;
+		for (String arg : args) {
+			if (arg.equals("--quick")) {
+				quick = true;
+				size = 2000;
+			} else {
+				size = Integer.parseInt(arg);
+			}
+		}
+		SyntheticClasses synthetic = new SyntheticClasses(size, SEED);
+		DependencyMap expected = new DependencyMap();
+		for (int c = 0; c < size; c++) {
+			write(expected, synthetic, c);
+		}
+		boolean failed = false;
+		for (int writers : WRITERS) {
+			for (int round = 0; round < (quick ? 1 : 3); round++) {
+				String failure = run(synthetic, expected, writers);
+				System.out.println("writers=" + writers + " round=" + round + (failure == null ? " ok" : " FAILED " + failure));
+				failed |= failure != null;
+			}
+		}
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Applies the operations of a writer to a class: adds its dependencies, removes them for every third class, and
+	 * adds them again
+	 */
+	private static void write(DependencyMap map, SyntheticClasses synthetic, int c) {
+		String name = synthetic.getClassName(c);
+		int[] dependencies = synthetic.getDependencies(c);
+		for (int i = 0; i < dependencies.length; i++) {
+			map.addNewDependency(map.getOrCreateDependencyElem(name), synthetic.getClassName(dependencies[i]), kind(i));
+		}
+		if (c % 3 == 0) {
+			map.removeDependencies(name);
+		}
+		for (int i = 0; i < dependencies.length; i++) {
+			map.addNewDependency(map.getOrCreateDependencyElem(name), synthetic.getClassName(dependencies[i]), kind(i));
+		}
+	}
+
+	private static EdgeKind kind(int dependency) {
+		return EdgeKind.values()[dependency % EdgeKind.values().length];
+	}
+
+	/**
+	 * Runs writers and readers on a new map
+	 *
+	 * @return a description of the first failed check, or {@code null} if all checks passed
+	 */
+	private static String run(final SyntheticClasses synthetic, final DependencyMap expected, final int writers) throws InterruptedException {
+		final ConcurrentDependencyMap map = new ConcurrentDependencyMap();
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		final AtomicInteger versions = new AtomicInteger();
+		List<Thread> writerThreads = new ArrayList<Thread>();
+		for (int w = 0; w < writers; w++) {
+			final int writer = w;
+			writerThreads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					await(start);
+					for (int c = writer; c < synthetic.getClassCount(); c += writers) {
+						write(map, synthetic, c);
+					}
+				}
+			}));
+		}
+		List<Thread> readerThreads = new ArrayList<Thread>();
+		for (int r = 0; r < READERS; r++) {
+			readerThreads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					await(start);
+					int classes = 0;
+					while (writing.get() && failure.get() == null) {
+						DependencyMapVersion version = map.getVersion();
+						versions.incrementAndGet();
+						if (version.size() < classes) {
+							failure.compareAndSet(null, "classes decreased from " + classes + " to " + version.size());
+						}
+						classes = version.size();
+						String error = check(version, expected, false);
+						if (error != null) {
+							failure.compareAndSet(null, error);
+						}
+					}
+				}
+			}));
+		}
+		long begin = System.nanoTime();
+		for (Thread thread : writerThreads) {
+			thread.start();
+		}
+		for (Thread thread : readerThreads) {
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : writerThreads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - begin;
+		writing.set(false);
+		for (Thread thread : readerThreads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			return failure.get();
+		}
+		String error = check(map.getVersion(), expected, true);
+		if (error != null) {
+			return error;
+		}
+		DependencyMapVersion.Diff diff = new DependencyMapVersion(map.snapshot()).diff(new DependencyMapVersion(expected));
+		if (!diff.isEmpty()) {
+			return "the snapshot differs from the expected map: " + diff;
+		}
+		String leaf = null;
+		for (String className : expected.getClasses()) {
+			if (expected.getDirectDependents(className).isEmpty()) {
+				leaf = className;
+				break;
+			}
+		}
+		if (leaf != null && !map.removeDependencyElem(leaf)) {
+			return "could not remove " + leaf;
+		}
+		if (map.removeDependencyElem(synthetic.getClassName(0))) {
+			return "removed a class with dependents";
+		}
+		System.out.printf("  %d edges, %d versions read, %.1f ms writing%n", synthetic.getDependencyCount(), versions.get(), elapsed / 1e6);
+		return null;
+	}
+
+	/**
+	 * @param version	:	a version of the concurrent map
+	 * @param expected	:	the map obtained by a single thread
+	 * @param complete	:	{@code true} if {@code version} must be equal to {@code expected}, {@code false} if it may
+	 * 						be a partial state
+	 * @return a description of the first difference found, or {@code null}
+	 */
+	private static String check(DependencyMapVersion version, DependencyMap expected, boolean complete) {
+		if (complete && !version.getClasses().equals(expected.getClasses())) {
+			return "classes differ: " + version.size() + " instead of " + expected.getClasses().size();
+		}
+		for (String className : version.getClasses()) {
+			if (expected.getClassAsDependencyElem(className) == null) {
+				return "unexpected class " + className;
+			}
+			Set<String> dependencies = version.getDependencies(className);
+			Set<String> expectedDependencies = expected.getDependencies(className);
+			if (complete ? !dependencies.equals(expectedDependencies) : !expectedDependencies.containsAll(dependencies)) {
+				return "dependencies of " + className + " differ";
+			}
+			for (String dependency : dependencies) {
+				int kinds = version.getEdgeKinds(className, dependency);
+				int references = version.getEdgeCount(className, dependency);
+				int expectedKinds = expected.getEdgeKinds(expected.getClassAsDependencyElem(className), expected.getClassAsDependencyElem(dependency));
+				int expectedReferences = expected.getEdgeCount(expected.getClassAsDependencyElem(className), expected.getClassAsDependencyElem(dependency));
+				if (complete ? kinds != expectedKinds || references != expectedReferences : (kinds & ~expectedKinds) != 0 || references > expectedReferences) {
+					return "edge " + className + " -> " + dependency + " has kinds " + kinds + " and " + references + " references";
+				}
+			}
+		}
+		return null;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
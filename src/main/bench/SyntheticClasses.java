@@ -0,0 +1,241 @@
+package main.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import data.DependencyMap;
+
+/**
+ * Generates deterministic class trees and dependency graphs to benchmark with
+ * <p>
+ * Classes are grouped in packages of a fixed size, and packages form a binary tree ({@code p0} depends on {@code p1}
+ * and {@code p2}, {@code p1} on {@code p3} and {@code p4}, and so on), so transitive dependencies range from a single
+ * package for the leaves to the whole graph for the root, as in layered applications. Inside each package classes
+ * depend on classes with a lower index, and the first four classes form a cycle.
+ * <p>
+ * The same seed always produces the same classes and graphs.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class SyntheticClasses {
+
+	private static final int CLASSES_PER_PACKAGE = 100;
+	private static final int LOCAL_DEPENDENCIES = 4;
+	private static final int CHILD_DEPENDENCIES = 4;
+
+	private final int classes;
+	private final int[][] dependencies;
+
+	/**
+	 * Constructor
+	 *
+	 * @param classes	:	the amount of classes to generate
+	 * @param seed		:	the seed used to choose dependencies
+	 */
+	public SyntheticClasses(int classes, long seed) {
+		if (classes < 1) {
+			throw new IllegalArgumentException("At least one class is needed (got " + classes + ")");
+		}
+		this.classes = classes;
+		this.dependencies = new int[classes][];
+		Random random = new Random(seed);
+		int packages = (classes + CLASSES_PER_PACKAGE - 1) / CLASSES_PER_PACKAGE;
+		for (int c = 0; c < classes; c++) {
+			int pkg = c / CLASSES_PER_PACKAGE;
+			int index = c % CLASSES_PER_PACKAGE;
+			int[] deps = new int[1 + LOCAL_DEPENDENCIES + CHILD_DEPENDENCIES];
+			int count = 0;
+			if (index < 4 && pkg * CLASSES_PER_PACKAGE + 3 < classes) {
+				deps[count++] = pkg * CLASSES_PER_PACKAGE + (index + 1) % 4;
+			}
+			for (int i = 0; i < LOCAL_DEPENDENCIES && index > 0; i++) {
+				deps[count++] = pkg * CLASSES_PER_PACKAGE + random.nextInt(index);
+			}
+			for (int child = 2 * pkg + 1; child <= 2 * pkg + 2 && child < packages; child++) {
+				int size = Math.min(CLASSES_PER_PACKAGE, classes - child * CLASSES_PER_PACKAGE);
+				for (int i = 0; i < CHILD_DEPENDENCIES / 2; i++) {
+					deps[count++] = child * CLASSES_PER_PACKAGE + random.nextInt(size);
+				}
+			}
+			int[] trimmed = new int[count];
+			System.arraycopy(deps, 0, trimmed, 0, count);
+			this.dependencies[c] = trimmed;
+		}
+	}
+
+	/**
+	 * @return the amount of classes generated
+	 */
+	public int getClassCount() {
+		return this.classes;
+	}
+
+	/**
+	 * @return the amount of dependencies between the generated classes, including repeated ones
+	 */
+	public int getDependencyCount() {
+		int count = 0;
+		for (int[] deps : this.dependencies) {
+			count += deps.length;
+		}
+		return count;
+	}
+
+	/**
+	 * @param c	:	the index of a class
+	 * @return the fully qualified name of the class
+	 */
+	public String getClassName(int c) {
+		return "bench.p" + (c / CLASSES_PER_PACKAGE) + ".C" + (c % CLASSES_PER_PACKAGE);
+	}
+
+	/**
+	 * @param c	:	the index of a class
+	 * @return the indexes of the classes the class depends on
+	 */
+	public int[] getDependencies(int c) {
+		return this.dependencies[c];
+	}
+
+	/**
+	 * Builds a dependency map with the generated classes, without writing any class file
+	 *
+	 * @return a dependency map with an entry for each generated class
+	 */
+	public DependencyMap toDependencyMap() {
+		DependencyMap map = new DependencyMap();
+		for (int c = 0; c < this.classes; c++) {
+			String name = getClassName(c);
+			map.getOrCreateDependencyElem(name);
+			for (int dep : this.dependencies[c]) {
+				map.addNewDependency(name, getClassName(dep));
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Generates the class file of a class
+	 * <p>
+	 * Each dependency is used as a field type, in a generic field signature, as a parameter type and inside a method
+	 * body, so all scan depths find the field dependencies and the full depth finds everything.
+	 *
+	 * @param c	:	the index of the class
+	 * @return the bytes of the class file
+	 */
+	public byte[] toClassFile(int c) {
+		String name = internalName(c);
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", new String[] {"java/io/Serializable"});
+		MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		init.visitCode();
+		init.visitVarInsn(Opcodes.ALOAD, 0);
+		init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		init.visitInsn(Opcodes.RETURN);
+		init.visitMaxs(0, 0);
+		init.visitEnd();
+		int[] deps = this.dependencies[c];
+		for (int i = 0; i < deps.length; i++) {
+			String dep = internalName(deps[i]);
+			writer.visitField(Opcodes.ACC_PRIVATE, "f" + i, "L" + dep + ";", null, null).visitEnd();
+			writer.visitField(Opcodes.ACC_PRIVATE, "l" + i, "Ljava/util/List;", "Ljava/util/List<L" + dep + ";>;", null).visitEnd();
+			MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + i, "(L" + dep + ";)Ljava/lang/Object;", null, null);
+			method.visitCode();
+			method.visitTypeInsn(Opcodes.NEW, dep);
+			method.visitInsn(Opcodes.DUP);
+			method.visitMethodInsn(Opcodes.INVOKESPECIAL, dep, "<init>", "()V", false);
+			method.visitInsn(Opcodes.ARETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Writes the class files of all generated classes into a folder, using the usual package layout
+	 *
+	 * @param folder	:	the folder where to write the class files
+	 * @throws IOException
+	 */
+	public void writeFolder(Path folder) throws IOException {
+		for (int c = 0; c < this.classes; c++) {
+			Path file = folder.resolve(internalName(c) + ".class");
+			Files.createDirectories(file.getParent());
+			Files.write(file, toClassFile(c));
+		}
+	}
+
+	/**
+	 * Writes the class files of all generated classes into a zip file
+	 *
+	 * @param zip		:	the zip file to create
+	 * @param compress	:	{@code true} to deflate entries, {@code false} to store them
+	 * @throws IOException
+	 */
+	public void writeZip(Path zip, boolean compress) throws IOException {
+		try (OutputStream file = Files.newOutputStream(zip); ZipOutputStream out = new ZipOutputStream(file)) {
+			for (int c = 0; c < this.classes; c++) {
+				byte[] bytes = toClassFile(c);
+				ZipEntry entry = new ZipEntry(internalName(c) + ".class");
+				if (!compress) {
+					CRC32 crc = new CRC32();
+					crc.update(bytes);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(bytes.length);
+					entry.setCrc(crc.getValue());
+				}
+				out.putNextEntry(entry);
+				out.write(bytes);
+				out.closeEntry();
+			}
+		}
+	}
+
+	/**
+	 * Deletes a folder and everything inside it
+	 *
+	 * @param path	:	the folder or file to delete
+	 * @throws IOException
+	 */
+	public static void delete(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	private String internalName(int c) {
+		return getClassName(c).replace('.', '/');
+	}
+
+}
@@ -0,0 +1,250 @@
+package main.bench;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import data.DependencyMapVersion;
+import main.api.DependencyChange;
+import main.api.DependencyScanner;
+import main.api.ScanOptions;
+
+/**
+ * Checks that the versions made by a {@code DependencyScanner} follow its dependency map through rescans
+ * <p>
+ * Class files are written into temporary folder roots and changed between rescans, and after each rescan the latest
+ * version is compared with a version copied from the dependency map, which must have no differences, and with the
+ * previous version, whose differences must be the edges reported by the rescan. The scenarios are a class file
+ * shadowing another one being removed, so the shadowed one is used and the dependencies only the removed one had are
+ * pruned, the same with the shadowed class file under a folder that can't be listed, which must be kept until the
+ * folder can be listed again, and random changes to the class files of a synthetic tree applied with partial and full
+ * rescans. Usage:
+ * <p>
+ * {@code VersionCheck [--quick] [classes]}
+ * <p>
+ * The process exits with status {@code 1} if any check fails.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.3u
+ */
+public class VersionCheck {
+
+	private static final long SEED = 42;
+
+	public static void main(String[] args) throws Exception {
+		int size = 2000;
+		int rounds = 50;
+		for (String arg : args) {
+			if (arg.equals("--quick")) {
+				size = 500;
+				rounds = 10;
+			} else {
+				size = Integer.parseInt(arg);
+			}
+		}
+		Path folder = Files.createTempDirectory("version-check");
+		try {
+			String failure = shadowed(folder.resolve("shadowed"));
+			System.out.println("shadowed class file" + (failure == null ? " ok" : " FAILED " + failure));
+			String unlisted = null;
+			for (int workers = 1; workers <= 2 && unlisted == null; workers++) {
+				unlisted = shadowedUnlisted(folder.resolve("unlisted" + workers), workers);
+			}
+			System.out.println("shadowed class file in an unlisted folder" + (unlisted == null ? " ok" : unlisted.isEmpty() ? " skipped, folders can't be made unreadable" : " FAILED " + unlisted));
+			if (unlisted != null && unlisted.isEmpty()) {
+				unlisted = null;
+			}
+			String churn = churn(folder.resolve("churn"), size, rounds);
+			System.out.println("random changes" + (churn == null ? " ok" : " FAILED " + churn));
+			if (failure != null || unlisted != null || churn != null) {
+				System.exit(1);
+			}
+		} finally {
+			delete(folder);
+		}
+	}
+
+	/**
+	 * Removes a class file that shadows one of a later root, the shadowed class file uses fewer classes so some classes
+	 * are pruned by the rescan
+	 *
+	 * @return a description of the first failed check, or {@code null} if all checks passed
+	 */
+	private static String shadowed(Path folder) throws IOException {
+		Path first = folder.resolve("first");
+		Path second = folder.resolve("second");
+		Path shadowing = write(first, "check/X", "java/util/List", "java/util/ArrayList");
+		write(first, "check/Y", "check/X", "java/lang/String");
+		write(second, "check/X", "java/lang/Object");
+		DependencyScanner scanner = new DependencyScanner(Arrays.asList(first, second), ScanOptions.DEFAULT);
+		DependencyMapVersion before = scanner.getVersion();
+		Files.delete(shadowing);
+		DependencyChange change = scanner.rescan(Collections.singletonList(shadowing));
+		String failure = check(scanner, before, change);
+		if (failure != null) {
+			return failure;
+		}
+		if (scanner.getVersion().getVersion() != before.getVersion() + 1) {
+			return "the rescan made " + (scanner.getVersion().getVersion() - before.getVersion()) + " versions";
+		}
+		if (scanner.getVersion().contains("java.util.ArrayList") || !before.contains("java.util.ArrayList")) {
+			return "java.util.ArrayList was not pruned from the version";
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a class file that shadows one of a later root while the folder of the shadowed class file can't be
+	 * listed, the shadowed class file must be kept and used once its folder can be listed again
+	 *
+	 * @param workers	:	the amount of threads used by the scanner
+	 * @return a description of the first failed check, an empty string if the folder could be listed while made
+	 * unreadable (as when running as root), or {@code null} if all checks passed
+	 */
+	private static String shadowedUnlisted(Path folder, int workers) throws IOException {
+		Path first = folder.resolve("first");
+		Path second = folder.resolve("second");
+		Path shadowing = write(first, "check/X", "java/util/List", "java/util/ArrayList");
+		write(first, "check/Y", "check/X", "java/lang/String");
+		Path unlisted = write(second, "check/X", "java/lang/Object").getParent();
+		DependencyScanner scanner = new DependencyScanner(Arrays.asList(first, second), ScanOptions.DEFAULT.withWorkers(workers));
+		Set<PosixFilePermission> permissions;
+		try {
+			permissions = Files.getPosixFilePermissions(unlisted);
+			Files.setPosixFilePermissions(unlisted, PosixFilePermissions.fromString("---------"));
+		} catch (UnsupportedOperationException e) {
+			return "";
+		}
+		try {
+			if (Files.isReadable(unlisted)) {
+				return "";
+			}
+			DependencyMapVersion before = scanner.getVersion();
+			Files.delete(shadowing);
+			DependencyChange change = scanner.rescanChanges();
+			String failure = check(scanner, before, change);
+			if (failure != null) {
+				return "workers " + workers + ", folder unreadable: " + failure;
+			}
+		} finally {
+			Files.setPosixFilePermissions(unlisted, permissions);
+		}
+		DependencyMapVersion before = scanner.getVersion();
+		DependencyChange change = scanner.rescanChanges();
+		String failure = check(scanner, before, change);
+		if (failure != null) {
+			return "workers " + workers + ", folder readable again: " + failure;
+		}
+		if (!scanner.getDependencyMap().getDependencies("check.X").contains("java.lang.Object")) {
+			return "workers " + workers + ": the shadowed class file was not used once its folder could be listed";
+		}
+		return null;
+	}
+
+	/**
+	 * Changes, removes and restores random class files of a synthetic tree, rescanning some of them or the whole tree
+	 *
+	 * @return a description of the first failed check, or {@code null} if all checks passed
+	 */
+	private static String churn(Path folder, int size, int rounds) throws IOException {
+		SyntheticClasses original = new SyntheticClasses(size, SEED);
+		SyntheticClasses changed = new SyntheticClasses(size, SEED + 1);
+		original.writeFolder(folder);
+		DependencyScanner scanner = new DependencyScanner(Collections.singletonList(folder), ScanOptions.DEFAULT);
+		Random random = new Random(SEED);
+		for (int round = 0; round < rounds; round++) {
+			List<Path> touched = new ArrayList<Path>();
+			for (int i = 0; i < 10; i++) {
+				int c = random.nextInt(size);
+				Path file = folder.resolve(original.getClassName(c).replace('.', '/') + ".class");
+				int action = random.nextInt(3);
+				if (action == 0) {
+					Files.deleteIfExists(file);
+				} else {
+					Files.write(file, (action == 1 ? changed : original).toClassFile(c));
+				}
+				touched.add(file);
+			}
+			DependencyMapVersion before = scanner.getVersion();
+			DependencyChange change = round % 5 == 4 ? scanner.rescanChanges() : scanner.rescan(touched);
+			String failure = check(scanner, before, change);
+			if (failure != null) {
+				return "round " + round + ": " + failure;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param scanner	:	a scanner after a rescan
+	 * @param before	:	the version before the rescan
+	 * @param change	:	the changes reported by the rescan
+	 * @return a description of the first failed check, or {@code null} if all checks passed
+	 */
+	private static String check(DependencyScanner scanner, DependencyMapVersion before, DependencyChange change) {
+		DependencyMapVersion version = scanner.getVersion();
+		DependencyMapVersion.Diff stale = version.diff(new DependencyMapVersion(scanner.getDependencyMap(), scanner.getEngine()));
+		if (!stale.isEmpty()) {
+			return "the version differs from the dependency map: " + stale;
+		}
+		DependencyMapVersion.Diff diff = version.diff(before);
+		if (diff.getAddedEdges().size() != change.getAddedEdges().size() || diff.getRemovedEdges().size() != change.getRemovedEdges().size()
+				|| diff.getChangedEdges().size() != change.getChangedEdges().size()) {
+			return "the versions differ by " + diff + " but the rescan reported " + change;
+		}
+		return null;
+	}
+
+	/**
+	 * Writes a class file with a field of each of the given types
+	 *
+	 * @param root			:	the folder root where to write the class file
+	 * @param internalName	:	the internal name of the class
+	 * @param fieldTypes	:	the internal names of the types of its fields
+	 * @return the class file written
+	 */
+	private static Path write(Path root, String internalName, String... fieldTypes) throws IOException {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, "java/lang/Object", null);
+		for (int i = 0; i < fieldTypes.length; i++) {
+			writer.visitField(Opcodes.ACC_PRIVATE, "f" + i, "L" + fieldTypes[i] + ";", null, null).visitEnd();
+		}
+		writer.visitEnd();
+		Path file = root.resolve(internalName + ".class");
+		Files.createDirectories(file.getParent());
+		Files.write(file, writer.toByteArray());
+		return file;
+	}
+
+	private static void delete(Path folder) throws IOException {
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+}
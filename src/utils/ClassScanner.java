@@ -1,26 +1,73 @@
 package utils;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.LinkedList;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * This class scans a Path (folder or zip file) in search for java classes (.class files)
- * and for each one it will return an {@code InputStream object}
+ * This class scans a Path (folder or zip, jar, war or ear file) in search for java classes (.class files)
+ * and for each one it will return a {@code ClassSource} object, archives nested inside an archive are
+ * scanned too
+ * <p>
+ * Class files are not opened while scanning, each {@code ClassSource} opens its file only when
+ * {@link ClassSource#open()} is called, so the amount of open file descriptors only depends on how
+ * many classes are being read at the same time. When scanning an archive, the archive remains available
+ * until {@link ClassScanner#close()} is called.
+ * <p>
+ * Folders are walked with a {@code ParallelDirectoryWalker}, using a {@code ForkJoinPool} if one is given, and
+ * subfolders matching an excluded pattern are skipped. Each class file can be sent to a {@code Listener} as soon as
+ * it's found, before the whole folder or archive has been scanned. Once the scan finishes, class sources are sorted
+ * by name so the result doesn't depend on the order in which they were found.
+ * <p>
+ * Single class files of a folder, like those reported by a {@code WatchService}, can be read without scanning the
+ * folder again through {@link ClassScanner#fileSource(Path)}.
+ * <p>
  * 
  * @author Simon Emmanuel Gutierrez Brida
- * @version 0.1u
+ * @version 0.6u
  */
-public class ClassScanner {
+public class ClassScanner implements Closeable, Iterable<ClassSource> {
 	
-	private List<InputStream> istreams;
+	/**
+	 * Receives the class sources found by a scan
+	 */
+	public interface Listener {
+		
+		/**
+		 * Called for each class source as soon as it's found, when walking a folder with a {@code ForkJoinPool} it's
+		 * called from several threads at once
+		 * 
+		 * @param source	:	the class source found
+		 */
+		void found(ClassSource source);
+		
+	}
+	
+	private static final Comparator<ClassSource> BY_NAME = new Comparator<ClassSource>() {
+		@Override
+		public int compare(ClassSource a, ClassSource b) {
+			return a.getName().compareTo(b.getName());
+		}
+	};
+	
+	private List<ClassSource> sources;
 	private Path pathToScan;
+	private ZipFileScanner zipScanner;
+	private final ForkJoinPool pool;
+	private final List<String> excludedFolders;
+	private List<IOException> failures;
+	private List<Path> unreadablePaths;
 	
 	/**
 	 * Constructor
@@ -37,46 +84,139 @@ public class ClassScanner {
 	 * @param path	:	path to scan
 	 */
 	public ClassScanner(Path path) {
+		this(path, null, Collections.<String>emptyList());
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param path				:	path to scan
+	 * @param pool				:	the pool used to walk folders, or {@code null} to walk them in the calling thread
+	 * @param excludedFolders	:	glob patterns of the subfolders to skip, each one is matched against the name of
+	 * 								the subfolder and against its path relative to {@code path}
+	 */
+	public ClassScanner(Path path, ForkJoinPool pool, List<String> excludedFolders) {
 		this.pathToScan = path;
-		this.istreams = new LinkedList<InputStream>();
+		this.sources = new ArrayList<ClassSource>();
+		this.pool = pool;
+		this.excludedFolders = new ArrayList<String>(excludedFolders);
+		this.failures = Collections.emptyList();
+		this.unreadablePaths = Collections.emptyList();
+	}
+	
+	/**
+	 * Creates the {@code ClassSource} of a single .class file, named as if it was found by scanning the folder
+	 * containing it
+	 * 
+	 * @param file	:	the .class file, as a path resolved against the absolute path of the scanned folder
+	 * @return a class source for {@code file}
+	 * @throws IOException if the attributes of {@code file} can't be read
+	 */
+	public static ClassSource fileSource(Path file) throws IOException {
+		BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+		return new FileClassSource(file, attrs.size(), attrs.lastModifiedTime().toMillis());
 	}
 	
 	/**
-	 * Scans a path (folder or zip file) and creates an {@code InputStream} for each .class file
+	 * Scans a path (folder or archive) and creates a {@code ClassSource} for each .class file
 	 * 
 	 * @throws IllegalStateException
 	 * @throws IOException
 	 */
 	public void scan() throws IllegalStateException, IOException {
-		this.istreams.clear();
+		scan(null);
+	}
+	
+	/**
+	 * Scans a path (folder or archive) and creates a {@code ClassSource} for each .class file, sending each one to
+	 * {@code listener} as soon as it's found
+	 * 
+	 * @param listener	:	the listener receiving the class sources found, or {@code null}
+	 * @throws IllegalStateException
+	 * @throws IOException
+	 */
+	public void scan(final Listener listener) throws IllegalStateException, IOException {
+		close();
+		this.sources.clear();
+		this.failures = Collections.emptyList();
+		this.unreadablePaths = Collections.emptyList();
 		File folderOrZipToScan = this.pathToScan.toFile();
 		if (!folderOrZipToScan.exists()) {
 			throw new IllegalStateException("ClassScanner was constructed with a path to a file or folder that doesn't exist");
-		} else if (folderOrZipToScan.isFile() && !folderOrZipToScan.getName().endsWith(".zip")) {
-			throw new IllegalStateException("ClassScanner was constructed to a path that refers to a file that is not a zip");
+		} else if (folderOrZipToScan.isFile() && !ZipFileScanner.isArchive(folderOrZipToScan.getName())) {
+			throw new IllegalStateException("ClassScanner was constructed to a path that refers to a file that is not a zip, jar, war or ear");
 		}
 		if (folderOrZipToScan.isFile()) {
-			ZipFileScanner zipScanner = new ZipFileScanner(this.pathToScan, "\\.class$");
-			zipScanner.scan();
-			this.istreams = zipScanner.getInputStreams();
-		} else {
-			FileVisitor fileVisitor = new FileVisitor("**.class");
-	 
-			Files.walkFileTree(this.pathToScan, fileVisitor);
-	 
-			for (Path matchedPath : fileVisitor.getMatchedPaths()) {
-				InputStream is = new FileInputStream(matchedPath.toFile());
-				this.istreams.add(is);
+			this.zipScanner = new ZipFileScanner(this.pathToScan, "\\.class$");
+			this.zipScanner.scan();
+			this.sources.addAll(this.zipScanner.getClassSources());
+			if (listener != null) {
+				for (ClassSource source : this.sources) {
+					listener.found(source);
+				}
 			}
-			
+		} else {
+			final ConcurrentLinkedQueue<ClassSource> found = new ConcurrentLinkedQueue<ClassSource>();
+			ParallelDirectoryWalker walker = new ParallelDirectoryWalker(this.pathToScan.toAbsolutePath(), ".class", this.excludedFolders);
+			walker.walk(this.pool, new ParallelDirectoryWalker.Listener() {
+				@Override
+				public void found(Path file, BasicFileAttributes attrs) {
+					ClassSource source = new FileClassSource(file, attrs.size(), attrs.lastModifiedTime().toMillis());
+					found.add(source);
+					if (listener != null) {
+						listener.found(source);
+					}
+				}
+			});
+			this.sources.addAll(found);
+			this.failures = walker.getFailures();
+			this.unreadablePaths = walker.getUnreadablePaths();
 		}
+		Collections.sort(this.sources, BY_NAME);
 	}
 	
 	/**
-	 * @return all the {@code InputStream} created with method {@code scan()}
+	 * @return the exceptions thrown while reading subfolders or file attributes during the last scan, the class files
+	 * 			that could not be reached are not included in the scan
 	 */
-	public List<InputStream> getInputStreams() {
-		return this.istreams;
+	public List<IOException> getFailures() {
+		return this.failures;
+	}
+	
+	/**
+	 * @return the subfolders that could not be listed and the files whose attributes could not be read during the last
+	 * 			scan, as absolute paths, without those that no longer exist. Class files under them may exist even if
+	 * 			they were not found
+	 */
+	public List<Path> getUnreadablePaths() {
+		return this.unreadablePaths;
+	}
+	
+	/**
+	 * @return all the {@code ClassSource} created with method {@code scan()}
+	 */
+	public List<ClassSource> getClassSources() {
+		return Collections.unmodifiableList(this.sources);
+	}
+	
+	@Override
+	public Iterator<ClassSource> iterator() {
+		return getClassSources().iterator();
+	}
+	
+	/**
+	 * Releases any resource kept open by the last call to {@code scan()}, class sources obtained from
+	 * this scanner can't be opened after calling this method
+	 * 
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.zipScanner != null) {
+			ZipFileScanner zipScanner = this.zipScanner;
+			this.zipScanner = null;
+			zipScanner.close();
+		}
 	}
 	
 }
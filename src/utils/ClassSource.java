@@ -0,0 +1,42 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A handle to a class file found while scanning a folder or zip file.
+ * <p>
+ * Creating a {@code ClassSource} does not open the underlying file, a stream is only opened when calling
+ * {@link ClassSource#open()} and it's up to the caller to close it once the class has been read.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public interface ClassSource {
+	
+	/**
+	 * @return the name of this source, the absolute path of a file or the path of a zip file followed by {@code !/}
+	 * and the name of the entry
+	 */
+	String getName();
+	
+	/**
+	 * @return the size in bytes of the class file, or {@code -1} if unknown
+	 */
+	long getSize();
+	
+	/**
+	 * @return the last modification time of the class file in milliseconds since the epoch, or {@code -1} if unknown
+	 */
+	long getLastModified();
+	
+	/**
+	 * Opens a new stream to read the class file
+	 * 
+	 * @return a new {@code InputStream} for the class file, the caller is responsible of closing it
+	 * @throws IOException
+	 */
+	InputStream open() throws IOException;
+
+}
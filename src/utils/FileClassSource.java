@@ -0,0 +1,58 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A {@code ClassSource} backed by a .class file
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+class FileClassSource implements ClassSource {
+	
+	private final Path path;
+	private final long size;
+	private final long lastModified;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param path			:	path to the .class file
+	 * @param size			:	the size of the file
+	 * @param lastModified	:	the last modification time of the file
+	 */
+	FileClassSource(Path path, long size, long lastModified) {
+		this.path = path;
+		this.size = size;
+		this.lastModified = lastModified;
+	}
+
+	@Override
+	public String getName() {
+		return this.path.toString();
+	}
+
+	@Override
+	public long getSize() {
+		return this.size;
+	}
+
+	@Override
+	public long getLastModified() {
+		return this.lastModified;
+	}
+
+	@Override
+	public InputStream open() throws IOException {
+		return Files.newInputStream(this.path);
+	}
+	
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+}
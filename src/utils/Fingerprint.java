@@ -0,0 +1,112 @@
+package utils;
+
+/**
+ * The fingerprint of a class file, used to know if a class file changed between two scans.
+ * <p>
+ * A fingerprint is made of the size and last modification time of the file, and optionally a hash of its
+ * contents. Two fingerprints with the same size and modification time are considered equal without looking at
+ * the hash, if size or modification time differ but both fingerprints have a hash, the contents are considered
+ * unchanged when the hashes are equal.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class Fingerprint {
+	
+	/**
+	 * Value used when the contents hash was not calculated
+	 */
+	public static final long NO_HASH = -1L;
+	
+	private final long size;
+	private final long lastModified;
+	private final long hash;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param size			:	the size of the class file
+	 * @param lastModified	:	the last modification time of the class file
+	 * @param hash			:	a hash of the class file contents (a non negative value) or {@link Fingerprint#NO_HASH}
+	 */
+	public Fingerprint(long size, long lastModified, long hash) {
+		this.size = size;
+		this.lastModified = lastModified;
+		this.hash = hash;
+	}
+	
+	/**
+	 * Constructor for a fingerprint with no contents hash
+	 * 
+	 * @param size			:	the size of the class file
+	 * @param lastModified	:	the last modification time of the class file
+	 */
+	public Fingerprint(long size, long lastModified) {
+		this(size, lastModified, NO_HASH);
+	}
+	
+	/**
+	 * @return the size of the class file
+	 */
+	public long getSize() {
+		return this.size;
+	}
+	
+	/**
+	 * @return the last modification time of the class file
+	 */
+	public long getLastModified() {
+		return this.lastModified;
+	}
+	
+	/**
+	 * @return the hash of the class file contents, or {@link Fingerprint#NO_HASH}
+	 */
+	public long getHash() {
+		return this.hash;
+	}
+	
+	/**
+	 * @return {@code true} if this fingerprint has a contents hash
+	 */
+	public boolean hasHash() {
+		return this.hash != NO_HASH;
+	}
+	
+	/**
+	 * @param other	:	another fingerprint
+	 * @return {@code true} if both fingerprints have the same size and modification time
+	 */
+	public boolean sameAttributes(Fingerprint other) {
+		return this.size == other.size && this.lastModified == other.lastModified;
+	}
+	
+	/**
+	 * @param other	:	another fingerprint
+	 * @return {@code true} if both fingerprints have a hash and the hashes are equal
+	 */
+	public boolean sameContents(Fingerprint other) {
+		return hasHash() && other.hasHash() && this.hash == other.hash;
+	}
+	
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (!(other instanceof Fingerprint)) return false;
+		Fingerprint otherFingerprint = (Fingerprint) other;
+		return this.size == otherFingerprint.size && this.lastModified == otherFingerprint.lastModified && this.hash == otherFingerprint.hash;
+	}
+	
+	@Override
+	public int hashCode() {
+		long combined = this.size * 31 + this.lastModified * 17 + this.hash;
+		return (int) (combined ^ (combined >>> 32));
+	}
+	
+	@Override
+	public String toString() {
+		return "size " + this.size + ", modified " + this.lastModified + (hasHash() ? ", hash " + Long.toHexString(this.hash) : "");
+	}
+
+}
@@ -0,0 +1,96 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code int} values that avoids boxing
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class IntList {
+	
+	private int[] values;
+	private int size;
+	
+	/**
+	 * Constructor
+	 */
+	public IntList() {
+		this(16);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param initialCapacity	:	the initial capacity of the list
+	 */
+	public IntList(int initialCapacity) {
+		this.values = new int[Math.max(initialCapacity, 1)];
+		this.size = 0;
+	}
+	
+	/**
+	 * Appends a value at the end of the list
+	 * 
+	 * @param value	:	the value to add
+	 */
+	public void add(int value) {
+		if (this.size == this.values.length) {
+			this.values = Arrays.copyOf(this.values, this.size << 1);
+		}
+		this.values[this.size++] = value;
+	}
+	
+	/**
+	 * @param index	:	a position in the list
+	 * @return the value at {@code index}
+	 */
+	public int get(int index) {
+		if (index >= this.size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds (size " + this.size + ")");
+		}
+		return this.values[index];
+	}
+	
+	/**
+	 * Removes and returns the last value of the list
+	 * 
+	 * @return the removed value
+	 */
+	public int removeLast() {
+		if (this.size == 0) {
+			throw new IndexOutOfBoundsException("The list is empty");
+		}
+		return this.values[--this.size];
+	}
+	
+	/**
+	 * @return the amount of values in the list
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * @return {@code true} if the list has no values
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+	
+	/**
+	 * Removes all values from the list, keeping its capacity
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+	
+	/**
+	 * @return a new array with the values of this list
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(this.values, this.size);
+	}
+
+}
@@ -0,0 +1,208 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from {@code long} keys to {@code int} values that avoids boxing
+ * <p>
+ * Entries are kept in open addressing tables with linear probing, removed entries are deleted by shifting back the
+ * entries that follow them so lookups never have to skip deleted slots.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public class LongIntMap {
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int size;
+	private int threshold;
+
+	/**
+	 * Constructor
+	 */
+	public LongIntMap() {
+		this(16);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param expectedSize	:	the amount of entries the map should hold without growing
+	 */
+	public LongIntMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 8) - 1) << 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * @param key			:	the key to search for
+	 * @param defaultValue	:	the value to return if the map has no entry for {@code key}
+	 * @return the value associated with {@code key}, or {@code defaultValue}
+	 */
+	public int get(long key, int defaultValue) {
+		int slot = find(key);
+		return slot < 0 ? defaultValue : this.values[slot];
+	}
+
+	/**
+	 * @param key	:	the key to search for
+	 * @return {@code true} if the map has an entry for {@code key}
+	 */
+	public boolean containsKey(long key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Associates a value with a key, replacing any previous value
+	 *
+	 * @param key	:	the key
+	 * @param value	:	the value
+	 */
+	public void put(long key, int value) {
+		int slot = slot(key);
+		this.values[slot] = value;
+	}
+
+	/**
+	 * Adds an amount to the value associated with a key, a key with no entry is considered to have the value
+	 * {@code 0}
+	 *
+	 * @param key	:	the key
+	 * @param delta	:	the amount to add
+	 * @return the new value associated with {@code key}
+	 */
+	public int add(long key, int delta) {
+		int slot = slot(key);
+		return this.values[slot] += delta;
+	}
+
+	/**
+	 * Removes the entry of a key
+	 *
+	 * @param key			:	the key to remove
+	 * @param defaultValue	:	the value to return if the map has no entry for {@code key}
+	 * @return the value that was associated with {@code key}, or {@code defaultValue}
+	 */
+	public int remove(long key, int defaultValue) {
+		int slot = find(key);
+		if (slot < 0) {
+			return defaultValue;
+		}
+		int value = this.values[slot];
+		int mask = this.keys.length - 1;
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (this.used[next]) {
+			int home = hash(this.keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				this.keys[gap] = this.keys[next];
+				this.values[gap] = this.values[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		this.used[gap] = false;
+		this.values[gap] = 0;
+		this.size--;
+		return value;
+	}
+
+	/**
+	 * @return the amount of entries in the map
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return {@code true} if the map has no entries
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Removes all entries from the map, keeping its capacity
+	 */
+	public void clear() {
+		Arrays.fill(this.used, false);
+		Arrays.fill(this.values, 0);
+		this.size = 0;
+	}
+
+	/**
+	 * @param key	:	the key to search for
+	 * @return the slot holding {@code key}, or {@code -1} if the map has no entry for it
+	 */
+	private int find(long key) {
+		int mask = this.keys.length - 1;
+		int slot = hash(key) & mask;
+		while (this.used[slot]) {
+			if (this.keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param key	:	the key to search for
+	 * @return the slot holding {@code key}, a new entry with value {@code 0} is created if the map has none
+	 */
+	private int slot(long key) {
+		int mask = this.keys.length - 1;
+		int slot = hash(key) & mask;
+		while (this.used[slot]) {
+			if (this.keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (this.size >= this.threshold) {
+			grow();
+			return slot(key);
+		}
+		this.used[slot] = true;
+		this.keys[slot] = key;
+		this.size++;
+		return slot;
+	}
+
+	private void grow() {
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		boolean[] oldUsed = this.used;
+		allocate(oldKeys.length << 1);
+		int mask = this.keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (this.used[slot]) {
+					slot = (slot + 1) & mask;
+				}
+				this.used[slot] = true;
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		this.used = new boolean[capacity];
+		this.threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
@@ -0,0 +1,218 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walks a directory tree in search for files with a given suffix, using a {@code ForkJoinPool} to list each
+ * subdirectory in its own task
+ * <p>
+ * Each file found is sent to a {@code Listener} as soon as it's found, so its processing can start while the rest of
+ * the tree is still being walked. Subdirectories matching an excluded pattern are not listed at all. Symbolic links
+ * to files are followed, symbolic links to directories are not (as with {@code Files.walkFileTree}), so the walk
+ * always ends.
+ * <p>
+ * Directories that can't be listed, and files whose attributes can't be read, are skipped and the exceptions are kept
+ * in {@link ParallelDirectoryWalker#getFailures()}, only a failure to list the root directory is thrown. Those that
+ * still exist are kept in {@link ParallelDirectoryWalker#getUnreadablePaths()}, files under them may exist even if
+ * they were not found.
+ * <p>
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+public class ParallelDirectoryWalker {
+	
+	/**
+	 * Receives the files found by a walk
+	 */
+	public interface Listener {
+		
+		/**
+		 * Called for each file found, when walking with a {@code ForkJoinPool} it's called from several threads at once
+		 * 
+		 * @param file	:	the file found
+		 * @param attrs	:	the attributes of the file
+		 */
+		void found(Path file, BasicFileAttributes attrs);
+		
+	}
+	
+	private final Path root;
+	private final String suffix;
+	private final List<PathMatcher> excluded;
+	private final ConcurrentLinkedQueue<IOException> failures;
+	private final ConcurrentLinkedQueue<Path> unreadablePaths;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param root					:	the directory to walk
+	 * @param suffix				:	the suffix of the names of the files to find, for example {@code ".class"}
+	 * @param excludedDirectories	:	glob patterns of the subdirectories to skip, each one is matched against the
+	 * 									name of the subdirectory and against its path relative to {@code root}
+	 */
+	public ParallelDirectoryWalker(Path root, String suffix, List<String> excludedDirectories) {
+		this.root = root;
+		this.suffix = suffix;
+		this.excluded = new ArrayList<PathMatcher>(excludedDirectories.size());
+		FileSystem fileSystem = root.getFileSystem();
+		for (String pattern : excludedDirectories) {
+			this.excluded.add(fileSystem.getPathMatcher("glob:" + pattern));
+		}
+		this.failures = new ConcurrentLinkedQueue<IOException>();
+		this.unreadablePaths = new ConcurrentLinkedQueue<Path>();
+	}
+	
+	/**
+	 * Walks the directory tree
+	 * 
+	 * @param pool		:	the pool used to list subdirectories, or {@code null} to walk the tree in the calling thread
+	 * @param listener	:	the listener receiving the files found
+	 * @throws IOException if the root directory can't be listed
+	 */
+	public void walk(ForkJoinPool pool, Listener listener) throws IOException {
+		this.failures.clear();
+		this.unreadablePaths.clear();
+		List<Path> subdirectories = new ArrayList<Path>();
+		list(this.root, listener, subdirectories);
+		if (pool == null) {
+			Deque<Path> pending = new ArrayDeque<Path>(subdirectories);
+			while (!pending.isEmpty()) {
+				subdirectories.clear();
+				Path dir = pending.pop();
+				try {
+					list(dir, listener, subdirectories);
+				} catch (IOException e) {
+					failed(dir, e);
+				}
+				for (int i = subdirectories.size() - 1; i >= 0; i--) {
+					pending.push(subdirectories.get(i));
+				}
+			}
+		} else if (!subdirectories.isEmpty()) {
+			pool.invoke(new WalkTask(subdirectories, listener));
+		}
+	}
+	
+	/**
+	 * @return the exceptions thrown while listing subdirectories or reading attributes during the last walk
+	 */
+	public List<IOException> getFailures() {
+		return Collections.unmodifiableList(new ArrayList<IOException>(this.failures));
+	}
+	
+	/**
+	 * @return the directories that could not be listed and the files whose attributes could not be read during the last
+	 * 			walk, without those that no longer exist
+	 */
+	public List<Path> getUnreadablePaths() {
+		return Collections.unmodifiableList(new ArrayList<Path>(this.unreadablePaths));
+	}
+	
+	/**
+	 * Records a directory that could not be listed or a file whose attributes could not be read
+	 */
+	private void failed(Path path, IOException e) {
+		this.failures.add(e);
+		if (!(e instanceof NoSuchFileException)) {
+			this.unreadablePaths.add(path);
+		}
+	}
+	
+	/**
+	 * Lists a directory, sending the files found to the listener and collecting the subdirectories not excluded
+	 * 
+	 * @param dir				:	the directory to list
+	 * @param listener			:	the listener receiving the files found
+	 * @param subdirectories	:	where to add the subdirectories to walk
+	 * @throws IOException if the directory can't be listed
+	 */
+	private void list(Path dir, Listener listener, List<Path> subdirectories) throws IOException {
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+			for (Path entry : entries) {
+				BasicFileAttributes attrs;
+				try {
+					attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					if (attrs.isSymbolicLink() && entry.getFileName().toString().endsWith(this.suffix)) {
+						attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+					}
+				} catch (IOException e) {
+					failed(entry, e);
+					continue;
+				}
+				if (attrs.isDirectory() && !attrs.isSymbolicLink()) {
+					if (!isExcluded(entry)) {
+						subdirectories.add(entry);
+					}
+				} else if (attrs.isRegularFile() && entry.getFileName().toString().endsWith(this.suffix)) {
+					listener.found(entry, attrs);
+				}
+			}
+		}
+	}
+	
+	private boolean isExcluded(Path dir) {
+		if (this.excluded.isEmpty()) {
+			return false;
+		}
+		Path name = dir.getFileName();
+		Path relative = this.root.relativize(dir);
+		for (PathMatcher matcher : this.excluded) {
+			if (matcher.matches(name) || matcher.matches(relative)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Lists some directories, forking a task for the subdirectories of each one
+	 */
+	private final class WalkTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final List<Path> dirs;
+		private final Listener listener;
+		
+		WalkTask(List<Path> dirs, Listener listener) {
+			this.dirs = dirs;
+			this.listener = listener;
+		}
+		
+		@Override
+		protected void compute() {
+			List<WalkTask> tasks = new ArrayList<WalkTask>(this.dirs.size());
+			for (Path dir : this.dirs) {
+				List<Path> subdirectories = new ArrayList<Path>();
+				try {
+					list(dir, this.listener, subdirectories);
+				} catch (IOException e) {
+					failed(dir, e);
+				}
+				if (!subdirectories.isEmpty()) {
+					tasks.add(new WalkTask(subdirectories, this.listener));
+				}
+			}
+			invokeAll(tasks);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,611 @@
+package utils;
+
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable hash map where updates return a new map sharing all the unchanged parts of the previous one
+ * <p>
+ * Entries are kept in a hash array mapped trie: each branch uses 5 bits of the hash of the keys to select one of up
+ * to 32 children, stored in an array as long as the amount of children present (a bitmap tells which ones are). An
+ * update copies only the branches on the path to the entry, so it allocates {@code O(log n)} objects and every map
+ * obtained before it stays valid and unchanged. Keys with the same hash are kept together in a collision node. Maps
+ * are kept in a canonical form, a branch with a single entry is replaced by the entry, so two maps with the same
+ * entries built by different updates share as much as possible.
+ * <p>
+ * {@link PersistentMap#diff(PersistentMap, DiffVisitor)} compares two maps skipping the branches they share, so
+ * comparing a map with the one it was derived from costs time proportional to the changes, not to the size of the maps.
+ * Values are compared with {@code equals}. Keys and values can't be {@code null}, and maps are safe to share between
+ * threads.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+	/**
+	 * Receives the differences found by {@link PersistentMap#diff(PersistentMap, DiffVisitor)}
+	 */
+	public interface DiffVisitor<K, V> {
+
+		/**
+		 * Called for each entry of the newer map whose key is not in the older one
+		 *
+		 * @param key	:	the key added
+		 * @param value	:	its value
+		 */
+		void added(K key, V value);
+
+		/**
+		 * Called for each entry of the older map whose key is not in the newer one
+		 *
+		 * @param key	:	the key removed
+		 * @param value	:	its value in the older map
+		 */
+		void removed(K key, V value);
+
+		/**
+		 * Called for each key in both maps whose values are not equal
+		 *
+		 * @param key		:	the key changed
+		 * @param previous	:	its value in the older map
+		 * @param value		:	its value in the newer map
+		 */
+		void changed(K key, V previous, V value);
+
+	}
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	/**
+	 * The maximum depth of a trie, the amount of 5 bit groups in a 32 bit hash, plus one level of collision nodes
+	 */
+	private static final int MAX_DEPTH = 8;
+	private static final PersistentMap<Object, Object> EMPTY = new PersistentMap<Object, Object>(new Branch(0, new Object[0]), 0);
+
+	/**
+	 * The root of the trie, always a {@code Branch}
+	 */
+	private final Branch root;
+	private final int size;
+	private Set<K> keySet;
+
+	private PersistentMap(Branch root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * @return the empty map
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentMap<K, V> empty() {
+		return (PersistentMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * @return the amount of entries of this map
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return {@code true} if this map has no entries
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @param key	:	a key
+	 * @return the value associated to {@code key}, or {@code null} if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int hash = hash(key);
+		Object node = this.root;
+		int shift = 0;
+		while (true) {
+			if (node instanceof Branch) {
+				Branch branch = (Branch) node;
+				int bit = 1 << ((hash >>> shift) & MASK);
+				if ((branch.bitmap & bit) == 0) {
+					return null;
+				}
+				node = branch.children[Integer.bitCount(branch.bitmap & (bit - 1))];
+				shift += BITS;
+			} else if (node instanceof Leaf) {
+				Leaf<K, V> leaf = (Leaf<K, V>) node;
+				return leaf.hash == hash && leaf.key.equals(key) ? leaf.value : null;
+			} else {
+				Collision collision = (Collision) node;
+				if (collision.hash != hash) {
+					return null;
+				}
+				for (Leaf<?, ?> leaf : collision.leaves) {
+					if (leaf.key.equals(key)) {
+						return (V) leaf.value;
+					}
+				}
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * @param key	:	a key
+	 * @return {@code true} if this map has a value for {@code key}
+	 */
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * @param key	:	a key
+	 * @param value	:	the value to associate to {@code key}
+	 * @return a map with the entries of this one and {@code value} associated to {@code key}, this map if it already
+	 * associated an equal value to {@code key}
+	 * @throws IllegalArgumentException if {@code key} or {@code value} is {@code null}
+	 */
+	public PersistentMap<K, V> put(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("PersistentMap doesn't support null keys nor values");
+		}
+		Leaf<K, V> leaf = new Leaf<K, V>(key, value, hash(key));
+		int[] added = new int[1];
+		Object root = put(this.root, leaf, 0, added);
+		return root == this.root ? this : new PersistentMap<K, V>((Branch) root, this.size + added[0]);
+	}
+
+	/**
+	 * @param key	:	a key
+	 * @return a map with the entries of this one except the one of {@code key}, this map if it had no value for
+	 * {@code key}
+	 */
+	public PersistentMap<K, V> remove(Object key) {
+		if (key == null) {
+			return this;
+		}
+		Object root = remove(this.root, key, hash(key), 0);
+		if (root == this.root) {
+			return this;
+		}
+		if (!(root instanceof Branch)) {
+			root = root == null ? new Branch(0, new Object[0]) : new Branch(1 << (nodeHash(root) & MASK), new Object[] {root});
+		}
+		return new PersistentMap<K, V>((Branch) root, this.size - 1);
+	}
+
+	/**
+	 * @return a read only view of the keys of this map
+	 */
+	public Set<K> keySet() {
+		if (this.keySet == null) {
+			this.keySet = new AbstractSet<K>() {
+				@Override
+				public Iterator<K> iterator() {
+					final Iterator<Map.Entry<K, V>> entries = PersistentMap.this.iterator();
+					return new Iterator<K>() {
+						@Override
+						public boolean hasNext() {
+							return entries.hasNext();
+						}
+
+						@Override
+						public K next() {
+							return entries.next().getKey();
+						}
+					};
+				}
+
+				@Override
+				public boolean contains(Object key) {
+					return containsKey(key);
+				}
+
+				@Override
+				public int size() {
+					return PersistentMap.this.size;
+				}
+			};
+		}
+		return this.keySet;
+	}
+
+	/**
+	 * @return an iterator over the entries of this map, in no particular order
+	 */
+	@Override
+	public Iterator<Map.Entry<K, V>> iterator() {
+		return new EntryIterator<K, V>(this.root);
+	}
+
+	/**
+	 * Reports the differences between an older map and this one, the branches shared by both maps are not visited
+	 *
+	 * @param older		:	the map to compare with
+	 * @param visitor	:	receives the entries added, removed and changed from {@code older} to this map
+	 */
+	public void diff(PersistentMap<K, V> older, DiffVisitor<K, V> visitor) {
+		diff(this.root, older.root, visitor);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		for (Map.Entry<K, V> entry : this) {
+			if (result.length() > 1) {
+				result.append(", ");
+			}
+			result.append(entry.getKey()).append('=').append(entry.getValue());
+		}
+		return result.append('}').toString();
+	}
+
+	/**
+	 * @param node		:	a branch, leaf or collision node
+	 * @param leaf		:	the entry to add
+	 * @param shift		:	the position of the bits of the hash used by {@code node}
+	 * @param added		:	where to count the entry if its key was not in {@code node}
+	 * @return the updated node, or {@code node} if it already had the entry
+	 */
+	private static Object put(Object node, Leaf<?, ?> leaf, int shift, int[] added) {
+		if (node instanceof Branch) {
+			Branch branch = (Branch) node;
+			int bit = 1 << ((leaf.hash >>> shift) & MASK);
+			int index = Integer.bitCount(branch.bitmap & (bit - 1));
+			if ((branch.bitmap & bit) == 0) {
+				added[0]++;
+				Object[] children = new Object[branch.children.length + 1];
+				System.arraycopy(branch.children, 0, children, 0, index);
+				children[index] = leaf;
+				System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+				return new Branch(branch.bitmap | bit, children);
+			}
+			Object child = branch.children[index];
+			Object updated = put(child, leaf, shift + BITS, added);
+			if (updated == child) {
+				return branch;
+			}
+			Object[] children = branch.children.clone();
+			children[index] = updated;
+			return new Branch(branch.bitmap, children);
+		} else if (node instanceof Leaf) {
+			Leaf<?, ?> current = (Leaf<?, ?>) node;
+			if (current.hash == leaf.hash && current.key.equals(leaf.key)) {
+				return current.value.equals(leaf.value) ? current : leaf;
+			}
+			added[0]++;
+			return join(current, current.hash, leaf, shift);
+		} else {
+			Collision collision = (Collision) node;
+			if (collision.hash != leaf.hash) {
+				added[0]++;
+				return join(collision, collision.hash, leaf, shift);
+			}
+			for (int i = 0; i < collision.leaves.length; i++) {
+				if (collision.leaves[i].key.equals(leaf.key)) {
+					if (collision.leaves[i].value.equals(leaf.value)) {
+						return collision;
+					}
+					Leaf<?, ?>[] leaves = collision.leaves.clone();
+					leaves[i] = leaf;
+					return new Collision(collision.hash, leaves);
+				}
+			}
+			added[0]++;
+			Leaf<?, ?>[] leaves = new Leaf<?, ?>[collision.leaves.length + 1];
+			System.arraycopy(collision.leaves, 0, leaves, 0, collision.leaves.length);
+			leaves[collision.leaves.length] = leaf;
+			return new Collision(collision.hash, leaves);
+		}
+	}
+
+	/**
+	 * Joins a leaf or collision node with an entry whose key is different
+	 *
+	 * @param node	:	a leaf or collision node
+	 * @param hash	:	the hash of the keys of {@code node}
+	 * @param leaf	:	the entry to add
+	 * @param shift	:	the position of the bits of the hash used by the node to create
+	 * @return a collision node if both hashes are equal, a branch holding both otherwise
+	 */
+	private static Object join(Object node, int hash, Leaf<?, ?> leaf, int shift) {
+		if (hash == leaf.hash) {
+			Leaf<?, ?>[] leaves;
+			if (node instanceof Leaf) {
+				leaves = new Leaf<?, ?>[] {(Leaf<?, ?>) node, leaf};
+			} else {
+				Leaf<?, ?>[] current = ((Collision) node).leaves;
+				leaves = new Leaf<?, ?>[current.length + 1];
+				System.arraycopy(current, 0, leaves, 0, current.length);
+				leaves[current.length] = leaf;
+			}
+			return new Collision(hash, leaves);
+		}
+		int nodeIndex = (hash >>> shift) & MASK;
+		int leafIndex = (leaf.hash >>> shift) & MASK;
+		if (nodeIndex == leafIndex) {
+			return new Branch(1 << nodeIndex, new Object[] {join(node, hash, leaf, shift + BITS)});
+		}
+		return new Branch((1 << nodeIndex) | (1 << leafIndex), nodeIndex < leafIndex ? new Object[] {node, leaf} : new Object[] {leaf, node});
+	}
+
+	/**
+	 * @param node	:	a branch, leaf or collision node
+	 * @param key	:	the key to remove
+	 * @param hash	:	the hash of {@code key}
+	 * @param shift	:	the position of the bits of the hash used by {@code node}
+	 * @return the updated node, {@code null} if it became empty, or {@code node} if it didn't have {@code key}. A
+	 * branch left with a single leaf or collision node is replaced by it
+	 */
+	private static Object remove(Object node, Object key, int hash, int shift) {
+		if (node instanceof Branch) {
+			Branch branch = (Branch) node;
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((branch.bitmap & bit) == 0) {
+				return branch;
+			}
+			int index = Integer.bitCount(branch.bitmap & (bit - 1));
+			Object child = branch.children[index];
+			Object updated = remove(child, key, hash, shift + BITS);
+			if (updated == child) {
+				return branch;
+			}
+			if (updated == null) {
+				if (branch.children.length == 2 && !(branch.children[1 - index] instanceof Branch)) {
+					return branch.children[1 - index];
+				}
+				Object[] children = new Object[branch.children.length - 1];
+				System.arraycopy(branch.children, 0, children, 0, index);
+				System.arraycopy(branch.children, index + 1, children, index, children.length - index);
+				return new Branch(branch.bitmap & ~bit, children);
+			}
+			if (branch.children.length == 1 && !(updated instanceof Branch)) {
+				return updated;
+			}
+			Object[] children = branch.children.clone();
+			children[index] = updated;
+			return new Branch(branch.bitmap, children);
+		} else if (node instanceof Leaf) {
+			Leaf<?, ?> leaf = (Leaf<?, ?>) node;
+			return leaf.hash == hash && leaf.key.equals(key) ? null : leaf;
+		} else {
+			Collision collision = (Collision) node;
+			if (collision.hash != hash) {
+				return collision;
+			}
+			for (int i = 0; i < collision.leaves.length; i++) {
+				if (collision.leaves[i].key.equals(key)) {
+					if (collision.leaves.length == 2) {
+						return collision.leaves[1 - i];
+					}
+					Leaf<?, ?>[] leaves = new Leaf<?, ?>[collision.leaves.length - 1];
+					System.arraycopy(collision.leaves, 0, leaves, 0, i);
+					System.arraycopy(collision.leaves, i + 1, leaves, i, leaves.length - i);
+					return new Collision(hash, leaves);
+				}
+			}
+			return collision;
+		}
+	}
+
+	/**
+	 * Compares two nodes at the same position of two tries, descending only into branches that are not shared
+	 *
+	 * @param newer		:	a node of the newer trie, or {@code null}
+	 * @param older		:	a node of the older trie, or {@code null}
+	 * @param visitor	:	receives the differences
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K, V> void diff(Object newer, Object older, DiffVisitor<K, V> visitor) {
+		if (newer == older) {
+			return;
+		}
+		if (newer instanceof Branch && older instanceof Branch) {
+			Branch newerBranch = (Branch) newer;
+			Branch olderBranch = (Branch) older;
+			int bitmap = newerBranch.bitmap | olderBranch.bitmap;
+			while (bitmap != 0) {
+				int bit = Integer.lowestOneBit(bitmap);
+				bitmap &= ~bit;
+				Object newerChild = (newerBranch.bitmap & bit) == 0 ? null : newerBranch.children[Integer.bitCount(newerBranch.bitmap & (bit - 1))];
+				Object olderChild = (olderBranch.bitmap & bit) == 0 ? null : olderBranch.children[Integer.bitCount(olderBranch.bitmap & (bit - 1))];
+				diff(newerChild, olderChild, visitor);
+			}
+			return;
+		}
+		// the tries have different shapes here, which only happens around the entries that changed
+		Map<Object, Leaf<K, V>> previous = new HashMap<Object, Leaf<K, V>>();
+		if (older != null) {
+			for (Iterator<Map.Entry<K, V>> entries = new EntryIterator<K, V>(older); entries.hasNext();) {
+				Leaf<K, V> leaf = (Leaf<K, V>) entries.next();
+				previous.put(leaf.key, leaf);
+			}
+		}
+		if (newer != null) {
+			for (Iterator<Map.Entry<K, V>> entries = new EntryIterator<K, V>(newer); entries.hasNext();) {
+				Leaf<K, V> leaf = (Leaf<K, V>) entries.next();
+				Leaf<K, V> before = previous.remove(leaf.key);
+				if (before == null) {
+					visitor.added(leaf.key, leaf.value);
+				} else if (before.value != leaf.value && !before.value.equals(leaf.value)) {
+					visitor.changed(leaf.key, before.value, leaf.value);
+				}
+			}
+		}
+		for (Leaf<K, V> leaf : previous.values()) {
+			visitor.removed(leaf.key, leaf.value);
+		}
+	}
+
+	/**
+	 * @param node	:	a leaf or collision node
+	 * @return the hash of the keys of {@code node}
+	 */
+	private static int nodeHash(Object node) {
+		return node instanceof Leaf ? ((Leaf<?, ?>) node).hash : ((Collision) node).hash;
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * A node with up to 32 children, the leaves, collision nodes or branches of the hashes whose next 5 bits are set
+	 * in {@code bitmap}
+	 */
+	private static final class Branch {
+
+		final int bitmap;
+		final Object[] children;
+
+		Branch(int bitmap, Object[] children) {
+			this.bitmap = bitmap;
+			this.children = children;
+		}
+
+	}
+
+	/**
+	 * An entry of a map
+	 */
+	private static final class Leaf<K, V> implements Map.Entry<K, V> {
+
+		final K key;
+		final V value;
+		final int hash;
+
+		Leaf(K key, V value, int hash) {
+			this.key = key;
+			this.value = value;
+			this.hash = hash;
+		}
+
+		@Override
+		public K getKey() {
+			return this.key;
+		}
+
+		@Override
+		public V getValue() {
+			return this.value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			throw new UnsupportedOperationException("PersistentMap entries can't be modified");
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Map.Entry)) return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+			return this.key.equals(entry.getKey()) && this.value.equals(entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode() ^ this.value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+
+	}
+
+	/**
+	 * The entries of different keys with the same hash
+	 */
+	private static final class Collision {
+
+		final int hash;
+		final Leaf<?, ?>[] leaves;
+
+		Collision(int hash, Leaf<?, ?>[] leaves) {
+			this.hash = hash;
+			this.leaves = leaves;
+		}
+
+	}
+
+	/**
+	 * Iterates over the entries of a node depth first, keeping the position inside each branch of the current path
+	 */
+	private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+		private final Object[][] path;
+		private final int[] positions;
+		private int depth;
+		private Leaf<?, ?>[] collision;
+		private int collisionPosition;
+		private Leaf<?, ?> next;
+
+		EntryIterator(Object node) {
+			this.path = new Object[MAX_DEPTH + 1][];
+			this.positions = new int[MAX_DEPTH + 1];
+			this.path[0] = new Object[] {node};
+			this.depth = 0;
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Map.Entry<K, V> next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+			Leaf<?, ?> result = this.next;
+			advance();
+			return (Map.Entry<K, V>) result;
+		}
+
+		private void advance() {
+			if (this.collision != null) {
+				if (this.collisionPosition < this.collision.length) {
+					this.next = this.collision[this.collisionPosition++];
+					return;
+				}
+				this.collision = null;
+			}
+			while (this.depth >= 0) {
+				Object[] children = this.path[this.depth];
+				if (this.positions[this.depth] == children.length) {
+					this.depth--;
+					continue;
+				}
+				Object child = children[this.positions[this.depth]++];
+				if (child instanceof Branch) {
+					this.depth++;
+					this.path[this.depth] = ((Branch) child).children;
+					this.positions[this.depth] = 0;
+				} else if (child instanceof Leaf) {
+					this.next = (Leaf<?, ?>) child;
+					return;
+				} else if (child instanceof Collision) {
+					this.collision = ((Collision) child).leaves;
+					this.collisionPosition = 1;
+					this.next = this.collision[0];
+					return;
+				}
+			}
+			this.next = null;
+		}
+
+	}
+
+}
@@ -0,0 +1,477 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A read only zip archive (zip, jar, war, ear) backed by a {@code ByteBuffer}
+ * <p>
+ * Archives stored in a file are memory mapped, the central directory is read directly from the mapped buffer so
+ * listing the entries of an archive needs no system call per entry. Entries are only decompressed when reading
+ * them through {@link ZipArchive#open(Entry)}.
+ * <p>
+ * Archives stored inside another archive (like {@code WEB-INF/lib/*.jar} or {@code BOOT-INF/lib/*.jar}) are read
+ * in memory with {@link ZipArchive#openNested(Entry)}, if the nested archive is stored without compression (as
+ * in executable jars) its contents are a view of the outer buffer and nothing is copied.
+ * <p>
+ * Archives larger than 2GB are not supported.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+class ZipArchive implements Closeable {
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_SIZE = 22;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+	static final int STORED = 0;
+	static final int DEFLATED = 8;
+
+	/**
+	 * The name of the archive, the path of the file or the name of the outer archive followed by {@code !/} and
+	 * the name of the entry
+	 */
+	private final String name;
+	/**
+	 * The contents of the archive, in little endian order
+	 */
+	private final ByteBuffer buffer;
+	/**
+	 * The archive containing this one, or {@code null}
+	 */
+	private final ZipArchive outer;
+	private final List<Entry> entries;
+	private volatile boolean closed;
+
+	/**
+	 * Memory maps an archive file and reads its central directory
+	 *
+	 * @param file	:	the archive file
+	 * @return the archive
+	 * @throws IOException if the file can't be read or it's not a valid archive
+	 */
+	static ZipArchive map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new ZipException(file + " is larger than 2GB");
+			}
+			return new ZipArchive(file.toString(), channel.map(FileChannel.MapMode.READ_ONLY, 0, size), null);
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param name		:	the name of the archive
+	 * @param buffer	:	the contents of the archive, from position {@code 0} to the limit of the buffer
+	 * @param outer		:	the archive containing this one, or {@code null}
+	 * @throws ZipException if the buffer doesn't contain a valid archive
+	 */
+	private ZipArchive(String name, ByteBuffer buffer, ZipArchive outer) throws ZipException {
+		this.name = name;
+		this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.outer = outer;
+		this.entries = Collections.unmodifiableList(readCentralDirectory());
+	}
+
+	/**
+	 * @return the name of the archive, the path of the file or the name of the outer archive followed by
+	 * {@code !/} and the name of the entry
+	 */
+	String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the entries of the archive, in central directory order
+	 */
+	List<Entry> getEntries() {
+		return this.entries;
+	}
+
+	/**
+	 * Reads an archive stored as an entry of this archive
+	 *
+	 * @param entry	:	an entry of this archive
+	 * @return the nested archive
+	 * @throws IOException if the entry can't be decompressed or it's not a valid archive
+	 */
+	ZipArchive openNested(Entry entry) throws IOException {
+		ensureOpen();
+		ByteBuffer contents;
+		if (entry.method == STORED) {
+			contents = data(entry);
+		} else {
+			contents = ByteBuffer.wrap(inflate(entry));
+		}
+		return new ZipArchive(this.name + "!/" + entry.name, contents, this);
+	}
+
+	/**
+	 * Opens an entry of this archive
+	 *
+	 * @param entry	:	an entry of this archive
+	 * @return a stream with the decompressed contents of the entry
+	 * @throws IOException if the archive was closed or the entry uses an unsupported compression method
+	 */
+	InputStream open(Entry entry) throws IOException {
+		ensureOpen();
+		InputStream stored = new ByteBufferInputStream(data(entry));
+		if (entry.method == STORED) {
+			return stored;
+		}
+		return new EntryInflaterInputStream(stored, (int) Math.min(Math.max(entry.compressedSize, 64), 8192));
+	}
+
+	/**
+	 * Marks this archive, and the archives nested in it, as closed, entries can't be opened after calling this
+	 * method
+	 * <p>
+	 * The mapped buffer is released when it's no longer reachable.
+	 * <p>
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+	}
+
+	private void ensureOpen() throws IOException {
+		for (ZipArchive archive = this; archive != null; archive = archive.outer) {
+			if (archive.closed) {
+				throw new IOException(this.name + " is closed");
+			}
+		}
+	}
+
+	/**
+	 * @param entry	:	an entry of this archive
+	 * @return a view of the (possibly compressed) contents of the entry
+	 * @throws ZipException if the local header of the entry is not valid
+	 */
+	private ByteBuffer data(Entry entry) throws ZipException {
+		long header = entry.localHeaderOffset;
+		if (header + LOCAL_HEADER_SIZE > this.buffer.limit() || this.buffer.getInt((int) header) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for " + entry.name + " in " + this.name);
+		}
+		long start = header + LOCAL_HEADER_SIZE + unsignedShort((int) header + 26) + unsignedShort((int) header + 28);
+		if (start + entry.compressedSize > this.buffer.limit()) {
+			throw new ZipException("Truncated entry " + entry.name + " in " + this.name);
+		}
+		ByteBuffer data = this.buffer.duplicate();
+		data.position((int) start);
+		data.limit((int) (start + entry.compressedSize));
+		return data.slice();
+	}
+
+	/**
+	 * @param entry	:	a compressed entry of this archive
+	 * @return the decompressed contents of the entry
+	 * @throws IOException if the entry can't be decompressed
+	 */
+	private byte[] inflate(Entry entry) throws IOException {
+		if (entry.method != DEFLATED) {
+			throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name + " in " + this.name);
+		}
+		if (entry.size > Integer.MAX_VALUE - 8) {
+			throw new ZipException(entry.name + " in " + this.name + " is larger than 2GB");
+		}
+		ByteBuffer data = data(entry);
+		byte[] compressed = new byte[data.remaining() + 1];
+		data.get(compressed, 0, compressed.length - 1);
+		byte[] contents = new byte[(int) entry.size];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(compressed);
+			int inflated = 0;
+			while (inflated < contents.length && !inflater.finished()) {
+				int count = inflater.inflate(contents, inflated, contents.length - inflated);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += count;
+			}
+			if (inflated != contents.length) {
+				throw new ZipException("Invalid compressed data for " + entry.name + " in " + this.name);
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid compressed data for " + entry.name + " in " + this.name + ": " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+		return contents;
+	}
+
+	/**
+	 * Reads all central directory headers
+	 *
+	 * @return the entries of the archive
+	 * @throws ZipException if the central directory is not valid
+	 */
+	private List<Entry> readCentralDirectory() throws ZipException {
+		int end = findEnd();
+		long count = unsignedShort(end + 10);
+		long offset = unsignedInt(end + 16);
+		int locator = end - ZIP64_LOCATOR_SIZE;
+		if ((count == 0xFFFF || offset == 0xFFFFFFFFL) && locator >= 0 && this.buffer.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+			long zip64End = this.buffer.getLong(locator + 8);
+			if (zip64End < 0 || zip64End + 56 > locator || this.buffer.getInt((int) zip64End) != ZIP64_END_SIGNATURE) {
+				throw new ZipException("Invalid zip64 end of central directory in " + this.name);
+			}
+			count = this.buffer.getLong((int) zip64End + 32);
+			offset = this.buffer.getLong((int) zip64End + 48);
+		}
+		if (offset < 0 || offset > end || count > (end - offset) / CENTRAL_HEADER_SIZE) {
+			throw new ZipException("Invalid central directory in " + this.name);
+		}
+		List<Entry> entries = new ArrayList<Entry>((int) count);
+		int position = (int) offset;
+		for (long e = 0; e < count; e++) {
+			if (position + CENTRAL_HEADER_SIZE > end || this.buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header in " + this.name);
+			}
+			int nameLength = unsignedShort(position + 28);
+			int extraLength = unsignedShort(position + 30);
+			int commentLength = unsignedShort(position + 32);
+			if (position + CENTRAL_HEADER_SIZE + nameLength + extraLength > end) {
+				throw new ZipException("Invalid central directory header in " + this.name);
+			}
+			Entry entry = new Entry();
+			entry.method = unsignedShort(position + 10);
+			entry.dosTime = unsignedInt(position + 12);
+			entry.crc = unsignedInt(position + 16);
+			entry.compressedSize = unsignedInt(position + 20);
+			entry.size = unsignedInt(position + 24);
+			entry.localHeaderOffset = unsignedInt(position + 42);
+			entry.name = string(position + CENTRAL_HEADER_SIZE, nameLength);
+			readZip64Extra(entry, position + CENTRAL_HEADER_SIZE + nameLength, extraLength);
+			entries.add(entry);
+			position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+		return entries;
+	}
+
+	/**
+	 * @return the position of the end of central directory record
+	 * @throws ZipException if there is no end of central directory record
+	 */
+	private int findEnd() throws ZipException {
+		int limit = this.buffer.limit();
+		int lowest = Math.max(0, limit - END_SIZE - MAX_COMMENT_SIZE);
+		for (int position = limit - END_SIZE; position >= lowest; position--) {
+			if (this.buffer.getInt(position) == END_SIGNATURE && position + END_SIZE + unsignedShort(position + 20) <= limit) {
+				return position;
+			}
+		}
+		throw new ZipException(this.name + " is not a zip archive");
+	}
+
+	/**
+	 * Replaces sizes and offset saturated to {@code 0xFFFFFFFF} with the values stored in the zip64 extra field
+	 *
+	 * @param entry		:	the entry
+	 * @param position	:	the position of the extra fields
+	 * @param length	:	the length of the extra fields
+	 */
+	private void readZip64Extra(Entry entry, int position, int length) {
+		int end = position + length;
+		while (position + 4 <= end) {
+			int id = unsignedShort(position);
+			int size = unsignedShort(position + 2);
+			int field = position + 4;
+			if (id == ZIP64_EXTRA_ID) {
+				if (entry.size == 0xFFFFFFFFL && field + 8 <= end) {
+					entry.size = this.buffer.getLong(field);
+					field += 8;
+				}
+				if (entry.compressedSize == 0xFFFFFFFFL && field + 8 <= end) {
+					entry.compressedSize = this.buffer.getLong(field);
+					field += 8;
+				}
+				if (entry.localHeaderOffset == 0xFFFFFFFFL && field + 8 <= end) {
+					entry.localHeaderOffset = this.buffer.getLong(field);
+				}
+				return;
+			}
+			position += 4 + size;
+		}
+	}
+
+	private int unsignedShort(int position) {
+		return this.buffer.getShort(position) & 0xFFFF;
+	}
+
+	private long unsignedInt(int position) {
+		return this.buffer.getInt(position) & 0xFFFFFFFFL;
+	}
+
+	private String string(int position, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer view = this.buffer.duplicate();
+		view.position(position);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * An entry of the central directory of an archive
+	 */
+	static final class Entry {
+
+		private String name;
+		private int method;
+		private long dosTime;
+		private long crc;
+		private long compressedSize;
+		private long size;
+		private long localHeaderOffset;
+
+		/**
+		 * @return the name of the entry
+		 */
+		String getName() {
+			return this.name;
+		}
+
+		/**
+		 * @return {@code true} if the entry is a directory
+		 */
+		boolean isDirectory() {
+			return this.name.endsWith("/");
+		}
+
+		/**
+		 * @return the size of the decompressed entry
+		 */
+		long getSize() {
+			return this.size;
+		}
+
+		/**
+		 * @return the CRC-32 of the decompressed entry
+		 */
+		long getCrc() {
+			return this.crc;
+		}
+
+		/**
+		 * @return the modification time of the entry in milliseconds since the epoch, or the raw MS-DOS time if it's
+		 * not a valid date
+		 */
+		long getTime() {
+			int date = (int) (this.dosTime >> 16);
+			int time = (int) (this.dosTime & 0xFFFF);
+			try {
+				LocalDateTime dateTime = LocalDateTime.of(((date >> 9) & 0x7F) + 1980, (date >> 5) & 0x0F, date & 0x1F, (time >> 11) & 0x1F, (time >> 5) & 0x3F, (time << 1) & 0x3E);
+				return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+			} catch (DateTimeException e) {
+				return this.dosTime;
+			}
+		}
+
+	}
+
+	/**
+	 * An {@code InputStream} reading the remaining bytes of a {@code ByteBuffer}
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(len, this.buffer.remaining());
+			this.buffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+
+	}
+
+	/**
+	 * Decompresses a deflated entry, the inflater is released when the stream is closed
+	 */
+	private static final class EntryInflaterInputStream extends InflaterInputStream {
+
+		private boolean eof;
+		private boolean closed;
+
+		EntryInflaterInputStream(InputStream in, int size) {
+			super(in, new Inflater(true), size);
+		}
+
+		/**
+		 * Raw deflate data may need an extra dummy byte after the end of the compressed data
+		 */
+		@Override
+		protected void fill() throws IOException {
+			if (this.eof) {
+				throw new EOFException("Unexpected end of compressed entry");
+			}
+			this.len = this.in.read(this.buf, 0, this.buf.length);
+			if (this.len == -1) {
+				this.buf[0] = 0;
+				this.len = 1;
+				this.eof = true;
+			}
+			this.inf.setInput(this.buf, 0, this.len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				super.close();
+				this.inf.end();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,57 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@code ClassSource} backed by an entry of an archive
+ * 
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.2u
+ */
+class ZipEntryClassSource implements ClassSource {
+	
+	private final ZipArchive archive;
+	private final ZipArchive.Entry entry;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param archive	:	the archive containing the entry, must remain open while this source is used
+	 * @param entry		:	the entry for the .class file
+	 */
+	ZipEntryClassSource(ZipArchive archive, ZipArchive.Entry entry) {
+		this.archive = archive;
+		this.entry = entry;
+	}
+
+	/**
+	 * @return the name of the archive followed by {@code !/} and the name of the entry, so class files with the
+	 * same name in different archives have different names
+	 */
+	@Override
+	public String getName() {
+		return this.archive.getName() + "!/" + this.entry.getName();
+	}
+
+	@Override
+	public long getSize() {
+		return this.entry.getSize();
+	}
+
+	@Override
+	public long getLastModified() {
+		return this.entry.getTime();
+	}
+
+	@Override
+	public InputStream open() throws IOException {
+		return this.archive.open(this.entry);
+	}
+	
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+}
@@ -1,80 +1,118 @@
 package utils;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Path;
-import java.util.Enumeration;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 /**
- * A class to scan files inside a zip file and collect {@code InputStream} for each
+ * A class to scan files inside an archive (zip, jar, war or ear file) and collect a {@code ClassSource} for each
  * file that matches a specific pattern.
+ * <p>
+ * The archive is memory mapped and its central directory read from memory. Archives nested inside the archive
+ * (like the libraries in {@code WEB-INF/lib} or {@code BOOT-INF/lib}) are scanned recursively in memory, without
+ * extracting them.
+ * <p>
+ * Entries are only opened when reading them through {@link ClassSource#open()}, the archive itself
+ * remains available until {@link ZipFileScanner#close()} is called.
+ * <p>
  * 
  * @author Simon Emmanuel Gutierrez Brida
- * @version 0.1.1u
+ * @version 0.3u
  */
-public class ZipFileScanner {
+public class ZipFileScanner implements Closeable {
+	
+	/**
+	 * File extensions of the supported archives
+	 */
+	private static final String[] ARCHIVE_EXTENSIONS = {".zip", ".jar", ".war", ".ear"};
 	
 	private final Pattern pattern;
-	private List<InputStream> matchedInputStreams = new LinkedList<InputStream>();
+	private List<ClassSource> matchedSources = new ArrayList<ClassSource>();
 	private Path zipFilePath;
-	private ZipFile zipFile;
+	private ZipArchive archive;
 	
 	/**
 	 * Constructor
 	 * 
-	 * @param zipFilePath	:	path to the zip file
+	 * @param zipFilePath	:	path to the archive
 	 * @param pattern		:	the pattern to use
-	 * @throws IOException
+	 * @throws IOException if the archive can't be read or it's not a valid archive
 	 */
 	public ZipFileScanner(Path zipFilePath, String pattern) throws IOException {
 		this.pattern = Pattern.compile(pattern);
 		this.zipFilePath = zipFilePath;
 		if (this.zipFilePath.toFile().exists()) {
-			this.zipFile = new ZipFile(this.zipFilePath.toString());
+			this.archive = ZipArchive.map(this.zipFilePath.toAbsolutePath());
 		}
 	}
 	
 	/**
-	 * Scans and collects {@code InputStream} for each file in the zip
-	 * that matches the pattern used in the constructor
-	 * @throws IOException
+	 * @param fileName	:	a file name
+	 * @return {@code true} if the file name has the extension of a supported archive (zip, jar, war or ear)
+	 */
+	public static boolean isArchive(String fileName) {
+		String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+		for (String extension : ARCHIVE_EXTENSIONS) {
+			if (lowerCaseName.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Scans and collects a {@code ClassSource} for each file in the archive, and in the archives nested
+	 * inside it, that matches the pattern used in the constructor
+	 * @throws IOException if a nested archive can't be read
 	 */
 	public void scan() throws IOException {
-		if (!this.matchedInputStreams.isEmpty()) {
-			this.matchedInputStreams.clear();
+		if (!this.matchedSources.isEmpty()) {
+			this.matchedSources.clear();
 		}
-		if (this.zipFile != null) {
-			Enumeration<? extends ZipEntry> en = this.zipFile.entries();
-			while (en.hasMoreElements()) {
-				ZipEntry e = en.nextElement();
-				match(e);
-			}
+		if (this.archive != null) {
+			scan(this.archive);
 		}
 	}
 	
 	/**
-	 * @return the list of {@code InputStream} collected with the method {@code scan()}
+	 * Collects the matching entries of an archive and scans the archives nested inside it
+	 * 
+	 * @param archive	:	the archive to scan
+	 * @throws IOException if a nested archive can't be read
 	 */
-	public List<InputStream> getInputStreams() {
-		return this.matchedInputStreams;
+	private void scan(ZipArchive archive) throws IOException {
+		for (ZipArchive.Entry entry : archive.getEntries()) {
+			if (entry.isDirectory()) {
+				continue;
+			}
+			if (this.pattern.matcher(entry.getName()).find()) {
+				this.matchedSources.add(new ZipEntryClassSource(archive, entry));
+			} else if (isArchive(entry.getName())) {
+				scan(archive.openNested(entry));
+			}
+		}
 	}
 	
+	/**
+	 * @return the list of {@code ClassSource} collected with the method {@code scan()}
+	 */
+	public List<ClassSource> getClassSources() {
+		return this.matchedSources;
+	}
 	
 	/**
-	 * Adds an {@code InputStream} to the matched input streams if the zip entry matches the pattern used in the constructor
+	 * Closes the archive, sources collected by this scanner can't be opened after calling this method
 	 * 
-	 * @param file	:	the file to check
-	 * @throws IOException 
+	 * @throws IOException
 	 */
-	private void match(ZipEntry e) throws IOException {
-		String name = e.getName();
-		if (name != null && this.pattern.matcher(name).find()) {
-			matchedInputStreams.add(this.zipFile.getInputStream(e));
+	@Override
+	public void close() throws IOException {
+		if (this.archive != null) {
+			this.archive.close();
 		}
 	}
 	
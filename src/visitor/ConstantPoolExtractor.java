@@ -0,0 +1,773 @@
+package visitor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import data.DependencyElem;
+import data.DependencySink;
+import data.EdgeKind;
+
+/**
+ * An alternative to {@code DependencyVisitor} that collects the dependencies of a class reading its class file
+ * directly from a byte array.
+ * <p>
+ * Most classes used by a class are listed in its constant pool, as {@code CONSTANT_Class} entries (types used in
+ * instructions, owners of fields and methods, supertypes, caught exceptions) and as descriptors of
+ * {@code CONSTANT_NameAndType} and {@code CONSTANT_MethodType} entries. The rest are found in the descriptors of
+ * declared fields and methods, and in the {@code Signature}, {@code Exceptions}, annotation and
+ * {@code LocalVariableTypeTable} attributes. This extractor walks those structures without decoding instructions
+ * and without creating any ASM object, the only objects created are the names of the classes found.
+ * <p>
+ * With {@code ScanDepth.FULL} the dependencies found are a superset of the ones found by {@code DependencyVisitor}:
+ * classes only named in the {@code InnerClasses}, {@code EnclosingMethod} and {@code StackMapTable} attributes are
+ * included, and both the descriptor and the generic signature of each member are used. With lower depths the same
+ * dependencies are found.
+ * <p>
+ * Each dependency is reported with its {@code EdgeKind}. Classes named by {@code CONSTANT_Class} entries are reported
+ * as {@link EdgeKind#FIELD_ACCESS} or {@link EdgeKind#CALL} when the entry is the owner of a referenced field or
+ * method, and as {@link EdgeKind#CONSTANT_POOL} when their use is unknown (types used by instructions, class literals,
+ * inner classes). Each constant pool entry is read once for each kind of use, so the amount of references of a
+ * dependency is the amount of different entries and kinds it was found through.
+ * <p>
+ * An extractor can be used for any amount of classes but it's not thread safe.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.3u
+ */
+public class ConstantPoolExtractor {
+
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int UTF8 = 1;
+	private static final int INTEGER = 3;
+	private static final int FLOAT = 4;
+	private static final int LONG = 5;
+	private static final int DOUBLE = 6;
+	private static final int CLASS = 7;
+	private static final int STRING = 8;
+	private static final int FIELD_REF = 9;
+	private static final int METHOD_REF = 10;
+	private static final int INTERFACE_METHOD_REF = 11;
+	private static final int NAME_AND_TYPE = 12;
+	private static final int METHOD_HANDLE = 15;
+	private static final int METHOD_TYPE = 16;
+	private static final int DYNAMIC = 17;
+	private static final int INVOKE_DYNAMIC = 18;
+	private static final int MODULE = 19;
+	private static final int PACKAGE = 20;
+
+	private static final byte[] SIGNATURE = ascii("Signature");
+	private static final byte[] EXCEPTIONS = ascii("Exceptions");
+	private static final byte[] CODE = ascii("Code");
+	private static final byte[] LOCAL_VARIABLE_TYPE_TABLE = ascii("LocalVariableTypeTable");
+	private static final byte[] ANNOTATION_DEFAULT = ascii("AnnotationDefault");
+	private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = ascii("RuntimeVisibleAnnotations");
+	private static final byte[] RUNTIME_INVISIBLE_ANNOTATIONS = ascii("RuntimeInvisibleAnnotations");
+	private static final byte[] RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS = ascii("RuntimeVisibleParameterAnnotations");
+	private static final byte[] RUNTIME_INVISIBLE_PARAMETER_ANNOTATIONS = ascii("RuntimeInvisibleParameterAnnotations");
+	private static final byte[] RUNTIME_VISIBLE_TYPE_ANNOTATIONS = ascii("RuntimeVisibleTypeAnnotations");
+	private static final byte[] RUNTIME_INVISIBLE_TYPE_ANNOTATIONS = ascii("RuntimeInvisibleTypeAnnotations");
+
+	/**
+	 * The sink where dependencies are added
+	 */
+	private final DependencySink dependencySink;
+	/**
+	 * Which parts of each class file are read
+	 */
+	private final ScanDepth depth;
+	/**
+	 * The class file being read
+	 */
+	private byte[] b;
+	/**
+	 * The offset of each constant pool entry, grown as needed and reused between classes
+	 */
+	private int[] offsets = new int[256];
+	/**
+	 * Marks used to read each constant pool entry only once per class and kind of use, an entry was read for the
+	 * current class if its mark equals {@code currentMark}, and for the kinds whose bits are set in its kind mark
+	 */
+	private int[] marks = new int[256];
+	private int[] kindMarks = new int[256];
+	private int currentMark;
+	/**
+	 * Scratch buffers for decoded constant pool strings and class names
+	 */
+	private char[] chars = new char[128];
+	private char[] name = new char[128];
+	/**
+	 * The class being read
+	 */
+	private DependencyElem currentElem;
+	/**
+	 * The kind of the dependencies being added
+	 */
+	private EdgeKind kind = EdgeKind.OTHER;
+	/**
+	 * The kind of the dependencies found in {@code Signature} attributes of the class or member being read
+	 */
+	private EdgeKind signatureKind = EdgeKind.SIGNATURE;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dependencySink	:	the sink where dependencies are added, a {@code DependencyMap} or an
+	 * 							{@code EdgeCollector}
+	 * @param depth				:	which parts of each class file are read
+	 */
+	public ConstantPoolExtractor(DependencySink dependencySink, ScanDepth depth) {
+		this.dependencySink = dependencySink;
+		this.depth = depth;
+	}
+
+	/**
+	 * @return the sink where dependencies are added
+	 */
+	public DependencySink getDependencySink() {
+		return this.dependencySink;
+	}
+
+	/**
+	 * @return the last class read, or {@code null} if no class was read yet
+	 */
+	public DependencyElem getVisitedClass() {
+		return this.currentElem;
+	}
+
+	/**
+	 * Reads a class file and adds the class and its dependencies to the dependency sink
+	 *
+	 * @param classFile	:	the contents of a class file
+	 * @return the class read
+	 * @throws IllegalArgumentException if {@code classFile} is not a valid class file
+	 */
+	public DependencyElem extract(byte[] classFile) throws IllegalArgumentException {
+		this.b = classFile;
+		try {
+			int position = readConstantPool();
+			int constantPoolCount = readUnsignedShort(8);
+			this.currentMark++;
+			if (this.currentMark == 0) {
+				Arrays.fill(this.marks, 0);
+				this.currentMark = 1;
+			}
+			this.currentElem = this.dependencySink.getOrCreateDependencyElem(className(readUnsignedShort(position + 2)));
+			int superClass = readUnsignedShort(position + 4);
+			if (superClass != 0) {
+				this.kind = EdgeKind.EXTENDS;
+				addClass(superClass);
+			}
+			int interfaces = readUnsignedShort(position + 6);
+			position += 8;
+			this.kind = EdgeKind.IMPLEMENTS;
+			for (int i = 0; i < interfaces; i++, position += 2) {
+				addClass(readUnsignedShort(position));
+			}
+			if (!this.depth.visitsMembers()) {
+				return this.currentElem;
+			}
+			position = readMembers(position, false);
+			position = readMembers(position, true);
+			if (this.depth.visitsAll()) {
+				this.signatureKind = EdgeKind.SIGNATURE;
+				readAttributes(position, false);
+				readConstantPoolReferences(constantPoolCount);
+			}
+			return this.currentElem;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Truncated class file", e);
+		} finally {
+			this.b = null;
+		}
+	}
+
+	/**
+	 * Reads the name of the class defined by a class file, without adding anything to a dependency map
+	 *
+	 * @param classFile	:	the contents of a class file
+	 * @return the full name of the class
+	 * @throws IllegalArgumentException if {@code classFile} is not a valid class file
+	 */
+	public static String getClassName(byte[] classFile) throws IllegalArgumentException {
+		ConstantPoolExtractor extractor = new ConstantPoolExtractor(null, ScanDepth.HEADER);
+		extractor.b = classFile;
+		try {
+			int position = extractor.readConstantPool();
+			return extractor.className(extractor.readUnsignedShort(position + 2));
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Truncated class file", e);
+		}
+	}
+
+	/**
+	 * Calculates the offset of each constant pool entry
+	 *
+	 * @return the offset of the first byte after the constant pool
+	 * @throws IllegalArgumentException if the class file doesn't start with the class file magic number or has an
+	 * unknown constant pool entry
+	 */
+	private int readConstantPool() throws IllegalArgumentException {
+		if (readInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a class file");
+		}
+		int count = readUnsignedShort(8);
+		if (this.offsets.length < count) {
+			this.offsets = new int[Math.max(count, this.offsets.length * 2)];
+			this.marks = new int[this.offsets.length];
+			this.kindMarks = new int[this.offsets.length];
+			this.currentMark = 0;
+		}
+		int position = 10;
+		for (int entry = 1; entry < count; entry++) {
+			this.offsets[entry] = position;
+			switch (this.b[position]) {
+			case UTF8:
+				position += 3 + readUnsignedShort(position + 1);
+				break;
+			case CLASS:
+			case STRING:
+			case METHOD_TYPE:
+			case MODULE:
+			case PACKAGE:
+				position += 3;
+				break;
+			case METHOD_HANDLE:
+				position += 4;
+				break;
+			case INTEGER:
+			case FLOAT:
+			case FIELD_REF:
+			case METHOD_REF:
+			case INTERFACE_METHOD_REF:
+			case NAME_AND_TYPE:
+			case DYNAMIC:
+			case INVOKE_DYNAMIC:
+				position += 5;
+				break;
+			case LONG:
+			case DOUBLE:
+				position += 9;
+				entry++;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown constant pool tag " + this.b[position] + " at " + position);
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Adds the classes used by the fields and methods referenced from the constant pool, and then the classes of the
+	 * {@code CONSTANT_Class} entries not read yet
+	 *
+	 * @param constantPoolCount	:	the amount of constant pool entries plus one
+	 */
+	private void readConstantPoolReferences(int constantPoolCount) {
+		for (int entry = 1; entry < constantPoolCount; entry++) {
+			int offset = this.offsets[entry];
+			switch (this.b[offset]) {
+			case FIELD_REF:
+				this.kind = EdgeKind.FIELD_ACCESS;
+				addClass(readUnsignedShort(offset + 1));
+				addDescriptor(readUnsignedShort(this.offsets[readUnsignedShort(offset + 3)] + 3));
+				break;
+			case METHOD_REF:
+			case INTERFACE_METHOD_REF:
+				this.kind = EdgeKind.CALL;
+				addClass(readUnsignedShort(offset + 1));
+				addDescriptor(readUnsignedShort(this.offsets[readUnsignedShort(offset + 3)] + 3));
+				break;
+			case INVOKE_DYNAMIC:
+				this.kind = EdgeKind.CALL;
+				addDescriptor(readUnsignedShort(this.offsets[readUnsignedShort(offset + 3)] + 3));
+				break;
+			case DYNAMIC:
+				this.kind = EdgeKind.LDC;
+				addDescriptor(readUnsignedShort(this.offsets[readUnsignedShort(offset + 3)] + 3));
+				break;
+			case METHOD_TYPE:
+				this.kind = EdgeKind.LDC;
+				addDescriptor(readUnsignedShort(offset + 1));
+				break;
+			case LONG:
+			case DOUBLE:
+				entry++;
+				break;
+			}
+		}
+		this.kind = EdgeKind.CONSTANT_POOL;
+		for (int entry = 1; entry < constantPoolCount; entry++) {
+			int offset = this.offsets[entry];
+			if (this.b[offset] == CLASS && this.marks[entry] != this.currentMark) {
+				addClass(entry);
+			} else if (this.b[offset] == LONG || this.b[offset] == DOUBLE) {
+				entry++;
+			}
+		}
+	}
+
+	/**
+	 * Reads the fields or the methods of the class
+	 *
+	 * @param position	:	the offset of the fields or methods count
+	 * @param methods	:	{@code true} if reading methods
+	 * @return the offset of the first byte after the fields or methods
+	 */
+	private int readMembers(int position, boolean methods) {
+		int count = readUnsignedShort(position);
+		position += 2;
+		EdgeKind memberKind = methods ? EdgeKind.METHOD : EdgeKind.FIELD;
+		for (int m = 0; m < count; m++) {
+			this.kind = memberKind;
+			this.signatureKind = memberKind;
+			addDescriptor(readUnsignedShort(position + 4));
+			position = readAttributes(position + 6, methods);
+		}
+		return position;
+	}
+
+	/**
+	 * Reads the attributes of the class, a field or a method
+	 *
+	 * @param position	:	the offset of the attributes count
+	 * @param method	:	{@code true} if reading the attributes of a method
+	 * @return the offset of the first byte after the attributes
+	 */
+	private int readAttributes(int position, boolean method) {
+		int count = readUnsignedShort(position);
+		position += 2;
+		for (int a = 0; a < count; a++) {
+			int attributeName = readUnsignedShort(position);
+			int length = readInt(position + 2);
+			int start = position + 6;
+			if (method && utf8Equals(attributeName, EXCEPTIONS)) {
+				this.kind = EdgeKind.THROWS;
+				int exceptions = readUnsignedShort(start);
+				for (int e = 0; e < exceptions; e++) {
+					addClass(readUnsignedShort(start + 2 + 2 * e));
+				}
+			} else if (this.depth.visitsAll()) {
+				readAttribute(attributeName, start, method);
+			}
+			position = start + length;
+		}
+		return position;
+	}
+
+	/**
+	 * Reads the dependencies of an attribute, attributes without dependencies are ignored
+	 *
+	 * @param attributeName	:	the constant pool entry with the name of the attribute
+	 * @param start			:	the offset of the contents of the attribute
+	 * @param method		:	{@code true} if the attribute belongs to a method, attributes of the {@code Code}
+	 * 							attribute are read with {@code false}
+	 */
+	private void readAttribute(int attributeName, int start, boolean method) {
+		if (utf8Equals(attributeName, SIGNATURE)) {
+			this.kind = this.signatureKind;
+			addSignature(readUnsignedShort(start));
+		} else if (utf8Equals(attributeName, RUNTIME_VISIBLE_ANNOTATIONS) || utf8Equals(attributeName, RUNTIME_INVISIBLE_ANNOTATIONS)) {
+			this.kind = EdgeKind.ANNOTATION;
+			readAnnotations(start);
+		} else if (utf8Equals(attributeName, RUNTIME_VISIBLE_TYPE_ANNOTATIONS) || utf8Equals(attributeName, RUNTIME_INVISIBLE_TYPE_ANNOTATIONS)) {
+			this.kind = EdgeKind.ANNOTATION;
+			readTypeAnnotations(start);
+		} else if (utf8Equals(attributeName, LOCAL_VARIABLE_TYPE_TABLE)) {
+			this.kind = EdgeKind.LOCAL_VARIABLE;
+			int count = readUnsignedShort(start);
+			for (int v = 0; v < count; v++) {
+				addSignature(readUnsignedShort(start + 2 + 10 * v + 6));
+			}
+		} else if (!method) {
+			return;
+		} else if (utf8Equals(attributeName, CODE)) {
+			int codeLength = readInt(start + 4);
+			int position = start + 8 + codeLength;
+			int handlers = readUnsignedShort(position);
+			position += 2;
+			this.kind = EdgeKind.CATCH;
+			for (int h = 0; h < handlers; h++, position += 8) {
+				int catchType = readUnsignedShort(position + 6);
+				if (catchType != 0) {
+					addClass(catchType);
+				}
+			}
+			readAttributes(position, false);
+		} else if (utf8Equals(attributeName, RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS) || utf8Equals(attributeName, RUNTIME_INVISIBLE_PARAMETER_ANNOTATIONS)) {
+			this.kind = EdgeKind.ANNOTATION;
+			int parameters = this.b[start] & 0xFF;
+			int position = start + 1;
+			for (int p = 0; p < parameters; p++) {
+				position = readAnnotations(position);
+			}
+		} else if (utf8Equals(attributeName, ANNOTATION_DEFAULT)) {
+			this.kind = EdgeKind.ANNOTATION;
+			readElementValue(start);
+		}
+	}
+
+	/**
+	 * @param position	:	the offset of an annotations count
+	 * @return the offset of the first byte after the annotations
+	 */
+	private int readAnnotations(int position) {
+		int count = readUnsignedShort(position);
+		position += 2;
+		for (int a = 0; a < count; a++) {
+			position = readAnnotation(position);
+		}
+		return position;
+	}
+
+	/**
+	 * @param position	:	the offset of an annotation
+	 * @return the offset of the first byte after the annotation
+	 */
+	private int readAnnotation(int position) {
+		addDescriptor(readUnsignedShort(position));
+		int pairs = readUnsignedShort(position + 2);
+		position += 4;
+		for (int p = 0; p < pairs; p++) {
+			position = readElementValue(position + 2);
+		}
+		return position;
+	}
+
+	/**
+	 * @param position	:	the offset of an annotation element value
+	 * @return the offset of the first byte after the element value
+	 */
+	private int readElementValue(int position) {
+		switch (this.b[position]) {
+		case 'e':
+			addDescriptor(readUnsignedShort(position + 1));
+			return position + 5;
+		case 'c':
+			addDescriptor(readUnsignedShort(position + 1));
+			return position + 3;
+		case '@':
+			return readAnnotation(position + 1);
+		case '[':
+			int count = readUnsignedShort(position + 1);
+			position += 3;
+			for (int v = 0; v < count; v++) {
+				position = readElementValue(position);
+			}
+			return position;
+		default:
+			return position + 3;
+		}
+	}
+
+	/**
+	 * @param position	:	the offset of a type annotations count
+	 */
+	private void readTypeAnnotations(int position) {
+		int count = readUnsignedShort(position);
+		position += 2;
+		for (int a = 0; a < count; a++) {
+			int targetType = this.b[position] & 0xFF;
+			position++;
+			switch (targetType) {
+			case 0x00:
+			case 0x01:
+			case 0x16:
+				position += 1;
+				break;
+			case 0x10:
+			case 0x17:
+			case 0x42:
+			case 0x43:
+			case 0x44:
+			case 0x45:
+			case 0x46:
+				position += 2;
+				break;
+			case 0x11:
+			case 0x12:
+				position += 2;
+				break;
+			case 0x40:
+			case 0x41:
+				position += 2 + 6 * readUnsignedShort(position);
+				break;
+			case 0x47:
+			case 0x48:
+			case 0x49:
+			case 0x4A:
+			case 0x4B:
+				position += 3;
+				break;
+			default:
+				break;
+			}
+			position += 1 + 2 * (this.b[position] & 0xFF);
+			position = readAnnotation(position);
+		}
+	}
+
+	/**
+	 * Adds the class named by a {@code CONSTANT_Class} entry as a dependency
+	 *
+	 * @param entry	:	the constant pool entry
+	 */
+	private void addClass(int entry) {
+		if (!mark(entry)) {
+			return;
+		}
+		int nameEntry = readUnsignedShort(this.offsets[entry] + 1);
+		int length = decode(nameEntry);
+		if (length > 0 && this.chars[0] == '[') {
+			parseDescriptor(length);
+		} else {
+			addName(0, length);
+		}
+	}
+
+	/**
+	 * Adds the classes used by a field or method descriptor as dependencies
+	 *
+	 * @param entry	:	the {@code CONSTANT_Utf8} entry with the descriptor
+	 */
+	private void addDescriptor(int entry) {
+		if (mark(entry)) {
+			parseDescriptor(decode(entry));
+		}
+	}
+
+	/**
+	 * Adds the classes used by a class, field or method generic signature as dependencies
+	 *
+	 * @param entry	:	the {@code CONSTANT_Utf8} entry with the signature
+	 */
+	private void addSignature(int entry) {
+		if (!mark(entry)) {
+			return;
+		}
+		int length = decode(entry);
+		int position = 0;
+		if (length > 0 && this.chars[0] == '<') {
+			position = 1;
+			while (position < length && this.chars[position] != '>') {
+				while (this.chars[position] != ':') {
+					position++;
+				}
+				while (position < length && this.chars[position] == ':') {
+					position++;
+					if (isReferenceType(this.chars[position])) {
+						position = parseType(position);
+					}
+				}
+			}
+			position++;
+		}
+		while (position < length) {
+			if (isReferenceType(this.chars[position])) {
+				position = parseType(position);
+			} else {
+				position++;
+			}
+		}
+	}
+
+	/**
+	 * Adds the classes of the field or method descriptor in {@code chars} as dependencies
+	 *
+	 * @param length	:	the length of the descriptor
+	 */
+	private void parseDescriptor(int length) {
+		int position = 0;
+		while (position < length) {
+			if (this.chars[position] == 'L') {
+				int end = position + 1;
+				while (this.chars[end] != ';') {
+					end++;
+				}
+				addName(position + 1, end);
+				position = end + 1;
+			} else {
+				position++;
+			}
+		}
+	}
+
+	/**
+	 * Adds the classes used by the type signature in {@code chars} starting at {@code position} as dependencies
+	 *
+	 * @param position	:	the offset of the type signature
+	 * @return the offset of the first character after the type signature
+	 */
+	private int parseType(int position) {
+		switch (this.chars[position]) {
+		case '[':
+			return parseType(position + 1);
+		case 'T':
+			while (this.chars[position] != ';') {
+				position++;
+			}
+			return position + 1;
+		case 'L':
+			int start = position + 1;
+			position = endOfIdentifier(start);
+			String className = addName(start, position);
+			while (true) {
+				char c = this.chars[position];
+				if (c == '<') {
+					position++;
+					while (this.chars[position] != '>') {
+						c = this.chars[position];
+						if (c == '*') {
+							position++;
+						} else {
+							if (c == '+' || c == '-') {
+								position++;
+							}
+							position = parseType(position);
+						}
+					}
+					position++;
+				} else if (c == '.') {
+					start = position + 1;
+					position = endOfIdentifier(start);
+					className = className + "$" + new String(this.chars, start, position - start);
+					addName(className);
+				} else {
+					return position + 1;
+				}
+			}
+		default:
+			return position + 1;
+		}
+	}
+
+	private int endOfIdentifier(int position) {
+		char c = this.chars[position];
+		while (c != '<' && c != '.' && c != ';') {
+			c = this.chars[++position];
+		}
+		return position;
+	}
+
+	private static boolean isReferenceType(char c) {
+		return c == 'L' || c == 'T' || c == '[';
+	}
+
+	/**
+	 * Adds the class whose internal name is {@code chars[start..end-1]} as a dependency
+	 *
+	 * @param start	:	the offset of the first character of the name
+	 * @param end	:	the offset of the first character after the name
+	 * @return the full name of the class
+	 */
+	private String addName(int start, int end) {
+		int length = end - start;
+		if (this.name.length < length) {
+			this.name = new char[Math.max(length, this.name.length * 2)];
+		}
+		for (int i = 0; i < length; i++) {
+			char c = this.chars[start + i];
+			this.name[i] = c == '/' ? '.' : c;
+		}
+		String className = new String(this.name, 0, length);
+		addName(className);
+		return className;
+	}
+
+	private void addName(String className) {
+		this.dependencySink.addNewDependency(this.currentElem, className, this.kind);
+	}
+
+	/**
+	 * @param entry	:	a {@code CONSTANT_Class} entry
+	 * @return the full name of the class
+	 */
+	private String className(int entry) {
+		int length = decode(readUnsignedShort(this.offsets[entry] + 1));
+		for (int i = 0; i < length; i++) {
+			if (this.chars[i] == '/') {
+				this.chars[i] = '.';
+			}
+		}
+		return new String(this.chars, 0, length);
+	}
+
+	/**
+	 * @param entry	:	a constant pool entry
+	 * @return {@code true} if the entry was not read yet for the current class and kind
+	 */
+	private boolean mark(int entry) {
+		int bit = this.kind.bit();
+		if (this.marks[entry] != this.currentMark) {
+			this.marks[entry] = this.currentMark;
+			this.kindMarks[entry] = bit;
+			return true;
+		}
+		if ((this.kindMarks[entry] & bit) != 0) {
+			return false;
+		}
+		this.kindMarks[entry] |= bit;
+		return true;
+	}
+
+	/**
+	 * Decodes a {@code CONSTANT_Utf8} entry into {@code chars}
+	 *
+	 * @param entry	:	the constant pool entry
+	 * @return the amount of characters decoded
+	 */
+	private int decode(int entry) {
+		int offset = this.offsets[entry];
+		int length = readUnsignedShort(offset + 1);
+		if (this.chars.length < length + 1) {
+			this.chars = new char[Math.max(length + 1, this.chars.length * 2)];
+		}
+		int position = offset + 3;
+		int end = position + length;
+		int decoded = 0;
+		while (position < end) {
+			int c = this.b[position++] & 0xFF;
+			if (c < 0x80) {
+				this.chars[decoded++] = (char) c;
+			} else if (c < 0xE0) {
+				this.chars[decoded++] = (char) (((c & 0x1F) << 6) | (this.b[position++] & 0x3F));
+			} else {
+				this.chars[decoded++] = (char) (((c & 0x0F) << 12) | ((this.b[position] & 0x3F) << 6) | (this.b[position + 1] & 0x3F));
+				position += 2;
+			}
+		}
+		this.chars[decoded] = ';';
+		return decoded;
+	}
+
+	/**
+	 * @param entry		:	a {@code CONSTANT_Utf8} entry
+	 * @param expected	:	an ASCII string
+	 * @return {@code true} if the entry is equal to {@code expected}
+	 */
+	private boolean utf8Equals(int entry, byte[] expected) {
+		int offset = this.offsets[entry];
+		if (readUnsignedShort(offset + 1) != expected.length) {
+			return false;
+		}
+		for (int i = 0; i < expected.length; i++) {
+			if (this.b[offset + 3 + i] != expected[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int readUnsignedShort(int position) {
+		return ((this.b[position] & 0xFF) << 8) | (this.b[position + 1] & 0xFF);
+	}
+
+	private int readInt(int position) {
+		return ((this.b[position] & 0xFF) << 24) | ((this.b[position + 1] & 0xFF) << 16) | ((this.b[position + 2] & 0xFF) << 8) | (this.b[position + 3] & 0xFF);
+	}
+
+	private static byte[] ascii(String name) {
+		return name.getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
@@ -30,9 +30,12 @@ package visitor;
  * THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -49,31 +52,109 @@ import org.objectweb.asm.signature.SignatureReader;
 import org.objectweb.asm.signature.SignatureVisitor;
 
 import data.DependencyElem;
-import data.DependencyMap;
+import data.DependencySink;
+import data.EdgeKind;
+import data.MemberGraph;
 
 /**
  * DependencyVisitor
+ * <p>
+ * Each internal name and descriptor is resolved once per visitor to the canonical elements of the dependency map
+ * and their package ids, lookups are first made by identity (ASM returns the same {@code String} for every use of
+ * a constant pool entry in a class) and then by value. References between packages are counted in primitive
+ * counters, {@link DependencyVisitor#getGlobals()} builds the boxed view on demand.
+ * <p>
+ * Every reference is reported to the dependency map with its {@code EdgeKind}, the kind of the part of the class
+ * being visited, so the map can tell a superclass from a called method or an annotation.
+ * <p>
+ * If the dependency map tracks members, declared methods and fields are added to its {@code MemberGraph} together with
+ * the call and field access sites of each method body.
+ * <p>
  * 
  * @author Eugene Kuleshov
  */
 public class DependencyVisitor extends ClassVisitor {
 	/**
-	 * A map of fully qualified class name and the {@code DependencyElem} associated
+	 * Where the classes and dependencies visited are added, a {@code DependencyMap} or an {@code EdgeCollector}
 	 */
-	private DependencyMap dependencyMap;
+	private DependencySink dependencySink;
 	/**
 	 * The class being visited as a {@code DependencyElem}
 	 */
 	private DependencyElem currentElem;
 	private Set<String> packagesInSourceFolder;
+	/**
+	 * How much of each class is visited
+	 */
+	private final ScanDepth depth;
 	
     Set<String> packages = new HashSet<String>();
 
-    Map<String, Map<String, Integer>> groups = new HashMap<String, Map<String, Integer>>();
-
-    Map<String, Integer> current;
-
+    private static final ClassRef[] NO_REFS = new ClassRef[0];
+
+    /**
+     * Ids of the groups (packages) found, and their names by id
+     */
+    private final Map<String, Integer> groupIds = new HashMap<String, Integer>();
+    private final List<String> groupNames = new ArrayList<String>();
+    /**
+     * The amount of references from each group of a visited class to each group, {@code groupCounts[from][to]},
+     * {@code null} for groups without visited classes
+     */
+    private int[][] groupCounts = new int[16][];
+    /**
+     * The group of the class being visited
+     */
+    private int currentGroup;
+    /**
+     * The kind of the references being added
+     */
+    private EdgeKind kind = EdgeKind.OTHER;
+
+    /**
+     * The member graph of the dependency map, {@code null} if the map doesn't track members, and the id of the method
+     * being visited
+     */
+    private final MemberGraph memberGraph;
+    private int currentMember = -1;
+    /**
+     * Classes referenced by the visited classes, by internal name, and by identity of the internal name for the
+     * class being visited
+     */
+    private final Map<String, ClassRef> classRefs = new HashMap<String, ClassRef>();
+    private final Map<String, ClassRef> classRefsByIdentity = new IdentityHashMap<String, ClassRef>();
+    /**
+     * Classes referenced by each field or method descriptor, by descriptor, and by identity of the descriptor for
+     * the class being visited
+     */
+    private final Map<String, ClassRef[]> descriptorRefs = new HashMap<String, ClassRef[]>();
+    private final Map<String, ClassRef[]> descriptorRefsByIdentity = new IdentityHashMap<String, ClassRef[]>();
+    /**
+     * Visitors used for every annotation, field, method and signature, they keep no state of their own
+     */
+    private final AnnotationDependencyVisitor annotationVisitor = new AnnotationDependencyVisitor();
+    private final FieldDependencyVisitor fieldVisitor = new FieldDependencyVisitor();
+    private final MethodDependencyVisitor methodVisitor = new MethodDependencyVisitor();
+    private final SignatureDependencyVisitor signatureVisitor = new SignatureDependencyVisitor();
+
+    /**
+     * @return the amount of references from the packages of the visited classes to each package
+     */
     public Map<String, Map<String, Integer>> getGlobals() {
+        Map<String, Map<String, Integer>> groups = new HashMap<String, Map<String, Integer>>();
+        for (int from = 0; from < groupNames.size(); from++) {
+            int[] counts = from < groupCounts.length ? groupCounts[from] : null;
+            if (counts == null) {
+                continue;
+            }
+            Map<String, Integer> current = new HashMap<String, Integer>();
+            for (int to = 0; to < counts.length; to++) {
+                if (counts[to] > 0) {
+                    current.put(groupNames.get(to), counts[to]);
+                }
+            }
+            groups.put(groupNames.get(from), current);
+        }
         return groups;
     }
 
@@ -85,34 +166,63 @@ public class DependencyVisitor extends ClassVisitor {
     	return this.packagesInSourceFolder;
     }
 
-    public DependencyVisitor(DependencyMap dependencyMap) {
+    public DependencySink getDependencySink() {
+    	return this.dependencySink;
+    }
+
+    /**
+     * @return the last class visited, or {@code null} if no class was visited yet
+     */
+    public DependencyElem getVisitedClass() {
+    	return this.currentElem;
+    }
+
+    /**
+     * @return how much of each class is visited, classes must be read using {@link ScanDepth#getParsingOptions()}
+     */
+    public ScanDepth getDepth() {
+    	return this.depth;
+    }
+
+    public DependencyVisitor(DependencySink dependencySink) {
+        this(dependencySink, ScanDepth.FULL);
+    }
+
+    public DependencyVisitor(DependencySink dependencySink, ScanDepth depth) {
         super(Opcodes.ASM5);
-        this.dependencyMap = dependencyMap;
+        this.dependencySink = dependencySink;
+        this.memberGraph = dependencySink.getMemberGraph();
         this.packagesInSourceFolder = new HashSet<String>();
+        this.depth = depth;
     }
 
     // ClassVisitor
 
     @Override
     public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
-        String p = getGroupKey(name);
-        String qualifiedClassName = getQualifiedClassName(name);
-        DependencyElem classAsDependencyElem = new DependencyElem(qualifiedClassName);
-        this.currentElem = classAsDependencyElem;
-        this.dependencyMap.addNewDependencyElem(classAsDependencyElem);
+        classRefsByIdentity.clear();
+        descriptorRefsByIdentity.clear();
+        ClassRef visited = classRef(name);
+        this.currentElem = visited.elem;
+        this.currentMember = -1;
         this.packagesInSourceFolder.add(this.currentElem.getPackage());
-        current = groups.get(p);
-        if (current == null) {
-            current = new HashMap<String, Integer>();
-            groups.put(p, current);
+        currentGroup = visited.group;
+        if (currentGroup >= groupCounts.length) {
+            groupCounts = Arrays.copyOf(groupCounts, Math.max(currentGroup + 1, groupCounts.length * 2));
+        }
+        if (groupCounts[currentGroup] == null) {
+            groupCounts[currentGroup] = new int[Math.max(16, groupNames.size())];
         }
 
-        if (signature == null) {
+        if (signature == null || !depth.visitsAll()) {
             if (superName != null) {
+                kind = EdgeKind.EXTENDS;
                 addInternalName(superName);
             }
+            kind = EdgeKind.IMPLEMENTS;
             addInternalNames(interfaces);
         } else {
+            kind = EdgeKind.SIGNATURE;
             addSignature(signature);
         }
     }
@@ -120,41 +230,70 @@ public class DependencyVisitor extends ClassVisitor {
     @Override
     public AnnotationVisitor visitAnnotation(final String desc,
             final boolean visible) {
+        if (!depth.visitsAll()) {
+            return null;
+        }
+        kind = EdgeKind.ANNOTATION;
         addDesc(desc);
-        return new AnnotationDependencyVisitor();
+        return annotationVisitor;
     }
 
     @Override
     public AnnotationVisitor visitTypeAnnotation(final int typeRef,
             final TypePath typePath, final String desc, final boolean visible) {
+        if (!depth.visitsAll()) {
+            return null;
+        }
+        kind = EdgeKind.ANNOTATION;
         addDesc(desc);
-        return new AnnotationDependencyVisitor();
+        return annotationVisitor;
     }
 
     @Override
     public FieldVisitor visitField(final int access, final String name,
             final String desc, final String signature, final Object value) {
-        if (signature == null) {
+        if (!depth.visitsMembers()) {
+            return null;
+        }
+        if (memberGraph != null) {
+            memberGraph.declare(currentElem.getFullyQualifiedName(), name, desc);
+        }
+        kind = EdgeKind.FIELD;
+        if (signature == null || !depth.visitsAll()) {
             addDesc(desc);
         } else {
             addTypeSignature(signature);
         }
+        if (!depth.visitsAll()) {
+            return null;
+        }
         if (value instanceof Type) {
             addType((Type) value);
         }
-        return new FieldDependencyVisitor();
+        return fieldVisitor;
     }
 
     @Override
     public MethodVisitor visitMethod(final int access, final String name,
             final String desc, final String signature, final String[] exceptions) {
-        if (signature == null) {
+        if (!depth.visitsMembers()) {
+            return null;
+        }
+        if (memberGraph != null) {
+            currentMember = memberGraph.declare(currentElem.getFullyQualifiedName(), name, desc);
+        }
+        kind = EdgeKind.METHOD;
+        if (signature == null || !depth.visitsAll()) {
             addMethodDesc(desc);
         } else {
             addSignature(signature);
         }
+        kind = EdgeKind.THROWS;
         addInternalNames(exceptions);
-        return new MethodDependencyVisitor();
+        if (!depth.visitsAll()) {
+            return null;
+        }
+        return methodVisitor;
     }
 
     class AnnotationDependencyVisitor extends AnnotationVisitor {
@@ -166,6 +305,7 @@ public class DependencyVisitor extends ClassVisitor {
         @Override
         public void visit(final String name, final Object value) {
             if (value instanceof Type) {
+                kind = EdgeKind.ANNOTATION;
                 addType((Type) value);
             }
         }
@@ -173,12 +313,14 @@ public class DependencyVisitor extends ClassVisitor {
         @Override
         public void visitEnum(final String name, final String desc,
                 final String value) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
         }
 
         @Override
         public AnnotationVisitor visitAnnotation(final String name,
                 final String desc) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
             return this;
         }
@@ -197,16 +339,18 @@ public class DependencyVisitor extends ClassVisitor {
 
         @Override
         public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
 
         @Override
         public AnnotationVisitor visitTypeAnnotation(final int typeRef,
                 final TypePath typePath, final String desc,
                 final boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
     }
 
@@ -218,81 +362,98 @@ public class DependencyVisitor extends ClassVisitor {
 
         @Override
         public AnnotationVisitor visitAnnotationDefault() {
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
 
         @Override
         public AnnotationVisitor visitAnnotation(final String desc,
                 final boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
 
         @Override
         public AnnotationVisitor visitTypeAnnotation(final int typeRef,
                 final TypePath typePath, final String desc,
                 final boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
 
         @Override
         public AnnotationVisitor visitParameterAnnotation(final int parameter,
                 final String desc, final boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
 
         @Override
         public void visitTypeInsn(final int opcode, final String type) {
-            addType(Type.getObjectType(type));
+            kind = EdgeKind.TYPE_INSTRUCTION;
+            addInternalName(type);
         }
 
         @Override
         public void visitFieldInsn(final int opcode, final String owner,
                 final String name, final String desc) {
+            kind = EdgeKind.FIELD_ACCESS;
             addInternalName(owner);
             addDesc(desc);
+            addMemberEdge(owner, name, desc);
         }
 
         @Override
         public void visitMethodInsn(final int opcode, final String owner,
                 final String name, final String desc, final boolean itf) {
+            kind = EdgeKind.CALL;
             addInternalName(owner);
             addMethodDesc(desc);
+            addMemberEdge(owner, name, desc);
         }
 
         @Override
         public void visitInvokeDynamicInsn(String name, String desc,
                 Handle bsm, Object... bsmArgs) {
+            kind = EdgeKind.CALL;
             addMethodDesc(desc);
             addConstant(bsm);
             for (int i = 0; i < bsmArgs.length; i++) {
                 addConstant(bsmArgs[i]);
+                if (bsmArgs[i] instanceof Handle) {
+                    Handle h = (Handle) bsmArgs[i];
+                    addMemberEdge(h.getOwner(), h.getName(), h.getDesc());
+                }
             }
         }
 
         @Override
         public void visitLdcInsn(final Object cst) {
+            kind = EdgeKind.LDC;
             addConstant(cst);
         }
 
         @Override
         public void visitMultiANewArrayInsn(final String desc, final int dims) {
+            kind = EdgeKind.TYPE_INSTRUCTION;
             addDesc(desc);
         }
 
         @Override
         public AnnotationVisitor visitInsnAnnotation(int typeRef,
                 TypePath typePath, String desc, boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
 
         @Override
         public void visitLocalVariable(final String name, final String desc,
                 final String signature, final Label start, final Label end,
                 final int index) {
+            kind = EdgeKind.LOCAL_VARIABLE;
             addTypeSignature(signature);
         }
 
@@ -300,14 +461,16 @@ public class DependencyVisitor extends ClassVisitor {
         public AnnotationVisitor visitLocalVariableAnnotation(int typeRef,
                 TypePath typePath, Label[] start, Label[] end, int[] index,
                 String desc, boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
 
         @Override
         public void visitTryCatchBlock(final Label start, final Label end,
                 final Label handler, final String type) {
             if (type != null) {
+                kind = EdgeKind.CATCH;
                 addInternalName(type);
             }
         }
@@ -315,67 +478,210 @@ public class DependencyVisitor extends ClassVisitor {
         @Override
         public AnnotationVisitor visitTryCatchAnnotation(int typeRef,
                 TypePath typePath, String desc, boolean visible) {
+            kind = EdgeKind.ANNOTATION;
             addDesc(desc);
-            return new AnnotationDependencyVisitor();
+            return annotationVisitor;
         }
     }
 
     class SignatureDependencyVisitor extends SignatureVisitor {
 
         String signatureClassName;
+        /**
+         * The amount of class types being visited, class types visited inside another one are type arguments
+         */
+        int classTypes;
 
         public SignatureDependencyVisitor() {
             super(Opcodes.ASM5);
         }
 
+        @Override
+        public SignatureVisitor visitClassBound() {
+            kind = EdgeKind.SIGNATURE;
+            return this;
+        }
+
+        @Override
+        public SignatureVisitor visitInterfaceBound() {
+            kind = EdgeKind.SIGNATURE;
+            return this;
+        }
+
+        @Override
+        public SignatureVisitor visitSuperclass() {
+            kind = EdgeKind.EXTENDS;
+            return this;
+        }
+
+        @Override
+        public SignatureVisitor visitInterface() {
+            kind = EdgeKind.IMPLEMENTS;
+            return this;
+        }
+
+        @Override
+        public SignatureVisitor visitParameterType() {
+            kind = EdgeKind.METHOD;
+            return this;
+        }
+
+        @Override
+        public SignatureVisitor visitReturnType() {
+            kind = EdgeKind.METHOD;
+            return this;
+        }
+
+        @Override
+        public SignatureVisitor visitExceptionType() {
+            kind = EdgeKind.THROWS;
+            return this;
+        }
+
         @Override
         public void visitClassType(final String name) {
             signatureClassName = name;
-            addInternalName(name);
+            addSignatureName(name, classTypes > 0);
+            classTypes++;
         }
 
         @Override
         public void visitInnerClassType(final String name) {
             signatureClassName = signatureClassName + "$" + name;
-            addInternalName(signatureClassName);
+            addSignatureName(signatureClassName, classTypes > 1);
+        }
+
+        @Override
+        public void visitEnd() {
+            classTypes--;
+        }
+
+        private void addSignatureName(final String name, final boolean typeArgument) {
+            if (typeArgument) {
+                EdgeKind declared = kind;
+                kind = EdgeKind.SIGNATURE;
+                addInternalName(name);
+                kind = declared;
+            } else {
+                addInternalName(name);
+            }
         }
     }
 
     // ---------------------------------------------
 
-    private String getGroupKey(String name) {
-        int n = name.lastIndexOf('/');
-        String group;
-        if (n > -1) {
-            group = name.substring(0, n);
-        } else {
-        	group = name;
+    /**
+     * A class referenced by the visited classes
+     */
+    private static final class ClassRef {
+
+        /**
+         * The canonical element of the class
+         */
+        final DependencyElem elem;
+        /**
+         * The id of the group (package) of the class
+         */
+        final int group;
+
+        ClassRef(DependencyElem elem, int group) {
+            this.elem = elem;
+            this.group = group;
         }
-        packages.add(group);
-        return group;
     }
-    
-    private String getQualifiedClassName(String name) {
-    	return name.replaceAll(File.separator, ".");
+
+    /**
+     * @param name	:	the internal name of a class
+     * @return the referenced class
+     */
+    private ClassRef classRef(final String name) {
+        ClassRef ref = classRefsByIdentity.get(name);
+        if (ref == null) {
+            ref = classRefs.get(name);
+            if (ref == null) {
+                ref = new ClassRef(dependencySink.getOrCreateDependencyElem(name.replace('/', '.')), groupId(name));
+                classRefs.put(name, ref);
+            }
+            classRefsByIdentity.put(name, ref);
+        }
+        return ref;
+    }
+
+    /**
+     * @param desc	:	a field or method descriptor
+     * @return the classes referenced by the descriptor, in order and with repetitions
+     */
+    private ClassRef[] descriptorRefs(final String desc) {
+        ClassRef[] refs = descriptorRefsByIdentity.get(desc);
+        if (refs == null) {
+            refs = descriptorRefs.get(desc);
+            if (refs == null) {
+                refs = parseDescriptor(desc);
+                descriptorRefs.put(desc, refs);
+            }
+            descriptorRefsByIdentity.put(desc, refs);
+        }
+        return refs;
+    }
+
+    private ClassRef[] parseDescriptor(final String desc) {
+        List<ClassRef> refs = null;
+        int position = 0;
+        while (position < desc.length()) {
+            if (desc.charAt(position) == 'L') {
+                int end = desc.indexOf(';', position + 1);
+                if (refs == null) {
+                    refs = new ArrayList<ClassRef>(4);
+                }
+                refs.add(classRef(desc.substring(position + 1, end)));
+                position = end + 1;
+            } else {
+                position++;
+            }
+        }
+        return refs == null ? NO_REFS : refs.toArray(new ClassRef[refs.size()]);
+    }
+
+    /**
+     * @param name	:	the internal name of a class
+     * @return the id of the group of the class, its package or the name itself for classes in the default package
+     */
+    private int groupId(final String name) {
+        int n = name.lastIndexOf('/');
+        String group = n > -1 ? name.substring(0, n) : name;
+        Integer id = groupIds.get(group);
+        if (id == null) {
+            id = groupNames.size();
+            groupIds.put(group, id);
+            groupNames.add(group);
+            packages.add(group);
+        }
+        return id;
+    }
+
+    private void addRef(final ClassRef ref) {
+        this.dependencySink.addNewDependency(this.currentElem, ref.elem, kind);
+        int[] counts = groupCounts[currentGroup];
+        if (ref.group >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(ref.group + 1, counts.length * 2));
+            groupCounts[currentGroup] = counts;
+        }
+        counts[ref.group]++;
     }
 
     private void addName(final String name) {
         if (name == null) {
             return;
         }
-        String fullyQualifiedName = getQualifiedClassName(name);
-        DependencyElem classAsDependencyElem = new DependencyElem(fullyQualifiedName);
-        this.dependencyMap.addNewDependency(this.currentElem, classAsDependencyElem);
-        String p = getGroupKey(name);
-        if (current.containsKey(p)) {
-            current.put(p, current.get(p) + 1);
-        } else {
-            current.put(p, 1);
-        }
+        addRef(classRef(name));
     }
 
     void addInternalName(final String name) {
-        addType(Type.getObjectType(name));
+        if (name.charAt(0) == '[') {
+            addDesc(name);
+        } else {
+            addName(name);
+        }
     }
 
     private void addInternalNames(final String[] names) {
@@ -385,15 +691,13 @@ public class DependencyVisitor extends ClassVisitor {
     }
 
     void addDesc(final String desc) {
-        addType(Type.getType(desc));
+        for (ClassRef ref : descriptorRefs(desc)) {
+            addRef(ref);
+        }
     }
 
     void addMethodDesc(final String desc) {
-        addType(Type.getReturnType(desc));
-        Type[] types = Type.getArgumentTypes(desc);
-        for (int i = 0; i < types.length; i++) {
-            addType(types[i]);
-        }
+        addDesc(desc);
     }
 
     void addType(final Type t) {
@@ -412,15 +716,28 @@ public class DependencyVisitor extends ClassVisitor {
 
     private void addSignature(final String signature) {
         if (signature != null) {
-            new SignatureReader(signature)
-                    .accept(new SignatureDependencyVisitor());
+            signatureVisitor.classTypes = 0;
+            new SignatureReader(signature).accept(signatureVisitor);
         }
     }
 
     void addTypeSignature(final String signature) {
         if (signature != null) {
-            new SignatureReader(signature)
-                    .acceptType(new SignatureDependencyVisitor());
+            signatureVisitor.classTypes = 0;
+            new SignatureReader(signature).acceptType(signatureVisitor);
+        }
+    }
+
+    /**
+     * Records a call or field access site of the method being visited, if the dependency map tracks members
+     *
+     * @param owner	:	the internal name of the owner of the member used
+     * @param name	:	the name of the member used
+     * @param desc	:	the descriptor of the member used
+     */
+    private void addMemberEdge(final String owner, final String name, final String desc) {
+        if (memberGraph != null && currentMember >= 0 && owner.charAt(0) != '[') {
+            memberGraph.addEdge(currentMember, classRef(owner).elem.getFullyQualifiedName(), name, desc);
         }
     }
 
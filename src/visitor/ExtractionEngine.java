@@ -0,0 +1,20 @@
+package visitor;
+
+/**
+ * The engines available to collect the dependencies of a class file
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public enum ExtractionEngine {
+
+	/**
+	 * An ASM {@code ClassReader} with a {@code DependencyVisitor}
+	 */
+	ASM_VISITOR,
+	/**
+	 * A {@code ConstantPoolExtractor}, reading the class file directly from a byte array
+	 */
+	CONSTANT_POOL
+
+}
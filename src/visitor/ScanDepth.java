@@ -0,0 +1,59 @@
+package visitor;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * How much of each class file is visited to collect dependencies
+ * <p>
+ * Lower levels find fewer dependencies but are several times faster, since method bodies, frames and debug
+ * information are skipped by the {@code ClassReader} and no method, annotation or signature visitor is created.
+ * <p>
+ *
+ * @author Simon Emmanuel Gutierrez Brida
+ * @version 0.1u
+ */
+public enum ScanDepth {
+
+	/**
+	 * Only the superclass and the implemented interfaces
+	 */
+	HEADER(ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES),
+	/**
+	 * The superclass, the implemented interfaces and the types used in field and method declarations (field types,
+	 * parameter and return types and declared exceptions), generic signatures and annotations are not visited so only
+	 * erased types are found
+	 */
+	SIGNATURES(ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES),
+	/**
+	 * Everything, including generic signatures, annotations and the types used inside method bodies
+	 */
+	FULL(0);
+
+	private final int parsingOptions;
+
+	private ScanDepth(int parsingOptions) {
+		this.parsingOptions = parsingOptions;
+	}
+
+	/**
+	 * @return the options to use with {@link ClassReader#accept(org.objectweb.asm.ClassVisitor, int)}
+	 */
+	public int getParsingOptions() {
+		return this.parsingOptions;
+	}
+
+	/**
+	 * @return {@code true} if field and method declarations are visited
+	 */
+	public boolean visitsMembers() {
+		return this != HEADER;
+	}
+
+	/**
+	 * @return {@code true} if generic signatures, annotations and method bodies are visited
+	 */
+	public boolean visitsAll() {
+		return this == FULL;
+	}
+
+}